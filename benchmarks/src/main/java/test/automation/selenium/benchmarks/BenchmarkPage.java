@@ -0,0 +1,115 @@
+package test.automation.selenium.benchmarks;
+
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.How;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import test.automation.selenium.core.AbstractWebPage;
+
+/**
+ * PageObject for the main benchmark fixture page. Its fields mirror the mix of
+ * lookups used by our real page objects (by id / name, by annotation, cached or not).
+ *
+ */
+public class BenchmarkPage extends AbstractWebPage {
+	/** The Constant expected title for this page. */
+	public static final String PAGE_TITLE = "Harness Benchmark Page";
+
+	/** The search form itself. */
+	@CacheLookup
+	WebElement searchForm;
+
+	/** The search input. */
+	@CacheLookup
+	WebElement query;
+
+	/** The search button. */
+	WebElement search;
+
+	/** The results container. */
+	@FindBy(how = How.ID, using = "content")
+	WebElement content;
+
+	/** Each of the results. */
+	@FindBy(how = How.CLASS_NAME, using = "result")
+	List<WebElement> results;
+
+	/** The link that opens a new window. */
+	@FindBy(how = How.ID, using = "popup")
+	@CacheLookup
+	WebElement popupLink;
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebPage#getExpectedPageTitle()
+	 */
+	@Override
+	protected String getExpectedPageTitle() {
+		return PAGE_TITLE;
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebPage#getStartUrl()
+	 */
+	@Override
+	protected String getStartUrl() {
+		return FixtureServer.getPageUrl();
+	}
+
+	/**
+	 * Instantiates a new benchmark page.
+	 *
+	 * @param driver the driver
+	 */
+	public BenchmarkPage(WebDriver driver) {
+		super(driver);
+	}
+
+	/**
+	 * Instantiates a new benchmark page.
+	 *
+	 * @param driver the driver
+	 * @param wait the wait
+	 */
+	public BenchmarkPage(WebDriver driver, WebDriverWait wait) {
+		super(driver, wait);
+	}
+
+	/**
+	 * Waits for the search controls the way our page objects used to: visibility, then clickability, one element at a time.
+	 *
+	 * @return the benchmark page
+	 */
+	public BenchmarkPage awaitSearchControlsOneByOne() {
+		wait.until(ExpectedConditions.visibilityOf(this.query));
+		wait.until(ExpectedConditions.elementToBeClickable(this.query));
+		wait.until(ExpectedConditions.visibilityOf(this.search));
+		wait.until(ExpectedConditions.elementToBeClickable(this.search));
+		return this;
+	}
+
+	/**
+	 * Waits for the search controls with a single composite condition.
+	 *
+	 * @return the benchmark page
+	 */
+	public BenchmarkPage awaitSearchControls() {
+		this.waitUntilInteractable(this.query, this.search);
+		return this;
+	}
+
+	/**
+	 * Clicks the link that opens the popup page in a new window.
+	 *
+	 * @return the benchmark page
+	 */
+	public BenchmarkPage openPopup() {
+		this.popupLink.click();
+		return this;
+	}
+}
@@ -0,0 +1,54 @@
+package test.automation.selenium.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>The entry point of target/benchmarks.jar. Accepts all of the usual JMH command line options,
+ * but writes the results as JSON to {@value #DEFAULT_RESULT_FILE} unless told otherwise, so that
+ * every run leaves behind a machine-readable baseline to compare against.</p>
+ *
+ */
+public final class BenchmarkRunner {
+	/** Where to write the results, unless overridden with -rff */
+	private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	/** Static entry point only */
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args JMH command line options (e.g. a regular expression selecting the benchmarks to run)
+	 * @throws RunnerException if the benchmarks fail to run
+	 * @throws CommandLineOptionException if the command line options are invalid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+				|| commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+			// Nothing to run: let JMH itself handle these
+			try {
+				org.openjdk.jmh.Main.main(args);
+			} catch (Exception e) {
+				throw new RunnerException(e);
+			}
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,32 @@
+package test.automation.selenium.benchmarks;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.AbstractSeleniumTestBase;
+import test.automation.selenium.core.BrowserType;
+
+/**
+ * Gives benchmarks access to the screenshot handling of {@link AbstractSeleniumTestBase},
+ * outside of a TestNG run.
+ *
+ */
+public class BenchmarkTestBase extends AbstractSeleniumTestBase {
+	/**
+	 * Creates a test base that uses the given (HtmlUnit) driver.
+	 *
+	 * @param driver the driver to take screenshots with
+	 */
+	public BenchmarkTestBase(WebDriver driver) {
+		this.browserType = BrowserType.HTMLUNIT;
+		this.driver = driver;
+	}
+
+	/**
+	 * Takes a screenshot of the current page, exactly as is done after every test method.
+	 *
+	 * @param destinationFileName the name of the file to save
+	 */
+	public void saveScreenshot(String destinationFileName) {
+		this.takeScreenshotOfPage(destinationFileName);
+	}
+}
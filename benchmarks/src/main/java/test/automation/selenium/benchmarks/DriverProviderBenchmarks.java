@@ -0,0 +1,88 @@
+package test.automation.selenium.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
+
+/**
+ * <p>Measures {@link AbstractWebDriverProvider#getDriver()} for HtmlUnit, both cold (every
+ * call launches a new browser) and warm (every call reuses the browser returned to the pool
+ * by the previous call).</p>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DriverProviderBenchmarks {
+	/** The provider under test */
+	private AbstractWebDriverProvider provider;
+
+	/** The driver checked out by the last cold call, quit outside of the measurement */
+	private WebDriver coldDriver;
+
+	/**
+	 * Looks up the provider, starting from an empty pool. The first warm call (made during
+	 * the warm-up iterations) launches the browser that every later warm call reuses.
+	 */
+	@Setup(Level.Trial)
+	public void emptyPool() {
+		this.provider = BrowserType.HTMLUNIT.getProvider();
+		this.provider.shutdown();
+	}
+
+	/**
+	 * Quits every browser still held by the pool.
+	 */
+	@TearDown(Level.Trial)
+	public void shutdownPool() {
+		this.provider.shutdown();
+	}
+
+	/**
+	 * Quits the browser launched by the last cold call, so that the next call must launch another.
+	 */
+	@TearDown(Level.Invocation)
+	public void discardColdDriver() {
+		if (this.coldDriver != null) {
+			this.provider.discardDriver(this.coldDriver);
+			this.coldDriver = null;
+		}
+	}
+
+	/**
+	 * Checking out a driver when none are idle (a full browser launch).
+	 */
+	@Benchmark
+	public WebDriver getDriverCold() {
+		this.coldDriver = this.provider.getDriver();
+		return this.coldDriver;
+	}
+
+	/**
+	 * Checking out (and returning) a driver when one is idle in the pool.
+	 */
+	@Benchmark
+	public WebDriver getDriverWarm() {
+		WebDriver driver = this.provider.getDriver();
+		this.provider.releaseDriver(driver);
+		return driver;
+	}
+}
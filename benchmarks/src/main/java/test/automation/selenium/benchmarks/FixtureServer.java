@@ -0,0 +1,58 @@
+package test.automation.selenium.benchmarks;
+
+import java.io.IOException;
+
+import test.automation.selenium.core.server.EmbeddedHttpServer;
+
+/**
+ * <p>Serves the benchmark fixture pages from an {@link EmbeddedHttpServer}, started on first use
+ * and shared by every benchmark in the JVM.</p>
+ *
+ */
+public final class FixtureServer {
+	/** The classpath directory holding our fixture pages */
+	private static final String FIXTURE_DIR = "fixtures/benchmark/";
+
+	/** The content type of every fixture page */
+	private static final String HTML = "text/html; charset=utf-8";
+
+	/** The shared server */
+	private static final EmbeddedHttpServer server = start();
+
+	/** Static helpers only */
+	private FixtureServer() {
+	}
+
+	/**
+	 * Returns the URL of the main fixture page.
+	 *
+	 * @return the URL of the main fixture page
+	 */
+	public static String getPageUrl() {
+		return server.getBaseUrl() + "/page.html";
+	}
+
+	/**
+	 * Returns the URL of the page opened in a new window by the main fixture page.
+	 *
+	 * @return the URL of the popup fixture page
+	 */
+	public static String getPopupUrl() {
+		return server.getBaseUrl() + "/popup.html";
+	}
+
+	/**
+	 * Starts the shared server.
+	 */
+	private static EmbeddedHttpServer start() {
+		try {
+			EmbeddedHttpServer started = new EmbeddedHttpServer(0)
+					.addResource("/page.html", FIXTURE_DIR + "page.html", HTML)
+					.addResource("/popup.html", FIXTURE_DIR + "popup.html", HTML);
+			started.start();
+			return started;
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to start the benchmark fixture server", e);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package test.automation.selenium.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+/**
+ * <p>Measures the per-page and per-test costs that the harness adds on top of the browser:
+ * constructing a page object, explicit waits that are already satisfied, and saving
+ * the screenshot taken after every test method.</p>
+ *
+ * <p>Each thread drives its own HtmlUnit browser, already sitting on the fixture page.</p>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PageBenchmarks {
+	/** Number of seconds to wait, matching our page objects */
+	private static final int WAIT_SECONDS = 15;
+
+	/** The browser for this thread */
+	private WebDriver driver;
+
+	/** The test base used to save screenshots */
+	private BenchmarkTestBase testBase;
+
+	/** A page object on the fixture page */
+	private BenchmarkPage page;
+
+	/**
+	 * Launches the browser and loads the fixture page.
+	 */
+	@Setup(Level.Trial)
+	public void launchBrowser() {
+		this.driver = new ScreenshotHtmlUnitDriver();
+		this.driver.get(FixtureServer.getPageUrl());
+		this.testBase = new BenchmarkTestBase(this.driver);
+		this.page = new BenchmarkPage(this.driver);
+	}
+
+	/**
+	 * Quits the browser.
+	 */
+	@TearDown(Level.Trial)
+	public void quitBrowser() {
+		this.driver.quit();
+	}
+
+	/**
+	 * Binding the element fields, plus the URL and title waits done by every page object.
+	 */
+	@Benchmark
+	public BenchmarkPage constructPage() {
+		return new BenchmarkPage(this.driver);
+	}
+
+	/**
+	 * One round-trip of an explicit wait whose condition already holds.
+	 */
+	@Benchmark
+	public WebElement waitForVisibleElement() {
+		return new WebDriverWait(this.driver, WAIT_SECONDS).until(ExpectedConditions.visibilityOfElementLocated(By.id("content")));
+	}
+
+	/**
+	 * Waiting for two elements to be visible and clickable, one condition at a time.
+	 */
+	@Benchmark
+	public BenchmarkPage waitForControlsOneByOne() {
+		return this.page.awaitSearchControlsOneByOne();
+	}
+
+	/**
+	 * Waiting for the same two elements with a single composite condition.
+	 */
+	@Benchmark
+	public BenchmarkPage waitForControlsInteractable() {
+		return this.page.awaitSearchControls();
+	}
+
+	/**
+	 * Saving the screenshot taken after every test method (the capture itself is canned).
+	 */
+	@Benchmark
+	public void takeScreenshotOfPage() {
+		this.testBase.saveScreenshot("benchmark-" + Thread.currentThread().getId() + ".png");
+	}
+}
@@ -0,0 +1,73 @@
+package test.automation.selenium.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * <p>An HtmlUnitDriver that can "take" screenshots. HtmlUnit does not render pages, so every
+ * screenshot is the same pre-rendered, desktop-sized PNG. This leaves only the harness's own
+ * cost of handling a screenshot (conversion, copying, and writing it out) to be measured.</p>
+ *
+ */
+public class ScreenshotHtmlUnitDriver extends HtmlUnitDriver implements TakesScreenshot {
+	/** The width of the canned screenshot, in pixels */
+	private static final int WIDTH = 1280;
+
+	/** The height of the canned screenshot, in pixels */
+	private static final int HEIGHT = 1024;
+
+	/** The canned screenshot, encoded as a PNG */
+	private static final byte[] SCREENSHOT = renderScreenshot();
+
+	/**
+	 * Creates a new driver with JavaScript enabled, as our HtmlUnit provider does.
+	 */
+	public ScreenshotHtmlUnitDriver() {
+		super(true);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.TakesScreenshot#getScreenshotAs(org.openqa.selenium.OutputType)
+	 */
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		return target.convertFromPngBytes(SCREENSHOT);
+	}
+
+	/**
+	 * Draws something resembling a page (text-like rows on a white background), so that the PNG
+	 * compresses about as well as a real screenshot would.
+	 */
+	private static byte[] renderScreenshot() {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, WIDTH, HEIGHT);
+			graphics.setColor(Color.DARK_GRAY);
+			for (int y = 40; y < HEIGHT; y += 24) {
+				graphics.drawString("The quick brown fox jumps over the lazy dog " + y, 40, y);
+			}
+		} finally {
+			graphics.dispose();
+		}
+
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(image, "png", png);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to render the benchmark screenshot", e);
+		}
+		return png.toByteArray();
+	}
+}
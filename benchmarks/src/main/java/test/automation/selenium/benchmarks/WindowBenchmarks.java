@@ -0,0 +1,90 @@
+package test.automation.selenium.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>Measures {@link test.automation.selenium.core.AbstractWebPage#switchToNewWindowOrTab()}
+ * after a link has opened a new window.</p>
+ *
+ * <p>Opening the window and closing it again happen outside of the measurement, around every call.</p>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WindowBenchmarks {
+	/** The browser for this thread */
+	private WebDriver driver;
+
+	/** The handle of the window holding the fixture page */
+	private String originalHandle;
+
+	/** The fixture page */
+	private BenchmarkPage page;
+
+	/**
+	 * Launches the browser and loads the fixture page.
+	 */
+	@Setup(Level.Trial)
+	public void launchBrowser() {
+		this.driver = new ScreenshotHtmlUnitDriver();
+		this.driver.get(FixtureServer.getPageUrl());
+		this.originalHandle = this.driver.getWindowHandle();
+		this.page = new BenchmarkPage(this.driver);
+	}
+
+	/**
+	 * Quits the browser.
+	 */
+	@TearDown(Level.Trial)
+	public void quitBrowser() {
+		this.driver.quit();
+	}
+
+	/**
+	 * Opens a new window from the fixture page.
+	 */
+	@Setup(Level.Invocation)
+	public void openPopup() {
+		this.page.openPopup();
+	}
+
+	/**
+	 * Closes every window but the fixture page, and switches back to it.
+	 */
+	@TearDown(Level.Invocation)
+	public void closePopup() {
+		for (String handle : this.driver.getWindowHandles()) {
+			if (!handle.equals(this.originalHandle)) {
+				this.driver.switchTo().window(handle);
+				this.driver.close();
+			}
+		}
+		this.driver.switchTo().window(this.originalHandle);
+	}
+
+	/**
+	 * Waiting for, and switching to, the newly-opened window.
+	 */
+	@Benchmark
+	public String switchToNewWindowOrTab() {
+		return this.page.switchToNewWindowOrTab();
+	}
+}
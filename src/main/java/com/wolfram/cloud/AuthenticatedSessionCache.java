@@ -0,0 +1,215 @@
+package com.wolfram.cloud;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.google.common.base.Predicate;
+
+import test.automation.selenium.core.EventDrivenWait;
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>Caches the cookies of an authenticated Wolfram session so that each account only has to sign in
+ * through the {@link SignInPage} form once per run. Any other driver can then be signed in by injecting
+ * those cookies, and lands directly on the {@link DevPlatformHomePage}.</p>
+ *
+ * <p>A cached session is discarded (and the account signed in again through the real form) once it is
+ * older than <code>wolfram.session.cache.max.age.minutes</code> (default 30), once any of its cookies
+ * expire, or as soon as injecting it fails to land the driver on the home page.</p>
+ *
+ */
+public final class AuthenticatedSessionCache {
+	/**
+	 * A page on each domain that does not redirect to the sign-in page. WebDriver can only read
+	 * and write cookies for the domain that is currently loaded, so we briefly visit these pages
+	 * to capture / inject the cookies for each domain.
+	 */
+	private static final String[] COOKIE_DOMAIN_URLS = {
+		DevPlatformHomePage.BASE_URL + "/robots.txt",
+		SignInPage.BASE_URL + "/robots.txt"
+	};
+
+	/** Number of seconds to wait for a redirect to either the home page or the sign-in page */
+	private static final int REDIRECT_WAIT_SECONDS = 15;
+
+	/** The current singleton instance */
+	private static final AuthenticatedSessionCache instance = new AuthenticatedSessionCache();
+
+	/** The cached session for each account, keyed by email address */
+	private final ConcurrentMap<String, CachedSession> sessions = new ConcurrentHashMap<String, CachedSession>();
+
+	/** One lock per account, so that concurrent callers sign each account in only once */
+	private final ConcurrentMap<String, Object> signInLocks = new ConcurrentHashMap<String, Object>();
+
+	/** How long a captured session may be reused */
+	private final long maxAgeMillis = TimeUnit.MINUTES.toMillis(HarnessSettings.getLong("wolfram.session.cache.max.age.minutes", 30));
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static AuthenticatedSessionCache getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the cache.
+	 */
+	private AuthenticatedSessionCache() {
+	}
+
+	/**
+	 * Navigates the given driver to the Wolfram Development Platform home page, signed in as the given account.
+	 * The cached session for the account is reused if possible; otherwise the account is signed in through the
+	 * sign-in form and its session is cached for the next caller.
+	 *
+	 * @param driver the driver to sign in
+	 * @param email the email of the account
+	 * @param password the password of the account
+	 * @return the dev platform home page
+	 */
+	public DevPlatformHomePage openDevPlatformHome(WebDriver driver, String email, String password) {
+		CachedSession session = sessions.get(email);
+		if (session != null && session.isValid() && restore(driver, session)) {
+			return new DevPlatformHomePage(driver);
+		}
+
+		synchronized (lockFor(email)) {
+			// Another thread may have signed this account in while we were waiting
+			CachedSession latest = sessions.get(email);
+			if (latest != null && latest != session && latest.isValid() && restore(driver, latest)) {
+				return new DevPlatformHomePage(driver);
+			}
+			sessions.remove(email);
+
+			// This driver may already be signed in (e.g. by an earlier test on the same browser)
+			driver.get(DevPlatformHomePage.START_URL);
+			if (!awaitSignedIn(driver)) {
+				new SignInPage(driver).signInAs(email, password);
+			}
+
+			sessions.put(email, capture(driver));
+			driver.get(DevPlatformHomePage.START_URL);
+			return new DevPlatformHomePage(driver);
+		}
+	}
+
+	/**
+	 * Forgets the cached session for the given account, forcing the next caller to sign in again.
+	 *
+	 * @param email the email of the account
+	 */
+	public void invalidate(String email) {
+		sessions.remove(email);
+	}
+
+	/**
+	 * Returns the lock guarding sign-in for the given account.
+	 */
+	private Object lockFor(String email) {
+		Object lock = new Object();
+		Object existing = signInLocks.putIfAbsent(email, lock);
+		return (existing == null) ? lock : existing;
+	}
+
+	/**
+	 * Injects the cookies of a cached session into the given driver.
+	 *
+	 * @return true iff the driver is now on the home page, signed in
+	 */
+	private boolean restore(WebDriver driver, CachedSession session) {
+		try {
+			for (Map.Entry<String, List<Cookie>> domain : session.cookies.entrySet()) {
+				driver.get(domain.getKey());
+				for (Cookie cookie : domain.getValue()) {
+					driver.manage().addCookie(cookie);
+				}
+			}
+
+			driver.get(DevPlatformHomePage.START_URL);
+			return awaitSignedIn(driver);
+		} catch (WebDriverException e) {
+			// Fall back to signing in through the form
+			return false;
+		}
+	}
+
+	/**
+	 * Captures the cookies for every Wolfram domain from a signed-in driver.
+	 */
+	private CachedSession capture(WebDriver driver) {
+		Map<String, List<Cookie>> cookies = new LinkedHashMap<String, List<Cookie>>();
+		for (String url : COOKIE_DOMAIN_URLS) {
+			driver.get(url);
+			cookies.put(url, new ArrayList<Cookie>(driver.manage().getCookies()));
+		}
+		return new CachedSession(cookies);
+	}
+
+	/**
+	 * Waits for the driver to settle on either the home page or the sign-in page.
+	 *
+	 * @return true if the driver landed on the home page, false if it was sent to sign in
+	 */
+	private boolean awaitSignedIn(WebDriver driver) {
+		new EventDrivenWait(driver, REDIRECT_WAIT_SECONDS).until(new Predicate<WebDriver>() {
+			public boolean apply(WebDriver d) {
+				String title = d.getTitle();
+				return title != null && (title.contains(DevPlatformHomePage.PAGE_TITLE) || title.contains(SignInPage.PAGE_TITLE));
+			}
+		});
+		return driver.getTitle().contains(DevPlatformHomePage.PAGE_TITLE);
+	}
+
+	/**
+	 * The cookies of one authenticated session, grouped by the page used to read / write them.
+	 */
+	private final class CachedSession {
+		/** The time at which this session was captured */
+		private final long capturedAt = System.currentTimeMillis();
+
+		/** The cookies for each domain */
+		private final Map<String, List<Cookie>> cookies;
+
+		/**
+		 * Creates a new cached session.
+		 *
+		 * @param cookies the cookies for each domain
+		 */
+		private CachedSession(Map<String, List<Cookie>> cookies) {
+			this.cookies = Collections.unmodifiableMap(cookies);
+		}
+
+		/**
+		 * Returns true if this session is young enough to reuse and none of its cookies have expired.
+		 */
+		private boolean isValid() {
+			long now = System.currentTimeMillis();
+			if (now - capturedAt > maxAgeMillis) {
+				return false;
+			}
+
+			Date nowDate = new Date(now);
+			for (List<Cookie> domainCookies : cookies.values()) {
+				for (Cookie cookie : domainCookies) {
+					if (cookie.getExpiry() != null && cookie.getExpiry().before(nowDate)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.wolfram.cloud;
+
+import java.io.IOException;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+import com.wolfram.cloud.standin.CloudStandInServer;
+
+import test.automation.selenium.core.HarnessSettings;
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>The base URLs that our page objects point to. By default these are the live Wolfram Cloud sites,
+ * but each can be overridden (see {@link HarnessSettings}), or every one of them can be pointed at a
+ * {@link CloudStandInServer} started inside of this JVM:
+ *   <ul>
+ *     <li><code>wolfram.cloud.standin</code> - set to true to serve every page from a local stand-in server (default false)</li>
+ *     <li><code>wolfram.cloud.standin.port</code> - the port for the stand-in server (default 0, any free port)</li>
+ *     <li><code>wolfram.cloud.landing.url</code> - the landing page (default http://www.wolframcloud.com/)</li>
+ *     <li><code>wolfram.cloud.user.url</code> - the sign-in site (default https://user.wolfram.com)</li>
+ *     <li><code>wolfram.cloud.dev.url</code> - the Wolfram Development Platform (default https://dev.wolframcloud.com)</li>
+ *   </ul>
+ * </p>
+ *
+ * <p>The stand-in server accepts the valid account from <code>credentials.properties</code>, if present.</p>
+ *
+ */
+public final class CloudEndpoints {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(CloudEndpoints.class);
+
+	/** The default URL of the landing page */
+	private static final String DEFAULT_LANDING_URL = "http://www.wolframcloud.com/";
+
+	/** The default base URL of the sign-in site */
+	private static final String DEFAULT_USER_URL = "https://user.wolfram.com";
+
+	/** The default base URL of the Wolfram Development Platform */
+	private static final String DEFAULT_DEV_URL = "https://dev.wolframcloud.com";
+
+	/** The name of the .properties file holding our test accounts */
+	private static final String CREDENTIALS_BUNDLE_NAME = "credentials";
+
+	/** The local stand-in server, or null if we are testing against the live site */
+	private static final CloudStandInServer standIn = startStandInIfEnabled();
+
+	/** The URL of the landing page */
+	private static final String LANDING_URL = (standIn != null) ? standIn.getLandingUrl()
+			: HarnessSettings.getString("wolfram.cloud.landing.url", DEFAULT_LANDING_URL);
+
+	/** The base URL of the sign-in site */
+	private static final String USER_URL = (standIn != null) ? standIn.getUserUrl()
+			: HarnessSettings.getString("wolfram.cloud.user.url", DEFAULT_USER_URL);
+
+	/** The base URL of the Wolfram Development Platform */
+	private static final String DEV_URL = (standIn != null) ? standIn.getDevUrl()
+			: HarnessSettings.getString("wolfram.cloud.dev.url", DEFAULT_DEV_URL);
+
+	/** Static helpers only */
+	private CloudEndpoints() {
+	}
+
+	/**
+	 * Returns the URL of the Wolfram Cloud landing page.
+	 *
+	 * @return the landing page URL
+	 */
+	public static String getLandingUrl() {
+		return LANDING_URL;
+	}
+
+	/**
+	 * Returns the base URL of the sign-in site, without a trailing slash.
+	 *
+	 * @return the base URL of the sign-in site
+	 */
+	public static String getUserUrl() {
+		return USER_URL;
+	}
+
+	/**
+	 * Returns the base URL of the Wolfram Development Platform, without a trailing slash.
+	 *
+	 * @return the base URL of the dev platform
+	 */
+	public static String getDevUrl() {
+		return DEV_URL;
+	}
+
+	/**
+	 * Returns the local stand-in server that every page is served from, if it is enabled.
+	 *
+	 * @return the stand-in server, or null if we are testing against the live site
+	 */
+	public static CloudStandInServer getStandIn() {
+		return standIn;
+	}
+
+	/**
+	 * Starts the local stand-in server, if it has been enabled.
+	 */
+	private static CloudStandInServer startStandInIfEnabled() {
+		if (!HarnessSettings.getBoolean("wolfram.cloud.standin", false)) {
+			return null;
+		}
+
+		final CloudStandInServer server;
+		try {
+			server = new CloudStandInServer(HarnessSettings.getInt("wolfram.cloud.standin.port", 0));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Failed to start the Wolfram Cloud stand-in server", e);
+		}
+
+		try {
+			ResourceBundle rb = ResourceBundle.getBundle(CREDENTIALS_BUNDLE_NAME);
+			if (rb.containsKey("test.user.valid.email") && rb.containsKey("test.user.valid.password")) {
+				server.addAccount(rb.getString("test.user.valid.email"), rb.getString("test.user.valid.password"));
+			}
+		} catch (MissingResourceException e) {
+			// No credentials.properties present: nobody can sign in
+		}
+
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				server.stop();
+			}
+		}, "wolfram-cloud-standin-shutdown"));
+
+		log.info("Serving the Wolfram Cloud from a local stand-in at %s", server.getLandingUrl());
+		return server;
+	}
+}
@@ -5,10 +5,12 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.CacheLookup;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.How;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.PageReadiness;
+import test.automation.selenium.core.bindings.InFrame;
+import test.automation.selenium.core.navigation.DeepLink;
 
 /**
  * PageObject representing the "Wolfram Cloud" landing page. This page presents the users
@@ -22,20 +24,19 @@ public class CloudLandingPage extends AbstractWebPage {
 	public static final String PAGE_TITLE = "Wolfram Cloud";
 
 	// Build up / parameterize all parts of the URL
-	private static final String BASE_URL = "http://www.wolframcloud.com/";
+	private static final String BASE_URL = CloudEndpoints.getLandingUrl();
 
 	/** The URL at which to point to start testing this page */
 	public static final String START_URL = BASE_URL;
+
+	/** The route straight to this page */
+	public static final DeepLink<CloudLandingPage> DEEP_LINK = new DeepLink<CloudLandingPage>(CloudLandingPage.class, START_URL);
     
-    /** The Wolfram Development Platform link. */
+    /** The Wolfram Development Platform link, within the iframe HTML tag containing the page contents. */
+	@InFrame(@FindBy(how = How.TAG_NAME, using = "iframe"))
 	@FindBy(how = How.CLASS_NAME, using = "product-link")
 	@CacheLookup
-    private WebElement wdpLink;
-    
-    /** The iframe HTML tag containing the page contents. */
-    @FindBy(how = How.TAG_NAME, using = "iframe")
-	@CacheLookup
-    private WebElement iframeTag;
+    WebElement wdpLink;
 
 	/* (non-Javadoc)
 	 * @see wolfram.cloud.WebPage#getExpectedPageTitle()
@@ -52,6 +53,14 @@ public class CloudLandingPage extends AbstractWebPage {
 	protected String getStartUrl() {
 		return START_URL;
 	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebPage#getReadiness()
+	 */
+	@Override
+	protected PageReadiness getReadiness() {
+		return super.getReadiness().urlToBe(START_URL);
+	}
     
     /**
      * Instantiates a new cloud landing page.
@@ -60,7 +69,6 @@ public class CloudLandingPage extends AbstractWebPage {
      */
     public CloudLandingPage(WebDriver driver) {
         super(driver);
-        wait.until(ExpectedConditions.urlToBe(START_URL));
     }
     
     /**
@@ -71,27 +79,15 @@ public class CloudLandingPage extends AbstractWebPage {
      */
     public CloudLandingPage(WebDriver driver, WebDriverWait wait) {
         super(driver, wait);
-        wait.until(ExpectedConditions.urlToBe(START_URL));
     }
 	
-	/**
-	 * Switches to the first iframe on the page.
-	 *
-	 * @return the cloud landing page
-	 */
-	private CloudLandingPage switchToIFrame() {
-		wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(iframeTag));
-		return this;
-	}
-	
 	/**
 	 * Clicks the WDP tile on the Wolfram Cloud landing page.
 	 *
 	 * @return the sign in page
 	 */
 	private SignInPage clickWolframDevPlatformTile() {
-		wait.until(ExpectedConditions.visibilityOf(this.wdpLink));
-		wait.until(ExpectedConditions.elementToBeClickable(this.wdpLink));
+		this.waitUntilInteractable(this.wdpLink);
 		this.wdpLink.click();
 		return new SignInPage(this.driver, this.wait);
 	}
@@ -102,7 +98,6 @@ public class CloudLandingPage extends AbstractWebPage {
 	 * @return the sign in page
 	 */
     public SignInPage chooseWolframDevelopmentPlatform() {
-    	this.switchToIFrame();
     	return this.clickWolframDevPlatformTile();
     }
 }
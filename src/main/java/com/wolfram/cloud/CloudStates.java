@@ -0,0 +1,227 @@
+package com.wolfram.cloud;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.navigation.PageNavigator;
+import test.automation.selenium.core.navigation.Route;
+import test.automation.selenium.core.state.PreparableStateProvider;
+import test.automation.selenium.core.state.RequiresState;
+import test.automation.selenium.core.state.StateProvider;
+import test.automation.selenium.core.state.StateRegistry;
+
+/**
+ * <p>The states of the Wolfram Cloud that tests can declare with {@link RequiresState}, once
+ * {@link #register(String, String)} has been called with the account to use:
+ *   <ul>
+ *     <li>{@link #AUTHENTICATED_SESSION} - the driver is signed in and on the {@link DevPlatformHomePage}
+ *         (from the {@link AuthenticatedSessionCache}, so the sign-in form is only used once per run);
+ *         the value is the email of the account</li>
+ *     <li>{@link #NOTEBOOK} - the driver is signed in and showing a notebook, shared with other tests;
+ *         the value is the notebook's hash</li>
+ *     <li>{@link #NEW_NOTEBOOK} - the driver is signed in and showing a notebook that no other test has been
+ *         given; the value is the notebook's hash</li>
+ *   </ul>
+ * </p>
+ *
+ * <p>Notebooks are created over HTTP by a {@link NotebookProvisioner} rather than through the home page, ahead
+ * of time for the tests of the suite that require them (and none at all if no test does); call {@link #cleanUp()}
+ * once the suite is over to delete them.</p>
+ *
+ * <p>The {@link PageNavigator} is also given the route to the {@link DevPlatformHomePage} through the sign-in
+ * form, for the account, to fall back to when the cached session cannot be used.</p>
+ *
+ */
+public final class CloudStates {
+	/** The state of being signed in, on the dev platform home page */
+	public static final String AUTHENTICATED_SESSION = "authenticated session";
+
+	/** The state of being signed in to an account that owns a notebook */
+	public static final String NOTEBOOK = "existing notebook";
+
+	/** The state of being signed in to an account that owns a notebook which no other test has been given */
+	public static final String NEW_NOTEBOOK = "new notebook";
+
+	/** Creates the notebooks, or null until {@link #register(String, String)} is called */
+	private static NotebookProvisioner provisioner;
+
+	/** The email of the account, or null until {@link #register(String, String)} is called */
+	private static String email;
+
+	/** The password of the account, or null until {@link #register(String, String)} is called */
+	private static String password;
+
+	/** The route to the home page through the sign-in form, or null until {@link #register(String, String)} is called */
+	private static Route<DevPlatformHomePage> signInRoute;
+
+	/** Static helpers only */
+	private CloudStates() {
+	}
+
+	/**
+	 * Registers every state with the {@link StateRegistry}, and the route through the sign-in form
+	 * with the {@link PageNavigator}, for the given account.
+	 *
+	 * @param email the email of the account to sign in as
+	 * @param password the password of the account
+	 */
+	public static synchronized void register(String email, String password) {
+		CloudStates.email = email;
+		CloudStates.password = password;
+		if (provisioner != null) {
+			provisioner.cleanUp();
+		}
+		registerNotebooks();
+
+		StateRegistry registry = StateRegistry.getCurrent();
+		registry.register(AUTHENTICATED_SESSION, new AuthenticatedSessionProvider(email, password));
+
+		PageNavigator navigator = PageNavigator.getCurrent();
+		if (signInRoute != null) {
+			navigator.unregister(signInRoute);
+		}
+		signInRoute = new SignInRoute(email, password);
+		navigator.register(signInRoute);
+	}
+
+	/**
+	 * Deletes every notebook created for the tests. Does nothing if called again before another suite
+	 * starts; a later suite in the same JVM gets notebooks from a new provisioner.
+	 */
+	public static synchronized void cleanUp() {
+		if (provisioner != null) {
+			provisioner.cleanUp();
+			registerNotebooks();
+		}
+	}
+
+	/**
+	 * Registers the notebook states, with a new provisioner for the account. The provisioner creates
+	 * nothing until the suite declares how many tests will need a notebook.
+	 */
+	private static void registerNotebooks() {
+		provisioner = new NotebookProvisioner(email, password);
+		StateRegistry registry = StateRegistry.getCurrent();
+		registry.register(NOTEBOOK, new NotebookProvider(provisioner));
+		registry.registerUnshared(NEW_NOTEBOOK, new NotebookProvider(provisioner));
+	}
+
+	/**
+	 * Signs drivers in, through the {@link AuthenticatedSessionCache}.
+	 */
+	private static final class AuthenticatedSessionProvider implements StateProvider<String> {
+		/** The email of the account */
+		private final String email;
+
+		/** The password of the account */
+		private final String password;
+
+		/**
+		 * Creates a provider for the given account.
+		 *
+		 * @param email the email of the account
+		 * @param password the password of the account
+		 */
+		private AuthenticatedSessionProvider(String email, String password) {
+			this.email = email;
+			this.password = password;
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.state.StateProvider#create(org.openqa.selenium.WebDriver)
+		 */
+		@Override
+		public String create(WebDriver driver) {
+			AuthenticatedSessionCache.getCurrent().openDevPlatformHome(driver, this.email, this.password);
+			return this.email;
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.state.StateProvider#restore(org.openqa.selenium.WebDriver, java.lang.Object)
+		 */
+		@Override
+		public boolean restore(WebDriver driver, String email) {
+			// The cache itself falls back to the sign-in form if its cookies no longer work
+			AuthenticatedSessionCache.getCurrent().openDevPlatformHome(driver, this.email, this.password);
+			return true;
+		}
+	}
+
+	/**
+	 * Signs drivers in through the sign-in form, as a user would, without touching the {@link AuthenticatedSessionCache}.
+	 */
+	private static final class SignInRoute extends Route<DevPlatformHomePage> {
+		/** The email of the account */
+		private final String email;
+
+		/** The password of the account */
+		private final String password;
+
+		/**
+		 * Creates a route for the given account.
+		 *
+		 * @param email the email of the account
+		 * @param password the password of the account
+		 */
+		private SignInRoute(String email, String password) {
+			super(DevPlatformHomePage.class, "sign in page to home page", 3);
+			this.email = email;
+			this.password = password;
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.navigation.Route#follow(org.openqa.selenium.WebDriver)
+		 */
+		@Override
+		public DevPlatformHomePage follow(WebDriver driver) {
+			return PageNavigator.getCurrent().navigateTo(SignInPage.class, driver).signInAs(this.email, this.password);
+		}
+	}
+
+	/**
+	 * Takes a notebook from the {@link NotebookProvisioner}, and opens it.
+	 */
+	private static final class NotebookProvider implements PreparableStateProvider<String> {
+		/** Creates the notebooks */
+		private final NotebookProvisioner provisioner;
+
+		/**
+		 * Creates a provider of notebooks from the given provisioner.
+		 *
+		 * @param provisioner creates the notebooks
+		 */
+		private NotebookProvider(NotebookProvisioner provisioner) {
+			this.provisioner = provisioner;
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.state.PreparableStateProvider#prepare(int)
+		 */
+		@Override
+		public void prepare(int tests) {
+			this.provisioner.expect(tests);
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.state.StateProvider#create(org.openqa.selenium.WebDriver)
+		 */
+		@Override
+		public String create(WebDriver driver) {
+			String notebookHash = this.provisioner.take();
+			if (!restore(driver, notebookHash)) {
+				throw new IllegalStateException("Failed to open new notebook " + notebookHash);
+			}
+			return notebookHash;
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.state.StateProvider#restore(org.openqa.selenium.WebDriver, java.lang.Object)
+		 */
+		@Override
+		public boolean restore(WebDriver driver, String notebookHash) {
+			StateRegistry.getCurrent().require(AUTHENTICATED_SESSION, driver);
+			driver.get(NotebookViewPage.generateFullUrl(notebookHash));
+			String title = driver.getTitle();
+			return title != null && title.contains(NotebookViewPage.PAGE_TITLE);
+		}
+	}
+}
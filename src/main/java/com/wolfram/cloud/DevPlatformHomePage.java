@@ -5,10 +5,11 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.CacheLookup;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.How;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.WindowTracker;
+import test.automation.selenium.core.navigation.DeepLink;
 
 /**
  * PageObject representing the "Wolfram Development Platform" home page. This
@@ -24,23 +25,26 @@ public class DevPlatformHomePage extends AbstractWebPage {
 
 	// Build up / parameterize all parts of the URL
 	/** The base portion of the URL */
-	private static final String BASE_URL = "https://dev.wolframcloud.com";
+	static final String BASE_URL = CloudEndpoints.getDevUrl();
 
 	/** The relative portion of the URL */
 	private static final String RELATIVE_URL = "/app/";
 
 	/** The URL at which to point to start testing this page */
 	public static final String START_URL = BASE_URL + RELATIVE_URL;
+
+	/** The route straight to this page, signed in from the cached session */
+	public static final DeepLink<DevPlatformHomePage> DEEP_LINK = new DeepLink<DevPlatformHomePage>(DevPlatformHomePage.class, START_URL, CloudStates.AUTHENTICATED_SESSION);
         
     /** The "new file menu" dropdown. */
     @FindBy(how = How.CLASS_NAME, using = "newNotebookBtn-dropdown")
 	@CacheLookup
-    private WebElement newNotebookBtnDropdown;
+    WebElement newNotebookBtnDropdown;
     
     /** The new ".nb" button. */
     @FindBy(how = How.ID, using = "nb")
 	@CacheLookup
-    private WebElement newNBBtn;
+    WebElement newNBBtn;
 
 	/* (non-Javadoc)
 	 * @see wolfram.cloud.WebPage#getExpectedPageTitle()
@@ -84,7 +88,7 @@ public class DevPlatformHomePage extends AbstractWebPage {
 	 */
 	// Open the dropdown menu
     private DevPlatformHomePage openNewFileDropdown() {
-		wait.until(ExpectedConditions.elementToBeClickable(this.newNotebookBtnDropdown));
+		this.waitUntilInteractable(this.newNotebookBtnDropdown);
 		this.newNotebookBtnDropdown.click();
 		return this;
     }
@@ -95,11 +99,12 @@ public class DevPlatformHomePage extends AbstractWebPage {
 	 * @return the notebook view page
 	 */
 	private NotebookViewPage clickNewNotebookButton() {
-		wait.until(ExpectedConditions.elementToBeClickable(this.newNBBtn));
-		this.newNBBtn.click();
+		this.waitUntilInteractable(this.newNBBtn);
 
 		// Clicking this button opens a new tab
-        this.switchToNewWindowOrTab();
+		WindowTracker windows = this.trackWindows();
+		this.newNBBtn.click();
+		windows.switchToNewWindow();
         
 		return new NotebookViewPage(this.driver, this.wait);
 	}
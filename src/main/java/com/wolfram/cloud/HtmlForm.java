@@ -0,0 +1,254 @@
+package com.wolfram.cloud;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
+
+/**
+ * <p>A form read from the HTML of a page, to be submitted over plain HTTP as a browser would submit it: to the
+ * form's <code>action</code> (resolved against the page), with its <code>method</code>, and with every field that
+ * a browser would send, hidden fields (e.g. CSRF or OAuth tokens) included. Fields are found by id or name, as
+ * PageFactory finds them, but sent under their name.</p>
+ *
+ * <p>Only what the sign-in form needs is understood: <code>&lt;input&gt;</code> and submit <code>&lt;button&gt;</code>
+ * elements, in forms that are not nested.</p>
+ *
+ */
+final class HtmlForm {
+	/** Matches a form, capturing its attributes and its content */
+	private static final Pattern FORM = Pattern.compile("<form\\b([^>]*)>(.*?)</form\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	/** Matches a form control, capturing its tag and its attributes */
+	private static final Pattern CONTROL = Pattern.compile("<(input|button)\\b([^>]*)>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	/** Matches an attribute, capturing its name and its (double-quoted, single-quoted, or bare) value, if any */
+	private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:.-]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+)))?", Pattern.DOTALL);
+
+	/** Finds a password field */
+	private static final Pattern PASSWORD_FIELD = Pattern.compile("<input\\b[^>]*\\btype\\s*=\\s*[\"']?password\\b", Pattern.CASE_INSENSITIVE);
+
+	/** Matches a numeric character reference */
+	private static final Pattern NUMERIC_REFERENCE = Pattern.compile("&#(x?)([0-9a-fA-F]+);");
+
+	/** The URL to submit the form to */
+	private final URI action;
+
+	/** Whether the form is submitted with GET rather than POST */
+	private final boolean get;
+
+	/** The fields that are sent, in the order in which they appear */
+	private final List<Field> fields;
+
+	/**
+	 * Creates a form.
+	 *
+	 * @param action the URL to submit the form to
+	 * @param get true if the form is submitted with GET rather than POST
+	 * @param fields the fields that are sent
+	 */
+	private HtmlForm(URI action, boolean get, List<Field> fields) {
+		this.action = action;
+		this.get = get;
+		this.fields = fields;
+	}
+
+	/**
+	 * Reads a form from the HTML of a page: the form with the given id or name, or else the first form with a
+	 * password field.
+	 *
+	 * @param html the HTML of the page
+	 * @param page the URL of the page, against which the form's action is resolved
+	 * @param idOrName the id or name of the form
+	 * @return the form
+	 * @throws IllegalStateException if the page has no such form
+	 */
+	static HtmlForm read(String html, URI page, String idOrName) {
+		Matcher form = FORM.matcher(html);
+		MatchResult withPassword = null;
+		while (form.find()) {
+			List<String[]> attributes = attributesOf(form.group(1));
+			if (idOrName.equals(valueOf(attributes, "id")) || idOrName.equals(valueOf(attributes, "name"))) {
+				return parse(form, page);
+			}
+			if (withPassword == null && PASSWORD_FIELD.matcher(form.group(2)).find()) {
+				withPassword = form.toMatchResult();
+			}
+		}
+		if (withPassword != null) {
+			return parse(withPassword, page);
+		}
+		throw new IllegalStateException("No form \"" + idOrName + "\" on " + page);
+	}
+
+	/**
+	 * Sets the value of the field with the given id or name.
+	 *
+	 * @param idOrName the id or name of the field
+	 * @param value its new value
+	 * @throws IllegalStateException if the form has no such field
+	 */
+	void set(String idOrName, String value) {
+		for (Field field : this.fields) {
+			if (idOrName.equals(field.id) || idOrName.equals(field.name)) {
+				field.value = value;
+				return;
+			}
+		}
+		throw new IllegalStateException("No field \"" + idOrName + "\" in the form submitted to " + this.action);
+	}
+
+	/**
+	 * Returns the URL to submit the form to.
+	 *
+	 * @return the form's action
+	 */
+	URI getAction() {
+		return this.action;
+	}
+
+	/**
+	 * Returns whether the form is submitted with GET rather than POST.
+	 *
+	 * @return true for GET
+	 */
+	boolean isGet() {
+		return this.get;
+	}
+
+	/**
+	 * Returns the fields that a browser would send, in order.
+	 *
+	 * @return the names and values of the fields
+	 */
+	List<NameValuePair> getFields() {
+		List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+		for (Field field : this.fields) {
+			pairs.add(new BasicNameValuePair(field.name, field.value));
+		}
+		return pairs;
+	}
+
+	/**
+	 * Reads the form that was just matched.
+	 */
+	private static HtmlForm parse(MatchResult form, URI page) {
+		List<String[]> attributes = attributesOf(form.group(1));
+
+		String action = valueOf(attributes, "action");
+		URI target = (action == null || action.trim().isEmpty()) ? page : page.resolve(action.trim());
+		boolean get = "get".equalsIgnoreCase(valueOf(attributes, "method"));
+
+		List<Field> fields = new ArrayList<Field>();
+		boolean submitterAdded = false;
+		Matcher control = CONTROL.matcher(form.group(2));
+		while (control.find()) {
+			List<String[]> controlAttributes = attributesOf(control.group(2));
+			String name = valueOf(controlAttributes, "name");
+			String type = valueOf(controlAttributes, "type");
+			type = (type == null) ? (control.group(1).equalsIgnoreCase("button") ? "submit" : "text") : type.toLowerCase(Locale.ENGLISH);
+			if (name == null || name.isEmpty() || valueOf(controlAttributes, "disabled") != null) {
+				continue;
+			}
+
+			String value = valueOf(controlAttributes, "value");
+			if (type.equals("checkbox") || type.equals("radio")) {
+				if (valueOf(controlAttributes, "checked") == null) {
+					continue;
+				}
+				value = (value == null) ? "on" : value;
+			} else if (type.equals("submit") || type.equals("image")) {
+				// Only the button that submits the form is sent
+				if (submitterAdded) {
+					continue;
+				}
+				submitterAdded = true;
+			} else if (type.equals("button") || type.equals("reset") || type.equals("file")) {
+				continue;
+			}
+			fields.add(new Field(valueOf(controlAttributes, "id"), name, (value == null) ? "" : value));
+		}
+		return new HtmlForm(target, get, fields);
+	}
+
+	/**
+	 * Returns the attributes of a tag, as name / value pairs (the value of an attribute without one is empty).
+	 */
+	private static List<String[]> attributesOf(String tag) {
+		List<String[]> attributes = new ArrayList<String[]>();
+		Matcher attribute = ATTRIBUTE.matcher(tag);
+		while (attribute.find()) {
+			String value = attribute.group(2);
+			if (value == null) {
+				value = attribute.group(3);
+			}
+			if (value == null) {
+				value = attribute.group(4);
+			}
+			attributes.add(new String[] { attribute.group(1).toLowerCase(Locale.ENGLISH), (value == null) ? "" : unescape(value) });
+		}
+		return attributes;
+	}
+
+	/**
+	 * Returns the value of the named attribute, or null if the tag does not have it.
+	 */
+	private static String valueOf(List<String[]> attributes, String name) {
+		for (String[] attribute : attributes) {
+			if (attribute[0].equals(name)) {
+				return attribute[1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces the character references that are likely to appear in attribute values.
+	 */
+	private static String unescape(String value) {
+		if (value.indexOf('&') < 0) {
+			return value;
+		}
+		StringBuffer unescaped = new StringBuffer();
+		Matcher reference = NUMERIC_REFERENCE.matcher(value);
+		while (reference.find()) {
+			int codePoint = Integer.parseInt(reference.group(2), reference.group(1).isEmpty() ? 10 : 16);
+			reference.appendReplacement(unescaped, Matcher.quoteReplacement(new String(Character.toChars(codePoint))));
+		}
+		reference.appendTail(unescaped);
+		return unescaped.toString().replace("&quot;", "\"").replace("&apos;", "'").replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+	}
+
+	/**
+	 * A field that is sent with the form.
+	 */
+	private static final class Field {
+		/** The id of the field, or null */
+		private final String id;
+
+		/** The name that the field is sent under */
+		private final String name;
+
+		/** The value that is sent */
+		private String value;
+
+		/**
+		 * Creates a field.
+		 *
+		 * @param id the id of the field, or null
+		 * @param name the name that the field is sent under
+		 * @param value the value that is sent
+		 */
+		private Field(String id, String name, String value) {
+			this.id = id;
+			this.name = name;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package com.wolfram.cloud;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import test.automation.selenium.core.HarnessSettings;
+import test.automation.selenium.core.logging.HarnessLogger;
+import test.automation.selenium.core.state.StatePreparationListener;
+
+/**
+ * <p>Creates notebooks for tests over plain HTTP, without a browser, so that the slow trip through the
+ * {@link DevPlatformHomePage}'s "new file" dropdown (and the new tab it opens) is no longer on the critical
+ * path of every test that just needs a notebook to exist. Open the notebooks handed out by {@link #take()}
+ * with {@link NotebookViewPage#generateFullUrl(String)}.</p>
+ *
+ * <p>The provisioner signs in once by submitting the sign-in form as a browser would (to the form's action,
+ * with its hidden fields), then keeps a pool of notebooks created ahead of time by a few threads. Nothing is
+ * created until {@link #expect(int)} says how many tests will take a notebook (see {@link StatePreparationListener}),
+ * and the pool never holds more notebooks than the tests still expected to take one, so a run creates no notebooks
+ * that it does not use (a notebook is only ever handed out once). Once the suite is over, {@link #cleanUp()} waits
+ * for the notebooks still being created, then deletes every notebook it created, in parallel. This works against
+ * both the live site and the {@link CloudEndpoints stand-in server}.</p>
+ *
+ * <p>The provisioner can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>wolfram.notebook.pool.size</code> - how many notebooks to keep created ahead of time (default 4)</li>
+ *     <li><code>wolfram.notebook.provisioner.threads</code> - how many notebooks to create (or delete) at once (default 4)</li>
+ *     <li><code>wolfram.notebook.cleanup.enabled</code> - set to false to keep the notebooks after the suite (default true)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class NotebookProvisioner {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(NotebookProvisioner.class);
+
+	/** Seconds to wait to connect, and for each response */
+	private static final int TIMEOUT_SECONDS = 30;
+
+	/** The id (or name) of the sign-in form, as {@link SignInPage} finds it */
+	private static final String SIGN_IN_FORM = "signInForm";
+
+	/** The id (or name) of the sign-in form's email field */
+	private static final String EMAIL_FIELD = "email";
+
+	/** The id (or name) of the sign-in form's password field */
+	private static final String PASSWORD_FIELD = "password";
+
+	/** Seconds to wait for the notebooks to be deleted at the end of the suite */
+	private static final int CLEANUP_TIMEOUT_SECONDS = 60;
+
+	/** The email of the account that owns the notebooks */
+	private final String email;
+
+	/** The password of the account */
+	private final String password;
+
+	/** How many notebooks to keep created ahead of time */
+	private final int poolSize = HarnessSettings.getInt("wolfram.notebook.pool.size", 4);
+
+	/** Whether or not to delete the notebooks after the suite */
+	private final boolean cleanupEnabled = HarnessSettings.getBoolean("wolfram.notebook.cleanup.enabled", true);
+
+	/** The session cookies of the account, shared by every request */
+	private final BasicCookieStore cookies = new BasicCookieStore();
+
+	/** Sends every request, over a pool of connections (one per thread) */
+	private final CloseableHttpClient client;
+
+	/** How many notebooks to create (or delete) at once */
+	private final int threads;
+
+	/** Creates notebooks in the background */
+	private final ExecutorService executor;
+
+	/** The notebooks being created (or already created) ahead of time, in the order in which they were asked for (guarded by itself) */
+	private final Queue<Future<String>> pool = new ArrayDeque<Future<String>>();
+
+	/** The number of tests still expected to take a notebook (guarded by {@link #pool}) */
+	private int expected;
+
+	/** The hash of every notebook created, to be deleted by {@link #cleanUp()} */
+	private final Set<String> created = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+	/** True once this account has signed in */
+	private volatile boolean signedIn;
+
+	/** True once {@link #cleanUp()} has been called (only changed while holding {@link #pool}) */
+	private volatile boolean closed;
+
+	/**
+	 * Creates a provisioner for the given account. Nothing is created until {@link #expect(int)} or {@link #take()} is called.
+	 *
+	 * @param email the email of the account to create notebooks for
+	 * @param password the password of the account
+	 */
+	public NotebookProvisioner(String email, String password) {
+		this.email = email;
+		this.password = password;
+
+		this.threads = Math.max(1, HarnessSettings.getInt("wolfram.notebook.provisioner.threads", 4));
+		PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+		connections.setMaxTotal(threads * 2);
+		connections.setDefaultMaxPerRoute(threads);
+		int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+		this.client = HttpClients.custom()
+				.setConnectionManager(connections)
+				.setDefaultCookieStore(this.cookies)
+				// The sign-in form redirects after its POST, just as it does in a browser
+				.setRedirectStrategy(new LaxRedirectStrategy())
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(timeoutMillis)
+						.setSocketTimeout(timeoutMillis)
+						.setCookieSpec(CookieSpecs.STANDARD)
+						.build())
+				.build();
+
+		this.executor = startThreads("notebook-provisioner-");
+	}
+
+	/**
+	 * Declares that the given number of tests (more) will take a notebook, and starts creating them ahead
+	 * of time, up to the size of the pool.
+	 *
+	 * @param tests the number of tests
+	 */
+	public void expect(int tests) {
+		synchronized (this.pool) {
+			if (this.closed || tests <= 0) {
+				return;
+			}
+			this.expected += tests;
+			topUp();
+		}
+	}
+
+	/**
+	 * Hands out a notebook that nobody else has been given: one from the pool if there is one (waiting for
+	 * it if it is still being created), or a new one otherwise. The pool is topped up in the background,
+	 * as long as more tests are expected to take a notebook.
+	 *
+	 * @return the hash of the notebook
+	 * @throws IllegalStateException if the notebook could not be created
+	 */
+	public String take() {
+		Future<String> next;
+		synchronized (this.pool) {
+			if (this.closed) {
+				throw new IllegalStateException("The notebook provisioner has been cleaned up");
+			}
+			next = this.pool.poll();
+			if (this.expected > 0) {
+				this.expected--;
+			}
+			topUp();
+		}
+		if (next == null) {
+			return create();
+		}
+
+		try {
+			return next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a notebook", e);
+		} catch (ExecutionException e) {
+			// This one failed in the background: try once more in the foreground, to report why
+			return create();
+		}
+	}
+
+	/**
+	 * Returns the number of notebooks created so far (whether handed out or still in the pool).
+	 *
+	 * @return the number of notebooks created
+	 */
+	public int getCreatedCount() {
+		return this.created.size();
+	}
+
+	/**
+	 * Stops filling the pool, waits for the notebooks still being created, and deletes every notebook created
+	 * (unless cleanup is disabled), in parallel. Notebooks that cannot be deleted are reported and left behind.
+	 * Does nothing if called again.
+	 */
+	public void cleanUp() {
+		synchronized (this.pool) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+
+			// Those not yet started never will be; those already running are waited for below
+			for (Future<String> pending : this.pool) {
+				pending.cancel(false);
+			}
+			this.pool.clear();
+			this.expected = 0;
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLEANUP_TIMEOUT_SECONDS);
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(CLEANUP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				log.warn("Notebooks were still being created after %d seconds, and will not be deleted", CLEANUP_TIMEOUT_SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Every creation has now finished, so this is every notebook that will ever be created
+		List<String> notebooks;
+		synchronized (this.created) {
+			notebooks = new ArrayList<String>(this.created);
+		}
+
+		int deleted = 0;
+		if (this.cleanupEnabled && !notebooks.isEmpty()) {
+			ExecutorService deleters = startThreads("notebook-cleanup-");
+			List<Future<Boolean>> deletions = new ArrayList<Future<Boolean>>();
+			for (String hash : notebooks) {
+				deletions.add(deleters.submit(new Deletion(hash)));
+			}
+			for (Future<Boolean> deletion : deletions) {
+				try {
+					if (deletion.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+						deleted++;
+					}
+				} catch (Exception e) {
+					// Reported below as left behind
+				}
+			}
+			deleters.shutdownNow();
+		}
+
+		this.executor.shutdownNow();
+		try {
+			this.client.close();
+		} catch (IOException e) {
+			// Nothing more to send
+		}
+
+		log.info("Notebook provisioner: created %d notebook(s), deleted %d", notebooks.size(), deleted);
+	}
+
+	/**
+	 * Starts creating notebooks until the pool holds as many as the tests still expected to take one (at
+	 * most the size of the pool). Must be called while holding {@link #pool}.
+	 */
+	private void topUp() {
+		while (this.pool.size() < Math.min(this.poolSize, this.expected)) {
+			this.pool.add(this.executor.submit(new Creation()));
+		}
+	}
+
+	/**
+	 * Starts the threads that create (or delete) notebooks.
+	 *
+	 * @param prefix the prefix of the threads' names
+	 */
+	private ExecutorService startThreads(final String prefix) {
+		return Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Creates a notebook, signing in first if needed (or if the session has expired).
+	 */
+	private String create() {
+		try {
+			signIn(false);
+			String hash = requestNewNotebook();
+			if (hash == null) {
+				// Signed out in the meantime: sign in again, once
+				signIn(true);
+				hash = requestNewNotebook();
+			}
+			if (hash == null) {
+				throw new IllegalStateException("Failed to create a notebook: still not signed in as " + this.email);
+			}
+			this.created.add(hash);
+			return hash;
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to create a notebook", e);
+		}
+	}
+
+	/**
+	 * Asks the dev platform for a new notebook, as the "new .nb" button does.
+	 *
+	 * @return the hash of the new notebook, or null if we were sent to sign in instead
+	 */
+	private String requestNewNotebook() throws IOException {
+		URI landed = send(new HttpGet(NotebookViewPage.START_URL_CREATE_NEW)).url;
+		String url = landed.toString();
+		String objectsUrl = NotebookViewPage.generateFullUrl("");
+		if (url.startsWith(objectsUrl) && url.length() > objectsUrl.length()) {
+			return NotebookViewPage.hashOf(url);
+		} else if (url.startsWith(SignInPage.BASE_URL)) {
+			return null;
+		}
+		throw new IllegalStateException("Failed to create a notebook: landed on " + url);
+	}
+
+	/**
+	 * Signs in through the sign-in form, unless already signed in.
+	 *
+	 * @param force true to sign in again even if we already have
+	 */
+	private synchronized void signIn(boolean force) throws IOException {
+		if (this.signedIn && !force) {
+			return;
+		}
+
+		// The home page bounces through the sign-in form (keeping the OAuth query), unless already signed in
+		Page page = send(new HttpGet(DevPlatformHomePage.START_URL));
+		if (page.url.toString().startsWith(SignInPage.BASE_URL)) {
+			// Submit the form as a browser would: to its action, with its hidden fields
+			HtmlForm form = HtmlForm.read(page.body, page.url, SIGN_IN_FORM);
+			form.set(EMAIL_FIELD, this.email);
+			form.set(PASSWORD_FIELD, this.password);
+			HttpUriRequest submit;
+			if (form.isGet()) {
+				submit = new HttpGet(withQuery(form.getAction(), URLEncodedUtils.format(form.getFields(), StandardCharsets.UTF_8)));
+			} else {
+				HttpPost post = new HttpPost(form.getAction());
+				post.setEntity(new UrlEncodedFormEntity(form.getFields(), StandardCharsets.UTF_8));
+				submit = post;
+			}
+			URI landed = send(submit).url;
+			if (!landed.toString().startsWith(DevPlatformHomePage.START_URL)) {
+				throw new IllegalStateException("Failed to sign in as " + this.email + ": landed on " + landed);
+			}
+		}
+		this.signedIn = true;
+	}
+
+	/**
+	 * Sends a request, following any redirects, and returns the page at which it finally landed.
+	 */
+	private Page send(HttpUriRequest request) throws IOException {
+		HttpClientContext context = HttpClientContext.create();
+		String body;
+		try (CloseableHttpResponse response = this.client.execute(request, context)) {
+			checkStatus(request, response);
+			body = (response.getEntity() == null) ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+		}
+		List<URI> redirects = context.getRedirectLocations();
+		URI url = (redirects == null || redirects.isEmpty()) ? request.getURI() : redirects.get(redirects.size() - 1);
+		return new Page(url, body);
+	}
+
+	/**
+	 * Replaces the query of a URL (as submitting a form with GET does).
+	 */
+	private static URI withQuery(URI url, String query) {
+		String base = url.toString();
+		int end = base.indexOf('#') >= 0 ? base.indexOf('#') : base.length();
+		int start = base.indexOf('?') >= 0 ? Math.min(base.indexOf('?'), end) : end;
+		return URI.create(base.substring(0, start) + "?" + query);
+	}
+
+	/**
+	 * Throws if the response is not a success.
+	 */
+	private static void checkStatus(HttpUriRequest request, HttpResponse response) {
+		int status = response.getStatusLine().getStatusCode();
+		if (status < 200 || status >= 300) {
+			throw new IllegalStateException(String.format("%s %s failed: %s", request.getMethod(), request.getURI(), response.getStatusLine()));
+		}
+	}
+
+	/**
+	 * A page that a request finally landed on.
+	 */
+	private static final class Page {
+		/** The URL of the page */
+		private final URI url;
+
+		/** The content of the page */
+		private final String body;
+
+		/**
+		 * Creates a page.
+		 *
+		 * @param url the URL of the page
+		 * @param body the content of the page
+		 */
+		private Page(URI url, String body) {
+			this.url = url;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Creates one notebook for the pool.
+	 */
+	private final class Creation implements Callable<String> {
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public String call() {
+			return create();
+		}
+	}
+
+	/**
+	 * Deletes one notebook.
+	 */
+	private final class Deletion implements Callable<Boolean> {
+		/** The hash of the notebook */
+		private final String hash;
+
+		/**
+		 * Creates a deletion of the given notebook.
+		 *
+		 * @param hash the hash of the notebook
+		 */
+		private Deletion(String hash) {
+			this.hash = hash;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public Boolean call() {
+			HttpDelete delete = new HttpDelete(NotebookViewPage.generateFullUrl(this.hash));
+			try (CloseableHttpResponse response = client.execute(delete)) {
+				EntityUtils.consume(response.getEntity());
+				int status = response.getStatusLine().getStatusCode();
+				if (status >= 200 && status < 300) {
+					created.remove(this.hash);
+					return true;
+				}
+				log.warn("Failed to delete notebook %s: %s", this.hash, response.getStatusLine());
+			} catch (IOException e) {
+				log.warn("Failed to delete notebook %s: %s", this.hash, e.getMessage());
+			}
+			return false;
+		}
+	}
+}
@@ -3,10 +3,12 @@ package com.wolfram.cloud;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.CacheLookup;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.navigation.DeepLink;
+import test.automation.selenium.core.navigation.PageNavigator;
+import test.automation.selenium.core.navigation.Route;
 
 /**
  * PageObject representing the Notebook Viewer page. This page 
@@ -20,7 +22,7 @@ public class NotebookViewPage extends AbstractWebPage {
 	public static final String PAGE_TITLE = "(unnamed) - Wolfram Development Platform";
 
 	/** The base portion of the URL */
-	private static final String BASE_URL = "https://dev.wolframcloud.com";
+	private static final String BASE_URL = CloudEndpoints.getDevUrl();
 	
 	/** The relative portion of the URL */
 	private static final String RELATIVE_URL = "/app/objects/";
@@ -29,7 +31,21 @@ public class NotebookViewPage extends AbstractWebPage {
 	public static final String START_URL = BASE_URL + RELATIVE_URL;
 	
 	/** The URL at which to start testing the "new notebook" operation of this page */
-	public static final String START_URL_CREATE_NEW = "https://dev.wolframcloud.com/app/view/newNotebook?ext=nb";
+	public static final String START_URL_CREATE_NEW = BASE_URL + "/app/view/newNotebook?ext=nb";
+
+	/** The route straight to a notebook shared between tests (see {@link CloudStates#NOTEBOOK}) */
+	public static final DeepLink<NotebookViewPage> DEEP_LINK = new DeepLink<NotebookViewPage>(NotebookViewPage.class, START_URL + "{0}", CloudStates.NOTEBOOK);
+
+	/** The route to a new notebook through the home page, as a user would take it */
+	public static final Route<NotebookViewPage> THROUGH_HOME_PAGE = new Route<NotebookViewPage>(NotebookViewPage.class, "home page to new notebook", 2) {
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.navigation.Route#follow(org.openqa.selenium.WebDriver)
+		 */
+		@Override
+		public NotebookViewPage follow(WebDriver driver) {
+			return PageNavigator.getCurrent().navigateTo(DevPlatformHomePage.class, driver).createNewNotebook();
+		}
+	};
 	
 	/** The Constant attribute in which to search for text input contents. */
 	private static final String RENAME_INPUT_CONTENTS_ATTR = "value";
@@ -39,11 +55,11 @@ public class NotebookViewPage extends AbstractWebPage {
 		
 	/** The "rename notebook" button. */
 	@CacheLookup
-	private WebElement renameButton;
+	WebElement renameButton;
     
     /** The "rename notebook" toolbar's name input field. */
 	@CacheLookup
-    private WebElement toolbarRenameInputField;
+    WebElement toolbarRenameInputField;
 
 	/* (non-Javadoc)
 	 * @see wolfram.cloud.WebPage#getExpectedPageTitle()
@@ -68,6 +84,15 @@ public class NotebookViewPage extends AbstractWebPage {
 	public static String generateFullUrl(String notebookHash) {
 		return BASE_URL + RELATIVE_URL + notebookHash;
 	}
+
+	/** 
+	 * Given the URL of a notebook's page (e.g. of a newly created notebook), 
+	 * return the hash of that notebook
+	 */
+	public static String hashOf(String notebookUrl) {
+		String[] urlParts = notebookUrl.split("/");
+		return urlParts[urlParts.length - 1];
+	}
 	
     /**
      * Instantiates a new notebook view page.
@@ -94,8 +119,7 @@ public class NotebookViewPage extends AbstractWebPage {
 	 * @return the notebook view page
 	 */
 	private NotebookViewPage clickRenameNotebook() {
-		wait.until(ExpectedConditions.visibilityOf(this.renameButton));
-		wait.until(ExpectedConditions.elementToBeClickable(this.renameButton));
+		this.waitUntilInteractable(this.renameButton);
 		this.renameButton.click();
 		return this;
 	}
@@ -106,8 +130,7 @@ public class NotebookViewPage extends AbstractWebPage {
 	 * @return true, iff our default notebook name matches the expectation
 	 */
 	public boolean verifyNewNotebookDefaultName() {
-		wait.until(ExpectedConditions.visibilityOf(this.toolbarRenameInputField));
-		wait.until(ExpectedConditions.elementToBeClickable(this.toolbarRenameInputField));
+		this.waitUntilInteractable(this.toolbarRenameInputField);
         return DEFAULT_CONTENTS.equals(this.toolbarRenameInputField.getAttribute(RENAME_INPUT_CONTENTS_ATTR));
 	}
 
@@ -1,12 +1,18 @@
 package com.wolfram.cloud;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.CacheLookup;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.PageReadiness;
+import test.automation.selenium.core.navigation.DeepLink;
+import test.automation.selenium.core.navigation.PageNavigator;
+import test.automation.selenium.core.navigation.Route;
 
 /**
  * PageObject representing the Sign In page. This page allows the user to authenticate 
@@ -22,7 +28,7 @@ public class SignInPage extends AbstractWebPage {
 	
 	// Build up / parameterize all parts of the URL
 	/** The base portion of the URL */
-	private static final String BASE_URL = "https://user.wolfram.com";
+	static final String BASE_URL = CloudEndpoints.getUserUrl();
 	
 	/** The base portion of the URL */
 	private static final String RELATIVE_URL = "/oauth/authorize/cloud";
@@ -31,29 +37,43 @@ public class SignInPage extends AbstractWebPage {
 	private static final String OAUTH_TOKEN_QUERY = "oauth_token=";
 	
 	/** The second query parameter of the URL (oauth_callback) */
-	private static final String OAUTH_WDP_CALLBACK_QUERY = "oauth_callback=https%3A%2F%2Fdev.wolframcloud.com%2Fapp%2Fj_spring_oauth_security_check"
+	private static final String OAUTH_WDP_CALLBACK_QUERY = "oauth_callback=" + encode(CloudEndpoints.getDevUrl()) + "%2Fapp%2Fj_spring_oauth_security_check"
 											   + "%3Fproductname%3DWolfram%20Development%20Platform%26learnabout%3Dhttp%3A%2F%2Fwww.wolfram.com"
 											   + "%2Fdevelopment-platform%26preview%3Dfalse%26logo%3Dwolfram_development_platform";
 
 	// XXX: This is actually attempting to navigate to the dev platform home page, and signin intercepts it
 	/** The URL at which to point to start testing this page */
 	public static final String START_URL = DevPlatformHomePage.START_URL;
+
+	/** The route straight to this page, for a driver that is not signed in */
+	public static final DeepLink<SignInPage> DEEP_LINK = new DeepLink<SignInPage>(SignInPage.class, START_URL);
+
+	/** The route to this page through the landing page, as a user would take it */
+	public static final Route<SignInPage> THROUGH_LANDING_PAGE = new Route<SignInPage>(SignInPage.class, "landing page to sign in page", 2) {
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.navigation.Route#follow(org.openqa.selenium.WebDriver)
+		 */
+		@Override
+		public SignInPage follow(WebDriver driver) {
+			return PageNavigator.getCurrent().navigateTo(CloudLandingPage.class, driver).chooseWolframDevelopmentPlatform();
+		}
+	};
     
     /** The sign in form itself. */
 	@CacheLookup
-    private WebElement signInForm;
+    WebElement signInForm;
 	
 	/** The email input. */
 	@CacheLookup
-	private WebElement email;
+	WebElement email;
     
     /** The password input. */
 	@CacheLookup
-    private WebElement password;
+    WebElement password;
     
     /** The sign in button. */
 	@CacheLookup
-    private WebElement signIn;
+    WebElement signIn;
 
 	/* (non-Javadoc)
 	 * @see wolfram.cloud.WebPage#getExpectedPageTitle()
@@ -70,6 +90,15 @@ public class SignInPage extends AbstractWebPage {
 	protected String getStartUrl() {
 		return BASE_URL + RELATIVE_URL;
 	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebPage#getReadiness()
+	 */
+	@Override
+	protected PageReadiness getReadiness() {
+		// Everything done on this page goes through its form
+		return super.getReadiness().withSentinels(this.signInForm);
+	}
 	
 	/** 
 	 * Given an oAuth token from a previous session's URL, build
@@ -87,6 +116,17 @@ public class SignInPage extends AbstractWebPage {
 	private static String generateQueryStrings(String token) {
 		return "?" + OAUTH_TOKEN_QUERY + token + "&" + OAUTH_WDP_CALLBACK_QUERY;
 	}
+
+	/**
+	 * URL-encodes part of a query parameter value.
+	 */
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is always supported", e);
+		}
+	}
     
     /**
      * Instantiates a new sign in page.
@@ -115,8 +155,7 @@ public class SignInPage extends AbstractWebPage {
      * @return the sign in page
      */
     private SignInPage typeEmail(String emailAddress) {
-		wait.until(ExpectedConditions.visibilityOf(this.email));
-		wait.until(ExpectedConditions.elementToBeClickable(this.email));
+		this.waitUntilInteractable(this.email);
 		this.email.clear();
         this.email.sendKeys(emailAddress);
 		return this;
@@ -130,8 +169,7 @@ public class SignInPage extends AbstractWebPage {
 	 * @return the sign in page
 	 */
 	private SignInPage typePassword(String passwordString) {
-		wait.until(ExpectedConditions.visibilityOf(this.password));
-		wait.until(ExpectedConditions.elementToBeClickable(this.password));
+		this.waitUntilInteractable(this.password);
 		this.password.clear();
 		this.password.sendKeys(passwordString);
 		return this;
@@ -144,8 +182,7 @@ public class SignInPage extends AbstractWebPage {
      * @return the sign in page
      */
 	private DevPlatformHomePage submitValidSignIn() {
-		wait.until(ExpectedConditions.visibilityOf(this.signIn));
-		wait.until(ExpectedConditions.elementToBeClickable(this.signIn));
+		this.waitUntilInteractable(this.signIn);
 		//this.signIn.click();
 		//this.signIn.submit();
 		this.signInForm.submit();
@@ -159,8 +196,7 @@ public class SignInPage extends AbstractWebPage {
      * @return the sign in page
      */
 	private SignInPage submitInvalidSignIn() {
-		wait.until(ExpectedConditions.visibilityOf(this.signIn));
-		wait.until(ExpectedConditions.elementToBeClickable(this.signIn));
+		this.waitUntilInteractable(this.signIn);
 		//this.signIn.click();
 		//this.signIn.submit();
 		this.signInForm.submit();
@@ -0,0 +1,327 @@
+package com.wolfram.cloud.standin;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import test.automation.selenium.core.server.EmbeddedHttpServer;
+
+/**
+ * <p>A local stand-in for the parts of the Wolfram Cloud exercised by our page objects, served from
+ * fixture copies of the real pages: the landing page (with its product iframe), the OAuth sign-in form,
+ * the Development Platform home page (with its "new file" dropdown, which opens notebooks in a new tab),
+ * and the notebook view (with its rename field).</p>
+ *
+ * <p>Each of the real domains is mapped onto a path prefix of this single server:
+ *   <ul>
+ *     <li><code>/</code> - www.wolframcloud.com</li>
+ *     <li><code>/user</code> - user.wolfram.com</li>
+ *     <li><code>/dev</code> - dev.wolframcloud.com</li>
+ *   </ul>
+ * Session cookies are scoped to those paths, so that (just as on the live site) signing into
+ * <code>/user</code> and holding a session for <code>/dev</code> are two separate things.</p>
+ *
+ * <p>Only plain HTTP is served.</p>
+ *
+ */
+public class CloudStandInServer {
+	/** The path prefix standing in for www.wolframcloud.com */
+	public static final String LANDING_PATH = "/";
+
+	/** The path prefix standing in for user.wolfram.com */
+	public static final String USER_PATH = "/user";
+
+	/** The path prefix standing in for dev.wolframcloud.com */
+	public static final String DEV_PATH = "/dev";
+
+	/** The classpath directory holding our fixture pages */
+	private static final String FIXTURE_DIR = "fixtures/wolfram-cloud/";
+
+	/** The content type of every fixture page */
+	private static final String HTML = "text/html; charset=utf-8";
+
+	/** The name of the cookie holding a user.wolfram.com session */
+	private static final String USER_SESSION_COOKIE = "WOLFRAM_USER_SESSION";
+
+	/** The name of the cookie holding a dev.wolframcloud.com session */
+	private static final String DEV_SESSION_COOKIE = "WOLFRAM_DEV_SESSION";
+
+	/** The placeholder in the sign-in fixture replaced by an error message after a failed sign in */
+	private static final String MESSAGE_PLACEHOLDER = "<!--message-->";
+
+	/** The error message shown after a failed sign in */
+	private static final String INVALID_SIGN_IN_MESSAGE = "<p class=\"error\">Incorrect email or password.</p>";
+
+	/** The underlying server */
+	private final EmbeddedHttpServer server;
+
+	/** The password for each account that may sign in, keyed by email */
+	private final ConcurrentMap<String, String> accounts = new ConcurrentHashMap<String, String>();
+
+	/** The signed-in email for each user.wolfram.com session token */
+	private final ConcurrentMap<String, String> userSessions = new ConcurrentHashMap<String, String>();
+
+	/** The signed-in email for each dev.wolframcloud.com session token */
+	private final ConcurrentMap<String, String> devSessions = new ConcurrentHashMap<String, String>();
+
+	/** The owner of each notebook that has been created, keyed by notebook hash */
+	private final ConcurrentMap<String, String> notebooks = new ConcurrentHashMap<String, String>();
+
+	/** The landing page fixture */
+	private final byte[] landingPage;
+
+	/** The fixture for the iframe within the landing page */
+	private final byte[] landingFramePage;
+
+	/** The sign-in page fixture (kept as text so that an error message can be inserted) */
+	private final String signInPage;
+
+	/** The dev platform home page fixture */
+	private final byte[] homePage;
+
+	/** The notebook view fixture */
+	private final byte[] notebookPage;
+
+	/** The robots.txt served on every domain (used to read / write cookies without redirects) */
+	private final byte[] robotsTxt;
+
+	/**
+	 * Creates (but does not start) a stand-in server bound to the given port.
+	 *
+	 * @param port the port to listen on, or 0 to pick any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public CloudStandInServer(int port) throws IOException {
+		this.landingPage = EmbeddedHttpServer.readResource(FIXTURE_DIR + "landing.html");
+		this.landingFramePage = EmbeddedHttpServer.readResource(FIXTURE_DIR + "landing-frame.html");
+		this.signInPage = new String(EmbeddedHttpServer.readResource(FIXTURE_DIR + "sign-in.html"), EmbeddedHttpServer.UTF_8);
+		this.homePage = EmbeddedHttpServer.readResource(FIXTURE_DIR + "home.html");
+		this.notebookPage = EmbeddedHttpServer.readResource(FIXTURE_DIR + "notebook.html");
+		this.robotsTxt = EmbeddedHttpServer.readResource(FIXTURE_DIR + "robots.txt");
+
+		this.server = new EmbeddedHttpServer(port)
+				.addHandler(LANDING_PATH, new LandingHandler())
+				.addHandler(USER_PATH + "/", new UserHandler())
+				.addHandler(DEV_PATH + "/", new DevHandler());
+	}
+
+	/**
+	 * Allows the given account to sign in.
+	 *
+	 * @param email the email of the account
+	 * @param password the password of the account
+	 * @return this server
+	 */
+	public CloudStandInServer addAccount(String email, String password) {
+		this.accounts.put(email, password);
+		return this;
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Stops accepting requests and releases the port.
+	 */
+	public void stop() {
+		this.server.stop();
+	}
+
+	/**
+	 * Returns the URL standing in for www.wolframcloud.com (with a trailing slash, like the real one).
+	 *
+	 * @return the landing page URL
+	 */
+	public String getLandingUrl() {
+		return this.server.getBaseUrl() + LANDING_PATH;
+	}
+
+	/**
+	 * Returns the URL standing in for https://user.wolfram.com
+	 *
+	 * @return the base URL of the sign-in pages
+	 */
+	public String getUserUrl() {
+		return this.server.getBaseUrl() + USER_PATH;
+	}
+
+	/**
+	 * Returns the URL standing in for https://dev.wolframcloud.com
+	 *
+	 * @return the base URL of the dev platform pages
+	 */
+	public String getDevUrl() {
+		return this.server.getBaseUrl() + DEV_PATH;
+	}
+
+	/**
+	 * Returns the number of notebooks on this server (created, and not yet deleted).
+	 *
+	 * @return the number of notebooks
+	 */
+	public int getNotebookCount() {
+		return this.notebooks.size();
+	}
+
+	/**
+	 * Returns the session named by the given cookie, or null if the request does not carry a valid one.
+	 */
+	private static String sessionOf(HttpExchange exchange, String cookieName, Map<String, String> sessions) {
+		String token = EmbeddedHttpServer.getCookies(exchange).get(cookieName);
+		return (token == null) ? null : sessions.get(token);
+	}
+
+	/**
+	 * Starts a new session for the given account, setting its cookie on the given path.
+	 *
+	 * @return the token of the new session
+	 */
+	private static String startSession(HttpExchange exchange, String cookieName, String path, String email, Map<String, String> sessions) {
+		String token = UUID.randomUUID().toString();
+		sessions.put(token, email);
+		exchange.getResponseHeaders().add("Set-Cookie", cookieName + "=" + token + "; Path=" + path + "; HttpOnly");
+		return token;
+	}
+
+	/**
+	 * URL-encodes a single query parameter value.
+	 */
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is always supported", e);
+		}
+	}
+
+	/**
+	 * Serves www.wolframcloud.com: the landing page and the iframe holding its product links.
+	 */
+	private final class LandingHandler implements HttpHandler {
+		/* (non-Javadoc)
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			if (LANDING_PATH.equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, HTML, landingPage);
+			} else if ("/landing-frame.html".equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, HTML, landingFramePage);
+			} else if ("/robots.txt".equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, "text/plain", robotsTxt);
+			} else {
+				EmbeddedHttpServer.respond(exchange, 404, "text/plain", "Not Found".getBytes(EmbeddedHttpServer.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * Serves user.wolfram.com: the OAuth sign-in form.
+	 */
+	private final class UserHandler implements HttpHandler {
+		/* (non-Javadoc)
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			if ((USER_PATH + "/robots.txt").equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, "text/plain", robotsTxt);
+				return;
+			}
+			if (!(USER_PATH + "/oauth/authorize/cloud").equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 404, "text/plain", "Not Found".getBytes(EmbeddedHttpServer.UTF_8));
+				return;
+			}
+
+			String userSession = EmbeddedHttpServer.getCookies(exchange).get(USER_SESSION_COOKIE);
+			if ("POST".equals(exchange.getRequestMethod())) {
+				Map<String, String> form = EmbeddedHttpServer.readForm(exchange);
+				String email = form.get("email");
+				String password = form.get("password");
+				if (email == null || password == null || !password.equals(accounts.get(email))) {
+					EmbeddedHttpServer.respond(exchange, 200, HTML,
+							signInPage.replace(MESSAGE_PLACEHOLDER, INVALID_SIGN_IN_MESSAGE).getBytes(EmbeddedHttpServer.UTF_8));
+					return;
+				}
+
+				userSession = startSession(exchange, USER_SESSION_COOKIE, USER_PATH, email, userSessions);
+			}
+
+			if (userSession != null && userSessions.containsKey(userSession)) {
+				// Already signed in: hand straight back to the dev platform, as the real OAuth provider does
+				EmbeddedHttpServer.redirect(exchange, DEV_PATH + "/app/j_spring_oauth_security_check?oauth_verifier=" + encode(userSession));
+			} else {
+				EmbeddedHttpServer.respond(exchange, 200, HTML, signInPage.getBytes(EmbeddedHttpServer.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * Serves dev.wolframcloud.com: the OAuth callback, the home page, and notebooks (which their
+	 * owner can also delete).
+	 */
+	private final class DevHandler implements HttpHandler {
+		/* (non-Javadoc)
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			if ((DEV_PATH + "/robots.txt").equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, "text/plain", robotsTxt);
+				return;
+			}
+
+			if ((DEV_PATH + "/app/j_spring_oauth_security_check").equals(path)) {
+				String email = userSessions.get(String.valueOf(EmbeddedHttpServer.getQueryParameters(exchange).get("oauth_verifier")));
+				if (email != null) {
+					startSession(exchange, DEV_SESSION_COOKIE, DEV_PATH, email, devSessions);
+				}
+				EmbeddedHttpServer.redirect(exchange, DEV_PATH + "/app/");
+				return;
+			}
+
+			String email = sessionOf(exchange, DEV_SESSION_COOKIE, devSessions);
+			if (email == null) {
+				// Not signed in: every dev platform page bounces through the OAuth sign-in form
+				String callback = "http://" + exchange.getRequestHeaders().getFirst("Host") + DEV_PATH + "/app/j_spring_oauth_security_check";
+				EmbeddedHttpServer.redirect(exchange, USER_PATH + "/oauth/authorize/cloud?oauth_token=" + UUID.randomUUID()
+						+ "&oauth_callback=" + encode(callback));
+				return;
+			}
+
+			String objectsPath = DEV_PATH + "/app/objects/";
+			if ("DELETE".equals(exchange.getRequestMethod())) {
+				// Only the owner of a notebook may delete it
+				if (path.startsWith(objectsPath) && notebooks.remove(path.substring(objectsPath.length()), email)) {
+					EmbeddedHttpServer.respond(exchange, 200, "text/plain", "Deleted".getBytes(EmbeddedHttpServer.UTF_8));
+				} else {
+					EmbeddedHttpServer.respond(exchange, 404, "text/plain", "Not Found".getBytes(EmbeddedHttpServer.UTF_8));
+				}
+			} else if ((DEV_PATH + "/app/").equals(path)) {
+				EmbeddedHttpServer.respond(exchange, 200, HTML, homePage);
+			} else if ((DEV_PATH + "/app/view/newNotebook").equals(path)) {
+				String hash = UUID.randomUUID().toString();
+				notebooks.put(hash, email);
+				EmbeddedHttpServer.redirect(exchange, objectsPath + hash);
+			} else if (path.startsWith(objectsPath) && email.equals(notebooks.get(path.substring(objectsPath.length())))) {
+				EmbeddedHttpServer.respond(exchange, 200, HTML, notebookPage);
+			} else {
+				EmbeddedHttpServer.respond(exchange, 404, "text/plain", "Not Found".getBytes(EmbeddedHttpServer.UTF_8));
+			}
+		}
+	}
+}
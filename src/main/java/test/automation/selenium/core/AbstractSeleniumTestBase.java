@@ -3,8 +3,10 @@ package test.automation.selenium.core;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
@@ -12,24 +14,44 @@ import org.openqa.selenium.WebDriverException;
 import org.testng.ITestResult;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
 import org.testng.annotations.Parameters;
 
 
 import test.automation.selenium.core.BrowserType;
+import test.automation.selenium.core.logging.HarnessLogger;
+import test.automation.selenium.core.logging.LogAppender;
+import test.automation.selenium.core.logging.LogContext;
+import test.automation.selenium.core.metrics.CommandMetrics;
+import test.automation.selenium.core.metrics.LocatorProfiler;
+import test.automation.selenium.core.navigation.PageNavigator;
+import test.automation.selenium.core.state.RequiresState;
+import test.automation.selenium.core.state.StatePreparationListener;
+import test.automation.selenium.core.state.StateRegistry;
 
 /**
  * A simple base class to represent a set of tests that
  * we plan to run against multiple browsers (WebDrivers).
  * 
+ * Each instance holds one driver (and the states provisioned for it), checked out
+ * before its class runs, which its test methods share. Suites can therefore run
+ * tests, classes, or instances in parallel, but not the methods of one class:
+ * {@link SessionSchedulerListener} runs the classes of such suites in parallel instead.
+ * 
  * @author Mike Lambert
  *
  */
+@Listeners({ DriverPreflightListener.class, SessionSchedulerListener.class, DriverPoolWarmUpListener.class, StatePreparationListener.class })
 public abstract class AbstractSeleniumTestBase {
-    /** The directory in which to save screenshots of test cases */
-    private static final String TEST_OUTPUT_DIR = "./test-screenshots";
+    /** Logs the messages of this class */
+    private static final HarnessLogger log = HarnessLogger.getLogger(AbstractSeleniumTestBase.class);
     
+    /** How long to wait for the log to be written at the end of the suite */
+    private static final long LOG_FLUSH_TIMEOUT_SECONDS = 10;
+
     /** The name of the currently executing test case */
     protected String currentTestName;
     
@@ -45,6 +67,15 @@ public abstract class AbstractSeleniumTestBase {
 	 */
 	protected WebDriver driver;
 
+	/**
+	 * False once any test in this class has failed while using the driver,
+	 * in which case the browser is relaunched rather than recycled
+	 */
+	private boolean driverHealthy = true;
+
+	/** The value of each state required by the current test method (see {@link RequiresState}), by name */
+	private final Map<String, Object> states = new HashMap<String, Object>();
+
 	/**
 	 * Initialize the desired browser type for the desired browser.
 	 */
@@ -61,11 +92,16 @@ public abstract class AbstractSeleniumTestBase {
 	@Parameters({ "browser" })
 	@BeforeClass
 	protected void initializeTestBrowserWindow(String browser) {
-		// Initialize a driver for the given browser type
+		// Record the commands issued while setting up against this class
+		CommandMetrics.getCurrent().setContext(this.getClass().getSimpleName());
+		
+		// Initialize a driver for the given browser type (pre-launched by DriverPoolWarmUpListener, if possible)
 		this.driver = this.initializeDriver(browser);
-
-		// Initialize injected browser
-		this.driver = this.browserType.getDriver();
+		
+		// Tag everything this thread logs with the class it is running
+		LogContext.put(LogContext.BROWSER, this.browserType.toString());
+		LogContext.put(LogContext.TEST_CLASS, this.getClass().getSimpleName());
+		LogContext.remove(LogContext.TEST_METHOD);
 		
 		// Clear any stored cookies / state
 		this.driver.manage().deleteAllCookies();
@@ -80,14 +116,96 @@ public abstract class AbstractSeleniumTestBase {
 	}
 	
 	/**
-	 * Tears down our test environment, which should close out all open browser windows.
+	 * Tears down our test environment, which should close out all open browser windows
+	 * and free up this driver's slot in the pool for the next test class. If session
+	 * recycling is enabled (see {@link SessionRecycler}), the browser is reset and handed
+	 * to the next test class instead of being quit.
 	 * 
 	 * NOTE: this is currently broken for Opera.
 	 */
 	@AfterClass
 	protected void closeBrowserWindows() {
 		// FIXME: this does not seem to work for Opera...
-		this.driver.quit();
+		try {
+			this.browserType.getProvider().recycleDriver(this.driver, this.driverHealthy, this.createSessionRecycler());
+		} finally {
+			LogContext.clear();
+		}
+	}
+	
+	/**
+	 * Returns the recycler used to reset this class's browser for the next test class
+	 * (if recycling is enabled). Subclasses can override this to clean additional origins.
+	 */
+	protected SessionRecycler createSessionRecycler() {
+		return new SessionRecycler();
+	}
+	
+	/**
+	 * Waits for every screenshot taken during the suite to be written to disk.
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void flushScreenshots() {
+		long timeoutSeconds = HarnessSettings.getLong("screenshot.flush.timeout.seconds", 60);
+		if (!ScreenshotStore.getCurrent().flush(timeoutSeconds, TimeUnit.SECONDS)) {
+			log.warn("Screenshots were still being saved after %d seconds", timeoutSeconds);
+		}
+	}
+	
+	/**
+	 * Waits for every message logged during the suite to be written (see {@link LogAppender}).
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void flushLog() {
+		if (!LogAppender.getCurrent().flush(LOG_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			System.err.println(String.format("WARNING: The harness log was still being written after %d seconds", LOG_FLUSH_TIMEOUT_SECONDS));
+		}
+	}
+	
+	/**
+	 * Writes the latency of every WebDriver command issued during the suite (see {@link CommandMetrics}).
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void exportCommandMetrics() {
+		CommandMetrics metrics = CommandMetrics.getCurrent();
+		if (!metrics.isEnabled()) {
+			return;
+		}
+		
+		try {
+			metrics.export();
+		} catch (IOException e) {
+			log.error("Failed to save WebDriver command metrics to %s: %s", metrics.getDirectory(), e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes the lookups made by each page object field during the suite (see {@link LocatorProfiler}).
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void exportLocatorProfile() {
+		LocatorProfiler profiler = LocatorProfiler.getCurrent();
+		if (!profiler.isEnabled()) {
+			return;
+		}
+		
+		try {
+			profiler.export();
+		} catch (IOException e) {
+			log.error("Failed to save the page object locator profile: %s", e.getMessage());
+		}
+	}
+	
+	/**
+	 * Quits any drivers still held by the pools once every test in the suite has finished. Only the
+	 * providers that were created are shut down: creating the others now would only launch their
+	 * set-up (e.g. a stand-in hub for remote drivers) after the suite.
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void shutdownDriverPools() {
+		for (AbstractWebDriverProvider provider : AbstractWebDriverProvider.getCreated()) {
+			provider.shutdown();
+		}
 	}
 	
 	/** 
@@ -98,73 +216,137 @@ public abstract class AbstractSeleniumTestBase {
     protected void saveTestMethodNameForScreenshot(Method method)
     {
 		this.currentTestName = method.getName();
+		LogContext.put(LogContext.BROWSER, this.browserType.toString());
+		LogContext.put(LogContext.TEST_CLASS, this.getClass().getSimpleName());
+		LogContext.put(LogContext.TEST_METHOD, this.currentTestName);
+		CommandMetrics.getCurrent().startTest(this.browserType.toString(), this.getClass().getSimpleName() + "." + this.currentTestName);
     }
 
 	/**
-	 * After each test method runs (pass or fail), take a screenshot of the result of the test
-	 * and save it to the directory defined by TEST_OUTPUT_DIR. Screenshot titles will be 
-	 * formatted as: "BROWSER-TESTNAME.png".
+	 * Brings the driver into every state that the current test method declares with {@link RequiresState},
+	 * before it runs.
+	 */
+	@BeforeMethod
+	protected void provisionRequiredStates(Method method) {
+		this.states.clear();
+		RequiresState required = method.getAnnotation(RequiresState.class);
+		if (required == null) {
+			return;
+		}
+		
+		for (String name : required.value()) {
+			this.states.put(name, StateRegistry.getCurrent().require(name, this.driver));
+		}
+	}
+	
+	/**
+	 * Returns the value of a state required by the current test method (see {@link RequiresState}).
 	 * 
-	 * TODO: Investigate only saving failed test cases. Although passing cases
-	 * would be nice to include as well, in case we wish to manually inspect elements
-	 * on the page.
+	 * @param name the name of the state
+	 * @return the value of the state
+	 * @throws IllegalArgumentException if the current test method does not require the state
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> T getState(String name) {
+		if (!this.states.containsKey(name)) {
+			throw new IllegalArgumentException("State not declared with @RequiresState: " + name);
+		}
+		return (T) this.states.get(name);
+	}
+
+	/**
+	 * Brings this test's driver to the given page by the cheapest route available (see {@link PageNavigator}),
+	 * e.g. straight to its URL rather than through the pages before it. Tests of the way to a page should
+	 * walk it themselves instead.
+	 *
+	 * @param page the class of the page
+	 * @return the page, once it is ready
+	 */
+	protected <P extends AbstractWebPage> P navigateTo(Class<P> page) {
+		return PageNavigator.getCurrent().navigateTo(page, this.driver);
+	}
+
+	/**
+	 * After each test method runs (pass or fail), take a screenshot of the result of the test
+	 * and add it to the {@link ScreenshotStore}. Screenshots are indexed by run, browser, 
+	 * "TESTCLASS.TESTNAME", and result. The configured {@link ScreenshotPolicy} decides which 
+	 * results are kept (and no screenshot is taken at all for results that would not be kept).
 	 */
 	@AfterMethod
 	protected void takeScreenshotOfTestResult(ITestResult result) throws IOException {
 		String testResult;
 		switch (result.getStatus()) {
 			case ITestResult.SUCCESS:
-				testResult = "PASS";
+				testResult = ScreenshotStore.PASS;
 				break;
 			case ITestResult.SKIP:
-				testResult = "SKIP";
+				testResult = ScreenshotStore.SKIP;
 				break;
 			default:
 			case ITestResult.FAILURE:
-				testResult = "FAIL";
+				testResult = ScreenshotStore.FAIL;
+				this.driverHealthy = false;
 				break;
 		}
 		
-		// TODO: Use a real Logger (log4j?)
-		System.out.println("Result of test \"" + this.currentTestName + "\" on " + this.browserType.toString() + ": " + testResult);
-		//System.out.println(String.format("Final page (source) of test is: %s", this.driver.getPageSource()));
+		log.info("Result of test \"%s\" on %s: %s", this.currentTestName, this.browserType, testResult);
+		//log.info("Final page (source) of test is: %s", this.driver.getPageSource());
 		
-		String destinationFileName = this.browserType.toString() + "-" + this.currentTestName  + ".png";
-		this.takeScreenshotOfPage(destinationFileName);
+		ScreenshotStore store = ScreenshotStore.getCurrent();
+		String browser = this.browserType.toString();
+		String testName = this.getClass().getSimpleName() + "." + this.currentTestName;
+		try {
+			if (store.shouldCapture(browser, testName, testResult)) {
+				byte[] png = this.captureScreenshot(testName);
+				if (png != null) {
+					store.store(browser, testName, testResult, png);
+				}
+			}
+		} finally {
+			// The test's time includes its screenshot
+			CommandMetrics.getCurrent().finishTest();
+			LogContext.remove(LogContext.TEST_METHOD);
+		}
 	}
 	
 	/** 
-	 * Takes a screenshot of the current browser window and saves it to the provided 
-	 * destinationFilePath. If screenshots are not available for the current browser 
-	 * type, this method performs prints a warning to the console. 
+	 * Takes a screenshot of the current browser window and queues it to be saved to the provided 
+	 * destinationFileName (within the {@link ScreenshotStore} directory) by the {@link ScreenshotWriter}, 
+	 * so that we do not wait on the disk. Unlike the screenshots taken after each test, this file is 
+	 * saved as-is, replacing any existing file of the same name. If screenshots are not available for 
+	 * the current browser type, this method performs prints a warning to the console. 
 	 * 
 	 * @param destinationFileName the name of the file to save
-	 * 
-	 * @throws IOException if there is an error copying the file from the temp directory to TEST_OUTPUT_DIR
-	 * @throws WebDriverException if the driver that you are using mysteriously fails to capture a screenshot
 	 */
 	protected void takeScreenshotOfPage(String destinationFileName) {
+		byte[] png = this.captureScreenshot(destinationFileName);
+		if (png != null) {
+			// Write the file in the background (waits only if the writer is falling behind)
+			File destFile = new File(ScreenshotStore.getCurrent().getDirectory(), destinationFileName);
+			ScreenshotWriter.getCurrent().write(destFile, png);
+		}
+	}
+	
+	/** 
+	 * Captures a screenshot of the current browser window in memory. If screenshots are not 
+	 * available for the current browser type, or the capture fails, this method prints a 
+	 * warning to the console. 
+	 * 
+	 * @param description what the screenshot is of (for the warning)
+	 * @return the screenshot as PNG bytes, or null if no screenshot could be taken
+	 */
+	protected byte[] captureScreenshot(String description) {
 		// Ensure that we can cast the driver to one capable of taking a screenshot
 		if (this.driver instanceof TakesScreenshot) {
 			try {
-				// Cast this driver to one that can take a screenshot
-				TakesScreenshot screenshotCapableDriver = ((TakesScreenshot) driver);
-				
-				// Source: Save a screenshot to the temp folder (environment-specific)
-				File scrFile = screenshotCapableDriver.getScreenshotAs(OutputType.FILE);
-				
-				// Destination: TEST_OUTPUT_DIR, following the formatting outlined above
-				File destFile = new File(TEST_OUTPUT_DIR, destinationFileName);
-				
-				// Copy from the temp directory to save the file permanently
-				FileUtils.copyFile(scrFile, destFile);
-			} catch (WebDriverException | IOException e) {
-				// TODO: Use a real Logger (log4j?)
-				System.out.println(String.format("ERROR: Failed to save screenshot (%s) on browser %s", destinationFileName, this.browserType.toString()));
+				// Cast this driver to one that can take a screenshot, and capture it in memory
+				return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			} catch (WebDriverException e) {
+				log.error("Failed to save screenshot (%s) on browser %s", description, this.browserType.toString());
 			}
 		} else {
-			// TODO: Use a real Logger (log4j?)
-			System.out.println(String.format("WARNING: 'Take Screenshot' operation not available in browser type: %s", this.browserType.toString()));
+			log.warn("'Take Screenshot' operation not available in browser type: %s", this.browserType.toString());
 		}
+		return null;
 	}
 }
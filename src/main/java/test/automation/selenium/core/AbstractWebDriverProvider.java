@@ -0,0 +1,155 @@
+package test.automation.selenium.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.bindings.ElementCache;
+import test.automation.selenium.core.metrics.CommandMetrics;
+import test.automation.selenium.core.metrics.InstrumentedDriver;
+
+/**
+ * A base class for every {@link IWebDriverProvider}. Subclasses only need to describe how
+ * to launch a single, fully-configured driver; this class takes care of pooling those drivers
+ * and handing them out safely to tests running on multiple threads, and wraps each driver in
+ * an {@link InstrumentedDriver} so that its commands are timed (see {@link CommandMetrics}).
+ *
+ * @see WebDriverPool
+ */
+public abstract class AbstractWebDriverProvider implements IWebDriverProvider {
+	/** Every provider created so far, in the order in which they were created */
+	private static final List<AbstractWebDriverProvider> created = new CopyOnWriteArrayList<AbstractWebDriverProvider>();
+
+	/** The type of browser launched by this provider */
+	private final BrowserType browserType;
+
+	/** The pool of drivers launched by this provider */
+	private final WebDriverPool pool;
+
+	/**
+	 * Initializes a provider for the given browser type.
+	 *
+	 * @param browserType the type of browser launched by this provider
+	 */
+	protected AbstractWebDriverProvider(BrowserType browserType) {
+		this.browserType = browserType;
+		this.pool = new WebDriverPool(browserType, this);
+		created.add(this);
+	}
+
+	/**
+	 * Returns every provider created so far, so that their pools can be shut down without creating
+	 * the providers of browsers that were never used.
+	 *
+	 * @return the providers created so far
+	 */
+	static List<AbstractWebDriverProvider> getCreated() {
+		return Collections.unmodifiableList(created);
+	}
+
+	/**
+	 * Launches and configures a brand new instance of this provider's WebDriver.
+	 * This is only ever called by the pool when it needs another driver.
+	 *
+	 * @return the newly-launched driver
+	 */
+	protected abstract WebDriver createDriver();
+
+	/**
+	 * Returns the names of the settings that hold the paths of the driver servers needed to launch
+	 * this provider's WebDriver (none, by default). Each is checked, including by running it with
+	 * <code>--version</code>, and set as a System property of the same name by {@link DriverBinaries}
+	 * before any driver is launched.
+	 *
+	 * @return the names of the driver binary settings
+	 */
+	protected String[] getBinaryKeys() {
+		return new String[0];
+	}
+
+	/**
+	 * Returns the names of the settings that hold the paths of browsers that this provider's WebDriver
+	 * launches itself (none, by default). These are checked like {@link #getBinaryKeys()}, except that
+	 * they are never run: a browser may open a window rather than answer <code>--version</code>.
+	 *
+	 * @return the names of the browser binary settings
+	 */
+	protected String[] getBrowserBinaryKeys() {
+		return new String[0];
+	}
+
+	/**
+	 * Launches a new driver with {@link #createDriver()}, recording the launch as a "newSession"
+	 * command and instrumenting the driver if {@link CommandMetrics} are enabled (or if the
+	 * {@link ElementCache} is, so that it sees the driver navigate).
+	 *
+	 * @return the newly-launched (and possibly instrumented) driver
+	 * @throws IllegalArgumentException if one of this provider's binaries is missing or unusable
+	 */
+	final WebDriver launchDriver() {
+		// Fails at once, rather than after the browser has failed to start
+		DriverBinaries.getCurrent().requireUsable(this.browserType);
+
+		long start = System.nanoTime();
+		WebDriver driver = createDriver();
+
+		CommandMetrics metrics = CommandMetrics.getCurrent();
+		if (metrics.isEnabled()) {
+			metrics.record(this.browserType.toString(), "newSession", System.nanoTime() - start);
+		} else if (!ElementCache.getCurrent().isEnabled()) {
+			return driver;
+		}
+		return InstrumentedDriver.wrap(driver, this.browserType.toString());
+	}
+
+	/**
+	 * Returns the pool of drivers launched by this provider.
+	 *
+	 * @return the pool of drivers
+	 */
+	public WebDriverPool getPool() {
+		return this.pool;
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.IWebDriverProvider#getDriver()
+	 */
+	@Override
+	public WebDriver getDriver() {
+		return this.pool.checkout();
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.IWebDriverProvider#releaseDriver(org.openqa.selenium.WebDriver)
+	 */
+	@Override
+	public void releaseDriver(WebDriver driver) {
+		this.pool.release(driver);
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.IWebDriverProvider#discardDriver(org.openqa.selenium.WebDriver)
+	 */
+	@Override
+	public void discardDriver(WebDriver driver) {
+		this.pool.discard(driver);
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.IWebDriverProvider#recycleDriver(org.openqa.selenium.WebDriver, boolean, test.automation.selenium.core.SessionRecycler)
+	 */
+	@Override
+	public void recycleDriver(WebDriver driver, boolean healthy, SessionRecycler recycler) {
+		this.pool.recycle(driver, healthy, recycler);
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.IWebDriverProvider#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+}
@@ -1,28 +1,60 @@
 package test.automation.selenium.core;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsDriver;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocatorFactory;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
-import com.google.common.base.Predicate;
+import test.automation.selenium.core.bindings.FrameAwareFieldDecorator;
+import test.automation.selenium.core.bindings.PageBindings;
+import test.automation.selenium.core.logging.HarnessLogger;
+import test.automation.selenium.core.metrics.LocatorProfiler;
+import test.automation.selenium.core.metrics.ProfilingElementLocatorFactory;
 
 /**
  * An abstract class to represent each PageObject in the Web Application
- * that we wish to include in automated testing. The constructor will the use PageFactory
+ * that we wish to include in automated testing. The constructor binds the page's element
+ * fields through {@link PageBindings#bind(Object, SearchContext)}, using the binder
+ * generated for the page at build time. Only a page without a generated <code>_Bindings</code>
+ * class (e.g. one with private element fields), or every page while the {@link LocatorProfiler}
+ * is enabled, falls back to PageFactory with a {@link FrameAwareFieldDecorator}.
+ * 
+ * Element fields should not be private: the generated bindings assign them directly,
+ * and are much cheaper than PageFactory.
+ * 
+ * Element fields living in frames are marked with <code>@InFrame</code>, and the driver
+ * is switched to their frame (only if it is not already there) whenever they are used.
+ * 
+ * The constructor waits until the page is ready (see {@link #getReadiness()}). With
+ * <code>webdriver.page.readiness.lazy=true</code> (see {@link HarnessSettings}), this is instead
+ * deferred until the page object first looks up one of its elements, so that a page object
+ * which is never used (e.g. one returned by a navigation that is immediately followed by
+ * another) never waits. Tests must then not assume that constructing a page waited for it.
  * 
  * @author Mike Lambert
  * 
  */
 public abstract class AbstractWebPage {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(AbstractWebPage.class);
+
 	/** 
 	 * Number of seconds deemed appropriate 
 	 * to explicitly wait for page / element load 
 	 */
 	protected static final int waitSeconds = 15;
 
+	/** Whether or not to defer waiting for each page to be ready until its elements are first used */
+	private static final boolean LAZY_READINESS = HarnessSettings.getBoolean("webdriver.page.readiness.lazy", false);
+
 	/**
 	 * The WebDriver that we wish to use to navigate this page.
 	 */
@@ -33,6 +65,9 @@ public abstract class AbstractWebPage {
 	 */
 	protected final WebDriverWait wait;
 
+	/** Whether or not we have already waited for the page to be ready (or are waiting now) */
+	private boolean ready;
+
 	/**
 	 * Returns the title to expect for this page
 	 */
@@ -42,13 +77,25 @@ public abstract class AbstractWebPage {
 	 * Returns the starting point for testing this page
 	 */
 	protected abstract String getStartUrl();
+
+	/**
+	 * Returns what it means for this page to be ready: by default, its URL contains the
+	 * {@link #getStartUrl() start URL} and its title contains the {@link #getExpectedPageTitle()
+	 * expected title}. Override to require an exact URL or sentinel elements as well.
+	 * Element fields have already been initialized when this is called.
+	 *
+	 * @return an expectation checking everything in a single round-trip per poll
+	 */
+	protected PageReadiness getReadiness() {
+		return new PageReadiness(getStartUrl(), getExpectedPageTitle());
+	}
 	
 	/** 
 	 * Initializes the page using the driver provided and the default wait time. 
 	 * This method will return only after our page title matches the expected title.
 	 */
 	protected AbstractWebPage(WebDriver driver) {
-		this(driver, new WebDriverWait(driver, waitSeconds));
+		this(driver, new EventDrivenWait(driver, waitSeconds));
 	}
 
 	/** 
@@ -60,11 +107,37 @@ public abstract class AbstractWebPage {
 		this.driver = driver;
 		this.wait = wait;
 		
-        PageFactory.initElements(this.driver, this);
+		// Lazily-verified pages look up their elements through a gate that waits for readiness first
+		SearchContext context = LAZY_READINESS ? new ReadinessGate() : this.driver;
+        if (LocatorProfiler.getCurrent().isEnabled()) {
+        	// Attribute every lookup to the field that made it
+        	PageFactory.initElements(new FrameAwareFieldDecorator(new ProfilingElementLocatorFactory(context, this), context), this);
+        } else if (!PageBindings.bind(this, context)) {
+        	// No bindings were generated for this page (e.g. it has private element fields)
+        	PageFactory.initElements(new FrameAwareFieldDecorator(new DefaultElementLocatorFactory(context), context), this);
+        }
         
         // Wait for some expectations
-        wait.until(ExpectedConditions.urlContains(getStartUrl()));
-		wait.until(ExpectedConditions.titleContains(getExpectedPageTitle()));
+        if (!LAZY_READINESS) {
+        	waitUntilReady();
+        }
+	}
+
+	/**
+	 * Waits until the page is ready (see {@link #getReadiness()}), unless we already have.
+	 */
+	protected final void waitUntilReady() {
+		if (this.ready) {
+			return;
+		}
+		// Set first: looking up sentinel elements must not wait again
+		this.ready = true;
+		try {
+			wait.until(getReadiness());
+		} catch (RuntimeException e) {
+			this.ready = false;
+			throw e;
+		}
 	}
 
 	/**
@@ -78,59 +151,33 @@ public abstract class AbstractWebPage {
 	}
 
 	/**
-	 * Switches to a newly-opened window and returns the previous window handle
+	 * Waits until each of the given elements is displayed, enabled, in view, and not covered
+	 * by another element, checking all of them in a single round-trip per poll.
+	 *
+	 * @param elements the elements that we are about to interact with
+	 */
+	protected void waitUntilInteractable(WebElement... elements) {
+		waitUntilReady();
+		wait.until(new InteractableCondition(elements));
+	}
+
+	/**
+	 * Starts tracking this page's windows, before an action that opens a new one
+	 * (see {@link WindowTracker#switchToNewWindow()}).
+	 * @return the tracker
+	 */
+	protected WindowTracker trackWindows() {
+		return new WindowTracker(driver);
+	}
+
+	/**
+	 * Switches to a newly-opened window and returns the previous window handle.
+	 * Any window other than the current one counts as new: prefer {@link #trackWindows()}
+	 * before the action that opens the window.
 	 * @return the previous window handle
 	 */
 	public String switchToNewWindowOrTab() {
-		String previousHandle = driver.getWindowHandle();
-
-		wait.until(new Predicate<WebDriver>() {
-		    public boolean apply(final WebDriver d) {
-	        	return driver.getWindowHandles().size() > 1;
-		    }
-		});
-		
-		// -------------------------------------------------------------------
-		// FIXME: Opera has issues switching tabs / windows
-		// See https://github.com/operasoftware/operachromiumdriver/issues/15
-		// -------------------------------------------------------------------
-
-		// Hacky workaround just for Opera
-		wait.until(ExpectedConditions.not(ExpectedConditions.urlToBe("browser://startpage/")));
-		wait.until(ExpectedConditions.not(ExpectedConditions.titleIs("Speed Dial")));
-		
-		//printOpenWindows();
-		//wait.until(ExpectedConditions.numberOfWindowsToBe(2));
-		ArrayList<String> tabs = new ArrayList<String> (driver.getWindowHandles());
-	    driver.switchTo().window(tabs.get(1));
-	    //driver.close();
-		//printOpenWindows();
-	    //driver.switchTo().window(tabs.get(0));
-	    
-	    if ("browser://startpage/".equals(driver.getCurrentUrl())) {
-			//wait.until(ExpectedConditions.numberOfWindowsToBe(2));
-	    	ArrayList<String> tabs2 = new ArrayList<String> (driver.getWindowHandles());
-		    driver.switchTo().window(tabs2.get(1));
-			//printOpenWindows();
-	    }
-		
-		// Wait for the new window to open (Chrome / Opera seem to need this)
-		/*wait.until(new Predicate<WebDriver>() {
-	        public boolean apply(final WebDriver d) {
-	    		// Now switch to the new window
-
-	    		List<String> allWindows = new ArrayList<String>(driver.getWindowHandles());
-	            int numWindows = allWindows.size();
-	    		String newWindow = allWindows.get(numWindows - 1);
-	    		driver.switchTo().window(newWindow);
-	    		
-	    		// Hacky workaround just for Opera
-	    		// (switch windows until we pass "Speed Dial", Opera's start page)
-	            return !driver.getTitle().contains("Speed Dial");
-	        }
-	    });*/
-		 
-		return previousHandle;
+		return new WindowTracker(driver, Collections.<String>emptySet()).switchToNewWindow();
 	}
 	
 	/** Debug method to print / switch to window handles. */
@@ -139,9 +186,40 @@ public abstract class AbstractWebPage {
 		ArrayList<String> tabs = new ArrayList<String>(driver.getWindowHandles());
 		for (String handle : tabs) {
 			driver.switchTo().window(handle);
-			System.out.println("New Window Handle: " + handle);
-			//System.out.println("New Window URL: " + driver.getCurrentUrl());
-			//System.out.println("New Window Title: " + driver.getTitle());
+			log.info("New Window Handle: %s", handle);
+			//log.info("New Window URL: %s", driver.getCurrentUrl());
+			//log.info("New Window Title: %s", driver.getTitle());
+		}
+	}
+
+	/**
+	 * Looks up the elements of a lazily-verified page, waiting for the page to be ready first.
+	 */
+	private final class ReadinessGate implements SearchContext, WrapsDriver {
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.SearchContext#findElements(org.openqa.selenium.By)
+		 */
+		@Override
+		public List<WebElement> findElements(By by) {
+			waitUntilReady();
+			return driver.findElements(by);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.SearchContext#findElement(org.openqa.selenium.By)
+		 */
+		@Override
+		public WebElement findElement(By by) {
+			waitUntilReady();
+			return driver.findElement(by);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.internal.WrapsDriver#getWrappedDriver()
+		 */
+		@Override
+		public WebDriver getWrappedDriver() {
+			return driver;
 		}
 	}
 }
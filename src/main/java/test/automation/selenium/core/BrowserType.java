@@ -1,7 +1,17 @@
 package test.automation.selenium.core;
 
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.ie.InternetExplorerDriver;
+import org.openqa.selenium.opera.OperaDriver;
+import org.openqa.selenium.phantomjs.PhantomJSDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.safari.SafariDriver;
 
+import test.automation.selenium.core.metrics.InstrumentedDriver;
 import test.automation.selenium.core.providers.ChromeDriverProvider;
 import test.automation.selenium.core.providers.EdgeDriverProvider;
 import test.automation.selenium.core.providers.FirefoxDriverProvider;
@@ -9,6 +19,7 @@ import test.automation.selenium.core.providers.HtmlUnitDriverProvider;
 import test.automation.selenium.core.providers.InternetExplorerDriverProvider;
 import test.automation.selenium.core.providers.OperaDriverProvider;
 import test.automation.selenium.core.providers.PhantomJSDriverProvider;
+import test.automation.selenium.core.providers.RemoteWebDriverProvider;
 import test.automation.selenium.core.providers.SafariDriverProvider;
 
 
@@ -21,28 +32,31 @@ import test.automation.selenium.core.providers.SafariDriverProvider;
  */
 public enum BrowserType {
 	/** Mozilla Firefox Browser */
-	FIREFOX("firefox"),
+	FIREFOX("firefox", 4, 100, 500),
 	
 	/** Google Chrome Browser */
-	CHROME("chrome"),
+	CHROME("chrome", 4, 100, 500),
 	
-	/** Microsoft Internet Explorer */
-	IE("ie"),
+	/** Microsoft Internet Explorer (IEDriverServer does not cope well with concurrent sessions) */
+	IE("ie", 1, 100, 400),
 	
 	/** Opera Browser */
-	OPERA("opera"),
+	OPERA("opera", 2, 100, 500),
 	
 	/** PhantomJS Headless Browser */
-	PHANTOMJS("phantomjs"),
+	PHANTOMJS("phantomjs", 6, 50, 250),
 	
-	/** HtmlUnit Headless Browser */
-	HTMLUNIT("htmlunit"),
+	/** HtmlUnit Headless Browser (runs inside of the test JVM) */
+	HTMLUNIT("htmlunit", 12, 25, 100),
 	
-	/** Apple Safari Browser */
-	SAFARI("safari"),
+	/** Apple Safari Browser (SafariDriver only drives one session at a time) */
+	SAFARI("safari", 1, 100, 500),
 	
-	/** Microsoft Edge Browser */
-	EDGE("edge")
+	/** Microsoft Edge Browser (MicrosoftWebDriver only drives one session at a time) */
+	EDGE("edge", 1, 100, 400),
+	
+	/** Any browser, driven through a Selenium Grid hub (runs on other hosts, so only its client weighs on this one) */
+	REMOTE("remote", 8, 5, 50)
 	;
 	
 	/**
@@ -50,43 +64,128 @@ public enum BrowserType {
 	 */
     private final String browserString;
 
+    /** The default maximum number of live drivers of this type (see {@link WebDriverPool}) */
+    private final int defaultPoolSize;
+
+    /** The default share of one CPU core used by a session of this type, in percent (see {@link SessionScheduler}) */
+    private final int defaultCpuPercent;
+
+    /** The default memory used by a session of this type, in megabytes (see {@link SessionScheduler}) */
+    private final int defaultMemoryMegabytes;
+
     /** 
      * Internal constructor for enum values 
      */
-    private BrowserType(final String browser) {
+    private BrowserType(final String browser, int defaultPoolSize, int defaultCpuPercent, int defaultMemoryMegabytes) {
         this.browserString = browser.toLowerCase();
+        this.defaultPoolSize = defaultPoolSize;
+        this.defaultCpuPercent = defaultCpuPercent;
+        this.defaultMemoryMegabytes = defaultMemoryMegabytes;
     }
     
-    /** 
-     * Given the current enum value, retrieve the driver representing that browser type.
-     * This indirect access method allows us to lazy-load all drivers, while still keeping 
-     * all of the browser string / driver initialization logic together. The test harness 
-     * will not attempt to initialize a selenium driver unless we explicitly call the method
-     * to do so.
+    /**
+     * Given the current enum value, retrieve the provider responsible for that browser type.
+     * Providers do not launch any browsers until a driver is requested from them.
      */
-    public WebDriver getDriver() {    	
+    public AbstractWebDriverProvider getProvider() {
     	switch (this.browserString) {
     		case "firefox":
-    			return FirefoxDriverProvider.getCurrent().getDriver();
+    			return FirefoxDriverProvider.getCurrent();
     		case "chrome":
-    			return ChromeDriverProvider.getCurrent().getDriver();
+    			return ChromeDriverProvider.getCurrent();
     		case "ie":
-    			return InternetExplorerDriverProvider.getCurrent().getDriver();
+    			return InternetExplorerDriverProvider.getCurrent();
     		case "opera":
-    			return OperaDriverProvider.getCurrent().getDriver();
+    			return OperaDriverProvider.getCurrent();
     		case "htmlunit":
-    			return HtmlUnitDriverProvider.getCurrent().getDriver();
+    			return HtmlUnitDriverProvider.getCurrent();
     		case "phantomjs":
-    			return PhantomJSDriverProvider.getCurrent().getDriver();
+    			return PhantomJSDriverProvider.getCurrent();
     		case "edge":
-    			return EdgeDriverProvider.getCurrent().getDriver();
+    			return EdgeDriverProvider.getCurrent();
     		case "safari":
-    			return SafariDriverProvider.getCurrent().getDriver();
+    			return SafariDriverProvider.getCurrent();
+    		case "remote":
+    			return RemoteWebDriverProvider.getCurrent();
 			default:
 				throw new IllegalArgumentException("Unrecognized browser type: " + this.browserString);
     	}
     }
 
+    /**
+     * Given the current enum value, retrieve the driver representing that browser type.
+     * This indirect access method allows us to lazy-load all drivers, while still keeping
+     * all of the browser string / driver initialization logic together. The test harness
+     * will not attempt to initialize a selenium driver unless we explicitly call the method
+     * to do so.
+     *
+     * The driver is checked out of the provider's pool for the calling thread, and should be
+     * handed back to {@link #getProvider()} once the calling thread is finished with it.
+     */
+    public WebDriver getDriver() {
+    	return this.getProvider().getDriver();
+    }
+
+    /**
+     * Returns how many drivers of this type may be live at once, unless configured otherwise.
+     * 
+     * @return the default pool size
+     */
+    public int getDefaultPoolSize() {
+    	return this.defaultPoolSize;
+    }
+
+    /**
+     * Returns roughly how much of one CPU core a session of this type keeps busy, unless configured otherwise.
+     * 
+     * @return the default CPU weight, in percent of one core
+     */
+    public int getDefaultCpuPercent() {
+    	return this.defaultCpuPercent;
+    }
+
+    /**
+     * Returns roughly how much memory a session of this type uses (browser and driver server together),
+     * unless configured otherwise.
+     * 
+     * @return the default memory weight, in megabytes
+     */
+    public int getDefaultMemoryMegabytes() {
+    	return this.defaultMemoryMegabytes;
+    }
+
+    /**
+     * Given a driver (possibly wrapped, e.g. by {@link InstrumentedDriver}), retrieve the type of 
+     * browser that it drives, so that browser-specific workarounds can be applied only where needed.
+     * 
+     * @param driver the driver
+     * @return the browser type, or null if the driver is of some other kind
+     */
+    public static BrowserType of(WebDriver driver) {
+    	WebDriver real = InstrumentedDriver.unwrap(driver);
+    	if (real instanceof FirefoxDriver) {
+    		return FIREFOX;
+    	} else if (real instanceof OperaDriver) {
+    		return OPERA;
+    	} else if (real instanceof ChromeDriver) {
+    		return CHROME;
+    	} else if (real instanceof InternetExplorerDriver) {
+    		return IE;
+    	} else if (real instanceof PhantomJSDriver) {
+    		return PHANTOMJS;
+    	} else if (real instanceof HtmlUnitDriver) {
+    		return HTMLUNIT;
+    	} else if (real instanceof SafariDriver) {
+    		return SAFARI;
+    	} else if (real instanceof EdgeDriver) {
+    		return EDGE;
+    	} else if (real instanceof RemoteWebDriver) {
+    		// Checked last, as most of the local drivers are remote drivers of a local server too
+    		return REMOTE;
+    	}
+    	return null;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Enum#toString()
      */
@@ -0,0 +1,450 @@
+package test.automation.selenium.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>Resolves and checks the external binaries that each browser type needs (chromedriver, phantomjs, etc.),
+ * as named by its provider (see {@link AbstractWebDriverProvider#getBinaryKeys()}). Each binary is resolved
+ * only once per run, through {@link HarnessSettings}, and set as the Java System property of the same name,
+ * where the drivers look for it.</p>
+ *
+ * <p>A binary is usable if it exists, is executable, and (for driver servers) answers <code>--version</code>.
+ * Browsers that a driver launches itself (see {@link AbstractWebDriverProvider#getBrowserBinaryKeys()}) are never
+ * run, since they may open a window instead of answering. Running a driver server is by far the slowest part of
+ * the check, so its answer is cached in a file, keyed by the binary's path, size, and modification time, and
+ * reused by later runs until the binary changes. A binary that does not answer in time is not cached, and is
+ * run again by the next run.</p>
+ *
+ * <p>Every binary needed by a suite is checked concurrently when it starts (see {@link DriverPreflightListener}),
+ * and no driver is ever launched for a browser type with an unusable binary: asking for one fails at once.</p>
+ *
+ * <p>The checks can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.preflight.enabled</code> - set to false to only resolve the binaries, without
+ *         checking them (default true)</li>
+ *     <li><code>webdriver.preflight.probe.timeout.seconds</code> - seconds to wait for a binary to answer
+ *         <code>--version</code> (default 10)</li>
+ *     <li><code>webdriver.preflight.cache.file</code> - the file in which to cache the answers
+ *         (default target/driver-preflight.properties)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class DriverBinaries {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(DriverBinaries.class);
+
+	/** The singleton instance */
+	private static final DriverBinaries current = new DriverBinaries();
+
+	/** The name of the .properties file from which the binary paths are usually read */
+	private static final String ENV_BUNDLE_NAME = "environment";
+
+	/** Whether or not to check the binaries, rather than only resolving them */
+	private static final boolean ENABLED = HarnessSettings.getBoolean("webdriver.preflight.enabled", true);
+
+	/** How long to wait for a binary to answer <code>--version</code> */
+	private static final long PROBE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(HarnessSettings.getInt("webdriver.preflight.probe.timeout.seconds", 10));
+
+	/** The file in which to cache the answers of the binaries */
+	private static final File CACHE_FILE = new File(HarnessSettings.getString("webdriver.preflight.cache.file", "target/driver-preflight.properties"));
+
+	/** The prefix of a cached answer from a binary that works, followed by its version */
+	private static final String USABLE = "ok:";
+
+	/** The prefix of a cached answer from a binary that does not work, followed by the problem */
+	private static final String UNUSABLE = "failed:";
+
+	/** The problem with a binary that did not answer in time, which may not happen again (so is never cached) */
+	private static final String NO_ANSWER = "did not answer --version within ";
+
+	/** The check of each binary, by the name of its setting */
+	private final ConcurrentMap<String, Future<Check>> checks = new ConcurrentHashMap<String, Future<Check>>();
+
+	/** The cached answers of the binaries, by fingerprint, or null until first needed */
+	private Properties cache;
+
+	/** The number of binaries run to check them, rather than answered from the cache */
+	private final AtomicInteger probes = new AtomicInteger();
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the binaries.
+	 */
+	private DriverBinaries() {
+	}
+
+	/**
+	 * Returns the binaries shared by every test.
+	 *
+	 * @return the driver binaries
+	 */
+	public static DriverBinaries getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Checks every binary needed by the given browser types concurrently, and waits for the checks to finish.
+	 *
+	 * @param types the browser types
+	 * @return the problem with each browser type that cannot be used, if any
+	 */
+	public Map<BrowserType, String> preflight(Collection<BrowserType> types) {
+		Map<String, Boolean> keys = new LinkedHashMap<String, Boolean>();
+		for (BrowserType type : types) {
+			keys.putAll(binariesOf(type));
+		}
+
+		if (!keys.isEmpty()) {
+			ExecutorService executor = Executors.newFixedThreadPool(keys.size(), new ThreadFactory() {
+				private final AtomicInteger threadCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "driver-preflight-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			try {
+				List<Future<Check>> started = new ArrayList<Future<Check>>();
+				for (Map.Entry<String, Boolean> key : keys.entrySet()) {
+					started.add(checkOf(key.getKey(), key.getValue(), executor));
+				}
+				for (Future<Check> check : started) {
+					await(check);
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		Map<BrowserType, String> problems = new LinkedHashMap<BrowserType, String>();
+		for (BrowserType type : types) {
+			String problem = problemWith(type);
+			if (problem != null) {
+				problems.put(type, problem);
+			}
+		}
+		return problems;
+	}
+
+	/**
+	 * Returns whether or not every binary needed by the given browser type is usable, checking them if
+	 * that has not been done yet.
+	 *
+	 * @param type the browser type
+	 * @return true iff a driver of the given type can be launched
+	 */
+	public boolean isUsable(BrowserType type) {
+		return problemWith(type) == null;
+	}
+
+	/**
+	 * Ensures that every binary needed by the given browser type is usable (and set as a System property),
+	 * checking them if that has not been done yet.
+	 *
+	 * @param type the browser type
+	 * @throws IllegalArgumentException if a binary is missing or unusable
+	 */
+	public void requireUsable(BrowserType type) {
+		String problem = problemWith(type);
+		if (problem != null) {
+			throw new IllegalArgumentException("Cannot start " + type + ": " + problem);
+		}
+	}
+
+	/**
+	 * Returns the number of binaries that had to be run to check them, rather than being answered
+	 * from the cache file.
+	 *
+	 * @return the number of binaries run
+	 */
+	public int getProbeCount() {
+		return this.probes.get();
+	}
+
+	/**
+	 * Returns the problem with the first unusable binary needed by the given browser type, or null if there is none.
+	 */
+	private String problemWith(BrowserType type) {
+		for (Map.Entry<String, Boolean> key : binariesOf(type).entrySet()) {
+			Check check = await(checkOf(key.getKey(), key.getValue(), null));
+			if (check.problem != null) {
+				return key.getKey() + " (" + check.path + ") " + check.problem;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the settings of the binaries needed by the given browser type, each mapped to whether or not
+	 * the binary is run to check it (driver servers are, browsers are not).
+	 */
+	private static Map<String, Boolean> binariesOf(BrowserType type) {
+		Map<String, Boolean> keys = new LinkedHashMap<String, Boolean>();
+		for (String key : type.getProvider().getBinaryKeys()) {
+			keys.put(key, true);
+		}
+		for (String key : type.getProvider().getBrowserBinaryKeys()) {
+			keys.put(key, false);
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the check of the given binary, starting it if it has not been started yet: on the given
+	 * executor, or on the calling thread if there is none.
+	 */
+	private Future<Check> checkOf(final String key, final boolean run, ExecutorService executor) {
+		Future<Check> check = this.checks.get(key);
+		if (check != null) {
+			return check;
+		}
+
+		FutureTask<Check> task = new FutureTask<Check>(new Callable<Check>() {
+			/* (non-Javadoc)
+			 * @see java.util.concurrent.Callable#call()
+			 */
+			@Override
+			public Check call() {
+				return check(key, run);
+			}
+		});
+		check = this.checks.putIfAbsent(key, task);
+		if (check != null) {
+			return check;
+		}
+		if (executor != null) {
+			executor.execute(task);
+		} else {
+			task.run();
+		}
+		return task;
+	}
+
+	/**
+	 * Waits for the given check to finish.
+	 */
+	private static Check await(Future<Check> check) {
+		try {
+			return check.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while checking driver binaries", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to check driver binary", e.getCause());
+		}
+	}
+
+	/**
+	 * Resolves and checks the given binary (running it with <code>--version</code> if asked to), setting it
+	 * as a System property if it is usable.
+	 */
+	private Check check(String key, boolean run) {
+		String path = HarnessSettings.getString(key, null);
+		if (path == null) {
+			return new Check(null, "is not set. Verify correctness / existence of " + key + " in " + ENV_BUNDLE_NAME + ".properties");
+		}
+
+		if (ENABLED) {
+			File binary = new File(path);
+			if (!binary.isFile()) {
+				return new Check(path, "does not exist");
+			} else if (!binary.canExecute()) {
+				return new Check(path, "is not executable");
+			}
+
+			if (run) {
+				String fingerprint = fingerprintOf(binary);
+				String answer = cachedAnswer(fingerprint);
+				if (answer == null) {
+					answer = probe(binary);
+					this.probes.incrementAndGet();
+					if (!answer.startsWith(UNUSABLE + NO_ANSWER)) {
+						cacheAnswer(fingerprint, answer);
+					}
+				}
+				if (answer.startsWith(UNUSABLE)) {
+					return new Check(path, answer.substring(UNUSABLE.length()));
+				}
+			}
+		}
+
+		System.setProperty(key, path);
+		return new Check(path, null);
+	}
+
+	/**
+	 * Runs the given binary with <code>--version</code>, and returns its answer (to cache).
+	 */
+	private static String probe(File binary) {
+		final Process process;
+		try {
+			process = new ProcessBuilder(binary.getPath(), "--version").redirectErrorStream(true).start();
+		} catch (IOException e) {
+			return UNUSABLE + "cannot be run: " + e.getMessage();
+		}
+
+		// Binaries that do not understand --version may start serving instead: stop them
+		final AtomicBoolean timedOut = new AtomicBoolean();
+		Thread watchdog = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(PROBE_TIMEOUT_MILLIS);
+					timedOut.set(true);
+					process.destroy();
+				} catch (InterruptedException e) {
+					// The binary answered in time
+				}
+			}
+		}, "driver-preflight-watchdog");
+		watchdog.setDaemon(true);
+		watchdog.start();
+
+		// Read the answer on a thread of its own: children of the binary may keep its output open after it is stopped
+		final AtomicReference<String> version = new AtomicReference<String>();
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+					for (String line = in.readLine(); line != null; line = in.readLine()) {
+						if (!line.trim().isEmpty()) {
+							version.compareAndSet(null, line.trim());
+						}
+					}
+				} catch (IOException e) {
+					// Stopped before it finished answering
+				}
+			}
+		}, "driver-preflight-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		try {
+			int exitCode = process.waitFor();
+			if (timedOut.get()) {
+				return UNUSABLE + NO_ANSWER + TimeUnit.MILLISECONDS.toSeconds(PROBE_TIMEOUT_MILLIS) + " seconds";
+			}
+			reader.join(PROBE_TIMEOUT_MILLIS);
+			if (exitCode != 0) {
+				return UNUSABLE + "exited with code " + exitCode + " when asked for its --version" + ((version.get() != null) ? ": " + version.get() : "");
+			}
+			return USABLE + ((version.get() != null) ? version.get() : "");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			process.destroy();
+			throw new IllegalStateException("Interrupted while checking " + binary, e);
+		} finally {
+			watchdog.interrupt();
+		}
+	}
+
+	/**
+	 * Returns the fingerprint of the given binary, which changes whenever the binary does.
+	 */
+	private static String fingerprintOf(File binary) {
+		return binary.getAbsolutePath() + "|" + binary.length() + "|" + binary.lastModified();
+	}
+
+	/**
+	 * Returns the cached answer of the binary with the given fingerprint, or null if there is none.
+	 */
+	private synchronized String cachedAnswer(String fingerprint) {
+		return cache().getProperty(fingerprint);
+	}
+
+	/**
+	 * Caches the answer of the binary with the given fingerprint (replacing those of any earlier version
+	 * of the same binary), and saves the cache file.
+	 */
+	private synchronized void cacheAnswer(String fingerprint, String answer) {
+		Properties answers = cache();
+		String path = fingerprint.substring(0, fingerprint.indexOf('|') + 1);
+		for (String stale : answers.stringPropertyNames()) {
+			if (stale.startsWith(path)) {
+				answers.remove(stale);
+			}
+		}
+		answers.setProperty(fingerprint, answer);
+
+		File parent = CACHE_FILE.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (OutputStream out = new FileOutputStream(CACHE_FILE)) {
+			answers.store(out, "Answers of driver binaries to --version, by path|size|last modified");
+		} catch (IOException e) {
+			log.warn("Failed to save driver pre-flight cache %s: %s", CACHE_FILE, e);
+		}
+	}
+
+	/**
+	 * Returns the cached answers, reading them from the cache file the first time.
+	 */
+	private Properties cache() {
+		if (this.cache == null) {
+			this.cache = new Properties();
+			if (CACHE_FILE.isFile()) {
+				try (InputStream in = new FileInputStream(CACHE_FILE)) {
+					this.cache.load(in);
+				} catch (IOException e) {
+					// Start over: the binaries will be run again
+					this.cache.clear();
+				}
+			}
+		}
+		return this.cache;
+	}
+
+	/**
+	 * The result of checking a single binary.
+	 */
+	private static final class Check {
+		/** The path of the binary, or null if it is not set */
+		private final String path;
+
+		/** What is wrong with the binary, or null if it is usable */
+		private final String problem;
+
+		/**
+		 * Creates the result of a check.
+		 *
+		 * @param path the path of the binary
+		 * @param problem what is wrong with the binary, or null if it is usable
+		 */
+		private Check(String path, String problem) {
+			this.path = path;
+			this.problem = problem;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package test.automation.selenium.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlTest;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>A TestNG listener that starts launching browsers in the background as soon as a suite starts,
+ * so that the first test class for each browser receives a driver that is already running instead
+ * of paying the full browser launch cost inside of its <code>@BeforeClass</code>.</p>
+ *
+ * <p>The warm-up starts in {@link #onStart(ISuite)}: TestNG has already discovered the suite's tests by then,
+ * and has not yet run the first configuration method. That is the earliest point at which this listener can
+ * act, as TestNG 6.9.8 has no earlier hook that is given the suite (<code>IAlterSuiteListener</code> only
+ * arrived in a later release), and listeners declared with <code>@Listeners</code> are only created while
+ * the test classes are being scanned. The launches therefore overlap the configuration methods and the first
+ * tests, rather than the discovery of the tests.</p>
+ *
+ * <p>The browsers to launch are read from the "browser" parameter of each &lt;test&gt; in the suite XML.
+ * For parallel suites, one driver is launched per &lt;test&gt; that uses a browser (up to that browser's
+ * pool size). For serial suites, only the first browser in the suite is launched ahead of time.
+ * No more drivers are launched at once than fit within the {@link SessionScheduler}'s budget, and none
+ * are launched for browsers with an unusable driver binary (see {@link DriverBinaries}).</p>
+ *
+ * <p>The warm-up can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.pool.warmup.enabled</code> - set to false to disable the warm-up (default true)</li>
+ *     <li><code>webdriver.pool.warmup.BROWSER</code> - the exact number of drivers to launch for one browser type</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public class DriverPoolWarmUpListener implements ISuiteListener {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(DriverPoolWarmUpListener.class);
+
+	/** The name of the suite XML parameter that names the browser for each test */
+	private static final String BROWSER_PARAMETER = "browser";
+
+	/** Suites which have already been warmed up (this listener may be registered more than once) */
+	private static final Set<String> warmedSuites = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onStart(org.testng.ISuite)
+	 */
+	@Override
+	public void onStart(ISuite suite) {
+		if (!HarnessSettings.getBoolean("webdriver.pool.warmup.enabled", true) || !warmedSuites.add(suite.getName())) {
+			return;
+		}
+
+		Map<BrowserType, Integer> plan = planWarmUp(suite);
+		int total = 0;
+		for (int count : plan.values()) {
+			total += count;
+		}
+		if (total == 0) {
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(total, new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "driver-warmup-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		final long startNanos = System.nanoTime();
+		final long launchMillisBefore = totalLaunchMillis();
+		final CompletionService<WebDriver> launcher = new ExecutorCompletionService<WebDriver>(executor);
+		int scheduled = 0;
+		for (Map.Entry<BrowserType, Integer> entry : plan.entrySet()) {
+			scheduled += entry.getKey().getProvider().getPool().warmUp(entry.getValue(), launcher).size();
+		}
+		executor.shutdown();
+
+		// Wait for (and report on) the launches without holding up the suite
+		final int launches = scheduled;
+		Thread reporter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				reportWarmUp(launcher, launches, startNanos, launchMillisBefore);
+			}
+		}, "driver-warmup-report");
+		reporter.setDaemon(true);
+		reporter.start();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onFinish(org.testng.ISuite)
+	 */
+	@Override
+	public void onFinish(ISuite suite) {
+		warmedSuites.remove(suite.getName());
+	}
+
+	/**
+	 * Decides how many drivers of each browser type to launch ahead of time for the given suite.
+	 */
+	private Map<BrowserType, Integer> planWarmUp(ISuite suite) {
+		boolean parallel = suite.getParallel() != null
+				&& !"none".equalsIgnoreCase(suite.getParallel())
+				&& !"false".equalsIgnoreCase(suite.getParallel());
+
+		Map<BrowserType, Integer> plan = new LinkedHashMap<BrowserType, Integer>();
+		for (XmlTest test : suite.getXmlSuite().getTests()) {
+			String browser = test.getParameter(BROWSER_PARAMETER);
+			if (browser == null) {
+				continue;
+			}
+
+			BrowserType type;
+			try {
+				type = BrowserType.valueOf(browser.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				// Let the test itself report the unrecognized browser
+				continue;
+			}
+			if (!DriverBinaries.getCurrent().isUsable(type)) {
+				// Its tests fail without launching it (see DriverPreflightListener)
+				continue;
+			}
+
+			Integer count = plan.get(type);
+			if (count == null) {
+				plan.put(type, 1);
+			} else if (parallel) {
+				plan.put(type, count + 1);
+			}
+
+			if (!parallel) {
+				break;
+			}
+		}
+
+		for (Map.Entry<BrowserType, Integer> entry : plan.entrySet()) {
+			BrowserType type = entry.getKey();
+			int count = Math.min(entry.getValue(), type.getProvider().getPool().getMaxSize());
+			entry.setValue(HarnessSettings.getInt("webdriver.pool.warmup." + type, count));
+		}
+
+		// Do not launch more browsers at once than the host has room for
+		return SessionScheduler.getCurrent().fitToBudget(plan);
+	}
+
+	/**
+	 * Waits for every launch to finish and prints how long the warm-up took.
+	 */
+	private void reportWarmUp(CompletionService<WebDriver> launcher, int launches, long startNanos, long launchMillisBefore) {
+		long firstReadyNanos = -1;
+		int ready = 0;
+		int failed = 0;
+
+		for (int i = 0; i < launches; i++) {
+			try {
+				launcher.take().get();
+				if (firstReadyNanos < 0) {
+					firstReadyNanos = System.nanoTime() - startNanos;
+				}
+				ready++;
+			} catch (ExecutionException e) {
+				failed++;
+				log.warn("Failed to pre-launch a driver: %s", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		log.info("Driver warm-up: %d driver(s) launched concurrently, %d failed. First driver ready after %d ms, "
+				+ "all drivers ready after %d ms (%d ms if launched one at a time).",
+				ready, failed, TimeUnit.NANOSECONDS.toMillis(firstReadyNanos), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+				totalLaunchMillis() - launchMillisBefore);
+	}
+
+	/**
+	 * Returns the total time spent launching drivers across every browser type.
+	 */
+	private long totalLaunchMillis() {
+		long total = 0;
+		for (BrowserType type : BrowserType.values()) {
+			total += type.getProvider().getPool().getTotalLaunchMillis();
+		}
+		return total;
+	}
+}
@@ -0,0 +1,88 @@
+package test.automation.selenium.core;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlTest;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>A TestNG listener that checks every driver binary needed by a suite as soon as it starts, concurrently
+ * (see {@link DriverBinaries}), so that a bad path for one browser is reported before any browser is
+ * launched, rather than after the other browsers have been running for minutes. The tests of a browser
+ * with an unusable binary then fail at once, without launching it.</p>
+ *
+ * <p>The browsers to check are read from the "browser" parameter of each &lt;test&gt; in the suite XML.</p>
+ *
+ */
+public class DriverPreflightListener implements ISuiteListener {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(DriverPreflightListener.class);
+
+	/** The name of the suite XML parameter that names the browser for each test */
+	private static final String BROWSER_PARAMETER = "browser";
+
+	/** Suites which have already been checked (this listener may be registered more than once) */
+	private static final Set<String> checkedSuites = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onStart(org.testng.ISuite)
+	 */
+	@Override
+	public void onStart(ISuite suite) {
+		if (!checkedSuites.add(suite.getName())) {
+			return;
+		}
+
+		Set<BrowserType> types = new LinkedHashSet<BrowserType>();
+		int binaryCount = 0;
+		int driverCount = 0;
+		for (XmlTest test : suite.getXmlSuite().getTests()) {
+			String browser = test.getParameter(BROWSER_PARAMETER);
+			if (browser == null) {
+				continue;
+			}
+			try {
+				BrowserType type = BrowserType.valueOf(browser.toUpperCase());
+				if (types.add(type)) {
+					driverCount += type.getProvider().getBinaryKeys().length;
+					binaryCount += type.getProvider().getBinaryKeys().length + type.getProvider().getBrowserBinaryKeys().length;
+				}
+			} catch (IllegalArgumentException e) {
+				// Let the test itself report the unrecognized browser
+			}
+		}
+		if (binaryCount == 0) {
+			return;
+		}
+
+		DriverBinaries binaries = DriverBinaries.getCurrent();
+		long startNanos = System.nanoTime();
+		int probesBefore = binaries.getProbeCount();
+		Map<BrowserType, String> problems = binaries.preflight(types);
+
+		for (Map.Entry<BrowserType, String> problem : problems.entrySet()) {
+			log.error("%s cannot be used, so its tests will fail without launching it: %s",
+					problem.getKey(), problem.getValue());
+		}
+		log.info("Driver pre-flight: %d binaries checked in %d ms (%d of %d driver server(s) run, the rest answered from the cache), "
+				+ "%d of %d browser type(s) unusable.",
+				binaryCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), binaries.getProbeCount() - probesBefore,
+				driverCount, problems.size(), types.size());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onFinish(org.testng.ISuite)
+	 */
+	@Override
+	public void onFinish(ISuite suite) {
+		checkedSuites.remove(suite.getName());
+	}
+}
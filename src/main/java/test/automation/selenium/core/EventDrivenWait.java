@@ -0,0 +1,221 @@
+package test.automation.selenium.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.openqa.selenium.support.ui.SystemClock;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.google.common.base.Function;
+
+/**
+ * <p>A drop-in replacement for {@link WebDriverWait} that re-checks its condition as soon as the page
+ * changes, instead of sleeping for a fixed polling interval between checks.</p>
+ *
+ * <p>Between two checks, an asynchronous script waits inside of the page for a DOM mutation
+ * (via <code>MutationObserver</code>), a change of title or URL, or the page finishing loading,
+ * and returns as soon as one happens (or once the polling interval has elapsed without any change).
+ * A condition that becomes true 20 ms into a wait is therefore noticed after about 20 ms, rather
+ * than after the next 500 ms poll.</p>
+ *
+ * <p>Drivers that cannot run asynchronous scripts, or pages without <code>MutationObserver</code>,
+ * fall back to adaptive polling: the first re-checks come quickly (10 ms, 20 ms, 40 ms, ...),
+ * backing off to the configured polling interval.</p>
+ *
+ * <p>Set <code>webdriver.wait.event.driven=false</code> (see {@link HarnessSettings}) to always use
+ * adaptive polling. Waiting inside of the page raises the driver's script timeout to just above the
+ * polling interval, if it was lower.</p>
+ *
+ */
+public class EventDrivenWait extends WebDriverWait {
+	/** The delay before the first adaptive re-check, in milliseconds */
+	private static final long FIRST_BACKOFF_MILLIS = 10;
+
+	/** Changes within this many milliseconds of each other are handled by a single re-check */
+	private static final long MIN_RECHECK_MILLIS = 15;
+
+	/** Give up on waiting inside of the page after this many consecutive script failures */
+	private static final int MAX_SCRIPT_FAILURES = 3;
+
+	/** How much longer than the polling interval the driver should wait for our script */
+	private static final long SCRIPT_TIMEOUT_MARGIN_MILLIS = 2000;
+
+	/** Whether or not to wait for changes inside of the page at all */
+	private static final boolean EVENT_DRIVEN = HarnessSettings.getBoolean("webdriver.wait.event.driven", true);
+
+	/**
+	 * Waits (up to arguments[0] ms) for the page to change, then calls back with true;
+	 * calls back with false immediately if the page cannot observe DOM mutations.
+	 */
+	private static final String AWAIT_CHANGE_SCRIPT =
+			"var maxWait = arguments[0], minWait = arguments[1], callback = arguments[arguments.length - 1];"
+			+ "if (!window.MutationObserver) { callback(false); return; }"
+			+ "var start = new Date().getTime(), url = window.location.href, title = document.title;"
+			+ "var finished = false, observer, timer, poller;"
+			+ "function done() {"
+			+ "  if (finished) { return; }"
+			+ "  finished = true;"
+			+ "  observer.disconnect(); clearTimeout(timer); clearInterval(poller);"
+			+ "  window.removeEventListener('hashchange', changed); window.removeEventListener('popstate', changed);"
+			+ "  window.removeEventListener('load', changed);"
+			+ "  callback(true);"
+			+ "}"
+			+ "function changed() {"
+			+ "  clearTimeout(timer);"
+			+ "  timer = setTimeout(done, Math.max(0, start + minWait - new Date().getTime()));"
+			+ "}"
+			+ "observer = new MutationObserver(changed);"
+			+ "observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });"
+			+ "window.addEventListener('hashchange', changed); window.addEventListener('popstate', changed);"
+			+ "if (document.readyState !== 'complete') { window.addEventListener('load', changed); }"
+			+ "poller = setInterval(function() {"
+			+ "  if (window.location.href !== url || document.title !== title) { changed(); }"
+			+ "}, 25);"
+			+ "timer = setTimeout(done, maxWait);";
+
+	/** Drivers known to be unable to wait inside of the page */
+	private static final Map<WebDriver, Boolean> unsupported = Collections.synchronizedMap(new WeakHashMap<WebDriver, Boolean>());
+
+	/** The script timeout that we have set on each driver, in milliseconds */
+	private static final Map<WebDriver, Long> scriptTimeouts = Collections.synchronizedMap(new WeakHashMap<WebDriver, Long>());
+
+	/** Decides how long to wait between checks */
+	private final ChangeSleeper sleeper;
+
+	/**
+	 * Creates a wait that polls at most every {@link WebDriverWait#DEFAULT_SLEEP_TIMEOUT} milliseconds.
+	 *
+	 * @param driver the driver to wait on
+	 * @param timeOutInSeconds how long to wait for the condition
+	 */
+	public EventDrivenWait(WebDriver driver, long timeOutInSeconds) {
+		this(driver, timeOutInSeconds, DEFAULT_SLEEP_TIMEOUT);
+	}
+
+	/**
+	 * Creates a wait that polls at most every sleepInMillis milliseconds.
+	 *
+	 * @param driver the driver to wait on
+	 * @param timeOutInSeconds how long to wait for the condition
+	 * @param sleepInMillis the longest time to go between two checks of the condition
+	 */
+	public EventDrivenWait(WebDriver driver, long timeOutInSeconds, long sleepInMillis) {
+		this(driver, new ChangeSleeper(driver), timeOutInSeconds, sleepInMillis);
+	}
+
+	/**
+	 * Creates a wait using the given sleeper.
+	 */
+	private EventDrivenWait(WebDriver driver, ChangeSleeper sleeper, long timeOutInSeconds, long sleepInMillis) {
+		super(driver, new SystemClock(), sleeper, timeOutInSeconds, sleepInMillis);
+		this.sleeper = sleeper;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.support.ui.FluentWait#until(com.google.common.base.Function)
+	 */
+	@Override
+	public <V> V until(Function<? super WebDriver, V> isTrue) {
+		// Each new condition starts again from the shortest back-off
+		this.sleeper.reset();
+		return super.until(isTrue);
+	}
+
+	/**
+	 * Sleeps between two checks of a condition: until the page changes if possible,
+	 * or for an exponentially increasing time otherwise.
+	 */
+	private static final class ChangeSleeper implements Sleeper {
+		/** The driver being waited on */
+		private final WebDriver driver;
+
+		/** The next adaptive polling delay, in milliseconds */
+		private long backoffMillis = FIRST_BACKOFF_MILLIS;
+
+		/** The number of times in a row that our script has failed */
+		private int scriptFailures;
+
+		/**
+		 * Creates a sleeper for the given driver.
+		 *
+		 * @param driver the driver being waited on
+		 */
+		private ChangeSleeper(WebDriver driver) {
+			this.driver = driver;
+		}
+
+		/**
+		 * Starts the adaptive back-off over again.
+		 */
+		private void reset() {
+			this.backoffMillis = FIRST_BACKOFF_MILLIS;
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.support.ui.Sleeper#sleep(org.openqa.selenium.support.ui.Duration)
+		 */
+		@Override
+		public void sleep(Duration duration) throws InterruptedException {
+			long maxMillis = duration.in(TimeUnit.MILLISECONDS);
+			if (EVENT_DRIVEN && awaitChange(maxMillis)) {
+				return;
+			}
+
+			long millis = Math.min(this.backoffMillis, maxMillis);
+			this.backoffMillis = Math.min(this.backoffMillis * 2, maxMillis);
+			Thread.sleep(millis);
+		}
+
+		/**
+		 * Waits inside of the page for it to change.
+		 *
+		 * @return true if we waited, false if the caller needs to fall back to polling
+		 */
+		private boolean awaitChange(long maxMillis) {
+			if (!(this.driver instanceof JavascriptExecutor) || unsupported.containsKey(this.driver)) {
+				return false;
+			}
+
+			try {
+				ensureScriptTimeout(maxMillis + SCRIPT_TIMEOUT_MARGIN_MILLIS);
+				Object observed = ((JavascriptExecutor) this.driver).executeAsyncScript(AWAIT_CHANGE_SCRIPT, maxMillis, MIN_RECHECK_MILLIS);
+				this.scriptFailures = 0;
+				if (Boolean.TRUE.equals(observed)) {
+					return true;
+				}
+				// This page cannot observe mutations: don't try again for this driver
+				unsupported.put(this.driver, Boolean.TRUE);
+				return false;
+			} catch (UnsupportedCommandException e) {
+				unsupported.put(this.driver, Boolean.TRUE);
+				return false;
+			} catch (WebDriverException e) {
+				// Most likely the page navigated away (or closed) mid-wait, which is a change too,
+				// but fall back to polling this once in case the driver is failing for some other reason
+				if (++this.scriptFailures >= MAX_SCRIPT_FAILURES) {
+					unsupported.put(this.driver, Boolean.TRUE);
+				}
+				return false;
+			}
+		}
+
+		/**
+		 * Raises the driver's script timeout to at least the given value.
+		 */
+		private void ensureScriptTimeout(long millis) {
+			Long current = scriptTimeouts.get(this.driver);
+			if (current == null || current < millis) {
+				this.driver.manage().timeouts().setScriptTimeout(millis, TimeUnit.MILLISECONDS);
+				scriptTimeouts.put(this.driver, millis);
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package test.automation.selenium.core;
+
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+/**
+ * <p>A single place to look up tunable settings of the test harness (pool sizes, timeouts, etc).</p>
+ * <p>Each setting is resolved in the following order, using the first value found:
+ *   <ol>
+ *     <li>A Java System property of the same name (e.g. <code>-Dwebdriver.pool.size=8</code>)</li>
+ *     <li>The <code>environment.properties</code> file (the same file that holds our driver binary paths)</li>
+ *     <li>The default value supplied by the caller</li>
+ *   </ol>
+ * </p>
+ *
+ */
+public final class HarnessSettings {
+	/** The name of the .properties file from which to read settings */
+	private static final String ENV_BUNDLE_NAME = "environment";
+
+	/** Static helpers only */
+	private HarnessSettings() {
+	}
+
+	/**
+	 * Returns the raw value of the given setting, or the default value if it has not been set anywhere.
+	 *
+	 * @param key the name of the setting
+	 * @param defaultValue the value to return if the setting is missing
+	 * @return the configured value of the setting
+	 */
+	public static String getString(String key, String defaultValue) {
+		String value = System.getProperty(key);
+		if (value != null && !value.trim().isEmpty()) {
+			return value.trim();
+		}
+
+		try {
+			ResourceBundle rb = ResourceBundle.getBundle(ENV_BUNDLE_NAME);
+			if (rb.containsKey(key)) {
+				return rb.getString(key).trim();
+			}
+		} catch (MissingResourceException e) {
+			// No environment.properties present: fall through to the default
+		}
+
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the value of the given setting as an integer.
+	 *
+	 * @param key the name of the setting
+	 * @param defaultValue the value to return if the setting is missing
+	 * @return the configured value of the setting
+	 * @throws IllegalArgumentException if the setting is present but is not a valid integer
+	 */
+	public static int getInt(String key, int defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for setting " + key + ": expected an integer but was \"" + value + "\"");
+		}
+	}
+
+	/**
+	 * Returns the value of the given setting as a long.
+	 *
+	 * @param key the name of the setting
+	 * @param defaultValue the value to return if the setting is missing
+	 * @return the configured value of the setting
+	 * @throws IllegalArgumentException if the setting is present but is not a valid long
+	 */
+	public static long getLong(String key, long defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for setting " + key + ": expected a number but was \"" + value + "\"");
+		}
+	}
+
+	/**
+	 * Returns the value of the given setting as a boolean.
+	 *
+	 * @param key the name of the setting
+	 * @param defaultValue the value to return if the setting is missing
+	 * @return the configured value of the setting
+	 */
+	public static boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		return Boolean.parseBoolean(value);
+	}
+}
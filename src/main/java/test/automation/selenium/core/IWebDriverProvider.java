@@ -6,12 +6,38 @@ import org.openqa.selenium.WebDriver;
  * A helper method to initialize the desired browser type. 
  * This should localize most of our browser-specific setup. 
  * 
+ * <p>Drivers are handed out from a bounded pool, so every driver obtained from
+ * {@link #getDriver()} should eventually be handed back with either
+ * {@link #releaseDriver(WebDriver)} or {@link #discardDriver(WebDriver)}.</p>
+ *
  * @author Mike Lambert
  *
  */
 public interface IWebDriverProvider {
 	/**
-	 * Initializes and configures the desired WebDriver
+	 * Checks out an initialized and configured WebDriver for the calling thread.
+	 * Repeated calls from the same thread return the same driver until it is handed back.
 	 */
 	public WebDriver getDriver();
+
+	/**
+	 * Returns a driver to the pool so that it can be reused by another test
+	 */
+	public void releaseDriver(WebDriver driver);
+
+	/**
+	 * Quits a driver and frees up its slot in the pool
+	 */
+	public void discardDriver(WebDriver driver);
+
+	/**
+	 * Resets a driver's browser state and returns it to the pool, or quits it if
+	 * the recycling policy (or an unhealthy session) calls for a fresh browser
+	 */
+	public void recycleDriver(WebDriver driver, boolean healthy, SessionRecycler recycler);
+
+	/**
+	 * Quits every driver handed out by this provider
+	 */
+	public void shutdown();
 }
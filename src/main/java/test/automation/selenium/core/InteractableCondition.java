@@ -0,0 +1,149 @@
+package test.automation.selenium.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import test.automation.selenium.core.metrics.InstrumentedDriver;
+
+/**
+ * <p>An expectation that one or more elements are ready to be interacted with: each one is
+ * displayed, enabled, inside of the viewport, and not covered by another element at its center.</p>
+ *
+ * <p>Every element is checked by a single script, so each poll costs one <code>executeScript</code>
+ * (plus one lookup per element that is not cached), where chaining
+ * <code>visibilityOf(x)</code> and <code>elementToBeClickable(x)</code> costs six commands per element.</p>
+ *
+ * <p>An element lying outside of the viewport is scrolled into view before it is checked, just as
+ * clicking it would. Browsers that do not lay out the page are only checked for being displayed
+ * and enabled. HtmlUnit, which has no layout and no round-trips to save, skips the script entirely.</p>
+ *
+ */
+public class InteractableCondition implements ExpectedCondition<Boolean> {
+	/**
+	 * Returns null if every element in arguments[0] is interactable,
+	 * otherwise a description of the first one that is not.
+	 */
+	private static final String CHECK_SCRIPT =
+			"var elements = arguments[0];"
+			+ "function describe(el, i) {"
+			+ "  return 'element ' + i + ' (' + el.tagName.toLowerCase() + (el.id ? '#' + el.id : '') + ')';"
+			+ "}"
+			+ "function styleOf(el) {"
+			+ "  return window.getComputedStyle ? window.getComputedStyle(el, null) : (el.currentStyle || {});"
+			+ "}"
+			+ "function rectOf(el) {"
+			+ "  var rect = el.getBoundingClientRect ? el.getBoundingClientRect() : null;"
+			+ "  return rect && typeof rect.width === 'number' ? rect : null;"
+			+ "}"
+			+ "var viewWidth = window.innerWidth || document.documentElement.clientWidth;"
+			+ "var viewHeight = window.innerHeight || document.documentElement.clientHeight;"
+			+ "for (var i = 0; i < elements.length; i++) {"
+			+ "  var el = elements[i];"
+			+ "  if (!(el.offsetWidth || el.offsetHeight || (el.getClientRects && el.getClientRects().length))) {"
+			+ "    return describe(el, i) + ' is not displayed';"
+			+ "  }"
+			+ "  if (styleOf(el).visibility === 'hidden') { return describe(el, i) + ' is hidden'; }"
+			+ "  if (el.disabled) { return describe(el, i) + ' is disabled'; }"
+			+ "  var rect = rectOf(el);"
+			+ "  if (!rect || !viewWidth || !viewHeight) { continue; }"
+			+ "  if (rect.bottom <= 0 || rect.right <= 0 || rect.top >= viewHeight || rect.left >= viewWidth) {"
+			+ "    el.scrollIntoView();"
+			+ "    rect = rectOf(el);"
+			+ "    if (rect.bottom <= 0 || rect.right <= 0 || rect.top >= viewHeight || rect.left >= viewWidth) {"
+			+ "      return describe(el, i) + ' is outside of the viewport';"
+			+ "    }"
+			+ "  }"
+			+ "  if (!document.elementFromPoint) { continue; }"
+			+ "  var hit = document.elementFromPoint(rect.left + rect.width / 2, rect.top + rect.height / 2);"
+			+ "  if (hit && hit !== el && !el.contains(hit)) {"
+			+ "    return describe(el, i) + ' is obscured by ' + hit.tagName.toLowerCase() + (hit.id ? '#' + hit.id : '');"
+			+ "  }"
+			+ "}"
+			+ "return null;";
+
+	/** The elements to check */
+	private final List<WebElement> elements;
+
+	/** Why the elements were not interactable at the last check, for the timeout message */
+	private String lastProblem = "not checked yet";
+
+	/**
+	 * Creates an expectation that all of the given elements are interactable.
+	 *
+	 * @param elements the elements to check (e.g. PageFactory fields)
+	 */
+	public InteractableCondition(WebElement... elements) {
+		this.elements = Arrays.asList(elements);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.google.common.base.Function#apply(java.lang.Object)
+	 */
+	@Override
+	public Boolean apply(WebDriver driver) {
+		try {
+			if (!(driver instanceof JavascriptExecutor) || InstrumentedDriver.unwrap(driver) instanceof HtmlUnitDriver) {
+				return applyWithoutScript();
+			}
+
+			List<WebElement> unwrapped = new ArrayList<WebElement>(this.elements.size());
+			for (WebElement element : this.elements) {
+				unwrapped.add(unwrap(element));
+			}
+			this.lastProblem = (String) ((JavascriptExecutor) driver).executeScript(CHECK_SCRIPT, unwrapped);
+			return this.lastProblem == null;
+		} catch (StaleElementReferenceException e) {
+			this.lastProblem = "an element is no longer attached to the page";
+			return false;
+		}
+	}
+
+	/**
+	 * Falls back to the checks that every driver supports, one command at a time.
+	 */
+	private Boolean applyWithoutScript() {
+		for (int i = 0; i < this.elements.size(); i++) {
+			WebElement element = this.elements.get(i);
+			if (!element.isDisplayed()) {
+				this.lastProblem = "element " + i + " is not displayed";
+				return false;
+			} else if (!element.isEnabled()) {
+				this.lastProblem = "element " + i + " is disabled";
+				return false;
+			}
+		}
+		this.lastProblem = null;
+		return true;
+	}
+
+	/**
+	 * Returns the driver's own element behind a PageFactory proxy (or other wrapper), looking it up if necessary.
+	 */
+	static WebElement unwrap(WebElement element) {
+		while (element instanceof WrapsElement) {
+			WebElement wrapped = ((WrapsElement) element).getWrappedElement();
+			if (wrapped == element) {
+				break;
+			}
+			element = wrapped;
+		}
+		return element;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "elements to be interactable (" + this.lastProblem + ")";
+	}
+}
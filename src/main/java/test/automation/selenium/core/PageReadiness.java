@@ -0,0 +1,165 @@
+package test.automation.selenium.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import test.automation.selenium.core.metrics.InstrumentedDriver;
+
+/**
+ * <p>An expectation that the browser is showing a particular page, and has finished loading it:
+ * its URL contains (or is) the expected URL, its title contains the expected title, the document's
+ * <code>readyState</code> is complete, and each of the page's sentinel elements (if any) is displayed.</p>
+ *
+ * <p>Everything is read by a single script, so each poll costs one <code>executeScript</code>
+ * (plus one lookup per sentinel element that is not cached), where waiting for the URL and then
+ * the title costs a <code>getCurrentUrl</code> and a <code>getTitle</code> per poll of each wait.
+ * The URL and title are those of the top-level document, as with <code>getCurrentUrl</code> and
+ * <code>getTitle</code>, even while the driver is switched to a frame. HtmlUnit, which only returns
+ * from loading a page once it is complete and has no round-trips to save, skips the script entirely.</p>
+ *
+ */
+public class PageReadiness implements ExpectedCondition<Boolean> {
+	/**
+	 * Returns [url, title, readyState, index of the first sentinel in arguments[0] that is not displayed
+	 * (or -1)]. The URL and title are null if the top-level document cannot be read from the current frame.
+	 */
+	private static final String STATE_SCRIPT =
+			"var sentinels = arguments[0];"
+			+ "var url = null, title = null, readyState = document.readyState;"
+			+ "try {"
+			+ "  url = window.top.location.href;"
+			+ "  title = window.top.document.title;"
+			+ "  readyState = window.top.document.readyState;"
+			+ "} catch (e) {}"
+			+ "var hidden = -1;"
+			+ "for (var i = 0; i < sentinels.length; i++) {"
+			+ "  var el = sentinels[i];"
+			+ "  if (!(el.offsetWidth || el.offsetHeight || (el.getClientRects && el.getClientRects().length))) {"
+			+ "    hidden = i;"
+			+ "    break;"
+			+ "  }"
+			+ "}"
+			+ "return [url, title, readyState, hidden];";
+
+	/** What the URL of the page must contain */
+	private final String urlFragment;
+
+	/** What the title of the page must contain */
+	private final String titleFragment;
+
+	/** What the URL of the page must be exactly, or null */
+	private String exactUrl;
+
+	/** The elements that must be displayed before the page is ready */
+	private List<WebElement> sentinels = Collections.emptyList();
+
+	/** Why the page was not ready at the last check, for the timeout message */
+	private String lastProblem = "not checked yet";
+
+	/**
+	 * Creates an expectation that the browser is showing the given page.
+	 *
+	 * @param urlFragment what the URL of the page must contain
+	 * @param titleFragment what the title of the page must contain
+	 */
+	public PageReadiness(String urlFragment, String titleFragment) {
+		this.urlFragment = urlFragment;
+		this.titleFragment = titleFragment;
+	}
+
+	/**
+	 * Requires the URL of the page to be exactly the given URL.
+	 *
+	 * @param url the URL of the page
+	 * @return this expectation
+	 */
+	public PageReadiness urlToBe(String url) {
+		this.exactUrl = url;
+		return this;
+	}
+
+	/**
+	 * Requires each of the given elements to be displayed, e.g. parts of the page that are
+	 * only added once its scripts have run.
+	 *
+	 * @param elements the sentinel elements (e.g. fields of the page object)
+	 * @return this expectation
+	 */
+	public PageReadiness withSentinels(WebElement... elements) {
+		this.sentinels = Arrays.asList(elements);
+		return this;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.google.common.base.Function#apply(java.lang.Object)
+	 */
+	@Override
+	public Boolean apply(WebDriver driver) {
+		try {
+			if (!(driver instanceof JavascriptExecutor) || InstrumentedDriver.unwrap(driver) instanceof HtmlUnitDriver) {
+				return check(driver.getCurrentUrl(), driver.getTitle(), "complete", firstHiddenSentinel());
+			}
+
+			List<WebElement> unwrapped = new ArrayList<WebElement>(this.sentinels.size());
+			for (WebElement sentinel : this.sentinels) {
+				unwrapped.add(InteractableCondition.unwrap(sentinel));
+			}
+			List<?> state = (List<?>) ((JavascriptExecutor) driver).executeScript(STATE_SCRIPT, unwrapped);
+			String url = (state.get(0) != null) ? (String) state.get(0) : driver.getCurrentUrl();
+			String title = (state.get(1) != null) ? (String) state.get(1) : driver.getTitle();
+			return check(url, title, (String) state.get(2), ((Number) state.get(3)).intValue());
+		} catch (StaleElementReferenceException e) {
+			this.lastProblem = "a sentinel element is no longer attached to the page";
+			return false;
+		}
+	}
+
+	/**
+	 * Compares the state of the page with our expectations.
+	 */
+	private Boolean check(String url, String title, String readyState, int hiddenSentinel) {
+		if (url == null || !url.contains(this.urlFragment) || (this.exactUrl != null && !this.exactUrl.equals(url))) {
+			this.lastProblem = "URL was " + url;
+		} else if (title == null || !title.contains(this.titleFragment)) {
+			this.lastProblem = "title was " + title;
+		} else if (!"complete".equals(readyState)) {
+			this.lastProblem = "document was " + readyState;
+		} else if (hiddenSentinel >= 0) {
+			this.lastProblem = "sentinel " + hiddenSentinel + " was not displayed";
+		} else {
+			this.lastProblem = null;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Falls back to checking each sentinel element with its own command.
+	 */
+	private int firstHiddenSentinel() {
+		for (int i = 0; i < this.sentinels.size(); i++) {
+			if (!this.sentinels.get(i).isDisplayed()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		String url = (this.exactUrl != null) ? "URL to be \"" + this.exactUrl + "\"" : "URL to contain \"" + this.urlFragment + "\"";
+		return "page to be ready: " + url + ", title to contain \"" + this.titleFragment + "\" (" + this.lastProblem + ")";
+	}
+}
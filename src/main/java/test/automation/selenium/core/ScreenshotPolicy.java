@@ -0,0 +1,35 @@
+package test.automation.selenium.core;
+
+/**
+ * Decides which test results are worth keeping a screenshot of (see {@link ScreenshotStore}).
+ *
+ */
+public enum ScreenshotPolicy {
+	/** Keep a screenshot of every test result */
+	ALL,
+
+	/** Keep screenshots of failed tests only (passing tests are not even captured) */
+	FAILURES_ONLY,
+
+	/**
+	 * For each test on each browser, keep the screenshot of its first failure and
+	 * of the last time that it passed
+	 */
+	FIRST_FAILURE_AND_LAST_PASS;
+
+	/**
+	 * Returns the configured policy (see {@link HarnessSettings}),
+	 * e.g. <code>screenshot.policy=failures_only</code>.
+	 *
+	 * @return the configured policy (default ALL)
+	 * @throws IllegalArgumentException if the setting does not name a policy
+	 */
+	public static ScreenshotPolicy fromSettings() {
+		String policy = HarnessSettings.getString("screenshot.policy", ALL.name());
+		try {
+			return ScreenshotPolicy.valueOf(policy.toUpperCase().replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unrecognized screenshot.policy: " + policy, e);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package test.automation.selenium.core;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A content-addressed store for the screenshots taken after each test. Every image is saved once,
+ * named for the SHA-256 hash of its contents, under <code>images/</code>. Identical captures (e.g. the
+ * same page at the end of several tests, or across runs) therefore share a single file. A tab-separated
+ * <code>index.tsv</code> maps each (run, browser, test, status) to the hash of its image.</p>
+ *
+ * <p>Which results are kept depends on the {@link ScreenshotPolicy}. All writes go through the
+ * {@link ScreenshotWriter}, so they never block the test thread on the disk.</p>
+ *
+ * <p>The store can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>screenshot.policy</code> - one of all, failures_only, or first_failure_and_last_pass (default all)</li>
+ *     <li><code>screenshot.dir</code> - the directory holding the index and images (default ./test-screenshots)</li>
+ *     <li><code>screenshot.run.id</code> - the name of this run in the index (defaults to the time at which it started)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class ScreenshotStore {
+	/** The name of the index file within the store directory */
+	public static final String INDEX_FILE_NAME = "index.tsv";
+
+	/** The name of the image directory within the store directory */
+	public static final String IMAGE_DIR_NAME = "images";
+
+	/** The status recorded for a passing test */
+	public static final String PASS = "PASS";
+
+	/** The status recorded for a failing test */
+	public static final String FAIL = "FAIL";
+
+	/** The status recorded for a skipped test */
+	public static final String SKIP = "SKIP";
+
+	/** The first line of the index */
+	private static final String INDEX_HEADER = "run\tbrowser\ttest\tstatus\tsha256\ttimestamp\n";
+
+	/** The character set of the index */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** Hexadecimal digits, for naming images */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The current singleton instance */
+	private static final ScreenshotStore instance = new ScreenshotStore();
+
+	/** The directory holding the index and images */
+	private final File directory;
+
+	/** The index file */
+	private final File indexFile;
+
+	/** Decides which results to keep */
+	private final ScreenshotPolicy policy;
+
+	/** The name of this run in the index */
+	private final String runId;
+
+	/** Hashes of the images already queued for writing during this run */
+	private final Set<String> knownHashes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** Browser / test pairs whose first failure has already been kept */
+	private final Set<String> failuresKept = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** The index entry of the latest passing capture of each browser / test pair, kept until the next flush (its image is already queued) */
+	private final ConcurrentMap<String, Capture> pendingPasses = new ConcurrentHashMap<String, Capture>();
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static ScreenshotStore getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the store.
+	 */
+	private ScreenshotStore() {
+		this.directory = new File(HarnessSettings.getString("screenshot.dir", "./test-screenshots"));
+		this.indexFile = new File(this.directory, INDEX_FILE_NAME);
+		this.policy = ScreenshotPolicy.fromSettings();
+		this.runId = HarnessSettings.getString("screenshot.run.id", new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()));
+
+		// Queued ahead of every index entry, so it always ends up on the first line
+		ScreenshotWriter.getCurrent().writeIfAbsent(this.indexFile, INDEX_HEADER.getBytes(UTF_8));
+	}
+
+	/**
+	 * Returns the directory holding the index and images.
+	 *
+	 * @return the store directory
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Returns the policy deciding which results are kept.
+	 *
+	 * @return the screenshot policy
+	 */
+	public ScreenshotPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * Returns true if a screenshot of the given result would be kept, so that callers
+	 * can avoid asking the browser for screenshots that would just be thrown away.
+	 *
+	 * @param browser the browser that ran the test
+	 * @param test the name of the test
+	 * @param status the result of the test ({@link #PASS}, {@link #FAIL}, or {@link #SKIP})
+	 * @return true iff a screenshot should be captured
+	 */
+	public boolean shouldCapture(String browser, String test, String status) {
+		switch (this.policy) {
+			case FAILURES_ONLY:
+				return FAIL.equals(status);
+			case FIRST_FAILURE_AND_LAST_PASS:
+				return PASS.equals(status) || (FAIL.equals(status) && !failuresKept.contains(keyOf(browser, test)));
+			default:
+			case ALL:
+				return true;
+		}
+	}
+
+	/**
+	 * Stores the screenshot of the given result, if the policy keeps it.
+	 *
+	 * @param browser the browser that ran the test
+	 * @param test the name of the test
+	 * @param status the result of the test ({@link #PASS}, {@link #FAIL}, or {@link #SKIP})
+	 * @param png the screenshot, as PNG bytes
+	 */
+	public void store(String browser, String test, String status, byte[] png) {
+		if (!shouldCapture(browser, test, status)) {
+			return;
+		}
+
+		if (this.policy == ScreenshotPolicy.FIRST_FAILURE_AND_LAST_PASS) {
+			if (PASS.equals(status)) {
+				// Only the last pass is indexed, and we cannot know which one that is until the end. The image is
+				// queued at once rather than held on to: it is written only once per hash, whichever pass it was.
+				pendingPasses.put(keyOf(browser, test), new Capture(browser, test, status, persistImage(png)));
+				return;
+			}
+			if (!failuresKept.add(keyOf(browser, test))) {
+				return;
+			}
+		}
+		index(new Capture(browser, test, status, persistImage(png)));
+	}
+
+	/**
+	 * Writes out the index entries of any screenshots still held back by the policy, and waits for every
+	 * screenshot stored so far to reach the disk.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if everything was written in time, false if the timeout elapsed first
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		Iterator<Map.Entry<String, Capture>> passes = pendingPasses.entrySet().iterator();
+		while (passes.hasNext()) {
+			Capture capture = passes.next().getValue();
+			passes.remove();
+			index(capture);
+		}
+		return ScreenshotWriter.getCurrent().flush(timeout, unit);
+	}
+
+	/**
+	 * Queues the image, unless it is already stored, and returns its hash.
+	 */
+	private String persistImage(byte[] png) {
+		String hash = sha256(png);
+		if (knownHashes.add(hash)) {
+			ScreenshotWriter.getCurrent().writeIfAbsent(new File(new File(this.directory, IMAGE_DIR_NAME), hash + ".png"), png);
+		}
+		return hash;
+	}
+
+	/**
+	 * Queues the index entry of a capture whose image has been queued.
+	 */
+	private void index(Capture capture) {
+		String entry = clean(this.runId) + "\t" + clean(capture.browser) + "\t" + clean(capture.test) + "\t"
+				+ clean(capture.status) + "\t" + capture.sha256 + "\t" + capture.timestamp + "\n";
+		ScreenshotWriter.getCurrent().append(this.indexFile, entry.getBytes(UTF_8));
+	}
+
+	/**
+	 * Returns the key identifying a test on a browser.
+	 */
+	private static String keyOf(String browser, String test) {
+		return browser + "\t" + test;
+	}
+
+	/**
+	 * Keeps a value from breaking the tab-separated index.
+	 */
+	private static String clean(String value) {
+		return String.valueOf(value).replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the given bytes, in hexadecimal.
+	 */
+	private static String sha256(byte[] bytes) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is always supported", e);
+		}
+
+		char[] hex = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * The index entry of one screenshot of one test result (the image itself is handed straight to the writer).
+	 */
+	private static final class Capture {
+		/** The browser that ran the test */
+		private final String browser;
+
+		/** The name of the test */
+		private final String test;
+
+		/** The result of the test */
+		private final String status;
+
+		/** The hash of the screenshot */
+		private final String sha256;
+
+		/** The time at which the screenshot was taken, in milliseconds since the epoch */
+		private final long timestamp = System.currentTimeMillis();
+
+		/**
+		 * Creates a new capture.
+		 *
+		 * @param browser the browser that ran the test
+		 * @param test the name of the test
+		 * @param status the result of the test
+		 * @param sha256 the hash of the screenshot
+		 */
+		private Capture(String browser, String test, String status, String sha256) {
+			this.browser = browser;
+			this.test = test;
+			this.status = status;
+			this.sha256 = sha256;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package test.automation.selenium.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.WebDriverException;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>Writes screenshots to disk on a background thread, so that test threads can move on to their
+ * next test as soon as the browser has produced the image.</p>
+ *
+ * <p>Screenshots wait in a bounded queue: if the disk cannot keep up and the queue fills, callers
+ * block until there is room again, rather than holding an unbounded number of images in memory.
+ * Call {@link #flush(long, TimeUnit)} (e.g. at the end of a suite) to wait for every screenshot
+ * submitted so far to be written.</p>
+ *
+ * <p>The queue can be tuned with the following setting (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>screenshot.queue.capacity</code> - the number of screenshots that may wait to be written (default 16)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class ScreenshotWriter {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(ScreenshotWriter.class);
+
+	/** The default number of screenshots that may wait to be written */
+	private static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+	/** The current singleton instance */
+	private static final ScreenshotWriter instance = new ScreenshotWriter();
+
+	/** Screenshots (and flush barriers) waiting to be written, in the order they were submitted */
+	private final BlockingQueue<PendingWrite> queue;
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static ScreenshotWriter getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the writer.
+	 */
+	private ScreenshotWriter() {
+		this.queue = new ArrayBlockingQueue<PendingWrite>(Math.max(1, HarnessSettings.getInt("screenshot.queue.capacity", DEFAULT_QUEUE_CAPACITY)));
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "screenshot-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queues a screenshot to be written to the given file, replacing any existing file.
+	 * Blocks while the queue is full.
+	 *
+	 * @param destination the file to write
+	 * @param png the screenshot, as PNG bytes
+	 * @throws WebDriverException if interrupted while waiting for room in the queue
+	 */
+	public void write(File destination, byte[] png) {
+		enqueue(new PendingWrite(destination.toPath(), png, WriteMode.REPLACE, null));
+	}
+
+	/**
+	 * Queues a screenshot to be written to the given file, unless that file already exists.
+	 * Blocks while the queue is full.
+	 *
+	 * @param destination the file to write
+	 * @param png the screenshot, as PNG bytes
+	 * @throws WebDriverException if interrupted while waiting for room in the queue
+	 */
+	public void writeIfAbsent(File destination, byte[] png) {
+		enqueue(new PendingWrite(destination.toPath(), png, WriteMode.CREATE_NEW, null));
+	}
+
+	/**
+	 * Queues the given bytes to be appended to the given file, creating it if necessary.
+	 * Appends are written in the order they were submitted. Blocks while the queue is full.
+	 *
+	 * @param destination the file to append to
+	 * @param bytes the bytes to append
+	 * @throws WebDriverException if interrupted while waiting for room in the queue
+	 */
+	public void append(File destination, byte[] bytes) {
+		enqueue(new PendingWrite(destination.toPath(), bytes, WriteMode.APPEND, null));
+	}
+
+	/**
+	 * Waits for every screenshot submitted before this call to be written (or to fail).
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if every screenshot was written in time, false if the timeout elapsed first
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		CountDownLatch barrier = new CountDownLatch(1);
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		try {
+			if (!queue.offer(new PendingWrite(null, null, null, barrier), timeout, unit)) {
+				return false;
+			}
+			return barrier.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Adds an entry to the queue, waiting for room if necessary.
+	 */
+	private void enqueue(PendingWrite pending) {
+		try {
+			queue.put(pending);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException("Interrupted while waiting to save screenshot " + pending.destination, e);
+		}
+	}
+
+	/**
+	 * Writes queued screenshots until the JVM exits.
+	 */
+	private void drain() {
+		while (true) {
+			PendingWrite pending;
+			try {
+				pending = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			if (pending.barrier != null) {
+				// Everything queued ahead of this barrier has now been written
+				pending.barrier.countDown();
+				continue;
+			}
+
+			try {
+				writeFully(pending.destination, pending.bytes, pending.mode);
+			} catch (IOException | RuntimeException e) {
+				log.error("Failed to save screenshot (%s): %s", pending.destination, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Writes the given bytes to the given file in a single pass, through a FileChannel.
+	 */
+	private static void writeFully(Path destination, byte[] bytes, WriteMode mode) throws IOException {
+		Path parent = destination.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		if (mode == WriteMode.CREATE_NEW && Files.exists(destination)) {
+			return;
+		}
+
+		StandardOpenOption[] options;
+		switch (mode) {
+			case APPEND:
+				options = new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND };
+				break;
+			case CREATE_NEW:
+				options = new StandardOpenOption[] { StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE };
+				break;
+			default:
+			case REPLACE:
+				options = new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING };
+				break;
+		}
+
+		try (FileChannel channel = FileChannel.open(destination, options)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * How a queued write treats an existing file.
+	 */
+	private enum WriteMode {
+		/** Replace the existing file */
+		REPLACE,
+
+		/** Leave the existing file untouched */
+		CREATE_NEW,
+
+		/** Add to the end of the existing file */
+		APPEND
+	}
+
+	/**
+	 * A screenshot (or other file contents) waiting to be written, or a flush barrier.
+	 */
+	private static final class PendingWrite {
+		/** The file to write, or null for a barrier */
+		private final Path destination;
+
+		/** The bytes to write, or null for a barrier */
+		private final byte[] bytes;
+
+		/** How to treat an existing file, or null for a barrier */
+		private final WriteMode mode;
+
+		/** Counted down once everything ahead of it in the queue has been written, or null for a screenshot */
+		private final CountDownLatch barrier;
+
+		/**
+		 * Creates a new queue entry.
+		 *
+		 * @param destination the file to write
+		 * @param bytes the bytes to write
+		 * @param mode how to treat an existing file
+		 * @param barrier the barrier to count down
+		 */
+		private PendingWrite(Path destination, byte[] bytes, WriteMode mode, CountDownLatch barrier) {
+			this.destination = destination;
+			this.bytes = bytes;
+			this.mode = mode;
+			this.barrier = barrier;
+		}
+	}
+}
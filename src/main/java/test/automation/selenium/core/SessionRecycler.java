@@ -0,0 +1,163 @@
+package test.automation.selenium.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>Resets a browser session to a clean state so that it can be handed to the next test class,
+ * instead of quitting the browser and paying for a full relaunch.</p>
+ *
+ * <p>A reset closes every window but one, returns to the top-level document, clears the cookies
+ * and local / session storage of the current page and of each configured origin, and finally
+ * navigates to <code>about:blank</code>. WebDriver can only clear cookies for the domain that is
+ * currently loaded, so any other domain that tests sign into must be listed as an origin to clean.</p>
+ *
+ * <p>Recycling is controlled by the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.recycle.enabled</code> - set to true to recycle sessions between classes (default false)</li>
+ *     <li><code>webdriver.recycle.max.reuses</code> - relaunch the browser after it has been reused this many times (default 10)</li>
+ *     <li><code>webdriver.recycle.origins</code> - comma-separated URLs to visit and clean on every reset</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public class SessionRecycler {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(SessionRecycler.class);
+
+	/** The page to leave the browser on after a reset */
+	private static final String BLANK_PAGE = "about:blank";
+
+	/** Clears both kinds of web storage for the current origin, ignoring pages that deny access */
+	private static final String CLEAR_STORAGE_SCRIPT =
+			"try { window.localStorage.clear(); } catch (e) {}"
+			+ "try { window.sessionStorage.clear(); } catch (e) {}";
+
+	/** Whether or not sessions should be recycled at all */
+	private final boolean enabled;
+
+	/** The number of times a single browser may be reused before it is relaunched */
+	private final int maxReuses;
+
+	/** Additional URLs whose cookies and storage should be cleared on every reset */
+	private final List<String> originsToClean;
+
+	/**
+	 * Creates a recycler configured entirely from {@link HarnessSettings}.
+	 */
+	public SessionRecycler() {
+		this(Collections.<String>emptyList());
+	}
+
+	/**
+	 * Creates a recycler that cleans the given URLs in addition to any configured origins.
+	 *
+	 * @param originsToClean URLs whose cookies and storage should be cleared on every reset
+	 */
+	public SessionRecycler(List<String> originsToClean) {
+		this.enabled = HarnessSettings.getBoolean("webdriver.recycle.enabled", false);
+		this.maxReuses = HarnessSettings.getInt("webdriver.recycle.max.reuses", 10);
+
+		List<String> origins = new ArrayList<String>(originsToClean);
+		for (String configured : parseOrigins(HarnessSettings.getString("webdriver.recycle.origins", ""))) {
+			if (!origins.contains(configured)) {
+				origins.add(configured);
+			}
+		}
+		this.originsToClean = Collections.unmodifiableList(origins);
+	}
+
+	/**
+	 * Returns true if sessions should be recycled between test classes.
+	 *
+	 * @return true iff recycling is enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns the number of times a single browser may be reused before it is relaunched.
+	 *
+	 * @return the maximum number of reuses
+	 */
+	public int getMaxReuses() {
+		return this.maxReuses;
+	}
+
+	/**
+	 * Resets the given browser to a clean state.
+	 *
+	 * @param driver the driver to reset
+	 * @return true if the reset succeeded, false if the browser is no longer usable and should be relaunched
+	 */
+	public boolean reset(WebDriver driver) {
+		try {
+			closeExtraWindows(driver);
+			driver.switchTo().defaultContent();
+
+			// Clean whatever is currently loaded before navigating away from it
+			clearState(driver);
+			for (String origin : this.originsToClean) {
+				driver.get(origin);
+				clearState(driver);
+			}
+
+			driver.get(BLANK_PAGE);
+			return true;
+		} catch (WebDriverException e) {
+			log.warn("Failed to reset browser session, it will be relaunched: %s", e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Closes every window or tab except for one, and switches to the one that remains.
+	 */
+	private void closeExtraWindows(WebDriver driver) {
+		Set<String> handles = driver.getWindowHandles();
+		if (handles.size() <= 1) {
+			return;
+		}
+
+		String keep = handles.iterator().next();
+		for (String handle : handles) {
+			if (!handle.equals(keep)) {
+				driver.switchTo().window(handle);
+				driver.close();
+			}
+		}
+		driver.switchTo().window(keep);
+	}
+
+	/**
+	 * Clears the cookies and web storage for the page currently loaded in the given browser.
+	 */
+	private void clearState(WebDriver driver) {
+		if (driver instanceof JavascriptExecutor) {
+			((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+		}
+		driver.manage().deleteAllCookies();
+	}
+
+	/**
+	 * Splits a comma-separated list of URLs, ignoring any blank entries.
+	 */
+	private static List<String> parseOrigins(String origins) {
+		List<String> parsed = new ArrayList<String>();
+		for (String origin : origins.split(",")) {
+			if (!origin.trim().isEmpty()) {
+				parsed.add(origin.trim());
+			}
+		}
+		return parsed;
+	}
+}
@@ -0,0 +1,320 @@
+package test.automation.selenium.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * <p>Decides how many browser sessions run at once, so that one host runs as many sessions as it
+ * safely can, whatever the mix of browsers in the suite, without thrashing.</p>
+ *
+ * <p>Every session (a driver checked out of a {@link WebDriverPool}) is weighed by the CPU and the
+ * memory that a browser of its type uses, and a session only starts once it fits within the host's
+ * budget along with every session already running. Each browser type is also limited to the size of its
+ * pool (e.g. 1 IE, 4 Chrome, 12 HtmlUnit by default), and a type that is at its limit does not hold up
+ * sessions of other types. Otherwise sessions start in the order in which they were asked for, so that a
+ * heavy browser is not overtaken forever by lighter ones. A session that is heavier than the whole budget
+ * still starts, alone.</p>
+ *
+ * <p>The suite's <code>thread-count</code> no longer needs to be tuned for each mix of browsers:
+ * {@link SessionSchedulerListener} gives parallel suites enough threads for every test to ask for a
+ * session, and this scheduler decides which of them run.</p>
+ *
+ * <p>The scheduler can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.scheduler.enabled</code> - set to false to limit sessions only by pool size and <code>thread-count</code> (default true)</li>
+ *     <li><code>webdriver.scheduler.cpu.budget</code> - the CPU available to browsers, in percent of one core (default 100 per core)</li>
+ *     <li><code>webdriver.scheduler.memory.budget.mb</code> - the memory available to browsers, in megabytes (default 75% of physical memory)</li>
+ *     <li><code>webdriver.scheduler.BROWSER.cpu</code> - the CPU used by one session of a browser type, in percent of one core
+ *         (default {@link BrowserType#getDefaultCpuPercent()})</li>
+ *     <li><code>webdriver.scheduler.BROWSER.memory.mb</code> - the memory used by one session of a browser type, in megabytes
+ *         (default {@link BrowserType#getDefaultMemoryMegabytes()})</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class SessionScheduler {
+	/** The share of physical memory given to browsers by default, in percent */
+	private static final int DEFAULT_MEMORY_BUDGET_PERCENT = 75;
+
+	/** The singleton instance */
+	private static final SessionScheduler current = new SessionScheduler();
+
+	/** Whether or not sessions are scheduled at all */
+	private final boolean enabled = HarnessSettings.getBoolean("webdriver.scheduler.enabled", true);
+
+	/** The CPU available to browsers, in percent of one core */
+	private final long cpuBudget;
+
+	/** The memory available to browsers, in megabytes */
+	private final long memoryBudget;
+
+	/** The CPU used by one session of each browser type, in percent of one core */
+	private final Map<BrowserType, Integer> cpuWeights = new EnumMap<BrowserType, Integer>(BrowserType.class);
+
+	/** The memory used by one session of each browser type, in megabytes */
+	private final Map<BrowserType, Integer> memoryWeights = new EnumMap<BrowserType, Integer>(BrowserType.class);
+
+	/** Guards all of the mutable state below */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Signalled whenever a session ends, or a waiting session gives up or starts */
+	private final Condition changed = lock.newCondition();
+
+	/** The sessions waiting to start, in the order in which they were asked for */
+	private final Deque<Waiter> waiting = new ArrayDeque<Waiter>();
+
+	/** The number of sessions of each browser type currently running */
+	private final Map<BrowserType, Integer> running = new EnumMap<BrowserType, Integer>(BrowserType.class);
+
+	/** The number of sessions currently running */
+	private int sessions;
+
+	/** The CPU used by the sessions currently running, in percent of one core */
+	private long cpuInUse;
+
+	/** The memory used by the sessions currently running, in megabytes */
+	private long memoryInUse;
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the scheduler.
+	 */
+	private SessionScheduler() {
+		this.cpuBudget = HarnessSettings.getLong("webdriver.scheduler.cpu.budget", 100L * Runtime.getRuntime().availableProcessors());
+		this.memoryBudget = HarnessSettings.getLong("webdriver.scheduler.memory.budget.mb", defaultMemoryBudget());
+		for (BrowserType type : BrowserType.values()) {
+			this.cpuWeights.put(type, HarnessSettings.getInt("webdriver.scheduler." + type + ".cpu", type.getDefaultCpuPercent()));
+			this.memoryWeights.put(type, HarnessSettings.getInt("webdriver.scheduler." + type + ".memory.mb", type.getDefaultMemoryMegabytes()));
+			this.running.put(type, 0);
+		}
+	}
+
+	/**
+	 * Returns the scheduler shared by every pool.
+	 *
+	 * @return the session scheduler
+	 */
+	public static SessionScheduler getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Returns whether or not sessions are scheduled.
+	 *
+	 * @return true if the scheduler is enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns the CPU available to browsers.
+	 *
+	 * @return the CPU budget, in percent of one core
+	 */
+	public long getCpuBudget() {
+		return this.cpuBudget;
+	}
+
+	/**
+	 * Returns the memory available to browsers.
+	 *
+	 * @return the memory budget, in megabytes
+	 */
+	public long getMemoryBudget() {
+		return this.memoryBudget;
+	}
+
+	/**
+	 * Waits until a session of the given browser type can start, and counts it as running until
+	 * {@link #release(BrowserType)} is called for it.
+	 *
+	 * @param type the type of browser that the session uses
+	 * @param deadline when to give up waiting, as a {@link System#nanoTime()}
+	 * @throws TimeoutException if the session could not start before the deadline
+	 */
+	public void acquire(BrowserType type, long deadline) {
+		if (!this.enabled) {
+			return;
+		}
+
+		Waiter waiter = new Waiter(type);
+		this.lock.lock();
+		try {
+			this.waiting.addLast(waiter);
+			try {
+				while (!mayStart(waiter)) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException(String.format("Timed out waiting to start a %s session: %d session(s) running, "
+								+ "using %d%% CPU of %d%% and %d MB of %d MB", type, this.sessions, this.cpuInUse, this.cpuBudget,
+								this.memoryInUse, this.memoryBudget));
+					}
+					this.changed.awaitNanos(remaining);
+				}
+			} finally {
+				// Whether started or given up, this session no longer holds up the ones behind it
+				this.waiting.remove(waiter);
+				this.changed.signalAll();
+			}
+
+			this.running.put(type, this.running.get(type) + 1);
+			this.sessions++;
+			this.cpuInUse += waiter.cpu;
+			this.memoryInUse += waiter.memory;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException("Interrupted while waiting to start a " + type + " session", e);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Counts a session of the given browser type as finished, making room for the next one.
+	 *
+	 * @param type the type of browser that the session used
+	 */
+	public void release(BrowserType type) {
+		if (!this.enabled) {
+			return;
+		}
+
+		this.lock.lock();
+		try {
+			int count = this.running.get(type);
+			if (count == 0) {
+				return;
+			}
+			this.running.put(type, count - 1);
+			this.sessions--;
+			this.cpuInUse -= this.cpuWeights.get(type);
+			this.memoryInUse -= this.memoryWeights.get(type);
+			this.changed.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Trims the given numbers of drivers to launch (e.g. ahead of time by {@link DriverPoolWarmUpListener})
+	 * to those that fit within the budget all at once. Browser types take turns, one driver at a time,
+	 * so that every type gets a driver before any type gets a second one.
+	 *
+	 * @param plan the number of drivers wanted for each browser type
+	 * @return the number of drivers that fit for each browser type (in the same order)
+	 */
+	public Map<BrowserType, Integer> fitToBudget(Map<BrowserType, Integer> plan) {
+		if (!this.enabled) {
+			return plan;
+		}
+
+		Map<BrowserType, Integer> fitted = new LinkedHashMap<BrowserType, Integer>();
+		for (BrowserType type : plan.keySet()) {
+			fitted.put(type, 0);
+		}
+
+		long cpu = 0;
+		long memory = 0;
+		int total = 0;
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Map.Entry<BrowserType, Integer> entry : fitted.entrySet()) {
+				BrowserType type = entry.getKey();
+				if (entry.getValue() >= plan.get(type)) {
+					continue;
+				}
+				int typeCpu = this.cpuWeights.get(type);
+				int typeMemory = this.memoryWeights.get(type);
+				if (total > 0 && (cpu + typeCpu > this.cpuBudget || memory + typeMemory > this.memoryBudget)) {
+					continue;
+				}
+				entry.setValue(entry.getValue() + 1);
+				cpu += typeCpu;
+				memory += typeMemory;
+				total++;
+				added = true;
+			}
+		}
+		return fitted;
+	}
+
+	/**
+	 * Returns true if the given waiting session can start now: its browser type is below its limit,
+	 * no session asked for earlier (whose browser type is below its limit) is still waiting, and it fits
+	 * within the budget (or nothing else is running). Must be called while holding the lock.
+	 */
+	private boolean mayStart(Waiter waiter) {
+		if (!hasFreeSlot(waiter.type)) {
+			return false;
+		}
+		for (Waiter earlier : this.waiting) {
+			if (earlier == waiter) {
+				break;
+			} else if (hasFreeSlot(earlier.type)) {
+				return false;
+			}
+		}
+		return this.sessions == 0
+				|| (this.cpuInUse + waiter.cpu <= this.cpuBudget && this.memoryInUse + waiter.memory <= this.memoryBudget);
+	}
+
+	/**
+	 * Returns true if fewer sessions of the given browser type are running than its pool can hold.
+	 * Must be called while holding the lock.
+	 */
+	private boolean hasFreeSlot(BrowserType type) {
+		return this.running.get(type) < type.getProvider().getPool().getMaxSize();
+	}
+
+	/**
+	 * Returns the default memory budget: a share of the host's physical memory, or no limit at all
+	 * if the JVM cannot tell how much there is.
+	 */
+	@SuppressWarnings("deprecation")
+	private static long defaultMemoryBudget() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			long bytes = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+			if (bytes > 0) {
+				return bytes / (1024 * 1024) * DEFAULT_MEMORY_BUDGET_PERCENT / 100;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * A session waiting to start.
+	 */
+	private final class Waiter {
+		/** The type of browser that the session uses */
+		private final BrowserType type;
+
+		/** The CPU that the session will use, in percent of one core */
+		private final int cpu;
+
+		/** The memory that the session will use, in megabytes */
+		private final int memory;
+
+		/**
+		 * Creates a waiting session.
+		 *
+		 * @param type the type of browser that the session uses
+		 */
+		private Waiter(BrowserType type) {
+			this.type = type;
+			this.cpu = cpuWeights.get(type);
+			this.memory = memoryWeights.get(type);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package test.automation.selenium.core;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlSuite.ParallelMode;
+import org.testng.xml.XmlTest;
+
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>A TestNG listener that hands the decision of how many browsers run at once over to the
+ * {@link SessionScheduler}, rather than to the <code>thread-count</code> of the suite XML.</p>
+ *
+ * <p>When a parallel suite starts, its thread count is raised (never lowered) so that every &lt;test&gt;
+ * (for <code>parallel="tests"</code>) or every test class (for <code>parallel="classes"</code> or
+ * <code>"instances"</code>) can run on a thread of its own, and so can every test class of a &lt;test&gt;
+ * that runs its own classes in parallel. Each of those threads then waits in the
+ * scheduler until its browser fits within the host's budget, so e.g. a suite of HtmlUnit tests runs
+ * many at once while a suite that includes IE runs only one IE at a time, from the same suite XML.
+ * Suites that do not run in parallel are left alone.</p>
+ *
+ * <p>Suites (or &lt;test&gt;s) that ask to run methods in parallel run their classes in parallel instead,
+ * with a warning: the methods of a test class share the class's driver (see {@link AbstractSeleniumTestBase}),
+ * so they must not run at once. This is done whether or not the scheduler is enabled.</p>
+ *
+ */
+public class SessionSchedulerListener implements ISuiteListener {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(SessionSchedulerListener.class);
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onStart(org.testng.ISuite)
+	 */
+	@Override
+	public void onStart(ISuite suite) {
+		XmlSuite xmlSuite = suite.getXmlSuite();
+		if (runsMethodsInParallel(xmlSuite.getParallel())) {
+			log.warn("Suite \"%s\" runs methods in parallel, but the methods of a test class share its browser: "
+					+ "running its classes in parallel instead", suite.getName());
+			xmlSuite.setParallel(ParallelMode.CLASSES);
+		}
+		for (XmlTest test : xmlSuite.getTests()) {
+			if (runsMethodsInParallel(test.getParallel())) {
+				log.warn("Test \"%s\" runs methods in parallel, but the methods of a test class share its browser: "
+						+ "running its classes in parallel instead", test.getName());
+				test.setParallel(ParallelMode.CLASSES);
+			}
+		}
+
+		SessionScheduler scheduler = SessionScheduler.getCurrent();
+		if (!scheduler.isEnabled()) {
+			return;
+		}
+
+		int threads = 0;
+		ParallelMode parallel = xmlSuite.getParallel();
+		if (parallel != null) {
+			switch (parallel) {
+				case TESTS:
+					threads = xmlSuite.getTests().size();
+					break;
+				case CLASSES:
+				case INSTANCES:
+					for (XmlTest test : xmlSuite.getTests()) {
+						threads += test.getXmlClasses().size();
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		if (threads > xmlSuite.getThreadCount()) {
+			log.info("Session scheduler: running suite \"%s\" on %d threads instead of %d, "
+					+ "within a budget of %d%% CPU and %d MB", suite.getName(), threads, xmlSuite.getThreadCount(),
+					scheduler.getCpuBudget(), scheduler.getMemoryBudget());
+			xmlSuite.setThreadCount(threads);
+		}
+
+		// Each <test> runs its classes on threads of its own (e.g. within a suite that runs its tests in parallel)
+		for (XmlTest test : xmlSuite.getTests()) {
+			ParallelMode testParallel = test.getParallel();
+			int classes = test.getXmlClasses().size();
+			if ((testParallel == ParallelMode.CLASSES || testParallel == ParallelMode.INSTANCES) && classes > test.getThreadCount()) {
+				log.info("Session scheduler: running the classes of test \"%s\" on %d threads instead of %d",
+						test.getName(), classes, test.getThreadCount());
+				test.setThreadCount(classes);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given mode runs the methods of a class at once ("true" is TestNG's old name for "methods").
+	 */
+	private static boolean runsMethodsInParallel(ParallelMode parallel) {
+		return parallel == ParallelMode.METHODS || parallel == ParallelMode.TRUE;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onFinish(org.testng.ISuite)
+	 */
+	@Override
+	public void onFinish(ISuite suite) {
+	}
+}
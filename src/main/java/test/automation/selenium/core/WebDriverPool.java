@@ -0,0 +1,494 @@
+package test.automation.selenium.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * <p>A bounded, thread-safe pool of WebDrivers for a single {@link BrowserType}.</p>
+ *
+ * <p>Drivers are checked out by a thread and returned when that thread is done with them.
+ * A thread that already holds a driver will receive that same driver again on subsequent checkouts,
+ * and a thread that returned a driver will preferentially receive that driver back the next time
+ * it asks for one. When every driver in the pool is in use, callers block until one is returned
+ * or the configured timeout elapses.</p>
+ *
+ * <p>Checking out a driver also takes a session from the {@link SessionScheduler}, which is given back
+ * when the driver is released or discarded, so that the browsers in use at once fit within the host's
+ * CPU and memory budget.</p>
+ *
+ * <p>The pool can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.pool.size</code> - the maximum number of live drivers for every browser type
+ *         (default {@link BrowserType#getDefaultPoolSize()}, e.g. 1 for IE, 4 for Chrome, 12 for HtmlUnit)</li>
+ *     <li><code>webdriver.pool.BROWSER.size</code> - overrides the above for one browser type (e.g. <code>webdriver.pool.ie.size=1</code>)</li>
+ *     <li><code>webdriver.pool.timeout.seconds</code> - how long to wait for a driver when the pool is exhausted (default 120)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class WebDriverPool {
+	/** The default number of seconds to wait for a driver when the pool is exhausted */
+	private static final long DEFAULT_TIMEOUT_SECONDS = 120;
+
+	/** The type of browser held in this pool */
+	private final BrowserType browserType;
+
+	/** The provider used to launch new drivers */
+	private final AbstractWebDriverProvider provider;
+
+	/** The maximum number of drivers (idle, leased, or launching) that this pool may hold */
+	private final int maxSize;
+
+	/** How long to wait for a driver when the pool is exhausted */
+	private final long timeoutNanos;
+
+	/** Guards all of the mutable state below */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Signalled whenever a driver is returned or a slot is freed */
+	private final Condition available = lock.newCondition();
+
+	/** Drivers that are alive but not currently checked out */
+	private final Deque<WebDriver> idle = new ArrayDeque<WebDriver>();
+
+	/** Drivers that are currently checked out */
+	private final Set<WebDriver> leased = Collections.newSetFromMap(new IdentityHashMap<WebDriver, Boolean>());
+
+	/** The number of times each live driver has been recycled */
+	private final Map<WebDriver, Integer> reuseCounts = new IdentityHashMap<WebDriver, Integer>();
+
+	/** The number of drivers that are idle, leased, or in the process of launching */
+	private int size;
+
+	/** The number of drivers currently being launched in the background by {@link #warmUp(int, CompletionService)} */
+	private int warming;
+
+	/** The number of drivers currently being launched by {@link #checkout()}, into slots that they have reserved */
+	private int launching;
+
+	/** The number of times that this pool has been shut down; background launches started before a shutdown quit their driver */
+	private int generation;
+
+	/** The number of threads currently waiting for one of the above background launches to finish */
+	private int waitingForWarmUp;
+
+	/** The total time spent launching drivers for this pool, in nanoseconds */
+	private final AtomicLong launchNanos = new AtomicLong();
+
+	/** The driver currently held by each thread */
+	private final ThreadLocal<WebDriver> current = new ThreadLocal<WebDriver>();
+
+	/** The driver most recently returned by each thread */
+	private final ThreadLocal<WebDriver> lastReturned = new ThreadLocal<WebDriver>();
+
+	/**
+	 * Creates a new (empty) pool. No drivers are launched until they are requested.
+	 *
+	 * @param browserType the type of browser held in this pool
+	 * @param provider the provider used to launch new drivers
+	 */
+	WebDriverPool(BrowserType browserType, AbstractWebDriverProvider provider) {
+		this.browserType = browserType;
+		this.provider = provider;
+		this.maxSize = Math.max(1, HarnessSettings.getInt("webdriver.pool." + browserType + ".size",
+				HarnessSettings.getInt("webdriver.pool.size", browserType.getDefaultPoolSize())));
+		this.timeoutNanos = TimeUnit.SECONDS.toNanos(HarnessSettings.getLong("webdriver.pool.timeout.seconds", DEFAULT_TIMEOUT_SECONDS));
+	}
+
+	/**
+	 * Returns the maximum number of live drivers that this pool may hold.
+	 *
+	 * @return the maximum size of this pool
+	 */
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Returns the total time spent launching drivers for this pool, summed across every launch
+	 * (including those that ran concurrently).
+	 *
+	 * @return the total launch time in milliseconds
+	 */
+	public long getTotalLaunchMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(launchNanos.get());
+	}
+
+	/**
+	 * Checks out a driver for the calling thread. If the calling thread already holds a driver
+	 * (and it has not since been discarded, or quit by {@link #shutdown()}, from another thread),
+	 * that driver is returned. Otherwise an idle driver is reused, or a new one is launched if the
+	 * pool has not yet reached its maximum size. If neither is possible, this method blocks until
+	 * another thread returns a driver. It also blocks until the {@link SessionScheduler} has room
+	 * for another session of this type.
+	 *
+	 * @return a driver for the exclusive use of the calling thread
+	 * @throws TimeoutException if no driver became available within the configured timeout
+	 */
+	public WebDriver checkout() {
+		WebDriver driver = current.get();
+		if (driver != null) {
+			lock.lock();
+			try {
+				if (leased.contains(driver)) {
+					return driver;
+				}
+			} finally {
+				lock.unlock();
+			}
+			// Discarded, or quit by a shutdown, from another thread: this thread no longer holds it
+			current.remove();
+		}
+
+		long deadline = System.nanoTime() + timeoutNanos;
+		SessionScheduler scheduler = SessionScheduler.getCurrent();
+		scheduler.acquire(browserType, deadline);
+		try {
+			driver = reserve(deadline);
+			if (driver == null) {
+				driver = launch();
+				lock.lock();
+				try {
+					launching--;
+					leased.add(driver);
+				} finally {
+					lock.unlock();
+				}
+			}
+		} catch (RuntimeException e) {
+			scheduler.release(browserType);
+			throw e;
+		}
+
+		current.set(driver);
+		return driver;
+	}
+
+	/**
+	 * Launches up to the given number of drivers using the given launcher, adding each one to the
+	 * pool as soon as it is ready. Threads that check out a driver while these launches are in
+	 * flight will wait for them instead of launching drivers of their own. No more drivers are
+	 * launched than the pool has room for. A driver that finishes launching after the pool has been
+	 * {@link #shutdown() shut down} is quit rather than added to it.
+	 *
+	 * @param count the number of drivers to launch
+	 * @param launcher the service on which to launch them
+	 * @return one future per launch, each of which completes once its driver is ready
+	 */
+	public List<Future<WebDriver>> warmUp(int count, CompletionService<WebDriver> launcher) {
+		List<Future<WebDriver>> launches = new ArrayList<Future<WebDriver>>();
+		for (int i = 0; i < count; i++) {
+			final int launchGeneration;
+			lock.lock();
+			try {
+				if (size >= maxSize) {
+					break;
+				}
+				size++;
+				warming++;
+				launchGeneration = generation;
+			} finally {
+				lock.unlock();
+			}
+
+			launches.add(launcher.submit(new Callable<WebDriver>() {
+				@Override
+				public WebDriver call() {
+					WebDriver driver;
+					try {
+						driver = timedCreate();
+					} catch (RuntimeException e) {
+						lock.lock();
+						try {
+							size--;
+							warming--;
+							available.signalAll();
+						} finally {
+							lock.unlock();
+						}
+						throw e;
+					}
+
+					boolean shutDown;
+					lock.lock();
+					try {
+						warming--;
+						shutDown = (generation != launchGeneration);
+						if (shutDown) {
+							// The pool was shut down while this driver launched: give its slot back rather than pooling it
+							size--;
+						} else {
+							idle.addLast(driver);
+						}
+						available.signalAll();
+					} finally {
+						lock.unlock();
+					}
+
+					if (shutDown) {
+						quietlyQuit(driver);
+						throw new WebDriverException(String.format("The %s driver pool was shut down while a driver was launching", browserType));
+					}
+					return driver;
+				}
+			}));
+		}
+		return launches;
+	}
+
+	/**
+	 * Returns a driver to the pool so that it can be handed out again.
+	 *
+	 * @param driver the driver to return
+	 */
+	public void release(WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		forget(driver);
+
+		boolean wasLeased;
+		lock.lock();
+		try {
+			wasLeased = leased.remove(driver);
+			if (wasLeased) {
+				idle.push(driver);
+				lastReturned.set(driver);
+				available.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		if (wasLeased) {
+			SessionScheduler.getCurrent().release(browserType);
+		}
+	}
+
+	/**
+	 * Resets the given driver and returns it to the pool, so that the next thread to check out
+	 * a driver receives an already-running browser. The driver is quit instead if recycling is
+	 * disabled, if the caller reports that it is unhealthy (e.g. a test failed while using it),
+	 * if it has already been reused the maximum number of times, or if the reset itself fails.
+	 *
+	 * @param driver the driver to recycle
+	 * @param healthy false if the driver should be relaunched regardless of the recycling policy
+	 * @param recycler the recycler used to reset the browser state
+	 */
+	public void recycle(WebDriver driver, boolean healthy, SessionRecycler recycler) {
+		if (driver == null) {
+			return;
+		}
+
+		int reuses;
+		lock.lock();
+		try {
+			Integer count = reuseCounts.get(driver);
+			reuses = (count == null) ? 0 : count;
+		} finally {
+			lock.unlock();
+		}
+
+		if (!recycler.isEnabled() || !healthy || reuses >= recycler.getMaxReuses() || !recycler.reset(driver)) {
+			discard(driver);
+			return;
+		}
+
+		lock.lock();
+		try {
+			reuseCounts.put(driver, reuses + 1);
+		} finally {
+			lock.unlock();
+		}
+		release(driver);
+	}
+
+	/**
+	 * Quits the given driver and frees up its slot in the pool.
+	 *
+	 * @param driver the driver to quit
+	 */
+	public void discard(WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		forget(driver);
+
+		boolean wasLeased;
+		lock.lock();
+		try {
+			wasLeased = leased.remove(driver);
+			if (wasLeased || idle.remove(driver)) {
+				size--;
+				available.signal();
+			}
+			reuseCounts.remove(driver);
+		} finally {
+			lock.unlock();
+		}
+
+		if (wasLeased) {
+			SessionScheduler.getCurrent().release(browserType);
+		}
+		quietlyQuit(driver);
+	}
+
+	/**
+	 * Quits every driver in this pool, whether idle or checked out. Drivers still launching keep their
+	 * slots until they finish: those launched in the background by {@link #warmUp(int, CompletionService)}
+	 * are then quit, and those launched by {@link #checkout()} are handed to the threads that asked for them.
+	 * The pool can be used again afterwards (e.g. by the next suite in the same JVM).
+	 */
+	public void shutdown() {
+		List<WebDriver> drivers = new ArrayList<WebDriver>();
+		int leases;
+		lock.lock();
+		try {
+			leases = leased.size();
+			drivers.addAll(idle);
+			drivers.addAll(leased);
+			idle.clear();
+			leased.clear();
+			reuseCounts.clear();
+			size = warming + launching;
+			generation++;
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		for (int i = 0; i < leases; i++) {
+			SessionScheduler.getCurrent().release(browserType);
+		}
+		for (WebDriver driver : drivers) {
+			quietlyQuit(driver);
+		}
+	}
+
+	/**
+	 * Takes an idle driver, or reserves a slot in which to launch a new one (returning null),
+	 * waiting for either to become possible.
+	 */
+	private WebDriver reserve(long deadline) {
+		WebDriver driver = null;
+		lock.lock();
+		try {
+			while (driver == null) {
+				if (!idle.isEmpty()) {
+					driver = takeIdle();
+					leased.add(driver);
+				} else if (warming > waitingForWarmUp) {
+					// A driver is already launching in the background: wait for it rather than launching another
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException(String.format("Timed out waiting for a %s driver to finish launching", browserType));
+					}
+					waitingForWarmUp++;
+					try {
+						available.awaitNanos(remaining);
+					} finally {
+						waitingForWarmUp--;
+					}
+				} else if (size < maxSize) {
+					// Reserve a slot, but launch the browser outside of the lock
+					size++;
+					launching++;
+					break;
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException(String.format("Timed out waiting for a free %s driver: all %d are in use", browserType, maxSize));
+					}
+					available.awaitNanos(remaining);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException("Interrupted while waiting for a free " + browserType + " driver", e);
+		} finally {
+			lock.unlock();
+		}
+		return driver;
+	}
+
+	/**
+	 * Launches a new driver into a slot that has already been reserved.
+	 * If the launch fails, the slot is given back.
+	 */
+	private WebDriver launch() {
+		try {
+			return timedCreate();
+		} catch (RuntimeException e) {
+			lock.lock();
+			try {
+				size--;
+				launching--;
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Asks the provider for a new driver, keeping track of how long it took.
+	 */
+	private WebDriver timedCreate() {
+		long start = System.nanoTime();
+		try {
+			return provider.launchDriver();
+		} finally {
+			launchNanos.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Removes an idle driver, preferring the one that the calling thread returned last.
+	 * Must be called while holding the lock.
+	 */
+	private WebDriver takeIdle() {
+		WebDriver preferred = lastReturned.get();
+		if (preferred != null && idle.remove(preferred)) {
+			return preferred;
+		}
+		return idle.pop();
+	}
+
+	/**
+	 * Clears the calling thread's binding to the given driver.
+	 */
+	private void forget(WebDriver driver) {
+		if (current.get() == driver) {
+			current.remove();
+		}
+	}
+
+	/**
+	 * Quits the given driver, ignoring any errors from browsers that have already gone away.
+	 */
+	private void quietlyQuit(WebDriver driver) {
+		try {
+			driver.quit();
+		} catch (WebDriverException e) {
+			// The browser is already gone: nothing left to clean up
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package test.automation.selenium.core;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>Finds the window (or tab) opened by some action, such as clicking a link with a target.
+ * Create the tracker before the action, so that it knows which windows were already open,
+ * then call {@link #switchToNewWindow()} afterwards:</p>
+ *
+ * <pre>
+ * WindowTracker windows = new WindowTracker(driver);
+ * link.click();
+ * windows.switchToNewWindow();
+ * </pre>
+ *
+ * <p>The new window is the one whose handle was not known before the action, however the driver
+ * happens to order its handles. Handles are polled quickly at first (10 ms, 20 ms, 40 ms, ...),
+ * backing off to {@link #MAX_POLL_MILLIS}, and the driver switches as soon as the window appears.</p>
+ *
+ * <p>Opera sometimes opens its start page ("Speed Dial") in a tab of its own, and a new window may show the
+ * start page before it loads its own: for {@link BrowserType#OPERA} only, a new window showing the start page
+ * is checked again on every poll, and switched to once it shows anything else. If none does in time, the driver
+ * is switched back to the window that was current when tracking started.
+ * See <a href="https://github.com/operasoftware/operachromiumdriver/issues/15">operachromiumdriver issue 15</a>.</p>
+ *
+ */
+public class WindowTracker {
+	/** The delay before the first re-check, in milliseconds */
+	private static final long FIRST_POLL_MILLIS = 10;
+
+	/** The longest delay between two checks, in milliseconds */
+	public static final long MAX_POLL_MILLIS = 250;
+
+	/** The URL of Opera's start page */
+	private static final String OPERA_START_PAGE_URL = "browser://startpage/";
+
+	/** The title of Opera's start page */
+	private static final String OPERA_START_PAGE_TITLE = "Speed Dial";
+
+	/** The driver whose windows are tracked */
+	private final WebDriver driver;
+
+	/** The window that was current when tracking started */
+	private final String previousHandle;
+
+	/** The windows that are not the one we are looking for */
+	private final Set<String> knownHandles;
+
+	/**
+	 * Starts tracking the given driver's windows: every window open now is considered old.
+	 *
+	 * @param driver the driver whose windows should be tracked
+	 */
+	public WindowTracker(WebDriver driver) {
+		this(driver, driver.getWindowHandles());
+	}
+
+	/**
+	 * Starts tracking the given driver's windows, given the windows that are considered old.
+	 *
+	 * @param driver the driver whose windows should be tracked
+	 * @param knownHandles the handles of the windows that are considered old
+	 */
+	public WindowTracker(WebDriver driver, Set<String> knownHandles) {
+		this.driver = driver;
+		this.previousHandle = driver.getWindowHandle();
+		this.knownHandles = new LinkedHashSet<String>(knownHandles);
+		this.knownHandles.add(this.previousHandle);
+	}
+
+	/**
+	 * Returns the window that was current when tracking started.
+	 *
+	 * @return the previous window handle
+	 */
+	public String getPreviousHandle() {
+		return this.previousHandle;
+	}
+
+	/**
+	 * Waits up to {@link AbstractWebPage#waitSeconds} seconds for a new window to open,
+	 * and switches to it.
+	 *
+	 * @return the previous window handle
+	 * @throws TimeoutException if no window opened in time
+	 */
+	public String switchToNewWindow() {
+		return switchToNewWindow(AbstractWebPage.waitSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Waits for a new window to open, and switches to it.
+	 *
+	 * @param timeout how long to wait for the window
+	 * @param unit the unit of the timeout
+	 * @return the previous window handle
+	 * @throws TimeoutException if no window opened in time (or, in Opera, every new window still shows the
+	 *         start page), in which case the driver is switched back to the previous window
+	 */
+	public String switchToNewWindow(long timeout, TimeUnit unit) {
+		boolean opera = BrowserType.of(this.driver) == BrowserType.OPERA;
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		long pollMillis = FIRST_POLL_MILLIS;
+
+		// The new windows showing Opera's start page, which are checked again on every poll
+		Set<String> startPages = new LinkedHashSet<String>();
+		while (true) {
+			for (String handle : this.driver.getWindowHandles()) {
+				if (this.knownHandles.contains(handle)) {
+					continue;
+				}
+				this.driver.switchTo().window(handle);
+				if (opera && isOperaStartPage()) {
+					// Not the window we are looking for (yet): keep looking
+					startPages.add(handle);
+					continue;
+				}
+				return this.previousHandle;
+			}
+
+			if (System.nanoTime() >= deadline) {
+				switchBack();
+				if (!startPages.isEmpty()) {
+					throw new TimeoutException("New window(s) " + startPages + " still showing Opera's start page after "
+							+ timeout + " " + unit.toString().toLowerCase());
+				}
+				throw new TimeoutException("No new window opened within " + timeout + " " + unit.toString().toLowerCase()
+						+ " (windows open now: " + this.driver.getWindowHandles() + ", before tracking started: " + this.knownHandles + ")");
+			}
+			try {
+				Thread.sleep(pollMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				switchBack();
+				throw new TimeoutException("Interrupted while waiting for a new window", e);
+			}
+			pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+		}
+	}
+
+	/**
+	 * Switches back to the window that was current when tracking started, if it is still open.
+	 */
+	private void switchBack() {
+		try {
+			this.driver.switchTo().window(this.previousHandle);
+		} catch (NoSuchWindowException e) {
+			// Closed by the action that was meant to open the new window: nothing to switch back to
+		}
+	}
+
+	/**
+	 * Returns true if the current window is showing Opera's start page.
+	 */
+	private boolean isOperaStartPage() {
+		return OPERA_START_PAGE_URL.equals(this.driver.getCurrentUrl()) || OPERA_START_PAGE_TITLE.equals(this.driver.getTitle());
+	}
+}
@@ -0,0 +1,158 @@
+package test.automation.selenium.core.bindings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsDriver;
+
+import com.google.common.collect.MapMaker;
+
+import test.automation.selenium.core.HarnessSettings;
+import test.automation.selenium.core.metrics.InstrumentedDriver;
+
+/**
+ * <p>Shares the elements found for <code>@CacheLookup</code> fields between every page object using
+ * the same driver, so that e.g. constructing another <code>SignInPage</code> for the same sign in page
+ * does not find its form, inputs, and button all over again.</p>
+ *
+ * <p>Cached elements are keyed by locator, and belong to the document that the driver was showing when
+ * they were found. Every cached element of a driver is dropped as soon as it loads another page, goes
+ * back, forward, or refreshes, submits a form, or switches to another window or frame. Elements are not
+ * probed before they are used: instead, an element that turns out to be stale (e.g. after a click that
+ * replaced the page) is evicted and found again by {@link LazyWebElement}, and the command is retried once.</p>
+ *
+ * <p>Only drivers wrapped by {@link InstrumentedDriver} (i.e. those launched by the harness) report
+ * their navigation, so elements are only shared for those; other drivers keep one copy per page object,
+ * just like PageFactory.</p>
+ *
+ * <p>Caching is controlled by the following setting (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.element.cache.enabled</code> - set to false to keep one copy per page object (default true)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class ElementCache {
+	/** The singleton instance */
+	private static final ElementCache current = new ElementCache();
+
+	/** Whether or not elements are shared between page objects at all */
+	private final boolean enabled = HarnessSettings.getBoolean("webdriver.element.cache.enabled", true);
+
+	/** The elements found in each driver's current document, by locator (drivers are compared by identity, and may be collected) */
+	private final ConcurrentMap<WebDriver, Map<By, WebElement>> elements = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the cache.
+	 */
+	private ElementCache() {
+	}
+
+	/**
+	 * Returns the cache shared by every driver.
+	 *
+	 * @return the element cache
+	 */
+	public static ElementCache getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Returns whether or not elements are shared between page objects.
+	 *
+	 * @return true if the cache is enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns whether or not elements found in the given context can be shared, i.e. whether
+	 * the cache is enabled and the context is (or wraps) a driver that reports its navigation.
+	 *
+	 * @param context where elements are found
+	 * @return true if {@link #find(SearchContext, By)} can be used
+	 */
+	public boolean isShared(SearchContext context) {
+		WebDriver driver = driverOf(context);
+		return this.enabled && driver != null && InstrumentedDriver.isInstrumented(driver);
+	}
+
+	/**
+	 * Returns the element for the given locator in the driver's current document, finding it only
+	 * if it has not been found since the driver last navigated.
+	 *
+	 * @param context the driver, or a wrapper of it (see {@link #isShared(SearchContext)})
+	 * @param by how to find the element
+	 * @return the element
+	 */
+	public WebElement find(SearchContext context, By by) {
+		Map<By, WebElement> found = elementsOf(driverOf(context));
+		WebElement element = found.get(by);
+		if (element == null) {
+			element = context.findElement(by);
+			found.put(by, element);
+		}
+		return element;
+	}
+
+	/**
+	 * Drops the element cached for the given locator (e.g. because it has gone stale).
+	 *
+	 * @param context the driver, or a wrapper of it
+	 * @param by how the element was found
+	 */
+	public void evict(SearchContext context, By by) {
+		WebDriver driver = driverOf(context);
+		Map<By, WebElement> found = (driver != null) ? this.elements.get(driver) : null;
+		if (found != null) {
+			found.remove(by);
+		}
+	}
+
+	/**
+	 * Drops every element cached for the given driver, because it no longer shows the document
+	 * in which they were found.
+	 *
+	 * @param driver the driver (as handed out to page objects)
+	 */
+	public void invalidate(WebDriver driver) {
+		Map<By, WebElement> found = this.elements.get(driver);
+		if (found != null) {
+			found.clear();
+		}
+	}
+
+	/**
+	 * Returns the driver that finds elements for the given context (e.g. the driver behind a page
+	 * object's lookups), or null if it is not a driver.
+	 */
+	static WebDriver driverOf(SearchContext context) {
+		if (context instanceof WebDriver) {
+			return (WebDriver) context;
+		} else if (context instanceof WrapsDriver) {
+			return ((WrapsDriver) context).getWrappedDriver();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the elements cached for the given driver, creating the map if needed.
+	 */
+	private Map<By, WebElement> elementsOf(WebDriver driver) {
+		Map<By, WebElement> found = this.elements.get(driver);
+		if (found == null) {
+			found = new ConcurrentHashMap<By, WebElement>();
+			Map<By, WebElement> raced = this.elements.putIfAbsent(driver, found);
+			if (raced != null) {
+				found = raced;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,82 @@
+package test.automation.selenium.core.bindings;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+/**
+ * Decorates the fields of page objects initialized by PageFactory (rather than by generated
+ * bindings), just like its default decorator, except that fields marked with {@link InFrame}
+ * become {@link LazyWebElement}s (or {@link LazyWebElementList}s) that switch to their frame.
+ *
+ */
+public class FrameAwareFieldDecorator extends DefaultFieldDecorator {
+	/** Where to find elements living in frames (the driver, or a wrapper of it) */
+	private final SearchContext context;
+
+	/**
+	 * Creates a decorator.
+	 *
+	 * @param factory locates the fields that do not live in a frame
+	 * @param context where to find elements living in frames (the driver, or a wrapper of it)
+	 */
+	public FrameAwareFieldDecorator(ElementLocatorFactory factory, SearchContext context) {
+		super(factory);
+		this.context = context;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.support.pagefactory.DefaultFieldDecorator#decorate(java.lang.ClassLoader, java.lang.reflect.Field)
+	 */
+	@Override
+	public Object decorate(ClassLoader loader, Field field) {
+		InFrame inFrame = field.getAnnotation(InFrame.class);
+		if (inFrame == null) {
+			return super.decorate(loader, field);
+		}
+
+		FrameAnnotations annotations = new FrameAnnotations(field);
+		if (field.getType() == WebElement.class) {
+			return new LazyWebElement(this.context, annotations.buildBy(), annotations.isLookupCached(), annotations.buildFrames(inFrame));
+		} else if (isDecoratableList(field)) {
+			return new LazyWebElementList(this.context, annotations.buildBy(), annotations.isLookupCached(), annotations.buildFrames(inFrame));
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the locators of a field's frames with PageFactory's own rules.
+	 */
+	private static final class FrameAnnotations extends Annotations {
+		/**
+		 * Creates the annotations of a field.
+		 *
+		 * @param field the field
+		 */
+		private FrameAnnotations(Field field) {
+			super(field);
+		}
+
+		/**
+		 * Returns the path of the frame in which the field lives.
+		 */
+		private List<By> buildFrames(InFrame inFrame) {
+			FindBy[] findBys = inFrame.value();
+			By[] frames = new By[findBys.length];
+			for (int i = 0; i < findBys.length; i++) {
+				frames[i] = buildByFromFindBy(findBys[i]);
+				if (frames[i] == null) {
+					throw new IllegalArgumentException("Cannot determine how to locate frame " + i + " of " + getField().getName());
+				}
+			}
+			return FrameContext.path(frames);
+		}
+	}
+}
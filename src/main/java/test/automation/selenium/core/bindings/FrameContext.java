@@ -0,0 +1,142 @@
+package test.automation.selenium.core.bindings;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+
+import com.google.common.collect.MapMaker;
+
+import test.automation.selenium.core.metrics.InstrumentedDriver;
+
+/**
+ * <p>Keeps track of the frame that each driver is currently switched to, as the path of frame
+ * locators leading to it from the top-level document, and switches drivers between frames for
+ * the fields of page objects marked with {@link InFrame}.</p>
+ *
+ * <p>Switching to the frame that the driver is already in costs nothing. Switching to a frame
+ * within the current one only descends the rest of the way, and leaving a frame goes up with
+ * <code>parentFrame</code> rather than starting over from the top whenever part of the path is shared.
+ * A page object whose fields all live in one frame therefore switches at most once, however many
+ * of its fields are used in a row.</p>
+ *
+ * <p>Only drivers wrapped by {@link InstrumentedDriver} report the commands that change frames
+ * behind our back (loading a page, switching windows or frames directly, ...). For any other
+ * driver, the current frame is never assumed to be known, and every switch starts from the top.</p>
+ *
+ */
+public final class FrameContext {
+	/** The path of the top-level document */
+	public static final List<By> TOP = Collections.emptyList();
+
+	/** The singleton instance */
+	private static final FrameContext current = new FrameContext();
+
+	/** The frame that each driver is in, if it is known (drivers are compared by identity, and may be collected) */
+	private final ConcurrentMap<WebDriver, List<By>> frames = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the frame context.
+	 */
+	private FrameContext() {
+	}
+
+	/**
+	 * Returns the frame context shared by every driver.
+	 *
+	 * @return the frame context
+	 */
+	public static FrameContext getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Returns the path to a frame (e.g. for the bindings generated from {@link InFrame}).
+	 *
+	 * @param frames the locators of the frames to switch to, outermost first
+	 * @return the path
+	 */
+	public static List<By> path(By... frames) {
+		return (frames.length == 0) ? TOP : Collections.unmodifiableList(Arrays.asList(frames));
+	}
+
+	/**
+	 * Switches the driver behind the given context to the given frame, unless it is already there.
+	 *
+	 * @param context the driver, or a wrapper of it (see {@link ElementCache})
+	 * @param path the frame to switch to
+	 */
+	public void enter(SearchContext context, List<By> path) {
+		WebDriver driver = ElementCache.driverOf(context);
+		if (driver == null) {
+			throw new IllegalArgumentException("Cannot switch frames for " + context + ": it is not a driver");
+		}
+
+		List<By> from = this.frames.get(driver);
+		if (path.equals(from)) {
+			return;
+		}
+
+		// Go up to the deepest frame shared by both paths (or all the way to the top), then down
+		int shared = 0;
+		if (from != null) {
+			while (shared < from.size() && shared < path.size() && from.get(shared).equals(path.get(shared))) {
+				shared++;
+			}
+		}
+		if (from == null || shared == 0) {
+			if (!TOP.equals(from)) {
+				driver.switchTo().defaultContent();
+			}
+			shared = 0;
+		} else {
+			for (int i = from.size(); i > shared; i--) {
+				driver.switchTo().parentFrame();
+			}
+		}
+		for (int i = shared; i < path.size(); i++) {
+			driver.switchTo().frame(driver.findElement(path.get(i)));
+		}
+
+		// Only known once every switch has succeeded
+		if (InstrumentedDriver.isInstrumented(driver)) {
+			this.frames.put(driver, path);
+		}
+	}
+
+	/**
+	 * Forgets which frame the driver behind the given context is in, e.g. because looking up an element
+	 * there failed after the frame was navigated away from without us noticing.
+	 *
+	 * @param context the driver, or a wrapper of it
+	 * @return true if the frame was known
+	 */
+	public boolean forget(SearchContext context) {
+		WebDriver driver = ElementCache.driverOf(context);
+		return driver != null && this.frames.remove(driver) != null;
+	}
+
+	/**
+	 * Records that the given driver has gone back to the top-level document
+	 * (e.g. by loading a page or by switching to the default content).
+	 *
+	 * @param driver the driver (as handed out to page objects)
+	 */
+	public void atTop(WebDriver driver) {
+		this.frames.put(driver, TOP);
+	}
+
+	/**
+	 * Records that the frame which the given driver is in is no longer known
+	 * (e.g. because it switched frames or windows directly).
+	 *
+	 * @param driver the driver (as handed out to page objects)
+	 */
+	public void lost(WebDriver driver) {
+		this.frames.remove(driver);
+	}
+}
@@ -0,0 +1,34 @@
+package test.automation.selenium.core.bindings;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.openqa.selenium.support.FindBy;
+
+/**
+ * <p>Declares the frame in which an element field of a page object lives, as the path of frames
+ * to switch to from the top-level document, outermost first. Each frame is located (with the same
+ * rules as <code>@FindBy</code>) within the frame before it:</p>
+ *
+ * <pre>
+ * &#64;InFrame(&#64;FindBy(tagName = "iframe"))
+ * &#64;FindBy(className = "product-link")
+ * WebElement productLink;
+ * </pre>
+ *
+ * <p>Before the element is looked up or used, the driver is switched to that frame through the
+ * {@link FrameContext}, which skips the switch entirely when the driver is already there. Fields
+ * without this annotation are used in whatever frame the driver happens to be in: when a page mixes
+ * fields in frames with fields in the top-level document, mark the latter with <code>&#64;InFrame({})</code>.</p>
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface InFrame {
+	/**
+	 * The frames to switch to, outermost first (empty for the top-level document).
+	 */
+	FindBy[] value();
+}
@@ -0,0 +1,376 @@
+package test.automation.selenium.core.bindings;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.internal.Coordinates;
+import org.openqa.selenium.internal.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+
+/**
+ * <p>An element field of a page object, located when it is first used rather than when the page
+ * object is constructed. This is the plain-class equivalent of the dynamic proxy that PageFactory
+ * creates for each field: every call finds the element again, unless the field is marked with
+ * <code>@CacheLookup</code>, in which case the element is found once and reused.</p>
+ *
+ * <p>Cached elements are shared with every other page object using the same driver (see {@link ElementCache}),
+ * and are found again if they turn out to be stale, retrying the command once: the cache cannot tell when the page
+ * that one page object found an element in has been replaced by another. An element that is not shared (e.g. the
+ * cache is disabled, or the driver was not launched by the harness) behaves exactly like PageFactory's: once
+ * found, it is kept, and a <code>StaleElementReferenceException</code> is thrown when it goes stale.</p>
+ *
+ * <p>An element living in a frame (see {@link InFrame}) switches the driver to that frame through
+ * the {@link FrameContext} before it is looked up or used.</p>
+ *
+ * @see PageBinder
+ */
+public class LazyWebElement implements WebElement, WrapsElement, Locatable {
+	/** Where to find the element */
+	private final SearchContext context;
+
+	/** How to find the element */
+	private final By by;
+
+	/** Whether or not to find the element only once (<code>@CacheLookup</code>) */
+	private final boolean cacheLookup;
+
+	/** The frame in which the element lives, or null to use whatever frame the driver is in */
+	private final List<By> frames;
+
+	/** The element found, if it is cached but not shared */
+	private WebElement cached;
+
+	/**
+	 * Creates a holder for an element that has not been located yet.
+	 *
+	 * @param context where to find the element (e.g. the driver)
+	 * @param by how to find the element
+	 * @param cacheLookup true to find the element only once
+	 */
+	public LazyWebElement(SearchContext context, By by, boolean cacheLookup) {
+		this(context, by, cacheLookup, null);
+	}
+
+	/**
+	 * Creates a holder for an element in a frame that has not been located yet.
+	 *
+	 * @param context where to find the element (the driver, or a wrapper of it)
+	 * @param by how to find the element
+	 * @param cacheLookup true to find the element only once
+	 * @param frames the frame in which the element lives (see {@link FrameContext#path(By...)}), or null
+	 */
+	public LazyWebElement(SearchContext context, By by, boolean cacheLookup, List<By> frames) {
+		this.context = context;
+		this.by = by;
+		this.cacheLookup = cacheLookup;
+		this.frames = frames;
+	}
+
+	/**
+	 * Returns how to find this element.
+	 *
+	 * @return the locator
+	 */
+	public By getBy() {
+		return this.by;
+	}
+
+	/**
+	 * Switches to the element's frame, if it has one, and finds the element (or returns the cached one).
+	 *
+	 * @return the element
+	 */
+	@Override
+	public WebElement getWrappedElement() {
+		if (this.frames == null) {
+			return locate();
+		}
+
+		FrameContext frameContext = FrameContext.getCurrent();
+		frameContext.enter(this.context, this.frames);
+		try {
+			return locate();
+		} catch (NotFoundException e) {
+			// The frame may have been navigated away from without us noticing: switch to it from the top
+			if (!frameContext.forget(this.context)) {
+				throw e;
+			}
+			frameContext.enter(this.context, this.frames);
+			return locate();
+		}
+	}
+
+	/**
+	 * Finds the element in the current frame (or returns the cached one).
+	 */
+	private WebElement locate() {
+		if (!this.cacheLookup) {
+			return this.context.findElement(this.by);
+		}
+		ElementCache cache = ElementCache.getCurrent();
+		if (cache.isShared(this.context)) {
+			return cache.find(this.context, this.by);
+		}
+		if (this.cached == null) {
+			this.cached = this.context.findElement(this.by);
+		}
+		return this.cached;
+	}
+
+	/**
+	 * Finds the element again after the shared one has gone stale, so that the command can be retried.
+	 *
+	 * @param e the error raised by the stale element
+	 * @return the element found now
+	 * @throws StaleElementReferenceException if the element is not shared through the {@link ElementCache}, i.e. it
+	 *         was found again for this command, or it is kept by this page object just as PageFactory would keep it
+	 */
+	private WebElement relocate(StaleElementReferenceException e) {
+		ElementCache cache = ElementCache.getCurrent();
+		if (!this.cacheLookup || !cache.isShared(this.context)) {
+			throw e;
+		}
+		cache.evict(this.context, this.by);
+		if (this.frames != null) {
+			FrameContext.getCurrent().forget(this.context);
+		}
+		return getWrappedElement();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#click()
+	 */
+	@Override
+	public void click() {
+		try {
+			getWrappedElement().click();
+		} catch (StaleElementReferenceException e) {
+			relocate(e).click();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#submit()
+	 */
+	@Override
+	public void submit() {
+		try {
+			getWrappedElement().submit();
+		} catch (StaleElementReferenceException e) {
+			relocate(e).submit();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#sendKeys(java.lang.CharSequence[])
+	 */
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		try {
+			getWrappedElement().sendKeys(keysToSend);
+		} catch (StaleElementReferenceException e) {
+			relocate(e).sendKeys(keysToSend);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#clear()
+	 */
+	@Override
+	public void clear() {
+		try {
+			getWrappedElement().clear();
+		} catch (StaleElementReferenceException e) {
+			relocate(e).clear();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getTagName()
+	 */
+	@Override
+	public String getTagName() {
+		try {
+			return getWrappedElement().getTagName();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getTagName();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getAttribute(java.lang.String)
+	 */
+	@Override
+	public String getAttribute(String name) {
+		try {
+			return getWrappedElement().getAttribute(name);
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getAttribute(name);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#isSelected()
+	 */
+	@Override
+	public boolean isSelected() {
+		try {
+			return getWrappedElement().isSelected();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).isSelected();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		try {
+			return getWrappedElement().isEnabled();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).isEnabled();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getText()
+	 */
+	@Override
+	public String getText() {
+		try {
+			return getWrappedElement().getText();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getText();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#findElements(org.openqa.selenium.By)
+	 */
+	@Override
+	public List<WebElement> findElements(By by) {
+		try {
+			return getWrappedElement().findElements(by);
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).findElements(by);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#findElement(org.openqa.selenium.By)
+	 */
+	@Override
+	public WebElement findElement(By by) {
+		try {
+			return getWrappedElement().findElement(by);
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).findElement(by);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#isDisplayed()
+	 */
+	@Override
+	public boolean isDisplayed() {
+		try {
+			return getWrappedElement().isDisplayed();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).isDisplayed();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getLocation()
+	 */
+	@Override
+	public Point getLocation() {
+		try {
+			return getWrappedElement().getLocation();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getLocation();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getSize()
+	 */
+	@Override
+	public Dimension getSize() {
+		try {
+			return getWrappedElement().getSize();
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getSize();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.WebElement#getCssValue(java.lang.String)
+	 */
+	@Override
+	public String getCssValue(String propertyName) {
+		try {
+			return getWrappedElement().getCssValue(propertyName);
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getCssValue(propertyName);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.TakesScreenshot#getScreenshotAs(org.openqa.selenium.OutputType)
+	 */
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		try {
+			return getWrappedElement().getScreenshotAs(target);
+		} catch (StaleElementReferenceException e) {
+			return relocate(e).getScreenshotAs(target);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.internal.Locatable#getCoordinates()
+	 */
+	@Override
+	public Coordinates getCoordinates() {
+		try {
+			return ((Locatable) getWrappedElement()).getCoordinates();
+		} catch (StaleElementReferenceException e) {
+			return ((Locatable) relocate(e)).getCoordinates();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		// Just like PageFactory's proxies, compare the element itself
+		return getWrappedElement().equals(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return getWrappedElement().hashCode();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Lazy element for: " + this.by;
+	}
+}
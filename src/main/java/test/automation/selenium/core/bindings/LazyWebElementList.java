@@ -0,0 +1,94 @@
+package test.automation.selenium.core.bindings;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import com.google.common.collect.ForwardingList;
+
+/**
+ * A list-of-elements field of a page object, located when it is used rather than when the page
+ * object is constructed. Just like PageFactory's proxy lists, every call finds the elements again,
+ * unless the field is marked with <code>@CacheLookup</code>. Elements living in a frame
+ * (see {@link InFrame}) switch the driver to that frame first.
+ *
+ * @see LazyWebElement
+ */
+public class LazyWebElementList extends ForwardingList<WebElement> {
+	/** Where to find the elements */
+	private final SearchContext context;
+
+	/** How to find the elements */
+	private final By by;
+
+	/** Whether or not to find the elements only once (<code>@CacheLookup</code>) */
+	private final boolean cacheLookup;
+
+	/** The frame in which the elements live, or null to use whatever frame the driver is in */
+	private final List<By> frames;
+
+	/** The elements found, if they are cached */
+	private List<WebElement> cached;
+
+	/**
+	 * Creates a holder for elements that have not been located yet.
+	 *
+	 * @param context where to find the elements (e.g. the driver)
+	 * @param by how to find the elements
+	 * @param cacheLookup true to find the elements only once
+	 */
+	public LazyWebElementList(SearchContext context, By by, boolean cacheLookup) {
+		this(context, by, cacheLookup, null);
+	}
+
+	/**
+	 * Creates a holder for elements in a frame that have not been located yet.
+	 *
+	 * @param context where to find the elements (the driver, or a wrapper of it)
+	 * @param by how to find the elements
+	 * @param cacheLookup true to find the elements only once
+	 * @param frames the frame in which the elements live (see {@link FrameContext#path(By...)}), or null
+	 */
+	public LazyWebElementList(SearchContext context, By by, boolean cacheLookup, List<By> frames) {
+		this.context = context;
+		this.by = by;
+		this.cacheLookup = cacheLookup;
+		this.frames = frames;
+	}
+
+	/**
+	 * Returns how to find these elements.
+	 *
+	 * @return the locator
+	 */
+	public By getBy() {
+		return this.by;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.google.common.collect.ForwardingList#delegate()
+	 */
+	@Override
+	protected List<WebElement> delegate() {
+		if (this.frames != null) {
+			FrameContext.getCurrent().enter(this.context, this.frames);
+		}
+		if (!this.cacheLookup) {
+			return this.context.findElements(this.by);
+		}
+		if (this.cached == null) {
+			this.cached = this.context.findElements(this.by);
+		}
+		return this.cached;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.google.common.collect.ForwardingObject#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Lazy element list for: " + this.by;
+	}
+}
@@ -0,0 +1,20 @@
+package test.automation.selenium.core.bindings;
+
+import org.openqa.selenium.SearchContext;
+
+/**
+ * Assigns the element fields of one page object class. Implementations are generated at
+ * build time (as <code>PageClass_Bindings</code>) by the {@link test.automation.selenium.core.bindings.processor.PageBindingProcessor}.
+ *
+ * @param <P> the page object class
+ */
+public interface PageBinder<P> {
+	/**
+	 * Assigns a lazily-located element (or list of elements) to each element field
+	 * declared by the page object's class.
+	 *
+	 * @param page the page object
+	 * @param context where to find the elements (e.g. the driver)
+	 */
+	public void bind(P page, SearchContext context);
+}
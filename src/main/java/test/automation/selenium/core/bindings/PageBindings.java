@@ -0,0 +1,140 @@
+package test.automation.selenium.core.bindings;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>Initializes page objects with the {@link PageBinder}s generated at build time, in place of
+ * <code>PageFactory.initElements</code>. Binding a page object is a handful of plain field assignments:
+ * there is no reflection and no proxy creation per page object, only once per page class (to find
+ * its binders).</p>
+ *
+ * <p>A page object is only bound this way if every class in its hierarchy that declares element fields
+ * has a generated binder (i.e. none of its element fields is private). Otherwise, {@link #bind(Object, SearchContext)}
+ * returns false and the caller should fall back to PageFactory.</p>
+ *
+ * <p>Binding is controlled by the following setting (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.page.bindings.enabled</code> - set to false to always use PageFactory (default true)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class PageBindings {
+	/** The suffix of the name of every generated binder class */
+	public static final String BINDER_SUFFIX = "_Bindings";
+
+	/** Whether or not generated binders should be used at all */
+	private static final boolean ENABLED = HarnessSettings.getBoolean("webdriver.page.bindings.enabled", true);
+
+	/** The binders for each page class (from superclass to subclass), or null if it must fall back to PageFactory */
+	private static final ConcurrentMap<Class<?>, List<PageBinder<Object>>> binders = new ConcurrentHashMap<Class<?>, List<PageBinder<Object>>>();
+
+	/** Stands in for a null value in the above map */
+	private static final List<PageBinder<Object>> UNBOUND = Collections.emptyList();
+
+	/**
+	 * Static helpers only.
+	 */
+	private PageBindings() {
+	}
+
+	/**
+	 * Assigns every element field of the given page object using its generated binders.
+	 *
+	 * @param page the page object
+	 * @param context where to find the elements (e.g. the driver)
+	 * @return true if the page was bound, false if it must be initialized with PageFactory instead
+	 */
+	public static boolean bind(Object page, SearchContext context) {
+		if (!ENABLED) {
+			return false;
+		}
+
+		List<PageBinder<Object>> pageBinders = binders.get(page.getClass());
+		if (pageBinders == null) {
+			pageBinders = findBinders(page.getClass());
+			binders.putIfAbsent(page.getClass(), pageBinders);
+		}
+		if (pageBinders == UNBOUND) {
+			return false;
+		}
+
+		for (PageBinder<Object> binder : pageBinders) {
+			binder.bind(page, context);
+		}
+		return true;
+	}
+
+	/**
+	 * Loads the binder of each class in the given page class's hierarchy, superclasses first.
+	 *
+	 * @return the binders, or {@link #UNBOUND} if any class with element fields has no binder
+	 */
+	private static List<PageBinder<Object>> findBinders(Class<?> pageClass) {
+		List<PageBinder<Object>> found = new ArrayList<PageBinder<Object>>();
+		for (Class<?> type = pageClass; type != null && type != Object.class; type = type.getSuperclass()) {
+			PageBinder<Object> binder = loadBinder(type);
+			if (binder != null) {
+				found.add(0, binder);
+			} else if (declaresElementFields(type)) {
+				return UNBOUND;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Instantiates the generated binder for the given class, if there is one.
+	 */
+	@SuppressWarnings("unchecked")
+	private static PageBinder<Object> loadBinder(Class<?> type) {
+		// Nested classes are bound by e.g. Outer_Inner_Bindings
+		String name = type.getName().replace('$', '_') + BINDER_SUFFIX;
+		try {
+			Class<?> binderClass = Class.forName(name, true, type.getClassLoader());
+			return (PageBinder<Object>) binderClass.getConstructor().newInstance();
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalStateException("Cannot use the generated bindings " + name, e);
+		}
+	}
+
+	/**
+	 * Returns true if PageFactory would assign any field declared by the given class.
+	 */
+	private static boolean declaresElementFields(Class<?> type) {
+		for (Field field : type.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+				continue;
+			}
+			if (field.getType() == WebElement.class) {
+				return true;
+			}
+
+			Type generic = field.getGenericType();
+			if (field.getType() == List.class && generic instanceof ParameterizedType
+					&& ((ParameterizedType) generic).getActualTypeArguments()[0] == WebElement.class
+					&& (field.isAnnotationPresent(FindBy.class) || field.isAnnotationPresent(FindBys.class) || field.isAnnotationPresent(FindAll.class))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
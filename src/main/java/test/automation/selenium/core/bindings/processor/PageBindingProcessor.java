@@ -0,0 +1,516 @@
+package test.automation.selenium.core.bindings.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * <p>Generates a <code>PageBinder</code> for every page object class (i.e. every subclass of
+ * <code>AbstractWebPage</code>) that declares element fields, so that page objects can be initialized
+ * without <code>PageFactory</code>'s reflection and dynamic proxies.</p>
+ *
+ * <p>The fields bound, and the locators used, are exactly those that <code>PageFactory</code> would use:
+ * every <code>WebElement</code> field, and every <code>List&lt;WebElement&gt;</code> field annotated with
+ * <code>@FindBy</code>, <code>@FindBys</code>, or <code>@FindAll</code>. Locators come from those annotations,
+ * or default to finding the element by the field's name as an id or name. <code>@CacheLookup</code> is honored.
+ * The locators are built once, when the generated class is loaded. Fields marked with <code>@InFrame</code>
+ * are bound to the path of their frame, built with the same rules.</p>
+ *
+ * <p>Generated code assigns fields directly, so a page class with a private element field cannot be bound:
+ * it is reported with a warning and left to <code>PageFactory</code> at runtime. Invalid annotations are
+ * compile errors.</p>
+ *
+ */
+@SupportedAnnotationTypes("*")
+public class PageBindingProcessor extends AbstractProcessor {
+	/** The base class of every page object */
+	private static final String PAGE_CLASS = "test.automation.selenium.core.AbstractWebPage";
+
+	/** The package of the runtime half of the bindings */
+	private static final String BINDINGS_PACKAGE = "test.automation.selenium.core.bindings";
+
+	/** The suffix of the name of every generated class (see PageBindings.BINDER_SUFFIX) */
+	private static final String BINDER_SUFFIX = "_Bindings";
+
+	/** PageFactory's annotations */
+	private static final String FIND_BY = "org.openqa.selenium.support.FindBy";
+	private static final String FIND_BYS = "org.openqa.selenium.support.FindBys";
+	private static final String FIND_ALL = "org.openqa.selenium.support.FindAll";
+	private static final String CACHE_LOOKUP = "org.openqa.selenium.support.CacheLookup";
+
+	/** The annotation declaring the frame in which a field lives */
+	private static final String IN_FRAME = BINDINGS_PACKAGE + ".InFrame";
+
+	/** The short forms of @FindBy, in the order that PageFactory checks them, and the By factory for each */
+	private static final String[][] SHORT_FORMS = {
+		{ "className", "By.className" },
+		{ "css", "By.cssSelector" },
+		{ "id", "By.id" },
+		{ "linkText", "By.linkText" },
+		{ "name", "By.name" },
+		{ "partialLinkText", "By.partialLinkText" },
+		{ "tagName", "By.tagName" },
+		{ "xpath", "By.xpath" },
+	};
+
+	/** The classes used by the binder being generated, other than those every binder uses (see {@link #importsOf(List, List)}) */
+	private final Set<String> imports = new TreeSet<String>();
+
+	/* (non-Javadoc)
+	 * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.lang.model.element.TypeElement, javax.annotation.processing.RoundEnvironment)
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement pageClass = processingEnv.getElementUtils().getTypeElement(PAGE_CLASS);
+		if (pageClass == null) {
+			// Not compiling against the harness: nothing to do
+			return false;
+		}
+
+		List<TypeElement> types = new ArrayList<TypeElement>();
+		collectTypes(ElementFilter.typesIn(roundEnv.getRootElements()), types);
+		for (TypeElement type : types) {
+			if (type.getKind() == ElementKind.CLASS && !type.equals(pageClass)
+					&& processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()),
+							processingEnv.getTypeUtils().erasure(pageClass.asType()))) {
+				generateBinder(type);
+			}
+		}
+
+		// Never claim the annotations: other processors may want them too
+		return false;
+	}
+
+	/**
+	 * Adds the given types, and every type nested within them, to the list.
+	 */
+	private static void collectTypes(Iterable<TypeElement> roots, List<TypeElement> types) {
+		for (TypeElement type : roots) {
+			types.add(type);
+			collectTypes(ElementFilter.typesIn(type.getEnclosedElements()), types);
+		}
+	}
+
+	/**
+	 * Generates the binder for a single page class, if it declares any element fields.
+	 */
+	private void generateBinder(TypeElement type) {
+		List<VariableElement> fields = new ArrayList<VariableElement>();
+		List<Boolean> lists = new ArrayList<Boolean>();
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+				continue;
+			}
+
+			boolean isElement = isType(field.asType(), "org.openqa.selenium.WebElement");
+			boolean isList = !isElement && isElementList(field.asType()) && (annotation(field, FIND_BY) != null
+					|| annotation(field, FIND_BYS) != null || annotation(field, FIND_ALL) != null);
+			if (!isElement && !isList) {
+				continue;
+			}
+
+			if (modifiers.contains(Modifier.PRIVATE)) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Private element field "
+						+ field.getSimpleName() + " cannot be bound at build time; " + type.getSimpleName()
+						+ " will be initialized by PageFactory", field);
+				return;
+			}
+			fields.add(field);
+			lists.add(isList);
+		}
+		if (fields.isEmpty()) {
+			return;
+		}
+
+		this.imports.clear();
+		List<String> locators = new ArrayList<String>();
+		List<String> frames = new ArrayList<String>();
+		for (VariableElement field : fields) {
+			String locator = buildLocator(field);
+			AnnotationMirror inFrame = annotation(field, IN_FRAME);
+			String path = (inFrame != null) ? buildFrames(field, inFrame) : null;
+			if (locator == null || (inFrame != null && path == null)) {
+				// Already reported as an error
+				return;
+			}
+			locators.add(locator);
+			frames.add(path);
+		}
+
+		String packageName = packageOf(type);
+		String binderName = binderNameOf(type, packageName);
+		String pageName = type.getQualifiedName().toString();
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					packageName.isEmpty() ? binderName : packageName + "." + binderName, type);
+			try (Writer out = file.openWriter()) {
+				writeBinder(out, packageName, binderName, pageName, fields, lists, locators, frames);
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + binderName + ": " + e.getMessage(), type);
+		}
+	}
+
+	/**
+	 * Writes out the source of a binder.
+	 */
+	private void writeBinder(Writer out, String packageName, String binderName, String pageName,
+			List<VariableElement> fields, List<Boolean> lists, List<String> locators, List<String> frames) throws IOException {
+		if (!packageName.isEmpty()) {
+			out.write("package " + packageName + ";\n\n");
+		}
+		// Import only what is used, in groups separated by a blank line (java, org, test)
+		String group = null;
+		for (String imported : importsOf(lists, frames)) {
+			String importGroup = imported.substring(0, imported.indexOf('.'));
+			if (group != null && !group.equals(importGroup)) {
+				out.write("\n");
+			}
+			group = importGroup;
+			out.write("import " + imported + ";\n");
+		}
+		out.write("\n");
+		out.write("/**\n * Binds the element fields of {@link " + pageName + "}.\n");
+		out.write(" * Generated by " + getClass().getName() + ": do not edit.\n */\n");
+		out.write("public final class " + binderName + " implements PageBinder<" + pageName + "> {\n");
+		for (int i = 0; i < fields.size(); i++) {
+			out.write("\t/** How to find " + fields.get(i).getSimpleName() + " */\n");
+			out.write("\tprivate static final By " + constantNameOf(fields.get(i)) + " = " + locators.get(i) + ";\n\n");
+			if (frames.get(i) != null) {
+				out.write("\t/** The frame in which " + fields.get(i).getSimpleName() + " lives */\n");
+				out.write("\tprivate static final List<By> " + framesNameOf(fields.get(i)) + " = " + frames.get(i) + ";\n\n");
+			}
+		}
+		out.write("\t@Override\n");
+		out.write("\tpublic void bind(" + pageName + " page, SearchContext context) {\n");
+		for (int i = 0; i < fields.size(); i++) {
+			VariableElement field = fields.get(i);
+			String holder = lists.get(i) ? "LazyWebElementList" : "LazyWebElement";
+			boolean cached = annotation(field, CACHE_LOOKUP) != null;
+			String framesArgument = (frames.get(i) != null) ? ", " + framesNameOf(field) : "";
+			out.write("\t\tpage." + field.getSimpleName() + " = new " + holder + "(context, " + constantNameOf(field) + ", " + cached + framesArgument + ");\n");
+		}
+		out.write("\t}\n}\n");
+	}
+
+	/**
+	 * Returns the classes that a binder imports, in order: those that every binder uses, and those used
+	 * by the holders, frames, and locators of its fields.
+	 */
+	private Set<String> importsOf(List<Boolean> lists, List<String> frames) {
+		Set<String> used = new TreeSet<String>(this.imports);
+		used.add("org.openqa.selenium.By");
+		used.add("org.openqa.selenium.SearchContext");
+		used.add(BINDINGS_PACKAGE + ".PageBinder");
+		if (lists.contains(Boolean.FALSE)) {
+			used.add(BINDINGS_PACKAGE + ".LazyWebElement");
+		}
+		if (lists.contains(Boolean.TRUE)) {
+			used.add(BINDINGS_PACKAGE + ".LazyWebElementList");
+		}
+		for (String path : frames) {
+			if (path != null) {
+				used.add("java.util.List");
+				used.add(BINDINGS_PACKAGE + ".FrameContext");
+			}
+		}
+		return used;
+	}
+
+	/**
+	 * Returns the Java expression for the locator that PageFactory would use for the given field,
+	 * or null (after reporting an error) if its annotations are invalid.
+	 */
+	private String buildLocator(VariableElement field) {
+		AnnotationMirror findBys = annotation(field, FIND_BYS);
+		if (findBys != null) {
+			return buildLocators(field, findBys, "org.openqa.selenium.support.pagefactory.ByChained");
+		}
+		AnnotationMirror findAll = annotation(field, FIND_ALL);
+		if (findAll != null) {
+			return buildLocators(field, findAll, "org.openqa.selenium.support.pagefactory.ByAll");
+		}
+		AnnotationMirror findBy = annotation(field, FIND_BY);
+		if (findBy != null) {
+			return buildFindBy(field, findBy);
+		}
+		return byIdOrName(field.getSimpleName().toString());
+	}
+
+	/**
+	 * Returns the Java expression combining every @FindBy in a @FindBys or @FindAll with the given class.
+	 */
+	private String buildLocators(VariableElement field, AnnotationMirror container, String combiner) {
+		this.imports.add(combiner);
+		StringBuilder expression = new StringBuilder("new " + combiner.substring(combiner.lastIndexOf('.') + 1) + "(");
+		@SuppressWarnings("unchecked")
+		List<? extends AnnotationValue> findBys = (List<? extends AnnotationValue>) valueOf(container, "value");
+		for (int i = 0; i < findBys.size(); i++) {
+			String locator = buildFindBy(field, (AnnotationMirror) findBys.get(i).getValue());
+			if (locator == null) {
+				return null;
+			}
+			expression.append(i == 0 ? "" : ", ").append(locator);
+		}
+		return expression.append(")").toString();
+	}
+
+	/**
+	 * Returns the Java expression for the path of the frame declared by an @InFrame,
+	 * or null (after reporting an error) if it is invalid.
+	 */
+	private String buildFrames(VariableElement field, AnnotationMirror inFrame) {
+		StringBuilder expression = new StringBuilder("FrameContext.path(");
+		@SuppressWarnings("unchecked")
+		List<? extends AnnotationValue> findBys = (List<? extends AnnotationValue>) valueOf(inFrame, "value");
+		for (int i = 0; i < findBys.size(); i++) {
+			AnnotationMirror findBy = (AnnotationMirror) findBys.get(i).getValue();
+			if (!hasLocator(findBy)) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Cannot determine how to locate frame " + i + " of " + field.getSimpleName(), field, inFrame);
+				return null;
+			}
+			String locator = buildFindBy(field, findBy);
+			if (locator == null) {
+				return null;
+			}
+			expression.append(i == 0 ? "" : ", ").append(locator);
+		}
+		return expression.append(")").toString();
+	}
+
+	/**
+	 * Returns true if the given @FindBy specifies a locator, rather than defaulting to the field's name.
+	 */
+	private boolean hasLocator(AnnotationMirror findBy) {
+		if (!"UNSET".equals(valueOf(findBy, "how").toString()) && !((String) valueOf(findBy, "using")).isEmpty()) {
+			return true;
+		}
+		for (String[] form : SHORT_FORMS) {
+			if (!((String) valueOf(findBy, form[0])).isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the Java expression for a single @FindBy, checking it just as PageFactory would.
+	 */
+	private String buildFindBy(VariableElement field, AnnotationMirror findBy) {
+		String how = valueOf(findBy, "how").toString();
+		String using = (String) valueOf(findBy, "using");
+		boolean longForm = !"UNSET".equals(how) && !using.isEmpty();
+
+		String shortForm = null;
+		int shortForms = 0;
+		for (String[] form : SHORT_FORMS) {
+			String value = (String) valueOf(findBy, form[0]);
+			if (!value.isEmpty()) {
+				shortForms++;
+				if (shortForm == null) {
+					shortForm = form[1] + "(" + quote(value) + ")";
+				}
+			}
+		}
+
+		if (shortForms > 1 || (shortForms == 1 && longForm)) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"If you use a '@FindBy' annotation, you must specify one, and only one, locator", field, findBy);
+			return null;
+		} else if (shortForm != null) {
+			return shortForm;
+		} else if (!longForm) {
+			return byIdOrName(field.getSimpleName().toString());
+		}
+
+		switch (how) {
+			case "CLASS_NAME":
+				return "By.className(" + quote(using) + ")";
+			case "CSS":
+				return "By.cssSelector(" + quote(using) + ")";
+			case "ID":
+				return "By.id(" + quote(using) + ")";
+			case "ID_OR_NAME":
+				return byIdOrName(using);
+			case "LINK_TEXT":
+				return "By.linkText(" + quote(using) + ")";
+			case "NAME":
+				return "By.name(" + quote(using) + ")";
+			case "PARTIAL_LINK_TEXT":
+				return "By.partialLinkText(" + quote(using) + ")";
+			case "TAG_NAME":
+				return "By.tagName(" + quote(using) + ")";
+			case "XPATH":
+				return "By.xpath(" + quote(using) + ")";
+			default:
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot determine how to locate element " + field.getSimpleName(), field, findBy);
+				return null;
+		}
+	}
+
+	/**
+	 * Returns the Java expression finding an element by the given id or name.
+	 */
+	private String byIdOrName(String idOrName) {
+		this.imports.add("org.openqa.selenium.support.ByIdOrName");
+		return "new ByIdOrName(" + quote(idOrName) + ")";
+	}
+
+	/**
+	 * Returns the given annotation on the given element, or null.
+	 */
+	private static AnnotationMirror annotation(Element element, String annotationType) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the value of one of an annotation's members (or its default).
+	 */
+	private Object valueOf(AnnotationMirror mirror, String member) {
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(member)) {
+				Object value = entry.getValue().getValue();
+				return (value instanceof VariableElement) ? ((VariableElement) value).getSimpleName().toString() : value;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns true if the given type is the named class.
+	 */
+	private boolean isType(TypeMirror type, String className) {
+		TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+		return element != null && processingEnv.getTypeUtils().isSameType(type, element.asType());
+	}
+
+	/**
+	 * Returns true if the given type is <code>List&lt;WebElement&gt;</code>.
+	 */
+	private boolean isElementList(TypeMirror type) {
+		if (!(type instanceof DeclaredType)) {
+			return false;
+		}
+		DeclaredType declared = (DeclaredType) type;
+		return ((TypeElement) declared.asElement()).getQualifiedName().contentEquals("java.util.List")
+				&& declared.getTypeArguments().size() == 1
+				&& isType(declared.getTypeArguments().get(0), "org.openqa.selenium.WebElement");
+	}
+
+	/**
+	 * Returns the name of the package containing the given type.
+	 */
+	private static String packageOf(TypeElement type) {
+		Element enclosing = type;
+		while (!(enclosing instanceof PackageElement)) {
+			enclosing = enclosing.getEnclosingElement();
+		}
+		return ((PackageElement) enclosing).getQualifiedName().toString();
+	}
+
+	/**
+	 * Returns the simple name of the binder for the given type (e.g. Outer_Inner_Bindings).
+	 */
+	private static String binderNameOf(TypeElement type, String packageName) {
+		String qualified = type.getQualifiedName().toString();
+		String local = packageName.isEmpty() ? qualified : qualified.substring(packageName.length() + 1);
+		return local.replace('.', '_') + BINDER_SUFFIX;
+	}
+
+	/**
+	 * Returns the name of the constant holding the locator for the given field (e.g. SIGN_IN_FORM).
+	 */
+	private static String constantNameOf(VariableElement field) {
+		String name = field.getSimpleName().toString();
+		StringBuilder constant = new StringBuilder();
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+				constant.append('_');
+			}
+			constant.append(Character.toUpperCase(c));
+		}
+		return constant.append("_LOCATOR").toString();
+	}
+
+	/**
+	 * Returns the name of the constant holding the frame of the given field (e.g. WDP_LINK_FRAMES).
+	 */
+	private static String framesNameOf(VariableElement field) {
+		String locatorName = constantNameOf(field);
+		return locatorName.substring(0, locatorName.length() - "_LOCATOR".length()) + "_FRAMES";
+	}
+
+	/**
+	 * Returns the given value as a Java string literal.
+	 */
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '"':
+					quoted.append("\\\"");
+					break;
+				case '\\':
+					quoted.append("\\\\");
+					break;
+				case '\n':
+					quoted.append("\\n");
+					break;
+				case '\r':
+					quoted.append("\\r");
+					break;
+				case '\t':
+					quoted.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						quoted.append(String.format("\\u%04x", (int) c));
+					} else {
+						quoted.append(c);
+					}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,71 @@
+package test.automation.selenium.core.logging;
+
+/**
+ * <p>Logs the messages of one class of the harness. Logging never waits: the event is handed to the
+ * {@link LogAppender}, which formats and writes it on a thread of its own, so test threads neither
+ * contend on <code>System.out</code> nor interleave their output.</p>
+ *
+ * <p>Messages are {@link String#format(String, Object...)} format strings whenever they have arguments.
+ * The arguments are formatted later, on the appender's thread, so they should not change afterward.</p>
+ *
+ */
+public final class HarnessLogger {
+	/** The name of the class that logs through this logger */
+	private final String source;
+
+	/**
+	 * Use {@link #getLogger(Class)} to obtain a logger.
+	 *
+	 * @param source the name of the class that logs through this logger
+	 */
+	private HarnessLogger(String source) {
+		this.source = source;
+	}
+
+	/**
+	 * Returns a logger for the given class.
+	 *
+	 * @param source the class that will log through the logger
+	 * @return the logger
+	 */
+	public static HarnessLogger getLogger(Class<?> source) {
+		return new HarnessLogger(source.getSimpleName());
+	}
+
+	/**
+	 * Logs progress or a result.
+	 *
+	 * @param format the message, as a format string if there are arguments
+	 * @param args the arguments of the format string
+	 */
+	public void info(String format, Object... args) {
+		log(LogLevel.INFO, format, args);
+	}
+
+	/**
+	 * Logs something that went wrong, after which the harness carried on.
+	 *
+	 * @param format the message, as a format string if there are arguments
+	 * @param args the arguments of the format string
+	 */
+	public void warn(String format, Object... args) {
+		log(LogLevel.WARNING, format, args);
+	}
+
+	/**
+	 * Logs something that went wrong, which the user has to fix.
+	 *
+	 * @param format the message, as a format string if there are arguments
+	 * @param args the arguments of the format string
+	 */
+	public void error(String format, Object... args) {
+		log(LogLevel.ERROR, format, args);
+	}
+
+	/**
+	 * Hands an event to the appender.
+	 */
+	private void log(LogLevel level, String format, Object[] args) {
+		LogAppender.getCurrent().append(new LogEvent(level, this.source, format, args));
+	}
+}
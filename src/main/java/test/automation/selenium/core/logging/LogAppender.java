@@ -0,0 +1,226 @@
+package test.automation.selenium.core.logging;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>Writes every event logged through a {@link HarnessLogger} on a single background thread: to the
+ * console, as the harness has always printed its messages, and to a file, as one JSON object per line
+ * (with the {@link LogContext} of the thread that logged it).</p>
+ *
+ * <p>Events wait in a lock-free ring buffer, so logging never blocks: if the writer cannot keep up
+ * and the buffer fills, events are dropped (and the number dropped is logged once there is room again).
+ * Call {@link #flush(long, TimeUnit)} (e.g. at the end of a suite) to wait for every event logged so far
+ * to be written; this is also done when the JVM exits.</p>
+ *
+ * <p>The log can be tuned with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.log.file</code> - the file to write the JSON lines to, replaced on each run, or empty to
+ *         write none (default target/harness-log.jsonl)</li>
+ *     <li><code>webdriver.log.console.enabled</code> - whether or not to write events to the console as well (default true)</li>
+ *     <li><code>webdriver.log.buffer.capacity</code> - the number of events that may wait to be written (default 8192)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class LogAppender {
+	/** The default number of events that may wait to be written */
+	private static final int DEFAULT_BUFFER_CAPACITY = 8192;
+
+	/** The most events written to the console and the file at once */
+	private static final int MAX_BATCH = 1024;
+
+	/** How long the writer sleeps when there is nothing to write */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+	/** How long to wait for the log to be written when the JVM exits */
+	private static final long SHUTDOWN_FLUSH_SECONDS = 5;
+
+	/** The current singleton instance */
+	private static final LogAppender instance = new LogAppender();
+
+	/** Events waiting to be written, in the order they were logged */
+	private final LogRingBuffer<LogEvent> buffer;
+
+	/** The file to write the JSON lines to, or null to write none */
+	private final File file;
+
+	/** Whether or not to write events to the console as well */
+	private final boolean consoleEnabled;
+
+	/** Formats the time of each event (only used by the writer thread) */
+	private final DateFormat timeFormat;
+
+	/** Writes the JSON lines, or null until the first event is written (only used by the writer thread) */
+	private Writer fileWriter;
+
+	/** Whether or not the file could not be written (only used by the writer thread) */
+	private boolean fileFailed;
+
+	/** The number of dropped events that have been reported (only used by the writer thread) */
+	private long droppedReported;
+
+	/** The number of events taken from the buffer and written */
+	private volatile long written;
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static LogAppender getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the appender.
+	 */
+	private LogAppender() {
+		this.buffer = new LogRingBuffer<LogEvent>(Math.max(1, HarnessSettings.getInt("webdriver.log.buffer.capacity", DEFAULT_BUFFER_CAPACITY)));
+		String fileName = HarnessSettings.getString("webdriver.log.file", "target/harness-log.jsonl");
+		this.file = fileName.isEmpty() ? null : new File(fileName);
+		this.consoleEnabled = HarnessSettings.getBoolean("webdriver.log.console.enabled", true);
+		this.timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+		this.timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "harness-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush(SHUTDOWN_FLUSH_SECONDS, TimeUnit.SECONDS);
+			}
+		}, "harness-log-flush"));
+	}
+
+	/**
+	 * Returns the file that the JSON lines are written to.
+	 *
+	 * @return the file, or null if none is written
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Waits for every event logged before this call to be written.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if every event was written in time, false if the timeout elapsed first
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		long target = this.buffer.getClaimedCount();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (this.written < target) {
+			if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+				return false;
+			}
+			LockSupport.parkNanos(IDLE_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * Adds an event to the buffer, to be written. Never waits.
+	 *
+	 * @param event the event
+	 */
+	void append(LogEvent event) {
+		this.buffer.offer(event);
+	}
+
+	/**
+	 * Writes logged events until the JVM exits.
+	 */
+	private void drain() {
+		StringBuilder console = new StringBuilder();
+		StringBuilder json = new StringBuilder();
+		while (true) {
+			console.setLength(0);
+			json.setLength(0);
+
+			int count = 0;
+			for (LogEvent event = this.buffer.poll(); event != null; event = (count < MAX_BATCH) ? this.buffer.poll() : null) {
+				render(event, console, json);
+				count++;
+			}
+
+			long dropped = this.buffer.getDroppedCount();
+			if (dropped > this.droppedReported) {
+				render(new LogEvent(LogLevel.WARNING, LogAppender.class.getSimpleName(), "%d log event(s) dropped: the log buffer was full",
+						new Object[] { dropped - this.droppedReported }), console, json);
+				this.droppedReported = dropped;
+				count++;
+			}
+
+			if (count == 0) {
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			if (this.consoleEnabled) {
+				System.out.print(console);
+				System.out.flush();
+			}
+			writeJson(json);
+			this.written = this.buffer.getTakenCount();
+		}
+	}
+
+	/**
+	 * Renders an event for the console and as JSON.
+	 */
+	private void render(LogEvent event, StringBuilder console, StringBuilder json) {
+		if (this.consoleEnabled) {
+			console.append(event.toConsoleLine()).append(System.lineSeparator());
+		}
+		if (this.file != null && !this.fileFailed) {
+			event.appendJson(json, this.timeFormat);
+		}
+	}
+
+	/**
+	 * Appends JSON lines to the file, creating (or replacing) it on the first call. Stops writing to the
+	 * file if it cannot be written.
+	 */
+	private void writeJson(CharSequence lines) {
+		if (this.file == null || this.fileFailed || lines.length() == 0) {
+			return;
+		}
+		try {
+			if (this.fileWriter == null) {
+				File parent = this.file.getAbsoluteFile().getParentFile();
+				if (parent != null) {
+					parent.mkdirs();
+				}
+				this.fileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file), StandardCharsets.UTF_8));
+			}
+			this.fileWriter.append(lines);
+			this.fileWriter.flush();
+		} catch (IOException e) {
+			// Nowhere else to log this
+			System.err.println(String.format("ERROR: Failed to write the harness log to %s, only the console will be written: %s", this.file, e.getMessage()));
+			this.fileFailed = true;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package test.automation.selenium.core.logging;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>What the current thread is working on (e.g. its browser, test class, and test method), added to every
+ * {@link LogEvent} that it logs, in the manner of a mapped diagnostic context.</p>
+ *
+ * <p>Each thread's context is an immutable map that is replaced whenever it changes, so logging only
+ * takes a reference to it rather than copying it.</p>
+ *
+ */
+public final class LogContext {
+	/** The key for the browser that the thread is driving */
+	public static final String BROWSER = "browser";
+
+	/** The key for the test class that the thread is running */
+	public static final String TEST_CLASS = "testClass";
+
+	/** The key for the test method that the thread is running */
+	public static final String TEST_METHOD = "testMethod";
+
+	/** The context of each thread */
+	private static final ThreadLocal<Map<String, String>> context = new ThreadLocal<Map<String, String>>() {
+		/* (non-Javadoc)
+		 * @see java.lang.ThreadLocal#initialValue()
+		 */
+		@Override
+		protected Map<String, String> initialValue() {
+			return Collections.emptyMap();
+		}
+	};
+
+	/** Static helpers only */
+	private LogContext() {
+	}
+
+	/**
+	 * Adds (or replaces) a value in the current thread's context.
+	 *
+	 * @param key the name of the value
+	 * @param value the value, or null to remove it
+	 */
+	public static void put(String key, String value) {
+		if (value == null) {
+			remove(key);
+			return;
+		}
+		Map<String, String> updated = new LinkedHashMap<String, String>(context.get());
+		updated.put(key, value);
+		context.set(Collections.unmodifiableMap(updated));
+	}
+
+	/**
+	 * Removes a value from the current thread's context.
+	 *
+	 * @param key the name of the value
+	 */
+	public static void remove(String key) {
+		Map<String, String> current = context.get();
+		if (current.containsKey(key)) {
+			Map<String, String> updated = new LinkedHashMap<String, String>(current);
+			updated.remove(key);
+			context.set(Collections.unmodifiableMap(updated));
+		}
+	}
+
+	/**
+	 * Removes every value from the current thread's context.
+	 */
+	public static void clear() {
+		context.remove();
+	}
+
+	/**
+	 * Returns the current thread's context.
+	 *
+	 * @return an immutable snapshot of the context
+	 */
+	public static Map<String, String> current() {
+		return context.get();
+	}
+}
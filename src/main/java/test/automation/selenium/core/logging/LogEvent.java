@@ -0,0 +1,152 @@
+package test.automation.selenium.core.logging;
+
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.IllegalFormatException;
+import java.util.Map;
+
+/**
+ * A single message logged through a {@link HarnessLogger}. The message is only formatted, and the event
+ * only rendered, by the {@link LogAppender}'s thread, so that logging threads do as little as possible.
+ */
+final class LogEvent {
+	/** The time at which the event was logged, in milliseconds since the epoch */
+	private final long timeMillis;
+
+	/** How serious the event is */
+	private final LogLevel level;
+
+	/** The name of the thread that logged the event */
+	private final String thread;
+
+	/** The name of the class that logged the event */
+	private final String source;
+
+	/** The message, as a {@link String#format(String, Object...)} format string unless there are no arguments */
+	private final String format;
+
+	/** The arguments of the format string */
+	private final Object[] args;
+
+	/** The context of the thread that logged the event (see {@link LogContext}) */
+	private final Map<String, String> context;
+
+	/**
+	 * Creates an event, logged by the current thread.
+	 *
+	 * @param level how serious the event is
+	 * @param source the name of the class logging the event
+	 * @param format the message, as a format string unless there are no arguments
+	 * @param args the arguments of the format string
+	 */
+	LogEvent(LogLevel level, String source, String format, Object[] args) {
+		this.timeMillis = System.currentTimeMillis();
+		this.level = level;
+		this.thread = Thread.currentThread().getName();
+		this.source = source;
+		this.format = format;
+		this.args = args;
+		this.context = LogContext.current();
+	}
+
+	/**
+	 * Returns the formatted message.
+	 *
+	 * @return the message
+	 */
+	String getMessage() {
+		if (this.args == null || this.args.length == 0) {
+			return this.format;
+		}
+		try {
+			return String.format(this.format, this.args);
+		} catch (IllegalFormatException e) {
+			return this.format + " " + Arrays.toString(this.args);
+		} catch (RuntimeException e) {
+			// An argument failed to describe itself: the writer thread must carry on regardless
+			return this.format + " (failed to format: " + e.getClass().getName() + ")";
+		}
+	}
+
+	/**
+	 * Renders this event for the console, as the harness has always printed its messages.
+	 *
+	 * @return the line to print (without a line separator)
+	 */
+	String toConsoleLine() {
+		return (this.level == LogLevel.INFO) ? getMessage() : this.level + ": " + getMessage();
+	}
+
+	/**
+	 * Renders this event as a single line of JSON, followed by a line separator.
+	 *
+	 * @param out the buffer to append the line to
+	 * @param timeFormat formats the time of the event (only ever used by one thread)
+	 */
+	void appendJson(StringBuilder out, DateFormat timeFormat) {
+		out.append('{');
+		appendField(out, "time", timeFormat.format(new Date(this.timeMillis)));
+		out.append(',');
+		appendField(out, "level", this.level.toString());
+		out.append(',');
+		appendField(out, "thread", this.thread);
+		out.append(',');
+		appendField(out, "logger", this.source);
+		for (Map.Entry<String, String> entry : this.context.entrySet()) {
+			out.append(',');
+			appendField(out, entry.getKey(), entry.getValue());
+		}
+		out.append(',');
+		appendField(out, "message", getMessage());
+		out.append('}').append(System.lineSeparator());
+	}
+
+	/**
+	 * Appends a JSON string field.
+	 */
+	private static void appendField(StringBuilder out, String name, String value) {
+		appendString(out, name);
+		out.append(':');
+		appendString(out, value);
+	}
+
+	/**
+	 * Appends a JSON string, escaping it as needed.
+	 */
+	private static void appendString(StringBuilder out, String value) {
+		if (value == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+					break;
+			}
+		}
+		out.append('"');
+	}
+}
@@ -0,0 +1,15 @@
+package test.automation.selenium.core.logging;
+
+/**
+ * How serious a {@link LogEvent} is.
+ */
+public enum LogLevel {
+	/** Progress and results */
+	INFO,
+
+	/** Something went wrong, but the harness carried on */
+	WARNING,
+
+	/** Something the user has to fix went wrong */
+	ERROR
+}
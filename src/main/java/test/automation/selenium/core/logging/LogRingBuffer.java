@@ -0,0 +1,110 @@
+package test.automation.selenium.core.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A bounded, lock-free queue between any number of threads that log and the single thread that
+ * writes the log (see {@link LogAppender}).</p>
+ *
+ * <p>Logging threads claim a slot with a compare-and-set on the tail, then publish their event into it;
+ * the writing thread takes events from the head, in the order that their slots were claimed. Nothing ever
+ * waits: when the buffer is full, the event is dropped (and counted) instead.</p>
+ *
+ * @param <E> the type of the events
+ */
+final class LogRingBuffer<E> {
+	/** The slots, each holding an event that has been published but not yet taken, or null */
+	private final AtomicReferenceArray<E> slots;
+
+	/** Maps a position to its slot (the number of slots is a power of two) */
+	private final int mask;
+
+	/** The position of the next slot to claim */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The position of the next event to take (only ever written by the writing thread) */
+	private volatile long head;
+
+	/** The number of events dropped because the buffer was full */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Creates a buffer.
+	 *
+	 * @param capacity the number of events that may wait to be taken (rounded up to a power of two)
+	 */
+	LogRingBuffer(int capacity) {
+		int size = 2;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.slots = new AtomicReferenceArray<E>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds an event to the buffer, unless it is full. Never waits.
+	 *
+	 * @param event the event
+	 * @return false if the buffer was full, and the event was dropped
+	 */
+	boolean offer(E event) {
+		while (true) {
+			long position = this.tail.get();
+			if (position - this.head >= this.slots.length()) {
+				this.dropped.incrementAndGet();
+				return false;
+			}
+			if (this.tail.compareAndSet(position, position + 1)) {
+				this.slots.lazySet((int) position & this.mask, event);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Takes the next event from the buffer. Must only be called by the writing thread.
+	 *
+	 * @return the event, or null if there is none (or its thread has claimed its slot but not yet published it)
+	 */
+	E poll() {
+		long position = this.head;
+		int slot = (int) position & this.mask;
+		E event = this.slots.get(slot);
+		if (event == null) {
+			return null;
+		}
+		this.slots.lazySet(slot, null);
+		// Hands the slot back to the logging threads
+		this.head = position + 1;
+		return event;
+	}
+
+	/**
+	 * Returns the number of events added to the buffer so far (including any not yet published).
+	 *
+	 * @return the number of slots claimed
+	 */
+	long getClaimedCount() {
+		return this.tail.get();
+	}
+
+	/**
+	 * Returns the number of events taken from the buffer so far.
+	 *
+	 * @return the number of events taken
+	 */
+	long getTakenCount() {
+		return this.head;
+	}
+
+	/**
+	 * Returns the number of events dropped so far because the buffer was full.
+	 *
+	 * @return the number of events dropped
+	 */
+	long getDroppedCount() {
+		return this.dropped.get();
+	}
+}
@@ -0,0 +1,434 @@
+package test.automation.selenium.core.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>Collects the latency of every WebDriver command issued through an {@link InstrumentedDriver},
+ * in a {@link LatencyHistogram} per browser, test, and command. It also records the wall-clock time
+ * of each test alongside the time that test spent waiting on its driver, so that slow tests can be
+ * blamed on either the browser or the harness.</p>
+ *
+ * <p>Each thread reports which test it is running with {@link #startTest(String, String)} and
+ * {@link #finishTest()}; commands issued outside of a test are recorded against the test class
+ * (see {@link #setContext(String)}), or against {@link #NO_TEST}.</p>
+ *
+ * <p>Metrics are controlled by the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.metrics.enabled</code> - set to false to stop wrapping drivers (default true)</li>
+ *     <li><code>webdriver.metrics.dir</code> - where {@link #export()} writes its reports (default ./test-output)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class CommandMetrics {
+	/** The test name recorded for commands issued outside of any test */
+	public static final String NO_TEST = "(none)";
+
+	/** The test name used to summarize a command across every test */
+	public static final String ALL_TESTS = "*";
+
+	/** The name of the JSON report */
+	public static final String JSON_FILE_NAME = "command-latency.json";
+
+	/** The name of the CSV report of commands */
+	public static final String COMMANDS_CSV_FILE_NAME = "command-latency.csv";
+
+	/** The name of the CSV report of tests */
+	public static final String TESTS_CSV_FILE_NAME = "test-latency.csv";
+
+	/** The character set of the reports */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The current singleton instance */
+	private static final CommandMetrics instance = new CommandMetrics();
+
+	/** Whether or not drivers should be instrumented at all */
+	private final boolean enabled;
+
+	/** The directory to which reports are written */
+	private final File directory;
+
+	/** The latencies of each command, by browser / test / command */
+	private final ConcurrentMap<Key, LatencyHistogram> commands = new ConcurrentHashMap<Key, LatencyHistogram>();
+
+	/** The wall-clock and driver time of each test, by browser / test */
+	private final ConcurrentMap<Key, TestTime> tests = new ConcurrentHashMap<Key, TestTime>();
+
+	/** The test that each thread is currently running */
+	private final ThreadLocal<RunningTest> running = new ThreadLocal<RunningTest>();
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static CommandMetrics getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the metrics.
+	 */
+	private CommandMetrics() {
+		this.enabled = HarnessSettings.getBoolean("webdriver.metrics.enabled", true);
+		this.directory = new File(HarnessSettings.getString("webdriver.metrics.dir", "./test-output"));
+	}
+
+	/**
+	 * Returns true if drivers should be wrapped in an {@link InstrumentedDriver}.
+	 *
+	 * @return true iff metrics are enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns the directory to which reports are written.
+	 *
+	 * @return the report directory
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Records commands issued by the calling thread against the given name (e.g. a test class
+	 * during its setup), without timing it as a test.
+	 *
+	 * @param test the name to record commands against
+	 */
+	public void setContext(String test) {
+		running.set(new RunningTest(null, test, false));
+	}
+
+	/**
+	 * Records commands issued by the calling thread against the given test, and starts its clock.
+	 *
+	 * @param browser the browser running the test
+	 * @param test the name of the test
+	 */
+	public void startTest(String browser, String test) {
+		running.set(new RunningTest(browser, test, true));
+	}
+
+	/**
+	 * Stops the clock of the test running on the calling thread (if any), recording its time
+	 * and the share of it spent in WebDriver commands. Later commands are recorded against
+	 * the test class.
+	 */
+	public void finishTest() {
+		RunningTest test = running.get();
+		if (test == null || !test.timed) {
+			return;
+		}
+
+		Key key = new Key(test.browser, test.name, null);
+		TestTime time = tests.get(key);
+		if (time == null) {
+			TestTime created = new TestTime();
+			time = tests.putIfAbsent(key, created);
+			if (time == null) {
+				time = created;
+			}
+		}
+		time.record(System.nanoTime() - test.startNanos, test.commandNanos);
+
+		int dot = test.name.lastIndexOf('.');
+		setContext(dot > 0 ? test.name.substring(0, dot) : NO_TEST);
+	}
+
+	/**
+	 * Records the latency of a single command issued by the calling thread.
+	 *
+	 * @param browser the browser that ran the command
+	 * @param command the name of the command (e.g. "findElement" or "switchTo.window")
+	 * @param nanos how long the command took, in nanoseconds
+	 */
+	public void record(String browser, String command, long nanos) {
+		RunningTest test = running.get();
+		String testName = NO_TEST;
+		if (test != null) {
+			testName = test.name;
+			test.commandNanos += nanos;
+		}
+
+		Key key = new Key(browser, testName, command);
+		LatencyHistogram histogram = commands.get(key);
+		if (histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = commands.putIfAbsent(key, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		histogram.record(nanos);
+	}
+
+	/**
+	 * Writes everything recorded so far to {@link #JSON_FILE_NAME}, {@link #COMMANDS_CSV_FILE_NAME},
+	 * and {@link #TESTS_CSV_FILE_NAME} in the report directory. Each command is reported per test,
+	 * and summarized across every test under the test name {@link #ALL_TESTS}.
+	 *
+	 * @throws IOException if the reports could not be written
+	 */
+	public void export() throws IOException {
+		Map<Key, LatencyHistogram> rows = new ConcurrentHashMap<Key, LatencyHistogram>(commands);
+		for (Map.Entry<Key, LatencyHistogram> entry : commands.entrySet()) {
+			Key summary = new Key(entry.getKey().browser, ALL_TESTS, entry.getKey().command);
+			LatencyHistogram total = rows.get(summary);
+			if (total == null) {
+				total = new LatencyHistogram();
+				rows.put(summary, total);
+			}
+			total.add(entry.getValue());
+		}
+		List<Key> commandKeys = sorted(rows.keySet());
+		List<Key> testKeys = sorted(tests.keySet());
+
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Cannot create metrics directory: " + this.directory);
+		}
+
+		try (Writer csv = open(COMMANDS_CSV_FILE_NAME)) {
+			csv.write("browser,test,command,count,total_ms,mean_us,p50_us,p90_us,p99_us,max_us\n");
+			for (Key key : commandKeys) {
+				LatencyHistogram h = rows.get(key);
+				csv.write(csvField(key.browser) + "," + csvField(key.test) + "," + csvField(key.command) + ","
+						+ h.getCount() + "," + (h.getTotalMicros() / 1000) + "," + h.getMeanMicros() + ","
+						+ h.getPercentileMicros(50) + "," + h.getPercentileMicros(90) + ","
+						+ h.getPercentileMicros(99) + "," + h.getMaxMicros() + "\n");
+			}
+		}
+
+		try (Writer csv = open(TESTS_CSV_FILE_NAME)) {
+			csv.write("browser,test,runs,wall_ms,driver_ms,harness_ms\n");
+			for (Key key : testKeys) {
+				TestTime t = tests.get(key);
+				csv.write(csvField(key.browser) + "," + csvField(key.test) + "," + t.runs + ","
+						+ t.getWallMillis() + "," + t.getDriverMillis() + "," + (t.getWallMillis() - t.getDriverMillis()) + "\n");
+			}
+		}
+
+		try (Writer json = open(JSON_FILE_NAME)) {
+			json.write("{\n  \"commands\": [");
+			String separator = "\n";
+			for (Key key : commandKeys) {
+				LatencyHistogram h = rows.get(key);
+				json.write(separator + "    {\"browser\": " + jsonString(key.browser) + ", \"test\": " + jsonString(key.test)
+						+ ", \"command\": " + jsonString(key.command) + ", \"count\": " + h.getCount()
+						+ ", \"totalMicros\": " + h.getTotalMicros() + ", \"meanMicros\": " + h.getMeanMicros()
+						+ ", \"p50Micros\": " + h.getPercentileMicros(50) + ", \"p90Micros\": " + h.getPercentileMicros(90)
+						+ ", \"p99Micros\": " + h.getPercentileMicros(99) + ", \"maxMicros\": " + h.getMaxMicros() + "}");
+				separator = ",\n";
+			}
+			json.write("\n  ],\n  \"tests\": [");
+			separator = "\n";
+			for (Key key : testKeys) {
+				TestTime t = tests.get(key);
+				json.write(separator + "    {\"browser\": " + jsonString(key.browser) + ", \"test\": " + jsonString(key.test)
+						+ ", \"runs\": " + t.runs + ", \"wallMillis\": " + t.getWallMillis()
+						+ ", \"driverMillis\": " + t.getDriverMillis()
+						+ ", \"harnessMillis\": " + (t.getWallMillis() - t.getDriverMillis()) + "}");
+				separator = ",\n";
+			}
+			json.write("\n  ]\n}\n");
+		}
+	}
+
+	/**
+	 * Opens a report file for writing, replacing any previous report.
+	 */
+	private Writer open(String fileName) throws IOException {
+		return new OutputStreamWriter(new FileOutputStream(new File(this.directory, fileName)), UTF_8);
+	}
+
+	/**
+	 * Returns the given keys sorted by browser, test, and command.
+	 */
+	private static List<Key> sorted(Iterable<Key> keys) {
+		List<Key> list = new ArrayList<Key>();
+		for (Key key : keys) {
+			list.add(key);
+		}
+		Collections.sort(list);
+		return list;
+	}
+
+	/**
+	 * Quotes a value for the CSV reports, if necessary.
+	 */
+	private static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Quotes a value for the JSON report.
+	 */
+	private static String jsonString(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * The test currently running on a thread.
+	 */
+	private static final class RunningTest {
+		/** The browser running the test, or null outside of a test */
+		private final String browser;
+
+		/** The name that commands are recorded against */
+		private final String name;
+
+		/** Whether or not this is a test whose time should be recorded */
+		private final boolean timed;
+
+		/** When the test started */
+		private final long startNanos = System.nanoTime();
+
+		/** Time spent in commands so far (only ever touched by the owning thread) */
+		private long commandNanos;
+
+		/**
+		 * Creates a new record of a running test.
+		 *
+		 * @param browser the browser running the test
+		 * @param name the name that commands are recorded against
+		 * @param timed whether or not this is a test whose time should be recorded
+		 */
+		private RunningTest(String browser, String name, boolean timed) {
+			this.browser = browser;
+			this.name = name;
+			this.timed = timed;
+		}
+	}
+
+	/**
+	 * The accumulated time of every run of one test on one browser.
+	 */
+	private static final class TestTime {
+		/** The number of times the test ran */
+		private long runs;
+
+		/** The total wall-clock time of the test */
+		private long wallNanos;
+
+		/** The total time the test spent waiting on its driver */
+		private long driverNanos;
+
+		/**
+		 * Adds one run of the test.
+		 */
+		private synchronized void record(long wall, long driver) {
+			this.runs++;
+			this.wallNanos += wall;
+			this.driverNanos += driver;
+		}
+
+		/**
+		 * Returns the total wall-clock time of the test, in milliseconds.
+		 */
+		private synchronized long getWallMillis() {
+			return this.wallNanos / 1000000;
+		}
+
+		/**
+		 * Returns the total time the test spent waiting on its driver, in milliseconds.
+		 */
+		private synchronized long getDriverMillis() {
+			return this.driverNanos / 1000000;
+		}
+	}
+
+	/**
+	 * Identifies a histogram (or a test, with a null command).
+	 */
+	private static final class Key implements Comparable<Key> {
+		/** The browser */
+		private final String browser;
+
+		/** The test */
+		private final String test;
+
+		/** The command, or null */
+		private final String command;
+
+		/** The precomputed hash code */
+		private final int hash;
+
+		/**
+		 * Creates a new key.
+		 *
+		 * @param browser the browser
+		 * @param test the test
+		 * @param command the command, or null
+		 */
+		private Key(String browser, String test, String command) {
+			this.browser = String.valueOf(browser);
+			this.test = String.valueOf(test);
+			this.command = command;
+			this.hash = (this.browser.hashCode() * 31 + this.test.hashCode()) * 31 + (command == null ? 0 : command.hashCode());
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.hash == other.hash && this.browser.equals(other.browser) && this.test.equals(other.test)
+					&& (this.command == null ? other.command == null : this.command.equals(other.command));
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Key other) {
+			int result = this.browser.compareTo(other.browser);
+			if (result == 0) {
+				result = this.test.compareTo(other.test);
+			}
+			if (result == 0) {
+				result = String.valueOf(this.command).compareTo(String.valueOf(other.command));
+			}
+			return result;
+		}
+	}
+}
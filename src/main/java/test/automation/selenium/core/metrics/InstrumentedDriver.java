@@ -0,0 +1,352 @@
+package test.automation.selenium.core.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsDriver;
+import org.openqa.selenium.internal.WrapsElement;
+
+import test.automation.selenium.core.bindings.ElementCache;
+import test.automation.selenium.core.bindings.FrameContext;
+
+/**
+ * <p>Wraps a WebDriver so that every command it sends to the browser is timed and recorded in
+ * {@link CommandMetrics}. The wrapper implements every interface of the driver it wraps
+ * (<code>JavascriptExecutor</code>, <code>TakesScreenshot</code>, ...), and wraps the elements,
+ * windows, frames, and options that it hands out in turn, so that e.g. <code>click</code>,
+ * <code>switchTo.window</code>, or <code>manage.deleteAllCookies</code> are timed as well.</p>
+ *
+ * <p>Commands that leave the current document (loading a page, going back, forward, or refreshing,
+ * submitting a form, switching windows or frames, closing a window) are also reported to the {@link ElementCache},
+ * so that elements found in that document are no longer shared, and to the {@link FrameContext},
+ * so that it knows whether the driver is back at the top-level document or in some unknown frame.
+ * Drivers are wrapped when either the metrics or the element cache are enabled; commands are only
+ * recorded in the former case.</p>
+ *
+ * <p>Use {@link #unwrap(WebDriver)} to get at the real driver, e.g. to test for its class.</p>
+ *
+ */
+public final class InstrumentedDriver {
+	/** Methods that only hand out another part of the API, without talking to the browser */
+	private static final Set<String> ACCESSORS = new HashSet<String>(Arrays.asList(
+			"switchTo", "navigate", "manage", "timeouts", "window", "ime", "logs", "getWrappedDriver", "getWrappedElement"));
+
+	/** Commands after which the driver may no longer show the same document */
+	private static final Set<String> NAVIGATIONS = new HashSet<String>(Arrays.asList(
+			"get", "close", "quit", "submit", "navigate.to", "navigate.back", "navigate.forward", "navigate.refresh",
+			"switchTo.window", "switchTo.frame", "switchTo.parentFrame", "switchTo.defaultContent"));
+
+	/** Navigation commands after which the driver is at the top-level document */
+	private static final Set<String> TO_TOP = new HashSet<String>(Arrays.asList(
+			"get", "navigate.to", "navigate.back", "navigate.forward", "navigate.refresh", "switchTo.defaultContent"));
+
+	/** Methods that are answered by the wrapper itself */
+	private static final Set<String> OBJECT_METHODS = new HashSet<String>(Arrays.asList("equals", "hashCode", "toString"));
+
+	/**
+	 * Static helpers only.
+	 */
+	private InstrumentedDriver() {
+	}
+
+	/**
+	 * Wraps the given driver, recording its commands under the given browser name.
+	 *
+	 * @param driver the driver to wrap
+	 * @param browser the name of the browser (e.g. a BrowserType)
+	 * @return the instrumented driver
+	 */
+	public static WebDriver wrap(WebDriver driver, String browser) {
+		if (driver == null || targetOf(driver) != null) {
+			return driver;
+		}
+		TimingHandler handler = new TimingHandler(null, driver, browser, "");
+		WebDriver proxy = (WebDriver) newProxy(driver, handler, WrapsDriver.class);
+		handler.root = proxy;
+		return proxy;
+	}
+
+	/**
+	 * Returns whether or not the given driver was wrapped by {@link #wrap(WebDriver, String)}.
+	 *
+	 * @param driver a driver, possibly wrapped
+	 * @return true if it is one of our wrappers
+	 */
+	public static boolean isInstrumented(WebDriver driver) {
+		return targetOf(driver) != null;
+	}
+
+	/**
+	 * Returns the real driver behind any number of wrappers (instrumented or otherwise).
+	 *
+	 * @param driver a driver, possibly wrapped
+	 * @return the innermost driver
+	 */
+	public static WebDriver unwrap(WebDriver driver) {
+		while (driver instanceof WrapsDriver) {
+			WebDriver wrapped = ((WrapsDriver) driver).getWrappedDriver();
+			if (wrapped == null || wrapped == driver) {
+				break;
+			}
+			driver = wrapped;
+		}
+		return driver;
+	}
+
+	/**
+	 * Creates a proxy implementing every interface of the target, plus the given extra interface.
+	 */
+	private static Object newProxy(Object target, InvocationHandler handler, Class<?> extra) {
+		Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+		for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+			collectInterfaces(type, interfaces);
+		}
+		if (extra != null) {
+			interfaces.add(extra);
+		}
+
+		// Only interfaces visible from the target's class loader can be proxied
+		List<Class<?>> visible = new ArrayList<Class<?>>();
+		ClassLoader loader = target.getClass().getClassLoader();
+		for (Class<?> type : interfaces) {
+			if (Modifier.isPublic(type.getModifiers()) && isVisible(type, loader)) {
+				visible.add(type);
+			}
+		}
+		return Proxy.newProxyInstance(loader, visible.toArray(new Class<?>[visible.size()]), handler);
+	}
+
+	/**
+	 * Adds the given type's interfaces (and theirs, recursively) to the set.
+	 */
+	private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+		for (Class<?> implemented : type.getInterfaces()) {
+			if (interfaces.add(implemented)) {
+				collectInterfaces(implemented, interfaces);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given type can be loaded through the given class loader.
+	 */
+	private static boolean isVisible(Class<?> type, ClassLoader loader) {
+		try {
+			return Class.forName(type.getName(), false, loader) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the real object behind one of our wrappers, or null if the given object is not one of them.
+	 */
+	private static Object targetOf(Object wrapper) {
+		if (wrapper == null || !Proxy.isProxyClass(wrapper.getClass())) {
+			return null;
+		}
+		InvocationHandler handler = Proxy.getInvocationHandler(wrapper);
+		if (handler instanceof ElementHandler) {
+			return ((ElementHandler) handler).timing.target;
+		} else if (handler instanceof TimingHandler) {
+			return ((TimingHandler) handler).target;
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces wrapped elements among the arguments of a command with the real elements,
+	 * since drivers only recognize their own.
+	 */
+	private static Object unwrapArgument(Object arg) {
+		Object target = targetOf(arg);
+		if (target != null) {
+			return target;
+		} else if (arg instanceof WrapsElement) {
+			// e.g. a PageFactory proxy, wrapping one of ours
+			WebElement wrapped = ((WrapsElement) arg).getWrappedElement();
+			return (wrapped == arg) ? arg : unwrapArgument(wrapped);
+		} else if (arg instanceof List) {
+			List<Object> unwrapped = new ArrayList<Object>();
+			for (Object item : (List<?>) arg) {
+				unwrapped.add(unwrapArgument(item));
+			}
+			return unwrapped;
+		} else if (arg instanceof Object[]) {
+			Object[] items = (Object[]) arg;
+			Object[] unwrapped = Arrays.copyOf(items, items.length);
+			for (int i = 0; i < items.length; i++) {
+				unwrapped[i] = unwrapArgument(items[i]);
+			}
+			return unwrapped;
+		}
+		return arg;
+	}
+
+	/**
+	 * Times every call made on a driver, element, or other part of the API,
+	 * wrapping the parts of the API that each call hands out.
+	 */
+	private static final class TimingHandler implements InvocationHandler {
+		/** The wrapped driver (i.e. the proxy) that this object belongs to, or null if it is that driver */
+		private WebDriver root;
+
+		/** The real object being wrapped */
+		private final Object target;
+
+		/** The name of the browser */
+		private final String browser;
+
+		/** The prefix of the command names recorded for this object (e.g. "switchTo.") */
+		private final String prefix;
+
+		/**
+		 * Creates a new handler.
+		 *
+		 * @param root the wrapped driver that this object belongs to
+		 * @param target the real object being wrapped
+		 * @param browser the name of the browser
+		 * @param prefix the prefix of the command names recorded for this object
+		 */
+		private TimingHandler(WebDriver root, Object target, String browser, String prefix) {
+			this.root = root;
+			this.target = target;
+			this.browser = browser;
+			this.prefix = prefix;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (OBJECT_METHODS.contains(name) && method.getDeclaringClass() == Object.class) {
+				if ("equals".equals(name)) {
+					return proxy == args[0] || this.target.equals(unwrapArgument(args[0]));
+				}
+				return "hashCode".equals(name) ? this.target.hashCode() : this.target.toString();
+			} else if ("getWrappedDriver".equals(name) && method.getDeclaringClass() == WrapsDriver.class && this.prefix.isEmpty()) {
+				return this.target;
+			}
+
+			Object[] realArgs = args;
+			if (args != null) {
+				realArgs = new Object[args.length];
+				for (int i = 0; i < args.length; i++) {
+					realArgs[i] = unwrapArgument(args[i]);
+				}
+			}
+
+			Object result;
+			long start = System.nanoTime();
+			try {
+				result = method.invoke(this.target, realArgs);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				if (!ACCESSORS.contains(name) && CommandMetrics.getCurrent().isEnabled()) {
+					CommandMetrics.getCurrent().record(this.browser, this.prefix + name, System.nanoTime() - start);
+				}
+				if (NAVIGATIONS.contains(this.prefix + name)) {
+					// Even a failed navigation may have left the document
+					WebDriver driver = (this.root == null) ? (WebDriver) proxy : this.root;
+					ElementCache.getCurrent().invalidate(driver);
+					if (TO_TOP.contains(this.prefix + name)) {
+						FrameContext.getCurrent().atTop(driver);
+					} else {
+						FrameContext.getCurrent().lost(driver);
+					}
+				}
+			}
+			return wrapResult(proxy, method, result);
+		}
+
+		/**
+		 * Wraps whatever part of the API a call returned, so that calls made on it are timed too.
+		 */
+		private Object wrapResult(Object proxy, Method method, Object result) {
+			WebDriver driver = (this.root == null) ? (WebDriver) proxy : this.root;
+			if (result == null) {
+				return null;
+			} else if (result == this.target) {
+				return proxy;
+			} else if (result instanceof WebDriver) {
+				// e.g. switchTo().window() returns the driver itself
+				return (result == InstrumentedDriver.unwrap(driver)) ? driver : result;
+			} else if (result instanceof WebElement) {
+				return wrapElement(driver, (WebElement) result);
+			} else if (result instanceof List) {
+				List<?> items = (List<?>) result;
+				if (items.isEmpty() || !(items.get(0) instanceof WebElement)) {
+					return result;
+				}
+				List<Object> wrapped = new ArrayList<Object>(items.size());
+				for (Object item : items) {
+					wrapped.add(item instanceof WebElement ? wrapElement(driver, (WebElement) item) : item);
+				}
+				return Collections.unmodifiableList(wrapped);
+			} else if (method.getReturnType().getEnclosingClass() == WebDriver.class || method.getReturnType() == Alert.class) {
+				// e.g. switchTo(), navigate(), manage(), timeouts(), window(), or switchTo().alert()
+				String nested = this.prefix + method.getName() + ".";
+				return newProxy(result, new TimingHandler(driver, result, this.browser, nested), null);
+			}
+			return result;
+		}
+
+		/**
+		 * Wraps an element handed out by the driver (or by another element).
+		 */
+		private Object wrapElement(WebDriver driver, WebElement element) {
+			if (targetOf(element) != null) {
+				return element;
+			}
+			return newProxy(element, new ElementHandler(driver, element, this.browser), WrapsElement.class);
+		}
+	}
+
+	/**
+	 * Times every call made on an element, and lets callers get at the real element.
+	 */
+	private static final class ElementHandler implements InvocationHandler {
+		/** Does the timing */
+		private final TimingHandler timing;
+
+		/**
+		 * Creates a new handler.
+		 *
+		 * @param driver the wrapped driver that the element belongs to
+		 * @param element the real element
+		 * @param browser the name of the browser
+		 */
+		private ElementHandler(WebDriver driver, WebElement element, String browser) {
+			this.timing = new TimingHandler(driver, element, browser, "");
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("getWrappedElement".equals(method.getName()) && method.getDeclaringClass() == WrapsElement.class) {
+				return this.timing.target;
+			} else if ("getWrappedDriver".equals(method.getName()) && method.getDeclaringClass() == WrapsDriver.class) {
+				return this.timing.root;
+			}
+			return this.timing.invoke(proxy, method, args);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package test.automation.selenium.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A fixed-size, lock-free histogram of latencies, recorded with microsecond resolution.</p>
+ *
+ * <p>Values are counted in log-linear buckets: every power of two is split into 16 equal
+ * sub-buckets, so any percentile is reported to within about 6% of its true value, whether
+ * the latency is 50 microseconds or 5 minutes. Recording a value is a handful of atomic
+ * increments with no allocation, so it is cheap enough to do for every WebDriver command.</p>
+ *
+ */
+public final class LatencyHistogram {
+	/** log2 of the number of sub-buckets per power of two */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** The number of sub-buckets per power of two */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Latencies of 2^MAX_EXPONENT microseconds (about 71 minutes) or longer all share the last bucket */
+	private static final int MAX_EXPONENT = 32;
+
+	/** The total number of buckets */
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/** The number of values recorded in each bucket */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The number of values recorded */
+	private final AtomicLong count = new AtomicLong();
+
+	/** The sum of all values recorded, in microseconds */
+	private final AtomicLong totalMicros = new AtomicLong();
+
+	/** The largest value recorded, in microseconds */
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * Records a single latency.
+	 *
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		buckets.incrementAndGet(bucketOf(micros));
+		count.incrementAndGet();
+		totalMicros.addAndGet(micros);
+
+		long max = maxMicros.get();
+		while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+			max = maxMicros.get();
+		}
+	}
+
+	/**
+	 * Adds every value recorded by another histogram to this one.
+	 *
+	 * @param other the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long n = other.buckets.get(i);
+			if (n != 0) {
+				buckets.addAndGet(i, n);
+			}
+		}
+		count.addAndGet(other.count.get());
+		totalMicros.addAndGet(other.totalMicros.get());
+
+		long otherMax = other.maxMicros.get();
+		long max = maxMicros.get();
+		while (otherMax > max && !maxMicros.compareAndSet(max, otherMax)) {
+			max = maxMicros.get();
+		}
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the sum of all values recorded.
+	 *
+	 * @return the total, in microseconds
+	 */
+	public long getTotalMicros() {
+		return totalMicros.get();
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return the maximum, in microseconds
+	 */
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	/**
+	 * Returns the mean of all values recorded.
+	 *
+	 * @return the mean, in microseconds (0 if nothing was recorded)
+	 */
+	public long getMeanMicros() {
+		long n = count.get();
+		return n == 0 ? 0 : totalMicros.get() / n;
+	}
+
+	/**
+	 * Returns (an approximation of) the given percentile of the values recorded.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the value at that percentile, in microseconds (0 if nothing was recorded)
+	 */
+	public long getPercentileMicros(double percentile) {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueIn(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	/**
+	 * Returns the index of the bucket counting the given value.
+	 */
+	private static int bucketOf(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if (exponent >= MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Returns the largest value counted by the given bucket.
+	 */
+	private static long highestValueIn(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+		long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,224 @@
+package test.automation.selenium.core.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>Attributes the element lookups made by page objects to the page class and field that made
+ * them, to show which page objects are burning round-trips to the browser.</p>
+ *
+ * <p>For each field, the profiler counts how often it was looked up, how long those lookups took,
+ * how many of them were <em>redundant</em> (they found the very same element as the previous lookup
+ * by the same page object, so caching it would have saved a round-trip), how many found a
+ * <em>replaced</em> element (the page re-rendered it, so caching it would have gone stale), and how
+ * often its element went stale in use. {@link #export()} writes these out with a recommendation for
+ * each field.</p>
+ *
+ * <p>Profiling is controlled by the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.locator.profile.enabled</code> - set to true to profile page object fields (default false)</li>
+ *     <li><code>webdriver.metrics.dir</code> - where {@link #export()} writes its report (default ./test-output)</li>
+ *   </ul>
+ * </p>
+ *
+ * @see ProfilingElementLocatorFactory
+ */
+public final class LocatorProfiler {
+	/** The name of the report */
+	public static final String CSV_FILE_NAME = "locator-profile.csv";
+
+	/** The character set of the report */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The current singleton instance */
+	private static final LocatorProfiler instance = new LocatorProfiler();
+
+	/** Whether or not page objects should be profiled at all */
+	private final boolean enabled;
+
+	/** The directory to which the report is written */
+	private final File directory;
+
+	/** The statistics for each "Page.field" */
+	private final ConcurrentMap<String, FieldStats> fields = new ConcurrentHashMap<String, FieldStats>();
+
+	/**
+	 * Returns the current singleton instance for this class.
+	 *
+	 * @return the current instance
+	 */
+	public static LocatorProfiler getCurrent() {
+		return instance;
+	}
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the profiler.
+	 */
+	private LocatorProfiler() {
+		this.enabled = HarnessSettings.getBoolean("webdriver.locator.profile.enabled", false);
+		this.directory = new File(HarnessSettings.getString("webdriver.metrics.dir", "./test-output"));
+	}
+
+	/**
+	 * Returns true if page objects should locate their fields through a {@link ProfilingElementLocatorFactory}.
+	 *
+	 * @return true iff profiling is enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Records a single lookup of a field.
+	 *
+	 * @param page the simple class name of the page object
+	 * @param field the name of the field
+	 * @param cached whether or not the field is marked with @CacheLookup
+	 * @param first true if this is the first lookup of the field by this page object
+	 * @param roundTrip true if the lookup went to the browser (rather than to the @CacheLookup cache)
+	 * @param redundant true if the lookup found the same element(s) as the previous one
+	 * @param replaced true if the lookup found different element(s) than the previous one
+	 * @param nanos how long the lookup took, in nanoseconds
+	 */
+	void record(String page, String field, boolean cached, boolean first, boolean roundTrip, boolean redundant, boolean replaced, long nanos) {
+		FieldStats stats = statsOf(page, field, cached);
+		stats.accesses.incrementAndGet();
+		if (first) {
+			stats.pageObjects.incrementAndGet();
+		}
+		if (roundTrip) {
+			stats.latency.record(nanos);
+			if (redundant) {
+				stats.redundant.incrementAndGet();
+			}
+		}
+		if (replaced) {
+			stats.replaced.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records that the element found for a field had gone stale by the time it was used.
+	 *
+	 * @param page the simple class name of the page object
+	 * @param field the name of the field
+	 */
+	void recordStale(String page, String field) {
+		FieldStats stats = fields.get(page + "." + field);
+		if (stats != null) {
+			stats.stale.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Writes the statistics of every field looked up so far to {@link #CSV_FILE_NAME} in the
+	 * report directory, most expensive field first.
+	 *
+	 * @throws IOException if the report could not be written
+	 */
+	public void export() throws IOException {
+		List<String> names = new ArrayList<String>(fields.keySet());
+		Collections.sort(names, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				int result = Long.compare(fields.get(b).latency.getTotalMicros(), fields.get(a).latency.getTotalMicros());
+				return (result != 0) ? result : a.compareTo(b);
+			}
+		});
+
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Cannot create metrics directory: " + this.directory);
+		}
+		try (Writer csv = new OutputStreamWriter(new FileOutputStream(new File(this.directory, CSV_FILE_NAME)), UTF_8)) {
+			csv.write("page,field,cache_lookup,page_objects,accesses,lookups,redundant,replaced,stale,total_ms,mean_us,p90_us,recommendation\n");
+			for (String name : names) {
+				FieldStats stats = fields.get(name);
+				LatencyHistogram latency = stats.latency;
+				int dot = name.indexOf('.');
+				csv.write(name.substring(0, dot) + "," + name.substring(dot + 1) + "," + stats.cached + ","
+						+ stats.pageObjects.get() + "," + stats.accesses.get() + "," + latency.getCount() + ","
+						+ stats.redundant.get() + "," + stats.replaced.get() + "," + stats.stale.get() + ","
+						+ (latency.getTotalMicros() / 1000) + "," + latency.getMeanMicros() + "," + latency.getPercentileMicros(90) + ","
+						+ stats.recommend() + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics for the given field, creating them if necessary.
+	 */
+	private FieldStats statsOf(String page, String field, boolean cached) {
+		String key = page + "." + field;
+		FieldStats stats = fields.get(key);
+		if (stats == null) {
+			FieldStats created = new FieldStats(cached);
+			stats = fields.putIfAbsent(key, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * The statistics of one field of one page object class.
+	 */
+	private static final class FieldStats {
+		/** Whether or not the field is marked with @CacheLookup */
+		private final boolean cached;
+
+		/** The number of page objects that looked up this field at least once */
+		private final AtomicLong pageObjects = new AtomicLong();
+
+		/** The number of times the field was accessed */
+		private final AtomicLong accesses = new AtomicLong();
+
+		/** Lookups that found the same element(s) as the previous lookup by the same page object */
+		private final AtomicLong redundant = new AtomicLong();
+
+		/** Accesses that found different element(s) than the previous one by the same page object */
+		private final AtomicLong replaced = new AtomicLong();
+
+		/** The number of times the element went stale in use */
+		private final AtomicLong stale = new AtomicLong();
+
+		/** The latency of every lookup that went to the browser */
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		/**
+		 * Creates empty statistics.
+		 *
+		 * @param cached whether or not the field is marked with @CacheLookup
+		 */
+		private FieldStats(boolean cached) {
+			this.cached = cached;
+		}
+
+		/**
+		 * Returns what (if anything) should be done about this field.
+		 */
+		private String recommend() {
+			if (this.cached) {
+				return this.stale.get() > 0 ? "remove @CacheLookup (went stale)" : "ok";
+			} else if (this.replaced.get() > 0 || this.stale.get() > 0) {
+				return "ok (element is replaced while in use)";
+			} else if (this.redundant.get() > 0) {
+				return "add @CacheLookup (safe)";
+			}
+			return "ok";
+		}
+	}
+}
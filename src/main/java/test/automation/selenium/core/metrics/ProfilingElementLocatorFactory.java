@@ -0,0 +1,155 @@
+package test.automation.selenium.core.metrics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.support.CacheLookup;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+/**
+ * An {@link ElementLocatorFactory} that finds elements just like PageFactory's default one,
+ * but reports every lookup made for each field of one page object to the {@link LocatorProfiler}.
+ *
+ */
+public class ProfilingElementLocatorFactory implements ElementLocatorFactory {
+	/** The context in which to find elements */
+	private final SearchContext searchContext;
+
+	/** The page object whose fields are being located */
+	private final Object page;
+
+	/**
+	 * Creates a factory for the fields of the given page object.
+	 *
+	 * @param searchContext the context in which to find elements (e.g. the driver)
+	 * @param page the page object whose fields are being located
+	 */
+	public ProfilingElementLocatorFactory(SearchContext searchContext, Object page) {
+		this.searchContext = searchContext;
+		this.page = page;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.openqa.selenium.support.pagefactory.ElementLocatorFactory#createLocator(java.lang.reflect.Field)
+	 */
+	@Override
+	public ElementLocator createLocator(Field field) {
+		String pageName = this.page.getClass().getSimpleName();
+		boolean cached = field.isAnnotationPresent(CacheLookup.class);
+		return new ProfilingElementLocator(new DefaultElementLocator(this.searchContext, field), pageName, field.getName(), cached);
+	}
+
+	/**
+	 * Locates a single field of a single page object, keeping track of what each lookup returned.
+	 */
+	private static final class ProfilingElementLocator implements ElementLocator {
+		/** Does the actual finding */
+		private final ElementLocator delegate;
+
+		/** The simple class name of the page object */
+		private final String page;
+
+		/** The name of the field */
+		private final String field;
+
+		/** Whether or not the field is marked with @CacheLookup */
+		private final boolean cached;
+
+		/** The number of times the field has been looked up */
+		private int lookups;
+
+		/** The result of the previous lookup (an element or a list of elements), or null */
+		private Object previous;
+
+		/**
+		 * Creates a new locator.
+		 *
+		 * @param delegate does the actual finding
+		 * @param page the simple class name of the page object
+		 * @param field the name of the field
+		 * @param cached whether or not the field is marked with @CacheLookup
+		 */
+		private ProfilingElementLocator(ElementLocator delegate, String page, String field, boolean cached) {
+			this.delegate = delegate;
+			this.page = page;
+			this.field = field;
+			this.cached = cached;
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.support.pagefactory.ElementLocator#findElement()
+		 */
+		@Override
+		public WebElement findElement() {
+			long start = System.nanoTime();
+			WebElement element = this.delegate.findElement();
+			recordLookup(element, System.nanoTime() - start);
+			return watchForStaleness(element);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.support.pagefactory.ElementLocator#findElements()
+		 */
+		@Override
+		public List<WebElement> findElements() {
+			long start = System.nanoTime();
+			List<WebElement> elements = this.delegate.findElements();
+			recordLookup(elements, System.nanoTime() - start);
+
+			List<WebElement> watched = new ArrayList<WebElement>(elements.size());
+			for (WebElement element : elements) {
+				watched.add(watchForStaleness(element));
+			}
+			return watched;
+		}
+
+		/**
+		 * Reports a lookup, comparing its result with the previous one.
+		 */
+		private void recordLookup(Object result, long nanos) {
+			// Cached fields only go to the browser the first time
+			boolean roundTrip = !this.cached || this.lookups == 0;
+			boolean redundant = this.lookups > 0 && result.equals(this.previous);
+			boolean replaced = this.lookups > 0 && !redundant;
+
+			LocatorProfiler.getCurrent().record(this.page, this.field, this.cached, this.lookups == 0, roundTrip, redundant, replaced, nanos);
+			this.lookups++;
+			this.previous = result;
+		}
+
+		/**
+		 * Wraps an element so that stale element errors are reported against this field.
+		 */
+		private WebElement watchForStaleness(final WebElement element) {
+			return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { WebElement.class, WrapsElement.class, Locatable.class }, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					if ("getWrappedElement".equals(method.getName()) && method.getDeclaringClass() == WrapsElement.class) {
+						return element;
+					}
+					try {
+						return method.invoke(element, args);
+					} catch (InvocationTargetException e) {
+						if (e.getCause() instanceof StaleElementReferenceException) {
+							LocatorProfiler.getCurrent().recordStale(page, field);
+						}
+						throw e.getCause();
+					}
+				}
+			});
+		}
+	}
+}
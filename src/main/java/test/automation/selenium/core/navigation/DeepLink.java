@@ -0,0 +1,80 @@
+package test.automation.selenium.core.navigation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.state.StateRegistry;
+
+/**
+ * A {@link Route} straight to a page's URL. The URL is a template in which <code>{0}</code>,
+ * <code>{1}</code>, ... stand for the values of the required states (e.g. the hash of a notebook),
+ * in order; each state is set up through the {@link StateRegistry} (reusing its cached value, if any)
+ * before the URL is loaded. If setting the states up has already brought the driver to the URL,
+ * it is not loaded again.
+ *
+ * @param <P> the page that the link leads to
+ */
+public class DeepLink<P extends AbstractWebPage> extends Route<P> {
+	/** The URL of the page, with placeholders for the values of the required states */
+	private final String urlTemplate;
+
+	/** Creates the page once the driver is on it */
+	private final Constructor<P> constructor;
+
+	/**
+	 * Creates a deep link to a page.
+	 *
+	 * @param page the page that the link leads to, which must have a public constructor taking only a driver
+	 * @param urlTemplate the URL of the page, with <code>{0}</code>, <code>{1}</code>, ... standing for
+	 *        the values of the required states
+	 * @param requiredStates the names of the states that must be set up before loading the URL
+	 * @throws IllegalArgumentException if the page has no public constructor taking only a driver
+	 */
+	public DeepLink(Class<P> page, String urlTemplate, String... requiredStates) {
+		super(page, "deep link to " + urlTemplate, 1, requiredStates);
+		this.urlTemplate = urlTemplate;
+		try {
+			this.constructor = page.getConstructor(WebDriver.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Page has no public constructor taking a WebDriver: " + page.getName(), e);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.navigation.Route#follow(org.openqa.selenium.WebDriver)
+	 */
+	@Override
+	public P follow(WebDriver driver) {
+		String url = this.urlTemplate;
+		String[] states = getRequiredStates();
+		for (int i = 0; i < states.length; i++) {
+			Object value = StateRegistry.getCurrent().require(states[i], driver);
+			url = url.replace("{" + i + "}", String.valueOf(value));
+		}
+
+		if (!url.equals(driver.getCurrentUrl())) {
+			driver.get(url);
+		}
+		return newPage(driver);
+	}
+
+	/**
+	 * Creates the page, once the driver is on it.
+	 */
+	private P newPage(WebDriver driver) {
+		try {
+			return this.constructor.newInstance(driver);
+		} catch (InvocationTargetException e) {
+			// e.g. the page never became ready
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Failed to create page: " + getPage().getName(), e.getCause());
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException("Failed to create page: " + getPage().getName(), e);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package test.automation.selenium.core.navigation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.HarnessSettings;
+import test.automation.selenium.core.logging.HarnessLogger;
+import test.automation.selenium.core.state.StateRegistry;
+
+/**
+ * <p>Brings drivers to pages by the cheapest {@link Route} available, so that tests which are not testing
+ * the way to a page do not have to walk the UI to reach it. Typically, a {@link DeepLink} straight to
+ * the page's URL (reusing the sign-in cookies, notebook hashes, etc. cached by the {@link StateRegistry})
+ * is tried first, falling back to traversing the UI through the pages before it.</p>
+ *
+ * <p>Routes are tried from the fewest page loads up. A route is skipped if one of the states it requires
+ * has no provider registered, and the next one is tried if it fails (e.g. because its page never became
+ * ready).</p>
+ *
+ * <p>The following settings (see {@link HarnessSettings}) control navigation:
+ *   <ul>
+ *     <li><code>webdriver.navigation.deep.links.enabled</code> - whether or not to follow deep links
+ *         to pages that can also be reached by traversing the UI (default true)</li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class PageNavigator {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(PageNavigator.class);
+
+	/** The singleton instance */
+	private static final PageNavigator current = new PageNavigator();
+
+	/** Whether or not to follow deep links to pages that can also be reached by traversing the UI */
+	private static final boolean DEEP_LINKS_ENABLED = HarnessSettings.getBoolean("webdriver.navigation.deep.links.enabled", true);
+
+	/** Orders routes from the fewest page loads up */
+	private static final Comparator<Route<?>> BY_COST = new Comparator<Route<?>>() {
+		/* (non-Javadoc)
+		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+		 */
+		@Override
+		public int compare(Route<?> a, Route<?> b) {
+			return Integer.compare(a.getCost(), b.getCost());
+		}
+	};
+
+	/** The routes to each page, declared on the page itself or registered */
+	private final ConcurrentMap<Class<?>, List<Route<?>>> routes = new ConcurrentHashMap<Class<?>, List<Route<?>>>();
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the navigator.
+	 */
+	private PageNavigator() {
+	}
+
+	/**
+	 * Returns the navigator shared by every test.
+	 *
+	 * @return the page navigator
+	 */
+	public static PageNavigator getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Registers a route that is not declared on the page it leads to (e.g. because it needs credentials).
+	 *
+	 * @param route the route
+	 */
+	public void register(Route<?> route) {
+		routesTo(route.getPage()).add(route);
+	}
+
+	/**
+	 * Removes a route registered with {@link #register(Route)}.
+	 *
+	 * @param route the route
+	 */
+	public void unregister(Route<?> route) {
+		routesTo(route.getPage()).remove(route);
+	}
+
+	/**
+	 * Brings the driver to the given page by the cheapest route available.
+	 *
+	 * @param page the class of the page
+	 * @param driver the driver
+	 * @return the page, once it is ready
+	 * @throws IllegalArgumentException if there is no route to the page
+	 * @throws RuntimeException the failure of the last route tried, if every route failed
+	 */
+	public <P extends AbstractWebPage> P navigateTo(Class<P> page, WebDriver driver) {
+		List<Route<P>> candidates = candidatesFor(page);
+		if (candidates.isEmpty()) {
+			throw new IllegalArgumentException("No route to page: " + page.getName());
+		}
+
+		RuntimeException failure = null;
+		for (Route<P> route : candidates) {
+			if (failure != null) {
+				log.info("Navigation to %s failed (%s), falling back to %s",
+						page.getSimpleName(), failure.getClass().getSimpleName(), route);
+			}
+			try {
+				return route.follow(driver);
+			} catch (RuntimeException e) {
+				failure = e;
+			}
+		}
+		throw failure;
+	}
+
+	/**
+	 * Returns the routes to the given page that can be followed, cheapest first.
+	 */
+	@SuppressWarnings("unchecked")
+	private <P extends AbstractWebPage> List<Route<P>> candidatesFor(Class<P> page) {
+		List<Route<P>> candidates = new ArrayList<Route<P>>();
+		List<Route<P>> deepLinks = new ArrayList<Route<P>>();
+		for (Route<?> route : routesTo(page)) {
+			if (isFollowable(route)) {
+				candidates.add((Route<P>) route);
+				if (route instanceof DeepLink) {
+					deepLinks.add((Route<P>) route);
+				}
+			}
+		}
+		if (!DEEP_LINKS_ENABLED && deepLinks.size() < candidates.size()) {
+			// Pages with no other route (e.g. where the UI starts) are still reached by their deep links
+			candidates.removeAll(deepLinks);
+		}
+		// Stable: of the routes with the same cost, those declared on the page are tried first
+		Collections.sort(candidates, BY_COST);
+		return candidates;
+	}
+
+	/**
+	 * Returns whether or not the given route can be followed: every state it requires has a provider.
+	 */
+	private static boolean isFollowable(Route<?> route) {
+		for (String state : route.getRequiredStates()) {
+			if (!StateRegistry.getCurrent().isRegistered(state)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the routes to the given page, starting with those declared on the page itself.
+	 */
+	private List<Route<?>> routesTo(Class<?> page) {
+		List<Route<?>> known = this.routes.get(page);
+		if (known != null) {
+			return known;
+		}
+		List<Route<?>> declared = new CopyOnWriteArrayList<Route<?>>(declaredRoutes(page));
+		known = this.routes.putIfAbsent(page, declared);
+		return (known == null) ? declared : known;
+	}
+
+	/**
+	 * Returns the routes declared by the given page, as <code>public static final</code> fields.
+	 */
+	private static List<Route<?>> declaredRoutes(Class<?> page) {
+		List<Route<?>> declared = new ArrayList<Route<?>>();
+		for (Field field : page.getFields()) {
+			int modifiers = field.getModifiers();
+			if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || !Route.class.isAssignableFrom(field.getType())) {
+				continue;
+			}
+			try {
+				Route<?> route = (Route<?>) field.get(null);
+				if (route != null && route.getPage() == page) {
+					declared.add(route);
+				}
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Failed to read route " + field, e);
+			}
+		}
+		return declared;
+	}
+}
@@ -0,0 +1,90 @@
+package test.automation.selenium.core.navigation;
+
+import org.openqa.selenium.WebDriver;
+
+import test.automation.selenium.core.AbstractWebPage;
+import test.automation.selenium.core.state.StateRegistry;
+
+/**
+ * <p>A way of bringing a driver to a page, for the {@link PageNavigator}: either a {@link DeepLink}
+ * straight to the page's URL, or a traversal of the UI through the pages before it (an anonymous
+ * subclass overriding {@link #follow(WebDriver)}).</p>
+ *
+ * <p>Pages declare their routes as <code>public static final</code> fields, which the navigator
+ * finds on its own; routes that cannot be declared on the page (e.g. because they need credentials)
+ * are {@link PageNavigator#register(Route) registered} instead.</p>
+ *
+ * @param <P> the page that the route leads to
+ */
+public abstract class Route<P extends AbstractWebPage> {
+	/** The page that this route leads to */
+	private final Class<P> page;
+
+	/** A description of this route, for the console */
+	private final String description;
+
+	/** The number of page loads needed to follow this route, once its states are set up */
+	private final int cost;
+
+	/** The names of the states (see {@link StateRegistry}) that this route sets up before following it */
+	private final String[] requiredStates;
+
+	/**
+	 * Creates a route.
+	 *
+	 * @param page the page that the route leads to
+	 * @param description a description of the route, for the console
+	 * @param cost the number of page loads needed to follow the route, once its states are set up
+	 * @param requiredStates the names of the states that the route sets up before following it
+	 */
+	protected Route(Class<P> page, String description, int cost, String... requiredStates) {
+		this.page = page;
+		this.description = description;
+		this.cost = cost;
+		this.requiredStates = requiredStates.clone();
+	}
+
+	/**
+	 * Brings the driver to the page, setting up any states that this route requires first.
+	 *
+	 * @param driver the driver
+	 * @return the page, once it is ready
+	 */
+	public abstract P follow(WebDriver driver);
+
+	/**
+	 * Returns the page that this route leads to.
+	 *
+	 * @return the class of the page
+	 */
+	public Class<P> getPage() {
+		return this.page;
+	}
+
+	/**
+	 * Returns the number of page loads needed to follow this route. The states that it requires
+	 * are not counted: each is set up once per run, and shared by every test after that.
+	 *
+	 * @return the cost of this route
+	 */
+	public int getCost() {
+		return this.cost;
+	}
+
+	/**
+	 * Returns the names of the states that this route sets up before following it.
+	 *
+	 * @return the names of the required states
+	 */
+	public String[] getRequiredStates() {
+		return this.requiredStates.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.description;
+	}
+}
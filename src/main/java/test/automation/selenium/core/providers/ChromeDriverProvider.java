@@ -1,13 +1,11 @@
 package test.automation.selenium.core.providers;
 
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
 
 /**
  * <p>A provider for the Selenium WebDriver for Google Chrome.</p>
@@ -17,18 +15,12 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class ChromeDriverProvider implements IWebDriverProvider {
-	/** The name of the .properties file from which to read driver binary paths */
-	private static final String ENV_BUNDLE_NAME = "environment";
-	
-	/** The key in the above .properties file for the chrome driver binary */
+public final class ChromeDriverProvider extends AbstractWebDriverProvider {
+	/** The key in environment.properties for the chrome driver binary */
 	private static final String CHROME_BINARY_KEY = "webdriver.chrome.driver";
 
 	/** The current singleton instance */
-	private static ChromeDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static ChromeDriver driver;
+	private static final ChromeDriverProvider instance = new ChromeDriverProvider();
 	
     /**
      * Returns the current singleton instance for this class.
@@ -36,36 +28,35 @@ public final class ChromeDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static ChromeDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new ChromeDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private ChromeDriverProvider() {
+        super(BrowserType.CHROME);
+    }
 	   
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#getBinaryKeys()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
-		try {
-			ResourceBundle rb = ResourceBundle.getBundle("environment");
-			System.setProperty(CHROME_BINARY_KEY, rb.getString(CHROME_BINARY_KEY));
-		} catch (MissingResourceException e) {
-			throw new IllegalArgumentException("Cannot start ChromeDriver: Driver binary not found. Verify " 
-					+ "correctness / existence of "+ CHROME_BINARY_KEY + " in " + ENV_BUNDLE_NAME + ".properties");
-		}
-		
+	protected String[] getBinaryKeys() {
+		return new String[] { CHROME_BINARY_KEY };
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+	 */
+	@Override
+	protected WebDriver createDriver() {
+		// The driver binary has already been checked and set as a System property (see DriverBinaries)
+
 		// Set any browser-specific settings here
         DesiredCapabilities capabilities = DesiredCapabilities.chrome();
 
-		// Cache this driver for later
-        driver = new ChromeDriver(capabilities);
-        return driver;
+        return new ChromeDriver(capabilities);
 	}
 
 }
@@ -4,7 +4,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
 
 /**
  * <p>A provider for the Selenium WebDriver for Microsoft Edge.</p>
@@ -15,7 +16,7 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class EdgeDriverProvider implements IWebDriverProvider {
+public final class EdgeDriverProvider extends AbstractWebDriverProvider {
 	/** The name of the .properties file from which to read driver binary paths */
 	//private static final String ENV_BUNDLE_NAME = "environment";
 
@@ -23,10 +24,7 @@ public final class EdgeDriverProvider implements IWebDriverProvider {
 	//private static final String EDGE_BINARY_PATH = "webdriver.edge.driver";
 
 	/** The current singleton instance */
-	private static EdgeDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static EdgeDriver driver;
+	private static final EdgeDriverProvider instance = new EdgeDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -34,28 +32,25 @@ public final class EdgeDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static EdgeDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new EdgeDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private EdgeDriverProvider() {
+        super(BrowserType.EDGE);
+    }
     
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-
+	protected WebDriver createDriver() {
 		// Set any browser-specific settings here
 		DesiredCapabilities capabilities = DesiredCapabilities.edge();
 
-		// Cache this driver for later
-		driver = new EdgeDriver(capabilities);
-		return driver;
+		return new EdgeDriver(capabilities);
 	}
 
 }
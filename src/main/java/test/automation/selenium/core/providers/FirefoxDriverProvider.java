@@ -4,7 +4,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
 
 /**
  * <p>A provider for the Selenium WebDriver for Mozilla Firefox.</p>
@@ -13,12 +14,9 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class FirefoxDriverProvider implements IWebDriverProvider {
+public final class FirefoxDriverProvider extends AbstractWebDriverProvider {
 	/** The current singleton instance */
-	private static FirefoxDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static FirefoxDriver driver; 
+	private static final FirefoxDriverProvider instance = new FirefoxDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -26,27 +24,24 @@ public final class FirefoxDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static FirefoxDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new FirefoxDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private FirefoxDriverProvider() {
+        super(BrowserType.FIREFOX);
+    }
     
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
+	protected WebDriver createDriver() {
 		// Set any browser-specific settings here
 		DesiredCapabilities capabilities = DesiredCapabilities.firefox();
 
-		// Cache this driver for later
-		driver = new FirefoxDriver(capabilities);
-		return driver;
+		return new FirefoxDriver(capabilities);
 	}
 }
@@ -4,7 +4,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.htmlunit.HtmlUnitDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
 
 /**
  * <p>A provider for the Selenium WebDriver for HtmlUnit.</p>
@@ -13,12 +14,9 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class HtmlUnitDriverProvider implements IWebDriverProvider {
+public final class HtmlUnitDriverProvider extends AbstractWebDriverProvider {
 	/** The current singleton instance */
-	private static HtmlUnitDriverProvider instance;
-
-	/** The instance of this browser driver to use to run tests */
-	private static HtmlUnitDriver driver;
+	private static final HtmlUnitDriverProvider instance = new HtmlUnitDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -26,30 +24,27 @@ public final class HtmlUnitDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static HtmlUnitDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new HtmlUnitDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private HtmlUnitDriverProvider() {
+        super(BrowserType.HTMLUNIT);
+    }
     
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
+	protected WebDriver createDriver() {
 		// Set any browser-specific settings here
 		DesiredCapabilities capabilities = DesiredCapabilities.htmlUnit();
 		
 		// Optionally enable JavaScript
 		capabilities.setJavascriptEnabled(true);
 
-		// Cache this driver for later
-		driver = new HtmlUnitDriver(capabilities);
-		return driver;
+		return new HtmlUnitDriver(capabilities);
 	}
 }
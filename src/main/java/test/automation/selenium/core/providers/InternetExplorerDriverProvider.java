@@ -1,13 +1,12 @@
 package test.automation.selenium.core.providers;
 
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.ie.InternetExplorerDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
+import test.automation.selenium.core.logging.HarnessLogger;
 
 /** 
  * <p>A provider for the Selenium WebDriver for Microsoft Internet Explorer.</p>
@@ -30,18 +29,15 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class InternetExplorerDriverProvider implements IWebDriverProvider {
-	/** The name of the .properties file from which to read driver binary paths */
-	private static final String ENV_BUNDLE_NAME = "environment";
-	
-	/** The key in the above .properties file for the IEDriverServer.exe binary */
+public final class InternetExplorerDriverProvider extends AbstractWebDriverProvider {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(InternetExplorerDriverProvider.class);
+
+	/** The key in environment.properties for the IEDriverServer.exe binary */
 	private static final String IE_BINARY_KEY = "webdriver.ie.driver";
 
 	/** The current singleton instance */
-	private static InternetExplorerDriverProvider instance;
-
-	/** The instance of this browser driver to use to run tests */
-	private static InternetExplorerDriver driver;
+	private static final InternetExplorerDriverProvider instance = new InternetExplorerDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -49,38 +45,37 @@ public final class InternetExplorerDriverProvider implements IWebDriverProvider
      * @return the current instance
      */
     public static InternetExplorerDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new InternetExplorerDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private InternetExplorerDriverProvider() {
+        super(BrowserType.IE);
+    }
 	
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#getBinaryKeys()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
+	protected String[] getBinaryKeys() {
+		return new String[] { IE_BINARY_KEY };
+	}
 
-		try {
-			ResourceBundle rb = ResourceBundle.getBundle(ENV_BUNDLE_NAME);
-			System.setProperty(IE_BINARY_KEY, rb.getString(IE_BINARY_KEY));
-			System.out.println("Executing using: " + System.getProperty(IE_BINARY_KEY));
-		} catch (MissingResourceException e) {
-			throw new IllegalArgumentException("Cannot start IEDriverServer.exe: Driver binary not found. Verify " 
-					+ "correctness / existence of "+ IE_BINARY_KEY + " in " + ENV_BUNDLE_NAME + ".properties");
-		}
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+	 */
+	@Override
+	protected WebDriver createDriver() {
+		// The system property pointing to the driver binary has already been set (see DriverBinaries)
+		log.info("Executing using: %s", System.getProperty(IE_BINARY_KEY));
 
 		// Set any browser-specific settings here
         DesiredCapabilities capabilities = DesiredCapabilities.internetExplorer();
         capabilities.setCapability(InternetExplorerDriver.IE_ENSURE_CLEAN_SESSION, true);
         
-        // Cache this driver
-        driver = new InternetExplorerDriver(capabilities);
-        return driver;
+        return new InternetExplorerDriver(capabilities);
 	}
 
 }
@@ -1,14 +1,13 @@
 package test.automation.selenium.core.providers;
 
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.opera.OperaDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
+import test.automation.selenium.core.logging.HarnessLogger;
 
 /**
  * <p>A provider for the Selenium WebDriver for Opera.</p>
@@ -19,16 +18,16 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class OperaDriverProvider implements IWebDriverProvider {
-	/** The name of the .properties file from which to read driver binary paths */
-	private static final String ENV_BUNDLE_NAME = "environment";
-	
-	/** The key in the above .properties file for the opera driver binary */
+public final class OperaDriverProvider extends AbstractWebDriverProvider {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(OperaDriverProvider.class);
+
+	/** The key in environment.properties for the opera driver binary */
 	private static final String OPERADRIVER_BINARY_PATH = "webdriver.opera.driver";
 
 	// Opera does not seem to check the PATH by default in all circumstances
 	// See https://github.com/operasoftware/operachromiumdriver/issues/9
-	/** The key in the above .properties file for the opera launcher binary */
+	/** The key in environment.properties for the opera launcher binary */
 	private static final String OPERALAUNCHER_INSTALL_PATH = "opera.binary";
 
 	/** The key for Opera's "no_quit" option */
@@ -38,10 +37,7 @@ public final class OperaDriverProvider implements IWebDriverProvider {
 	//private static final String OPERA_OPTION_BINARY = "opera.binary";
 
 	/** The current singleton instance */
-	private static OperaDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static OperaDriver driver;
+	private static final OperaDriverProvider instance = new OperaDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -49,22 +45,38 @@ public final class OperaDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static OperaDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new OperaDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private OperaDriverProvider() {
+        super(BrowserType.OPERA);
+    }
 	
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#getBinaryKeys()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
+	protected String[] getBinaryKeys() {
+		return new String[] { OPERADRIVER_BINARY_PATH };
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#getBrowserBinaryKeys()
+	 */
+	@Override
+	protected String[] getBrowserBinaryKeys() {
+		// The launcher is Opera itself, which would open a window rather than answer --version
+		return new String[] { OPERALAUNCHER_INSTALL_PATH };
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+	 */
+	@Override
+	protected WebDriver createDriver() {
 		// Set any browser-specific settings here
 		DesiredCapabilities capabilities = DesiredCapabilities.operaBlink();
 
@@ -72,28 +84,12 @@ public final class OperaDriverProvider implements IWebDriverProvider {
 		// FIXME: Why is this necessary?
 		ChromeOptions chromeOptions = new ChromeOptions();
 		
-		// Grab the location of the Opera launcher from the .properties file
-		try {
-			ResourceBundle rb = ResourceBundle.getBundle(ENV_BUNDLE_NAME);
-			String installPath = rb.getString(OPERALAUNCHER_INSTALL_PATH);
-			System.setProperty(OPERALAUNCHER_INSTALL_PATH, installPath);
-			chromeOptions.setBinary(installPath);
-			System.out.println("Executing using launcher: " + installPath);
-		} catch (MissingResourceException e) {
-			throw new IllegalArgumentException("Cannot start OperaDriver: Launcher binary not found. Verify " 
-					+ "correctness / existence of "+ OPERALAUNCHER_INSTALL_PATH + " in " + ENV_BUNDLE_NAME + ".properties");
-		}
-
-		// Grab the location of the operadriver from the .properties file
-		try {
-			ResourceBundle rb = ResourceBundle.getBundle(ENV_BUNDLE_NAME);
-			String installPath = rb.getString(OPERADRIVER_BINARY_PATH);
-			System.setProperty(OPERADRIVER_BINARY_PATH, installPath);
-			System.out.println("Executing using using driver binary: " + installPath);
-		} catch (MissingResourceException e) {
-			throw new IllegalArgumentException("Cannot start OperaDriver: Driver binary not found. Verify " 
-					+ "correctness / existence of "+ OPERADRIVER_BINARY_PATH + " in " + ENV_BUNDLE_NAME + ".properties");
-		}
+		// The locations of the Opera launcher and the operadriver have already been checked and set as
+		// System properties (see DriverBinaries)
+		String installPath = System.getProperty(OPERALAUNCHER_INSTALL_PATH);
+		chromeOptions.setBinary(installPath);
+		log.info("Executing using launcher: %s", installPath);
+		log.info("Executing using using driver binary: %s", System.getProperty(OPERADRIVER_BINARY_PATH));
 		
 		// Set the chrome options on the Opera (Chromium) Driver
 		capabilities.setCapability(ChromeOptions.CAPABILITY, chromeOptions);
@@ -101,9 +97,7 @@ public final class OperaDriverProvider implements IWebDriverProvider {
 		// Explicitly tell Opera to quit when the driver shuts down
 		capabilities.setCapability(OPERA_OPTION_NO_QUIT, false);
 		
-		// Cache this driver for later
-		driver = new OperaDriver(capabilities);
-		return driver;
+		return new OperaDriver(capabilities);
 	}
 
 }
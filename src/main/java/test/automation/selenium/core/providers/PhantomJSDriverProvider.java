@@ -1,14 +1,13 @@
 package test.automation.selenium.core.providers;
 
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.phantomjs.PhantomJSDriver;
 import org.openqa.selenium.phantomjs.PhantomJSDriverService;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
+import test.automation.selenium.core.logging.HarnessLogger;
 
 /**
  * <p>A provider for the Selenium WebDriver for PhantomJS.</p>
@@ -19,18 +18,15 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class PhantomJSDriverProvider implements IWebDriverProvider {
-	/** The name of the .properties file from which to read driver binary paths */
-	private static final String ENV_BUNDLE_NAME = "environment";
+public final class PhantomJSDriverProvider extends AbstractWebDriverProvider {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(PhantomJSDriverProvider.class);
 
-	/** The key in the above .properties file for the ghost / phantomjs driver binary */
+	/** The key in environment.properties for the ghost / phantomjs driver binary */
 	private static final String PHANTOMJS_BINARY_PATH = "phantomjs.binary.path";
 
 	/** The current singleton instance */
-	private static PhantomJSDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static PhantomJSDriver driver;
+	private static final PhantomJSDriverProvider instance = new PhantomJSDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -38,31 +34,31 @@ public final class PhantomJSDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static PhantomJSDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new PhantomJSDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private PhantomJSDriverProvider() {
+        super(BrowserType.PHANTOMJS);
+    }
     
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#getBinaryKeys()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
-		try {
-			// Set the system property to point to the correct binary
-			ResourceBundle rb = ResourceBundle.getBundle(ENV_BUNDLE_NAME);
-			System.setProperty(PHANTOMJS_BINARY_PATH, rb.getString(PHANTOMJS_BINARY_PATH));
-			System.out.println("Executing using: " + System.getProperty(PHANTOMJS_BINARY_PATH));
-		} catch (MissingResourceException e) {
-			throw new IllegalArgumentException("Cannot instantiate PhantomJSDriver: Driver binary not found. Verify " 
-					+ "correctness / existence of "+ PHANTOMJS_BINARY_PATH + " in " + ENV_BUNDLE_NAME + ".properties");
-		}
+	protected String[] getBinaryKeys() {
+		return new String[] { PHANTOMJS_BINARY_PATH };
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+	 */
+	@Override
+	protected WebDriver createDriver() {
+		// The system property pointing to the correct binary has already been set (see DriverBinaries)
+		log.info("Executing using: %s", System.getProperty(PHANTOMJS_BINARY_PATH));
 		
 		// Set any browser-specific settings here
 		DesiredCapabilities capabilities = DesiredCapabilities.phantomjs();
@@ -70,8 +66,7 @@ public final class PhantomJSDriverProvider implements IWebDriverProvider {
 		// Enable JavaScript
 		capabilities.setJavascriptEnabled(true);
 		capabilities.setCapability(PhantomJSDriverService.PHANTOMJS_CLI_ARGS, new String[] {"--web-security=no", "--ignore-ssl-errors=yes"});
-		driver = new PhantomJSDriver(capabilities);
-		return driver;
+		return new PhantomJSDriver(capabilities);
 	}
 
 }
@@ -0,0 +1,186 @@
+package test.automation.selenium.core.providers;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.internal.ApacheHttpClient;
+import org.openqa.selenium.remote.internal.HttpClientFactory;
+
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
+import test.automation.selenium.core.HarnessSettings;
+import test.automation.selenium.core.logging.HarnessLogger;
+import test.automation.selenium.core.server.StandInHub;
+
+/**
+ * <p>A provider for browsers driven through a Selenium Grid hub (or a lone Selenium server).</p>
+ *
+ * <p>Every session talks to the hub over one shared HTTP client, whose connection pool keeps
+ * connections to the hub alive between commands and between sessions, rather than each driver opening
+ * a pool (and new connections) of its own. Commands that the hub does not answer within the command
+ * timeout fail, rather than hanging the test.</p>
+ *
+ * <p>The hub and browser are chosen with the following settings (see {@link HarnessSettings}):
+ *   <ul>
+ *     <li><code>webdriver.remote.url</code> - the URL of the hub (default http://localhost:4444/wd/hub)</li>
+ *     <li><code>webdriver.remote.browser</code> - the browser to ask the hub for (default firefox)</li>
+ *     <li><code>webdriver.remote.version</code> - the browser version to ask the hub for (default any)</li>
+ *     <li><code>webdriver.remote.platform</code> - the platform to ask the hub for, e.g. WINDOWS or LINUX (default ANY)</li>
+ *     <li><code>webdriver.remote.connect.timeout.seconds</code> - how long to wait to connect to the hub (default 30)</li>
+ *     <li><code>webdriver.remote.command.timeout.seconds</code> - how long to wait for the hub to answer a command,
+ *         including starting a session (default 180)</li>
+ *     <li><code>webdriver.remote.standin</code> - set to true to drive HtmlUnit through a local {@link StandInHub}
+ *         instead (default false)</li>
+ *   </ul>
+ * </p>
+ *
+ * @see <a href="https://code.google.com/p/selenium/wiki/RemoteWebDriver">Selenium Documentation</a>
+ *
+ */
+public final class RemoteWebDriverProvider extends AbstractWebDriverProvider {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(RemoteWebDriverProvider.class);
+
+	/** The default URL of the hub */
+	private static final String DEFAULT_HUB_URL = "http://localhost:4444/wd/hub";
+
+	/** The current singleton instance */
+	private static final RemoteWebDriverProvider instance = new RemoteWebDriverProvider();
+
+	/** The local hub that stands in for the real one, or null to use the real one */
+	private final StandInHub standIn = startStandInIfEnabled();
+
+	/** The URL of the hub */
+	private final URL hubUrl;
+
+	/** The capabilities asked of the hub for every session */
+	private final DesiredCapabilities capabilities;
+
+	/** Creates the HTTP client shared by every session, whose pool keeps connections to the hub alive */
+	private final HttpClient.Factory httpClientFactory;
+
+    /**
+     * Returns the current singleton instance for this class.
+     *
+     * @return the current instance
+     */
+    public static RemoteWebDriverProvider getCurrent() {
+        return instance;
+    }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private RemoteWebDriverProvider() {
+        super(BrowserType.REMOTE);
+
+        String url = (this.standIn != null) ? this.standIn.getHubUrl() : HarnessSettings.getString("webdriver.remote.url", DEFAULT_HUB_URL);
+        try {
+        	this.hubUrl = new URL(url);
+        } catch (MalformedURLException e) {
+        	throw new IllegalArgumentException("Invalid webdriver.remote.url: " + url, e);
+        }
+
+        if (this.standIn != null) {
+        	this.capabilities = DesiredCapabilities.htmlUnit();
+        } else {
+        	this.capabilities = new DesiredCapabilities(HarnessSettings.getString("webdriver.remote.browser", "firefox"),
+        			HarnessSettings.getString("webdriver.remote.version", ""),
+        			Platform.valueOf(HarnessSettings.getString("webdriver.remote.platform", "ANY").toUpperCase()));
+        }
+        this.capabilities.setJavascriptEnabled(true);
+
+        int connectTimeout = (int) TimeUnit.SECONDS.toMillis(HarnessSettings.getInt("webdriver.remote.connect.timeout.seconds", 30));
+        int commandTimeout = (int) TimeUnit.SECONDS.toMillis(HarnessSettings.getInt("webdriver.remote.command.timeout.seconds", 180));
+        this.httpClientFactory = new ApacheHttpClient.Factory(new HttpClientFactory(connectTimeout, commandTimeout));
+    }
+
+	/**
+	 * Returns the local hub standing in for the real one.
+	 *
+	 * @return the stand-in hub, or null if the real hub is used
+	 */
+	public StandInHub getStandIn() {
+		return this.standIn;
+	}
+
+	/* (non-Javadoc)
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+	 */
+	@Override
+	protected WebDriver createDriver() {
+		HttpCommandExecutor executor = new HttpCommandExecutor(Collections.<String, CommandInfo>emptyMap(), this.hubUrl, this.httpClientFactory);
+		return new ScreenshotCapableRemoteWebDriver(executor, this.capabilities);
+	}
+
+	/**
+	 * Starts the local stand-in hub, if enabled.
+	 */
+	private static StandInHub startStandInIfEnabled() {
+		if (!HarnessSettings.getBoolean("webdriver.remote.standin", false)) {
+			return null;
+		}
+
+		final StandInHub hub;
+		try {
+			hub = new StandInHub(HarnessSettings.getInt("webdriver.remote.standin.port", 0));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Failed to start the stand-in Selenium hub", e);
+		}
+
+		hub.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				log.info("Stand-in Selenium hub handled %d command(s) over %d connection(s)",
+						hub.getCommandCount(), hub.getConnectionCount());
+				hub.stop();
+			}
+		}, "selenium-hub-standin-shutdown"));
+
+		log.info("Driving remote browsers through a local stand-in hub at %s", hub.getHubUrl());
+		return hub;
+	}
+
+	/**
+	 * A remote driver that can take screenshots (if the browser behind the hub can), as RemoteWebDriver
+	 * itself only does once augmented.
+	 */
+	private static final class ScreenshotCapableRemoteWebDriver extends RemoteWebDriver implements TakesScreenshot {
+		/**
+		 * Starts a session on the hub.
+		 *
+		 * @param executor sends commands to the hub
+		 * @param capabilities the capabilities asked of the hub
+		 */
+		private ScreenshotCapableRemoteWebDriver(HttpCommandExecutor executor, DesiredCapabilities capabilities) {
+			super(executor, capabilities);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.openqa.selenium.TakesScreenshot#getScreenshotAs(org.openqa.selenium.OutputType)
+		 */
+		@Override
+		public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+			Object base64 = execute(DriverCommand.SCREENSHOT).getValue();
+			if (!(base64 instanceof String)) {
+				throw new WebDriverException("The hub did not return a screenshot");
+			}
+			return target.convertFromBase64Png((String) base64);
+		}
+	}
+}
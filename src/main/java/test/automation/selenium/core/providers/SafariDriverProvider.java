@@ -4,7 +4,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.safari.SafariDriver;
 
-import test.automation.selenium.core.IWebDriverProvider;
+import test.automation.selenium.core.AbstractWebDriverProvider;
+import test.automation.selenium.core.BrowserType;
 
 /**
  * <p>A provider for the Selenium WebDriver for Apple Safari.</p>
@@ -16,7 +17,7 @@ import test.automation.selenium.core.IWebDriverProvider;
  * @author Mike Lambert
  *
  */
-public final class SafariDriverProvider implements IWebDriverProvider {
+public final class SafariDriverProvider extends AbstractWebDriverProvider {
 	/** The name of the .properties file from which to read driver binary paths */
 	//private static final String ENV_BUNDLE_NAME = "environment";
 	
@@ -24,10 +25,7 @@ public final class SafariDriverProvider implements IWebDriverProvider {
 	//private static final String SAFARI_BINARY_PATH = "webdriver.safari.driver";
 
 	/** The current singleton instance */
-	private static SafariDriverProvider instance;
-	
-	/** The instance of this browser driver to use to run tests */
-	private static SafariDriver driver;
+	private static final SafariDriverProvider instance = new SafariDriverProvider();
 
     /**
      * Returns the current singleton instance for this class.
@@ -35,26 +33,23 @@ public final class SafariDriverProvider implements IWebDriverProvider {
      * @return the current instance
      */
     public static SafariDriverProvider getCurrent() {
-        if (instance == null) {
-            instance = new SafariDriverProvider();
-        }
-      
         return instance;
     }
+
+    /**
+     * Use {@link #getCurrent()} to obtain the provider.
+     */
+    private SafariDriverProvider() {
+        super(BrowserType.SAFARI);
+    }
 	
 	/* (non-Javadoc)
-	 * @see com.wolfram.core.IWebDriverProvider#getDriver()
+	 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
 	 */
 	@Override
-	public WebDriver getDriver() {
-		if (driver != null) {
-			return driver;
-		}
-		
+	protected WebDriver createDriver() {
 		// Set any browser-specific settings here
 		
-		// Cache this driver for later
-		driver = new SafariDriver(DesiredCapabilities.safari());
-		return driver;
+		return new SafariDriver(DesiredCapabilities.safari());
 	}
 }
@@ -0,0 +1,308 @@
+package test.automation.selenium.core.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>A small HTTP server that runs inside of the test JVM, used to serve fixture pages (and simple
+ * dynamic endpoints) to the browsers under test. This gives us a deterministic, network-free target
+ * for exercising and benchmarking the harness itself.</p>
+ *
+ * <p>The server is built on the JDK's own <code>com.sun.net.httpserver</code> package, so it does not
+ * require any additional dependencies. Handlers are registered by path prefix before the server is started.</p>
+ *
+ */
+public class EmbeddedHttpServer {
+	/** The character set used for all text responses */
+	public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The host name that browsers should use to reach this server */
+	private static final String HOST = "localhost";
+
+	/** The underlying JDK server */
+	private final HttpServer server;
+
+	/** The threads used to handle requests */
+	private final ExecutorService executor;
+
+	/**
+	 * Creates (but does not start) a server bound to the given port.
+	 *
+	 * @param port the port to listen on, or 0 to pick any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public EmbeddedHttpServer(int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(HOST, port), 0);
+		this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "embedded-http-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.server.setExecutor(this.executor);
+	}
+
+	/**
+	 * Registers a handler for every request whose path starts with the given prefix.
+	 * When more than one prefix matches, the longest one wins.
+	 *
+	 * @param pathPrefix the path prefix to handle (e.g. "/app/")
+	 * @param handler the handler for matching requests
+	 * @return this server
+	 */
+	public EmbeddedHttpServer addHandler(String pathPrefix, HttpHandler handler) {
+		this.server.createContext(pathPrefix, new ErrorReportingHandler(handler));
+		return this;
+	}
+
+	/**
+	 * Registers a static classpath resource to be served at exactly the given path.
+	 *
+	 * @param path the path at which to serve the resource
+	 * @param resourceName the name of the classpath resource
+	 * @param contentType the content type of the resource
+	 * @return this server
+	 */
+	public EmbeddedHttpServer addResource(final String path, final String resourceName, final String contentType) {
+		final byte[] body = readResource(resourceName);
+		return this.addHandler(path, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				if (!path.equals(exchange.getRequestURI().getPath())) {
+					respond(exchange, 404, "text/plain", "Not Found".getBytes(UTF_8));
+					return;
+				}
+				respond(exchange, 200, contentType, body);
+			}
+		});
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Stops accepting requests and releases the port.
+	 */
+	public void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the URL at which browsers can reach this server, without a trailing slash.
+	 *
+	 * @return the base URL of this server (e.g. "http://localhost:54321")
+	 */
+	public String getBaseUrl() {
+		return "http://" + HOST + ":" + this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Sends a complete response.
+	 *
+	 * @param exchange the exchange to respond to
+	 * @param status the HTTP status code
+	 * @param contentType the content type of the body
+	 * @param body the body of the response
+	 * @throws IOException if the response cannot be written
+	 */
+	public static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			exchange.sendResponseHeaders(status, -1);
+		} else {
+			exchange.sendResponseHeaders(status, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+		}
+		exchange.close();
+	}
+
+	/**
+	 * Sends a "302 Found" redirect to the given location.
+	 *
+	 * @param exchange the exchange to respond to
+	 * @param location the URL (or absolute path) to redirect to
+	 * @throws IOException if the response cannot be written
+	 */
+	public static void redirect(HttpExchange exchange, String location) throws IOException {
+		// Send a (tiny) body: the JDK server resets kept-alive connections after an empty response
+		exchange.getResponseHeaders().set("Location", location);
+		respond(exchange, 302, "text/plain", "Found".getBytes(UTF_8));
+	}
+
+	/**
+	 * Returns the decoded query parameters of the request.
+	 *
+	 * @param exchange the exchange whose query to parse
+	 * @return the query parameters, in order
+	 */
+	public static Map<String, String> getQueryParameters(HttpExchange exchange) {
+		return parseParameters(exchange.getRequestURI().getRawQuery());
+	}
+
+	/**
+	 * Reads and decodes an "application/x-www-form-urlencoded" request body.
+	 *
+	 * @param exchange the exchange whose body to read
+	 * @return the form parameters, in order
+	 * @throws IOException if the body cannot be read
+	 */
+	public static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+		return parseParameters(new String(readFully(exchange.getRequestBody()), UTF_8));
+	}
+
+	/**
+	 * Reads the entire request body.
+	 *
+	 * @param exchange the exchange whose body to read
+	 * @return the body of the request
+	 * @throws IOException if the body cannot be read
+	 */
+	public static byte[] readBody(HttpExchange exchange) throws IOException {
+		return readFully(exchange.getRequestBody());
+	}
+
+	/**
+	 * Returns the cookies sent with the request.
+	 *
+	 * @param exchange the exchange whose cookies to read
+	 * @return the cookie values, keyed by name
+	 */
+	public static Map<String, String> getCookies(HttpExchange exchange) {
+		Map<String, String> cookies = new LinkedHashMap<String, String>();
+		List<String> headers = exchange.getRequestHeaders().get("Cookie");
+		if (headers == null) {
+			return cookies;
+		}
+
+		for (String header : headers) {
+			for (String pair : header.split(";")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					cookies.put(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim());
+				}
+			}
+		}
+		return cookies;
+	}
+
+	/**
+	 * Reads an entire classpath resource into memory.
+	 *
+	 * @param resourceName the name of the classpath resource
+	 * @return the contents of the resource
+	 * @throws IllegalArgumentException if the resource does not exist
+	 */
+	public static byte[] readResource(String resourceName) {
+		InputStream in = EmbeddedHttpServer.class.getClassLoader().getResourceAsStream(resourceName);
+		if (in == null) {
+			throw new IllegalArgumentException("Fixture resource not found on the classpath: " + resourceName);
+		}
+
+		try {
+			return readFully(in);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Failed to read fixture resource: " + resourceName, e);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// Nothing more to read
+			}
+		}
+	}
+
+	/**
+	 * Parses "a=1&amp;b=2" style parameters.
+	 */
+	private static Map<String, String> parseParameters(String encoded) {
+		Map<String, String> parameters = new LinkedHashMap<String, String>();
+		if (encoded == null || encoded.isEmpty()) {
+			return parameters;
+		}
+
+		try {
+			for (String pair : encoded.split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals < 0) {
+					parameters.put(URLDecoder.decode(pair, "UTF-8"), "");
+				} else {
+					parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+				}
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is always supported", e);
+		}
+		return parameters;
+	}
+
+	/**
+	 * Reads a stream to its end.
+	 */
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Turns any exception thrown by a handler into a "500 Internal Server Error" response,
+	 * rather than silently dropping the connection.
+	 */
+	private static final class ErrorReportingHandler implements HttpHandler {
+		/** The handler doing the real work */
+		private final HttpHandler delegate;
+
+		/**
+		 * Wraps the given handler.
+		 *
+		 * @param delegate the handler doing the real work
+		 */
+		private ErrorReportingHandler(HttpHandler delegate) {
+			this.delegate = delegate;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				this.delegate.handle(exchange);
+			} catch (RuntimeException e) {
+				respond(exchange, 500, "text/plain", String.valueOf(e).getBytes(UTF_8));
+			}
+		}
+	}
+}
@@ -0,0 +1,533 @@
+package test.automation.selenium.core.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.ErrorCodes;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionNotFoundException;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.JsonHttpCommandCodec;
+import org.openqa.selenium.remote.http.JsonHttpResponseCodec;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * <p>A local stand-in for a Selenium Grid hub (or a lone Selenium server), so that the remote driver
+ * provider can be exercised without one. It speaks the JSON wire protocol at {@value #HUB_PATH}, and
+ * backs each session with an HtmlUnit browser running inside of the test JVM.</p>
+ *
+ * <p>Only the commands used by our page objects and the harness are supported (navigation, finding and
+ * interacting with elements, scripts, windows, frames, cookies, and timeouts); anything else (e.g.
+ * screenshots, which HtmlUnit cannot take) is answered with an "unknown command" error, just like a real
+ * node whose browser does not support it.</p>
+ *
+ * <p>The hub also counts the commands it has handled, and the distinct client connections they came in
+ * on, so that keep-alive between the harness and the hub can be checked.</p>
+ *
+ */
+public class StandInHub {
+	/** The path at which the hub is served, as for a real hub */
+	public static final String HUB_PATH = "/wd/hub";
+
+	/** The content type of every response */
+	private static final String JSON = "application/json; charset=utf-8";
+
+	/** The key under which elements are referenced in the JSON wire protocol */
+	private static final String ELEMENT_KEY = "ELEMENT";
+
+	/** The underlying server */
+	private final EmbeddedHttpServer server;
+
+	/** Decodes requests into commands */
+	private final JsonHttpCommandCodec commandCodec = new JsonHttpCommandCodec();
+
+	/** Encodes responses */
+	private final JsonHttpResponseCodec responseCodec = new JsonHttpResponseCodec();
+
+	/** Maps exceptions to wire protocol status codes */
+	private final ErrorCodes errorCodes = new ErrorCodes();
+
+	/** The open sessions, by session ID */
+	private final Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+	/** The client connections (by remote address) that commands have come in on */
+	private final Set<String> connections = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** The number of commands handled */
+	private final AtomicLong commandCount = new AtomicLong();
+
+	/** Generates element IDs, unique across sessions */
+	private final AtomicLong nextElementId = new AtomicLong();
+
+	/**
+	 * Creates (but does not start) a stand-in hub bound to the given port.
+	 *
+	 * @param port the port to listen on, or 0 to pick any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public StandInHub(int port) throws IOException {
+		this.server = new EmbeddedHttpServer(port).addHandler(HUB_PATH + "/", new HubHandler());
+	}
+
+	/**
+	 * Starts accepting commands.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Stops accepting commands, and quits every browser still open.
+	 */
+	public void stop() {
+		this.server.stop();
+		for (Session session : this.sessions.values()) {
+			session.driver.quit();
+		}
+		this.sessions.clear();
+	}
+
+	/**
+	 * Returns the URL of the hub, as given to a remote driver.
+	 *
+	 * @return the hub URL (e.g. "http://localhost:54321/wd/hub")
+	 */
+	public String getHubUrl() {
+		return this.server.getBaseUrl() + HUB_PATH;
+	}
+
+	/**
+	 * Returns the number of commands handled so far.
+	 *
+	 * @return the command count
+	 */
+	public long getCommandCount() {
+		return this.commandCount.get();
+	}
+
+	/**
+	 * Returns the number of distinct client connections that commands have come in on so far.
+	 *
+	 * @return the connection count
+	 */
+	public int getConnectionCount() {
+		return this.connections.size();
+	}
+
+	/**
+	 * Returns the number of sessions currently open.
+	 *
+	 * @return the session count
+	 */
+	public int getSessionCount() {
+		return this.sessions.size();
+	}
+
+	/**
+	 * Executes a command, returning its value.
+	 */
+	private Object execute(Command command) {
+		String name = command.getName();
+		if (DriverCommand.STATUS.equals(name)) {
+			return Collections.singletonMap("ready", true);
+		} else if (DriverCommand.NEW_SESSION.equals(name)) {
+			throw new IllegalStateException("New sessions are started by the caller");
+		}
+
+		Session session = this.sessions.get(String.valueOf(command.getSessionId()));
+		if (session == null) {
+			throw new SessionNotFoundException("No such session: " + command.getSessionId());
+		}
+		// One command at a time per browser, as on a real node
+		synchronized (session) {
+			return session.execute(name, command.getParameters());
+		}
+	}
+
+	/**
+	 * Starts a new session, returning its ID.
+	 */
+	private String newSession() {
+		String id = UUID.randomUUID().toString();
+		this.sessions.put(id, new Session());
+		return id;
+	}
+
+	/**
+	 * Handles every request to the hub.
+	 */
+	private final class HubHandler implements HttpHandler {
+		/* (non-Javadoc)
+		 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			InetSocketAddress client = exchange.getRemoteAddress();
+			connections.add(client.getAddress().getHostAddress() + ":" + client.getPort());
+			commandCount.incrementAndGet();
+
+			HttpRequest request = new HttpRequest(HttpMethod.valueOf(exchange.getRequestMethod()),
+					exchange.getRequestURI().getPath().substring(HUB_PATH.length()));
+			request.setContent(EmbeddedHttpServer.readBody(exchange));
+
+			Response response = new Response();
+			try {
+				Command command = commandCodec.decode(request);
+				if (DriverCommand.NEW_SESSION.equals(command.getName())) {
+					String sessionId = newSession();
+					response.setSessionId(sessionId);
+					response.setValue(sessions.get(sessionId).getCapabilities());
+				} else {
+					response.setSessionId(command.getSessionId() != null ? command.getSessionId().toString() : null);
+					response.setValue(execute(command));
+				}
+				response.setStatus(ErrorCodes.SUCCESS);
+			} catch (RuntimeException e) {
+				response.setStatus(errorCodes.toStatusCode(e));
+				response.setValue(Collections.singletonMap("message", String.valueOf(e.getMessage())));
+			}
+
+			HttpResponse encoded = responseCodec.encode(response);
+			EmbeddedHttpServer.respond(exchange, encoded.getStatus(), JSON, encoded.getContent());
+		}
+	}
+
+	/**
+	 * A session, backed by an HtmlUnit browser.
+	 */
+	private final class Session {
+		/** The browser */
+		private final HtmlUnitDriver driver = new HtmlUnitDriver(true);
+
+		/** The elements handed out to the client, by element ID */
+		private final Map<String, WebElement> elements = new HashMap<String, WebElement>();
+
+		/** The ID of each element handed out to the client */
+		private final Map<WebElement, String> elementIds = new HashMap<WebElement, String>();
+
+		/**
+		 * Returns the capabilities of this session's browser.
+		 */
+		private Map<String, Object> getCapabilities() {
+			return new LinkedHashMap<String, Object>(this.driver.getCapabilities().asMap());
+		}
+
+		/**
+		 * Executes a command of this session, returning its value.
+		 */
+		private Object execute(String name, Map<String, ?> parameters) {
+			WebDriver.Options options = this.driver.manage();
+			switch (name) {
+				case DriverCommand.QUIT:
+					sessions.values().remove(this);
+					this.driver.quit();
+					return null;
+				case DriverCommand.CLOSE:
+					this.driver.close();
+					return null;
+				case DriverCommand.GET:
+					this.driver.get((String) parameters.get("url"));
+					return null;
+				case DriverCommand.GET_CURRENT_URL:
+					return this.driver.getCurrentUrl();
+				case DriverCommand.GET_TITLE:
+					return this.driver.getTitle();
+				case DriverCommand.GET_PAGE_SOURCE:
+					return this.driver.getPageSource();
+				case DriverCommand.GO_BACK:
+					this.driver.navigate().back();
+					return null;
+				case DriverCommand.GO_FORWARD:
+					this.driver.navigate().forward();
+					return null;
+				case DriverCommand.REFRESH:
+					this.driver.navigate().refresh();
+					return null;
+
+				case DriverCommand.FIND_ELEMENT:
+					return toWire(this.driver.findElement(locatorOf(parameters)));
+				case DriverCommand.FIND_ELEMENTS:
+					return toWire(this.driver.findElements(locatorOf(parameters)));
+				case DriverCommand.FIND_CHILD_ELEMENT:
+					return toWire(elementOf(parameters).findElement(locatorOf(parameters)));
+				case DriverCommand.FIND_CHILD_ELEMENTS:
+					return toWire(elementOf(parameters).findElements(locatorOf(parameters)));
+				case DriverCommand.GET_ACTIVE_ELEMENT:
+					return toWire(this.driver.switchTo().activeElement());
+
+				case DriverCommand.CLICK_ELEMENT:
+					elementOf(parameters).click();
+					return null;
+				case DriverCommand.SUBMIT_ELEMENT:
+					elementOf(parameters).submit();
+					return null;
+				case DriverCommand.CLEAR_ELEMENT:
+					elementOf(parameters).clear();
+					return null;
+				case DriverCommand.SEND_KEYS_TO_ELEMENT:
+					StringBuilder keys = new StringBuilder();
+					for (Object key : (List<?>) parameters.get("value")) {
+						keys.append(key);
+					}
+					elementOf(parameters).sendKeys(keys);
+					return null;
+				case DriverCommand.GET_ELEMENT_TEXT:
+					return elementOf(parameters).getText();
+				case DriverCommand.GET_ELEMENT_TAG_NAME:
+					return elementOf(parameters).getTagName();
+				case DriverCommand.GET_ELEMENT_ATTRIBUTE:
+					return elementOf(parameters).getAttribute((String) parameters.get("name"));
+				case DriverCommand.GET_ELEMENT_VALUE_OF_CSS_PROPERTY:
+					return elementOf(parameters).getCssValue((String) parameters.get("propertyName"));
+				case DriverCommand.IS_ELEMENT_DISPLAYED:
+					return elementOf(parameters).isDisplayed();
+				case DriverCommand.IS_ELEMENT_ENABLED:
+					return elementOf(parameters).isEnabled();
+				case DriverCommand.IS_ELEMENT_SELECTED:
+					return elementOf(parameters).isSelected();
+				case DriverCommand.GET_ELEMENT_LOCATION:
+					Point location = elementOf(parameters).getLocation();
+					return pairOf("x", location.getX(), "y", location.getY());
+				case DriverCommand.GET_ELEMENT_SIZE:
+					Dimension size = elementOf(parameters).getSize();
+					return pairOf("width", size.getWidth(), "height", size.getHeight());
+				case DriverCommand.ELEMENT_EQUALS:
+					return elementOf(parameters).equals(elementOf((String) parameters.get("other")));
+
+				case DriverCommand.EXECUTE_SCRIPT:
+					return toWire(((JavascriptExecutor) this.driver).executeScript((String) parameters.get("script"),
+							fromWire((List<?>) parameters.get("args")).toArray()));
+				case DriverCommand.EXECUTE_ASYNC_SCRIPT:
+					return toWire(((JavascriptExecutor) this.driver).executeAsyncScript((String) parameters.get("script"),
+							fromWire((List<?>) parameters.get("args")).toArray()));
+
+				case DriverCommand.GET_WINDOW_HANDLES:
+					return new ArrayList<String>(this.driver.getWindowHandles());
+				case DriverCommand.GET_CURRENT_WINDOW_HANDLE:
+					return this.driver.getWindowHandle();
+				case DriverCommand.SWITCH_TO_WINDOW:
+					this.driver.switchTo().window((String) parameters.get("name"));
+					return null;
+				case DriverCommand.SWITCH_TO_FRAME:
+					Object frame = fromWire(parameters.get("id"));
+					if (frame == null) {
+						this.driver.switchTo().defaultContent();
+					} else if (frame instanceof Number) {
+						this.driver.switchTo().frame(((Number) frame).intValue());
+					} else if (frame instanceof WebElement) {
+						this.driver.switchTo().frame((WebElement) frame);
+					} else {
+						this.driver.switchTo().frame(String.valueOf(frame));
+					}
+					return null;
+				case DriverCommand.SWITCH_TO_PARENT_FRAME:
+					this.driver.switchTo().parentFrame();
+					return null;
+				case DriverCommand.MAXIMIZE_WINDOW:
+				case DriverCommand.SET_WINDOW_SIZE:
+				case DriverCommand.SET_WINDOW_POSITION:
+					// HtmlUnit has no window to resize
+					return null;
+
+				case DriverCommand.GET_ALL_COOKIES:
+					List<Map<String, Object>> cookies = new ArrayList<Map<String, Object>>();
+					for (Cookie cookie : options.getCookies()) {
+						cookies.add(cookieToWire(cookie));
+					}
+					return cookies;
+				case DriverCommand.ADD_COOKIE:
+					options.addCookie(cookieFromWire((Map<?, ?>) parameters.get("cookie")));
+					return null;
+				case DriverCommand.DELETE_COOKIE:
+					options.deleteCookieNamed((String) parameters.get("name"));
+					return null;
+				case DriverCommand.DELETE_ALL_COOKIES:
+					options.deleteAllCookies();
+					return null;
+
+				case DriverCommand.IMPLICITLY_WAIT:
+					options.timeouts().implicitlyWait(((Number) parameters.get("ms")).longValue(), TimeUnit.MILLISECONDS);
+					return null;
+				case DriverCommand.SET_SCRIPT_TIMEOUT:
+					options.timeouts().setScriptTimeout(((Number) parameters.get("ms")).longValue(), TimeUnit.MILLISECONDS);
+					return null;
+				case DriverCommand.SET_TIMEOUT:
+					long millis = ((Number) parameters.get("ms")).longValue();
+					if ("implicit".equals(parameters.get("type"))) {
+						options.timeouts().implicitlyWait(millis, TimeUnit.MILLISECONDS);
+					} else if ("script".equals(parameters.get("type"))) {
+						options.timeouts().setScriptTimeout(millis, TimeUnit.MILLISECONDS);
+					}
+					// HtmlUnit loads pages synchronously, so there is no page load timeout to set
+					return null;
+
+				default:
+					throw new UnsupportedCommandException("Not supported by the stand-in hub: " + name);
+			}
+		}
+
+		/**
+		 * Returns the locator given by the "using" and "value" parameters of a find command.
+		 */
+		private By locatorOf(Map<String, ?> parameters) {
+			String using = (String) parameters.get("using");
+			String value = (String) parameters.get("value");
+			switch (using) {
+				case "id":
+					return By.id(value);
+				case "name":
+					return By.name(value);
+				case "class name":
+					return By.className(value);
+				case "css selector":
+					return By.cssSelector(value);
+				case "link text":
+					return By.linkText(value);
+				case "partial link text":
+					return By.partialLinkText(value);
+				case "tag name":
+					return By.tagName(value);
+				case "xpath":
+					return By.xpath(value);
+				default:
+					throw new UnsupportedCommandException("Unknown locator strategy: " + using);
+			}
+		}
+
+		/**
+		 * Returns the element given by the "id" parameter of an element command.
+		 */
+		private WebElement elementOf(Map<String, ?> parameters) {
+			return elementOf((String) parameters.get("id"));
+		}
+
+		/**
+		 * Returns the element handed out to the client with the given ID.
+		 */
+		private WebElement elementOf(String id) {
+			WebElement element = this.elements.get(id);
+			if (element == null) {
+				throw new StaleElementReferenceException("Unknown element: " + id);
+			}
+			return element;
+		}
+
+		/**
+		 * Converts a value returned by the browser to its wire form, replacing elements by references.
+		 */
+		private Object toWire(Object value) {
+			if (value instanceof WebElement) {
+				String id = this.elementIds.get(value);
+				if (id == null) {
+					id = String.valueOf(nextElementId.incrementAndGet());
+					this.elementIds.put((WebElement) value, id);
+					this.elements.put(id, (WebElement) value);
+				}
+				return Collections.singletonMap(ELEMENT_KEY, id);
+			} else if (value instanceof List) {
+				List<Object> converted = new ArrayList<Object>();
+				for (Object item : (List<?>) value) {
+					converted.add(toWire(item));
+				}
+				return converted;
+			} else if (value instanceof Map) {
+				Map<Object, Object> converted = new LinkedHashMap<Object, Object>();
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					converted.put(entry.getKey(), toWire(entry.getValue()));
+				}
+				return converted;
+			}
+			return value;
+		}
+
+		/**
+		 * Converts a value sent by the client to the form the browser expects, resolving element references.
+		 */
+		private Object fromWire(Object value) {
+			if (value instanceof Map && ((Map<?, ?>) value).containsKey(ELEMENT_KEY)) {
+				return elementOf(String.valueOf(((Map<?, ?>) value).get(ELEMENT_KEY)));
+			} else if (value instanceof List) {
+				return fromWire((List<?>) value);
+			}
+			return value;
+		}
+
+		/**
+		 * Converts a list of values sent by the client (e.g. script arguments).
+		 */
+		private List<Object> fromWire(List<?> values) {
+			List<Object> converted = new ArrayList<Object>();
+			if (values != null) {
+				for (Object value : values) {
+					converted.add(fromWire(value));
+				}
+			}
+			return converted;
+		}
+
+		/**
+		 * Converts a cookie to its wire form.
+		 */
+		private Map<String, Object> cookieToWire(Cookie cookie) {
+			Map<String, Object> converted = new LinkedHashMap<String, Object>();
+			converted.put("name", cookie.getName());
+			converted.put("value", cookie.getValue());
+			converted.put("path", cookie.getPath());
+			converted.put("domain", cookie.getDomain());
+			converted.put("secure", cookie.isSecure());
+			converted.put("httpOnly", cookie.isHttpOnly());
+			if (cookie.getExpiry() != null) {
+				converted.put("expiry", cookie.getExpiry().getTime() / 1000);
+			}
+			return converted;
+		}
+
+		/**
+		 * Converts a cookie sent by the client.
+		 */
+		private Cookie cookieFromWire(Map<?, ?> cookie) {
+			Object expiry = cookie.get("expiry");
+			return new Cookie((String) cookie.get("name"), (String) cookie.get("value"), (String) cookie.get("domain"),
+					(String) cookie.get("path"), (expiry instanceof Number) ? new Date(((Number) expiry).longValue() * 1000) : null,
+					Boolean.TRUE.equals(cookie.get("secure")), Boolean.TRUE.equals(cookie.get("httpOnly")));
+		}
+
+		/**
+		 * Returns a map of two named numbers (e.g. a point or a size).
+		 */
+		private Map<String, Object> pairOf(String firstName, int first, String secondName, int second) {
+			Map<String, Object> pair = new LinkedHashMap<String, Object>();
+			pair.put(firstName, first);
+			pair.put(secondName, second);
+			return pair;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package test.automation.selenium.core.sharding;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.testng.IMethodSelector;
+import org.testng.IMethodSelectorContext;
+import org.testng.ITestNGMethod;
+import org.testng.xml.XmlTest;
+
+import test.automation.selenium.core.HarnessSettings;
+
+/**
+ * <p>A TestNG method selector that splits a suite into shards, so that the same suite XML can be run by
+ * several JVMs (on one host or many), each running only its own share of the tests. Register it in the
+ * suite XML (with a priority below TestNG's own selector, which still applies its group filters):</p>
+ *
+ * <pre>
+ * &lt;method-selectors&gt;
+ *   &lt;method-selector&gt;
+ *     &lt;selector-class name="test.automation.selenium.core.sharding.ShardMethodSelector" priority="1"/&gt;
+ *   &lt;/method-selector&gt;
+ * &lt;/method-selectors&gt;
+ * </pre>
+ *
+ * <p>Test methods are grouped into chains: methods of the same &lt;test&gt; that depend on one another, through
+ * <code>dependsOnGroups</code> or <code>dependsOnMethods</code>, belong to the same chain, so that a method
+ * never ends up in a different shard from the methods it depends on. Each chain of each &lt;test&gt; is then
+ * assigned to a shard by a hash of the test's "browser" parameter and the first of the chain's methods, so every
+ * JVM agrees on the split without talking to the others, and a chain stays in the same shard from one run to
+ * the next. Configuration methods are left to TestNG: they only run for classes that have tests in the shard.</p>
+ *
+ * <p>The shard is chosen with the following settings (see {@link HarnessSettings}), e.g.
+ * <code>mvn integration-test -Dshard.index=0 -Dshard.count=3</code>:
+ *   <ul>
+ *     <li><code>shard.count</code> - the number of shards (default 1, i.e. run everything)</li>
+ *     <li><code>shard.index</code> - which of them to run, from 0 to <code>shard.count - 1</code> (default 0)</li>
+ *   </ul>
+ * </p>
+ *
+ * <p>Use {@link ShardReportMerger} to combine the reports and screenshots of every shard.</p>
+ *
+ */
+public class ShardMethodSelector implements IMethodSelector {
+	/** Serialization version */
+	private static final long serialVersionUID = 1L;
+
+	/** The name of the suite XML parameter that names the browser for each test */
+	private static final String BROWSER_PARAMETER = "browser";
+
+	/** The character set of the shard keys */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The number of shards */
+	private final int count = HarnessSettings.getInt("shard.count", 1);
+
+	/** The shard to run */
+	private final int index = HarnessSettings.getInt("shard.index", 0);
+
+	/** The test methods of the current &lt;test&gt; (TestNG fills this list in after handing it over) */
+	private List<ITestNGMethod> testMethods = Collections.emptyList();
+
+	/** The shard of each test method of the current &lt;test&gt;, by fully-qualified name */
+	private final Map<String, Integer> shards = new HashMap<String, Integer>();
+
+	/** The number of test methods from which {@link #shards} was computed */
+	private int shardedMethods = -1;
+
+	/**
+	 * Creates a selector for the shard given by the settings.
+	 *
+	 * @throws IllegalArgumentException if the settings do not name a valid shard
+	 */
+	public ShardMethodSelector() {
+		if (this.count < 1 || this.index < 0 || this.index >= this.count) {
+			throw new IllegalArgumentException("Invalid shard: shard.index must be between 0 and shard.count - 1, but was "
+					+ this.index + " of " + this.count);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.IMethodSelector#includeMethod(org.testng.IMethodSelectorContext, org.testng.ITestNGMethod, boolean)
+	 */
+	@Override
+	public boolean includeMethod(IMethodSelectorContext context, ITestNGMethod method, boolean isTestMethod) {
+		if (!isTestMethod || this.count == 1) {
+			return true;
+		}
+
+		if (this.shardedMethods != this.testMethods.size()) {
+			computeShards();
+		}
+		Integer shard = this.shards.get(nameOf(method));
+		if (shard == null) {
+			// Not one of the methods that we were told about: shard it on its own
+			shard = shardOf(method.getXmlTest(), nameOf(method));
+		}
+		if (shard != this.index) {
+			// Another shard's method: TestNG's own selector must not include it again
+			context.setStopped(true);
+			return false;
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.IMethodSelector#setTestMethods(java.util.List)
+	 */
+	@Override
+	public void setTestMethods(List<ITestNGMethod> testMethods) {
+		this.testMethods = testMethods;
+		this.shardedMethods = -1;
+	}
+
+	/**
+	 * Assigns every chain of test methods of the current &lt;test&gt; to a shard.
+	 */
+	private void computeShards() {
+		List<ITestNGMethod> testMethods = new ArrayList<ITestNGMethod>(this.testMethods);
+		this.shards.clear();
+		this.shardedMethods = testMethods.size();
+
+		// Join each method to the methods that it depends on
+		Chains chains = new Chains(testMethods);
+		for (ITestNGMethod method : testMethods) {
+			for (ITestNGMethod other : testMethods) {
+				if (dependsOn(method, other)) {
+					chains.join(method, other);
+				}
+			}
+		}
+
+		// Name each chain after its first method (by name, so that every JVM picks the same one)
+		Map<ITestNGMethod, String> firstMethods = new IdentityHashMap<ITestNGMethod, String>();
+		for (ITestNGMethod method : testMethods) {
+			ITestNGMethod root = chains.rootOf(method);
+			String first = firstMethods.get(root);
+			if (first == null || nameOf(method).compareTo(first) < 0) {
+				firstMethods.put(root, nameOf(method));
+			}
+		}
+		for (ITestNGMethod method : testMethods) {
+			this.shards.put(nameOf(method), shardOf(method.getXmlTest(), firstMethods.get(chains.rootOf(method))));
+		}
+	}
+
+	/**
+	 * Returns true if the first method depends on the second, by group or by name.
+	 */
+	private static boolean dependsOn(ITestNGMethod method, ITestNGMethod other) {
+		for (String group : method.getGroupsDependedUpon()) {
+			if (contains(other.getGroups(), group)) {
+				return true;
+			}
+		}
+		for (String pattern : method.getMethodsDependedUpon()) {
+			// TestNG matches these as regular expressions, once the '$' of nested class names is escaped
+			if (Pattern.matches(pattern.replace("$", "\\$"), nameOf(other))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the fully-qualified name of a method, as used by <code>dependsOnMethods</code>.
+	 */
+	private static String nameOf(ITestNGMethod method) {
+		return method.getRealClass().getName() + "." + method.getMethodName();
+	}
+
+	/**
+	 * Returns the shard of the given &lt;test&gt;'s chain that starts with the given method.
+	 */
+	private int shardOf(XmlTest test, String firstMethod) {
+		String browser = null;
+		if (test != null) {
+			browser = test.getParameter(BROWSER_PARAMETER);
+			if (browser == null) {
+				browser = test.getName();
+			}
+		}
+
+		CRC32 hash = new CRC32();
+		hash.update((String.valueOf(browser).toLowerCase() + "|" + firstMethod).getBytes(UTF_8));
+		return (int) (hash.getValue() % this.count);
+	}
+
+	/**
+	 * Returns true if the given array holds the given value.
+	 */
+	private static boolean contains(String[] values, String value) {
+		for (String candidate : values) {
+			if (candidate.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The chains of dependent methods, as a union-find over the methods of one &lt;test&gt;.
+	 */
+	private static final class Chains {
+		/** The parent of each method in its chain's tree (a chain's root is its own parent) */
+		private final Map<ITestNGMethod, ITestNGMethod> parents = new IdentityHashMap<ITestNGMethod, ITestNGMethod>();
+
+		/**
+		 * Starts with every method in a chain of its own.
+		 *
+		 * @param methods the methods
+		 */
+		private Chains(List<ITestNGMethod> methods) {
+			for (ITestNGMethod method : methods) {
+				this.parents.put(method, method);
+			}
+		}
+
+		/**
+		 * Returns the method that stands for the given method's chain.
+		 */
+		private ITestNGMethod rootOf(ITestNGMethod method) {
+			ITestNGMethod root = method;
+			while (this.parents.get(root) != root) {
+				root = this.parents.get(root);
+			}
+			// Point every method on the way straight at the root
+			while (this.parents.get(method) != root) {
+				ITestNGMethod next = this.parents.get(method);
+				this.parents.put(method, root);
+				method = next;
+			}
+			return root;
+		}
+
+		/**
+		 * Puts two methods (and their chains) into the same chain.
+		 */
+		private void join(ITestNGMethod first, ITestNGMethod second) {
+			ITestNGMethod firstRoot = rootOf(first);
+			ITestNGMethod secondRoot = rootOf(second);
+			if (firstRoot != secondRoot) {
+				this.parents.put(secondRoot, firstRoot);
+			}
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package test.automation.selenium.core.sharding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import test.automation.selenium.core.ScreenshotStore;
+import test.automation.selenium.core.logging.HarnessLogger;
+
+/**
+ * <p>Combines the output of every shard of a suite (see {@link ShardMethodSelector}) into one report.
+ * Copy the output directories of each shard (e.g. <code>target/failsafe-reports</code> and
+ * <code>test-screenshots</code>) into a directory per shard, then run:</p>
+ *
+ * <pre>
+ * java -cp target/classes test.automation.selenium.core.sharding.ShardReportMerger merged shard-0 shard-1 shard-2
+ * </pre>
+ *
+ * <p>Files are merged by their path within the shard directories:
+ *   <ul>
+ *     <li>TestNG (<code>testng-results.xml</code>) and JUnit (e.g. ReportNG's <code>xml/*_results.xml</code>)
+ *         reports of the same name are merged into one, with their totals added up</li>
+ *     <li>Screenshot indexes ({@value ScreenshotStore#INDEX_FILE_NAME}) are concatenated, and their images
+ *         (which are named for their contents) are copied once</li>
+ *     <li>Anything else (e.g. ReportNG's HTML) cannot be merged, and is kept as-is under
+ *         <code>shards/SHARD/</code></li>
+ *   </ul>
+ * </p>
+ *
+ */
+public final class ShardReportMerger {
+	/** Logs the messages of this class */
+	private static final HarnessLogger log = HarnessLogger.getLogger(ShardReportMerger.class);
+
+	/** The root elements of the XML reports that can be merged */
+	private static final Set<String> REPORT_ROOTS = new HashSet<String>(Arrays.asList("testng-results", "testsuites", "testsuite"));
+
+	/** The attributes of report elements that hold totals, and are added up */
+	private static final Set<String> TOTALS = new HashSet<String>(Arrays.asList(
+			"total", "passed", "failed", "skipped", "ignored", "tests", "failures", "errors", "skips", "time", "duration-ms"));
+
+	/** The child elements of report elements of which only the first is kept */
+	private static final Set<String> SINGLE_CHILDREN = new HashSet<String>(Arrays.asList("properties"));
+
+	/** The child elements of report elements whose contents are combined into the first one */
+	private static final Set<String> COMBINED_CHILDREN = new HashSet<String>(Arrays.asList("reporter-output", "groups"));
+
+	/**
+	 * The child elements of report elements that every shard reports (e.g. each shard runs every &lt;test&gt;
+	 * of the suite, with its own share of the methods), and that are merged with the one of the same name
+	 */
+	private static final Set<String> NAMED_CHILDREN = new HashSet<String>(Arrays.asList("suite", "test", "class", "group", "testsuite"));
+
+	/** The directory under which files that cannot be merged are kept, per shard */
+	private static final String UNMERGED_DIR_NAME = "shards";
+
+	/** The character set of the screenshot indexes */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** Where to write the merged output */
+	private final Path output;
+
+	/** The output directory of each shard */
+	private final List<Path> shards;
+
+	/** Parses the XML reports */
+	private final DocumentBuilder parser;
+
+	/** The merged XML reports, by path */
+	private final Map<Path, Document> reports = new LinkedHashMap<Path, Document>();
+
+	/** The merged screenshot indexes, by path */
+	private final Map<Path, Set<String>> indexes = new LinkedHashMap<Path, Set<String>>();
+
+	/**
+	 * Creates a merger.
+	 *
+	 * @param output where to write the merged output
+	 * @param shards the output directory of each shard
+	 * @throws ParserConfigurationException if no XML parser is available
+	 */
+	public ShardReportMerger(File output, List<File> shards) throws ParserConfigurationException {
+		this.output = output.toPath();
+		this.shards = new ArrayList<Path>();
+		for (File shard : shards) {
+			this.shards.add(shard.toPath());
+		}
+
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		this.parser = factory.newDocumentBuilder();
+	}
+
+	/**
+	 * Merges the output of every shard.
+	 *
+	 * @throws IOException if a file cannot be read or written
+	 * @throws SAXException if an XML report cannot be parsed
+	 * @throws TransformerException if a merged XML report cannot be written
+	 */
+	public void merge() throws IOException, SAXException, TransformerException {
+		for (Path shard : this.shards) {
+			for (Path file : filesOf(shard)) {
+				mergeFile(shard, shard.relativize(file));
+			}
+		}
+
+		for (Map.Entry<Path, Document> report : this.reports.entrySet()) {
+			writeReport(this.output.resolve(report.getKey()), report.getValue());
+		}
+		for (Map.Entry<Path, Set<String>> index : this.indexes.entrySet()) {
+			Path target = this.output.resolve(index.getKey());
+			StringBuilder lines = new StringBuilder();
+			for (String line : index.getValue()) {
+				lines.append(line).append('\n');
+			}
+			Files.createDirectories(target.getParent());
+			Files.write(target, lines.toString().getBytes(UTF_8));
+		}
+	}
+
+	/**
+	 * Merges one file of a shard into the output.
+	 */
+	private void mergeFile(Path shard, Path relative) throws IOException, SAXException {
+		Path source = shard.resolve(relative);
+		String name = relative.getFileName().toString();
+		Path parent = relative.getParent();
+
+		if (name.equals(ScreenshotStore.INDEX_FILE_NAME)) {
+			List<String> lines = Files.readAllLines(source, UTF_8);
+			Set<String> merged = this.indexes.get(relative);
+			if (merged == null) {
+				this.indexes.put(relative, new LinkedHashSet<String>(lines));
+			} else if (!lines.isEmpty()) {
+				// Every index starts with the same header
+				merged.addAll(lines.subList(1, lines.size()));
+			}
+			return;
+		}
+
+		if (parent != null && parent.getFileName().toString().equals(ScreenshotStore.IMAGE_DIR_NAME)
+				&& Files.exists(shard.resolve(parent).resolveSibling(ScreenshotStore.INDEX_FILE_NAME))) {
+			// Named for their contents: a screenshot of the same name is the same screenshot
+			Path target = this.output.resolve(relative);
+			if (!Files.exists(target)) {
+				Files.createDirectories(target.getParent());
+				Files.copy(source, target);
+			}
+			return;
+		}
+
+		if (name.endsWith(".xml")) {
+			Document report = this.parser.parse(source.toFile());
+			if (REPORT_ROOTS.contains(report.getDocumentElement().getTagName())) {
+				Document merged = this.reports.get(relative);
+				if (merged == null) {
+					this.reports.put(relative, report);
+				} else if (merged.getDocumentElement().getTagName().equals(report.getDocumentElement().getTagName())) {
+					mergeElement(merged.getDocumentElement(), report.getDocumentElement());
+				} else {
+					keepUnmerged(shard, relative);
+				}
+				return;
+			}
+		}
+
+		keepUnmerged(shard, relative);
+	}
+
+	/**
+	 * Merges a report element into the matching element of the merged report: totals are added up,
+	 * children of the same name are merged in turn, and other children are appended (except for those
+	 * of which there should only be one).
+	 */
+	private void mergeElement(Element target, Element source) {
+		NamedNodeMap attributes = source.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			String name = attribute.getNodeName();
+			if (!TOTALS.contains(name)) {
+				continue;
+			}
+			try {
+				BigDecimal sum = new BigDecimal(attribute.getNodeValue().trim());
+				if (target.hasAttribute(name)) {
+					sum = sum.add(new BigDecimal(target.getAttribute(name).trim()));
+				}
+				target.setAttribute(name, sum.toPlainString());
+			} catch (NumberFormatException e) {
+				// Not a number after all: keep the first report's value
+			}
+		}
+
+		for (Node child = source.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (!(child instanceof Element)) {
+				continue;
+			}
+
+			String name = child.getNodeName();
+			Element existing = firstChild(target, name, null);
+			if (existing != null && SINGLE_CHILDREN.contains(name)) {
+				continue;
+			} else if (existing != null && COMBINED_CHILDREN.contains(name)) {
+				mergeElement(existing, (Element) child);
+			} else if (NAMED_CHILDREN.contains(name) && (existing = firstChild(target, name, ((Element) child).getAttribute("name"))) != null) {
+				mergeElement(existing, (Element) child);
+			} else {
+				target.appendChild(target.getOwnerDocument().importNode(child, true));
+			}
+		}
+	}
+
+	/**
+	 * Copies a file that cannot be merged under the directory of its shard.
+	 */
+	private void keepUnmerged(Path shard, Path relative) throws IOException {
+		Path target = this.output.resolve(UNMERGED_DIR_NAME).resolve(shard.getFileName().toString()).resolve(relative.toString());
+		Files.createDirectories(target.getParent());
+		Files.copy(shard.resolve(relative), target, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Writes a merged XML report.
+	 */
+	private void writeReport(Path target, Document report) throws IOException, TransformerException {
+		Files.createDirectories(target.getParent());
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+		try (OutputStream out = Files.newOutputStream(target)) {
+			transformer.transform(new DOMSource(report), new StreamResult(out));
+		}
+	}
+
+	/**
+	 * Returns the first child element of the given element with the given tag name
+	 * (and "name" attribute, unless null), or null.
+	 */
+	private static Element firstChild(Element parent, String tagName, String name) {
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element && child.getNodeName().equals(tagName)
+					&& (name == null || name.equals(((Element) child).getAttribute("name")))) {
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns every file within the given directory, in a stable order.
+	 */
+	private static List<Path> filesOf(Path directory) throws IOException {
+		final List<Path> files = new ArrayList<Path>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				files.add(file);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Merges the output of the given shards.
+	 *
+	 * @param args the directory to write the merged output to, followed by the output directory of each shard
+	 * @throws Exception if the output cannot be merged
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("Usage: ShardReportMerger MERGED_DIR SHARD_DIR [SHARD_DIR ...]");
+		}
+
+		List<File> shards = new ArrayList<File>();
+		for (int i = 1; i < args.length; i++) {
+			File shard = new File(args[i]);
+			if (!shard.isDirectory()) {
+				throw new IllegalArgumentException("Not a shard output directory: " + shard);
+			}
+			shards.add(shard);
+		}
+
+		File output = new File(args[0]);
+		new ShardReportMerger(output, shards).merge();
+		log.info("Merged the output of %d shard(s) into %s", shards.size(), output);
+	}
+}
@@ -0,0 +1,19 @@
+package test.automation.selenium.core.state;
+
+/**
+ * <p>A {@link StateProvider} that can set up values ahead of time (e.g. create objects in the background),
+ * once it knows how many tests will need them. When a suite starts, the {@link StatePreparationListener}
+ * counts the selected test methods that require each state, and the {@link StateRegistry} passes the count
+ * on, so that a run only sets up what its tests will use.</p>
+ *
+ * @param <T> the type of the state's value
+ */
+public interface PreparableStateProvider<T> extends StateProvider<T> {
+	/**
+	 * Declares that the given number of tests (more) will require the state.
+	 *
+	 * @param tests the number of tests: one for a shared state that any test requires, since it is only
+	 *        created once
+	 */
+	void prepare(int tests);
+}
@@ -0,0 +1,35 @@
+package test.automation.selenium.core.state;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Declares the states (e.g. "signed in", or "a notebook exists") that a test method needs before
+ * it starts, by the names under which they are registered with the {@link StateRegistry}:</p>
+ *
+ * <pre>
+ * &#64;Test(groups = "NotebookViewPage")
+ * &#64;RequiresState(CloudStates.NOTEBOOK)
+ * public void testNotebookViewPage() {
+ *     String notebookHash = getState(CloudStates.NOTEBOOK);
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Before the method runs, the harness brings the test's own driver into each state in turn (reusing
+ * whatever an earlier test already set up, see {@link StateProvider}), so the test no longer has to wait
+ * for the test that used to set that state up as a side effect, and can run alongside it on another
+ * driver. Ordering that is real (e.g. a test that must run after another one changed something) is still
+ * declared with <code>dependsOnGroups</code> / <code>dependsOnMethods</code>.</p>
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RequiresState {
+	/**
+	 * The names of the states, in the order in which to set them up.
+	 */
+	String[] value();
+}
@@ -0,0 +1,60 @@
+package test.automation.selenium.core.state;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestNGMethod;
+
+/**
+ * <p>When a suite starts, counts the test methods that it will run (after method selectors, e.g. the
+ * methods of the current shard) which declare each state with {@link RequiresState}, and hands the
+ * counts to the {@link StateRegistry}, so that {@link PreparableStateProvider}s can set those states
+ * up ahead of time, and only as many times as the suite needs them.</p>
+ *
+ */
+public class StatePreparationListener implements ISuiteListener {
+	/** Suites which have already been counted (this listener may be registered more than once) */
+	private static final Set<String> preparedSuites = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onStart(org.testng.ISuite)
+	 */
+	@Override
+	public void onStart(ISuite suite) {
+		if (!preparedSuites.add(suite.getName())) {
+			return;
+		}
+
+		Map<String, Integer> tests = new LinkedHashMap<String, Integer>();
+		for (ITestNGMethod method : suite.getAllMethods()) {
+			Method javaMethod = method.getConstructorOrMethod().getMethod();
+			RequiresState required = (javaMethod == null) ? null : javaMethod.getAnnotation(RequiresState.class);
+			if (required == null) {
+				continue;
+			}
+			for (String name : required.value()) {
+				Integer count = tests.get(name);
+				tests.put(name, (count == null) ? 1 : count + 1);
+			}
+		}
+
+		StateRegistry registry = StateRegistry.getCurrent();
+		for (Map.Entry<String, Integer> state : tests.entrySet()) {
+			registry.prepare(state.getKey(), state.getValue());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.testng.ISuiteListener#onFinish(org.testng.ISuite)
+	 */
+	@Override
+	public void onFinish(ISuite suite) {
+		preparedSuites.remove(suite.getName());
+	}
+}
@@ -0,0 +1,32 @@
+package test.automation.selenium.core.state;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>Knows how to bring a driver into one state required by tests (see {@link RequiresState}). Each
+ * state has a value that can be shared between drivers (e.g. the account that is signed in, or the ID of
+ * an object that was created): the first driver that needs the state sets it up from scratch, and every
+ * later driver is brought into the same state from that value, which is usually much quicker.</p>
+ *
+ * @param <T> the type of the state's value
+ */
+public interface StateProvider<T> {
+	/**
+	 * Sets the state up from scratch (e.g. through the UI) with the given driver.
+	 *
+	 * @param driver the driver to set the state up with
+	 * @return the value of the state, to be shared with other drivers
+	 */
+	T create(WebDriver driver);
+
+	/**
+	 * Brings the given driver into the state from a value created earlier (e.g. by injecting cookies,
+	 * or navigating to an object that already exists).
+	 *
+	 * @param driver the driver
+	 * @param value the value created earlier
+	 * @return true if the driver is now in the state, or false if the value can no longer be used
+	 *         (in which case the state is created again)
+	 */
+	boolean restore(WebDriver driver, T value);
+}
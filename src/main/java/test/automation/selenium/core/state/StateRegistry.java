@@ -0,0 +1,195 @@
+package test.automation.selenium.core.state;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>Sets up the states that tests declare with {@link RequiresState}, by name. Each state is set up
+ * from scratch only once per run (by whichever test needs it first), and its value is then shared with
+ * every other driver that needs it; a test that sets a state up as part of what it tests can also
+ * {@link #offer(String, Object)} the value, so that nobody has to set it up again.</p>
+ *
+ * <p>When several drivers need a state that does not exist yet, only one of them creates it, and the
+ * others wait for its value rather than creating their own.</p>
+ *
+ * <p>States that tests must not share (e.g. "a notebook that nobody else has touched") are registered with
+ * {@link #registerUnshared(String, StateProvider)} instead, and are created for every test that requires them.</p>
+ *
+ * <p>Providers that can set their state up ahead of time are told how many tests will require it with
+ * {@link #prepare(String, int)} when the suite starts (see {@link StatePreparationListener}).</p>
+ *
+ */
+public final class StateRegistry {
+	/** The singleton instance */
+	private static final StateRegistry current = new StateRegistry();
+
+	/** The provider of each state, by name */
+	private final ConcurrentMap<String, StateProvider<?>> providers = new ConcurrentHashMap<String, StateProvider<?>>();
+
+	/** The names of the states that are created for every test, rather than shared */
+	private final Set<String> unshared = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** The value of each state that has been set up, by name */
+	private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>();
+
+	/** One lock per state, so that concurrent callers create each state only once */
+	private final ConcurrentMap<String, Object> createLocks = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * Use {@link #getCurrent()} to obtain the registry.
+	 */
+	private StateRegistry() {
+	}
+
+	/**
+	 * Returns the registry shared by every test.
+	 *
+	 * @return the state registry
+	 */
+	public static StateRegistry getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Registers (or replaces) the provider of a state. Any value already set up for the state is kept.
+	 *
+	 * @param name the name of the state
+	 * @param provider sets the state up
+	 */
+	public void register(String name, StateProvider<?> provider) {
+		this.unshared.remove(name);
+		this.providers.put(name, provider);
+	}
+
+	/**
+	 * Registers (or replaces) the provider of a state that is created afresh for every test that requires it.
+	 *
+	 * @param name the name of the state
+	 * @param provider sets the state up (only {@link StateProvider#create(WebDriver)} is used)
+	 */
+	public void registerUnshared(String name, StateProvider<?> provider) {
+		this.unshared.add(name);
+		this.providers.put(name, provider);
+		this.values.remove(name);
+	}
+
+	/**
+	 * Returns whether or not a provider is registered for the named state.
+	 *
+	 * @param name the name of the state
+	 * @return true iff the state can be required
+	 */
+	public boolean isRegistered(String name) {
+		return this.providers.containsKey(name);
+	}
+
+	/**
+	 * Tells the provider of the named state how many tests will require it, if it can set the state up ahead
+	 * of time (see {@link PreparableStateProvider}). Does nothing for states without such a provider.
+	 *
+	 * @param name the name of the state
+	 * @param tests the number of tests that will require the state
+	 */
+	public void prepare(String name, int tests) {
+		StateProvider<?> provider = this.providers.get(name);
+		if (provider instanceof PreparableStateProvider && tests > 0) {
+			// A shared state is only created once, however many tests require it
+			((PreparableStateProvider<?>) provider).prepare(this.unshared.contains(name) ? tests : 1);
+		}
+	}
+
+	/**
+	 * Brings the given driver into the named state, reusing its value if it has already been set up,
+	 * and creating it otherwise.
+	 *
+	 * @param name the name of the state
+	 * @param driver the driver
+	 * @return the value of the state
+	 * @throws IllegalArgumentException if no provider is registered for the state
+	 */
+	public <T> T require(String name, WebDriver driver) {
+		StateProvider<T> provider = providerOf(name);
+		if (this.unshared.contains(name)) {
+			return create(name, provider, driver);
+		}
+
+		@SuppressWarnings("unchecked")
+		T value = (T) this.values.get(name);
+		if (value != null && provider.restore(driver, value)) {
+			return value;
+		}
+
+		synchronized (lockFor(name)) {
+			// Another driver may have created this state while we were waiting
+			@SuppressWarnings("unchecked")
+			T latest = (T) this.values.get(name);
+			if (latest != null && latest != value && provider.restore(driver, latest)) {
+				return latest;
+			}
+			this.values.remove(name);
+
+			T created = create(name, provider, driver);
+			this.values.put(name, created);
+			return created;
+		}
+	}
+
+	/**
+	 * Shares the value of a state that a test has set up as part of what it tests, unless the state
+	 * has already been set up.
+	 *
+	 * @param name the name of the state
+	 * @param value the value of the state
+	 */
+	public void offer(String name, Object value) {
+		if (!this.unshared.contains(name)) {
+			this.values.putIfAbsent(name, value);
+		}
+	}
+
+	/**
+	 * Forgets the value of a state (e.g. because a test destroyed it), so that it is created again
+	 * when next required.
+	 *
+	 * @param name the name of the state
+	 */
+	public void invalidate(String name) {
+		this.values.remove(name);
+	}
+
+	/**
+	 * Sets the named state up from scratch.
+	 */
+	private static <T> T create(String name, StateProvider<T> provider, WebDriver driver) {
+		T created = provider.create(driver);
+		if (created == null) {
+			throw new IllegalStateException("Failed to set up state: " + name);
+		}
+		return created;
+	}
+
+	/**
+	 * Returns the provider of the named state.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> StateProvider<T> providerOf(String name) {
+		StateProvider<T> provider = (StateProvider<T>) this.providers.get(name);
+		if (provider == null) {
+			throw new IllegalArgumentException("No provider registered for state: " + name);
+		}
+		return provider;
+	}
+
+	/**
+	 * Returns the lock guarding the creation of the named state.
+	 */
+	private Object lockFor(String name) {
+		Object lock = new Object();
+		Object existing = this.createLocks.putIfAbsent(name, lock);
+		return (existing == null) ? lock : existing;
+	}
+}
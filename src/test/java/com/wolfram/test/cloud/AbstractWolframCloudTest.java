@@ -0,0 +1,80 @@
+package com.wolfram.test.cloud;
+
+import java.util.ResourceBundle;
+
+import org.testng.annotations.AfterSuite;
+
+import test.automation.selenium.core.AbstractSeleniumTestBase;
+import test.automation.selenium.core.state.RequiresState;
+
+import com.wolfram.cloud.CloudStates;
+
+
+/**
+ * This is the base of a simple TestNG Test Suite to verify the workflow described below.
+ *
+ * <ol>
+ * <li>Go to Wolfram Cloud (www.wolframcloud.com).</li>
+ * <li>Click Wolfram Development Platform. Please create a new Wolfram ID, and you can subscribe to a Free plan.</li>
+ * <li>After signing in successfully, you will be taken to what we call, the Homescreen.</li>
+ * <li>From the Homescreen, users can create new notebooks, upload files, etc.</li>
+ * <li>On the right-hand side of the application, you will see a red "New" button.</li>
+ * <li>By clicking the down-arrow button, you can create different types of files (.nb, .html, .css, etc).</li>
+ * <li>Create a .nb notebook.</li>
+ * <li>In the new notebook, in the file header, click the file name field, "(unnamed)" -- you will see that the extension, ".nb" is automatically present.</li>
+ *
+ * <p>Each test class represents passing through a page of functionality in the workflow, and runs on
+ * a browser of its own. Rather than depending on the pages before them to leave the browser signed in
+ * (or a notebook created), tests declare the state that they need with {@link RequiresState}, and the
+ * harness sets it up (see {@link CloudStates}), so the classes can run in parallel.</p>
+ */
+public abstract class AbstractWolframCloudTest extends AbstractSeleniumTestBase {
+    /** Name for the group which tests the CloudLandingPage */
+    protected static final String TEST_GROUP_1 = "CloudLandingPage";
+
+    /** Name for the group which tests the SignInPage, expecting failure  */
+    protected static final String TEST_GROUP_2 = "SignInPage Failures";
+
+    /** Name for the group which tests the SignInPage, expecting success */
+    protected static final String TEST_GROUP_3 = "SignInPage Success";
+
+    /** Name for the group which tests the DevPlatformHomePage */
+    protected static final String TEST_GROUP_4 = "DevPlatformHomePage";
+
+    /** Name for the group which tests the NotebookViewPage */
+    protected static final String TEST_GROUP_5 = "NotebookViewPage";
+
+    // Read in credential info from credentials.properties
+    // TODO: Assumes existence of this file... this could be a little more elegant
+    /** Read in the credentials.properties file */
+	private static final ResourceBundle bundle = ResourceBundle.getBundle("credentials");
+
+    // Test data for success cases:
+    // TODO: Assumes existence of these properties... this could be a little more elegant
+	/** Valid user email to use for sign in */
+	protected static final String TEST_ACCOUNT_EMAIL = bundle.getString("test.user.valid.email");
+
+	/** Valid user password to use for sign in */
+	protected static final String TEST_ACCOUNT_PASSWORD = bundle.getString("test.user.valid.password");
+
+	// Test data for failure cases:
+    // TODO: Assumes existence of these properties... this could be a little more elegant
+	/** Invalid user email to use for sign in */
+	protected static final String INVALID_TEST_EMAIL = bundle.getString("test.user.invalid.email");
+
+	/** Invalid user password to use for sign in */
+	protected static final String INVALID_TEST_PASSWORD = bundle.getString("test.user.invalid.password");
+
+	static {
+		// Tests sign in (and create notebooks) as the valid account
+		CloudStates.register(TEST_ACCOUNT_EMAIL, TEST_ACCOUNT_PASSWORD);
+	}
+
+	/**
+	 * Deletes every notebook created for the tests.
+	 */
+	@AfterSuite(alwaysRun = true)
+	protected void cleanUpNotebooks() {
+		CloudStates.cleanUp();
+	}
+}
@@ -0,0 +1,38 @@
+package com.wolfram.test.cloud;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import com.wolfram.cloud.CloudLandingPage;
+import com.wolfram.cloud.SignInPage;
+
+
+/**
+ * Tests the first step of the workflow (see {@link AbstractWolframCloudTest}): the landing page.
+ */
+public class ITCloudLandingPage extends AbstractWolframCloudTest {
+	/**
+	 * Ensure that the user is taken to the landing page, and that they
+	 * can then navigate to the sign-in page.
+	 */
+	@Test(groups=TEST_GROUP_1)
+	public void testCloudLandingPage() {
+		 // Navigate to the start page
+        driver.get(CloudLandingPage.START_URL);
+
+        // Ensure that we have landed on the landing page
+        CloudLandingPage landing = new CloudLandingPage(driver);
+        assertEquals(driver.getTitle(), CloudLandingPage.PAGE_TITLE);
+
+		// Click "Wolfram Development Platform" and ensure that we land on the signin page
+        landing.chooseWolframDevelopmentPlatform();
+
+        /*
+         * NOTE: the test framework will never get to this assertion in a failure case,
+         * as it will timeout while waiting for the page title before reaching this statement.
+         * I include this assertion to be explicit about which page we end up on
+         */
+        assertEquals(driver.getTitle(), SignInPage.PAGE_TITLE);
+	}
+}
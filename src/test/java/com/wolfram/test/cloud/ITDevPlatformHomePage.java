@@ -0,0 +1,32 @@
+package com.wolfram.test.cloud;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import test.automation.selenium.core.state.StateRegistry;
+
+import com.wolfram.cloud.CloudStates;
+import com.wolfram.cloud.DevPlatformHomePage;
+import com.wolfram.cloud.NotebookViewPage;
+
+
+/**
+ * Tests the home page step of the workflow (see {@link AbstractWolframCloudTest}): creating a notebook.
+ */
+public class ITDevPlatformHomePage extends AbstractWolframCloudTest {
+	/**
+	 * Ensure that once signed into the WDP home page,
+	 * the user can create a new notebook.
+	 */
+	@Test(groups=TEST_GROUP_4)
+	public void testDevPlatformHomePage() {
+		// Straight to the home page, signed in from the cached session rather than signing in again
+		DevPlatformHomePage devPlatformHome = navigateTo(DevPlatformHomePage.class);
+        devPlatformHome.createNewNotebook();
+        assertEquals(driver.getTitle(), NotebookViewPage.PAGE_TITLE);
+
+        // Tests that only need a notebook to exist can use this one, rather than creating their own
+        StateRegistry.getCurrent().offer(CloudStates.NOTEBOOK, NotebookViewPage.hashOf(driver.getCurrentUrl()));
+	}
+}
@@ -0,0 +1,32 @@
+package com.wolfram.test.cloud;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import test.automation.selenium.core.state.RequiresState;
+
+import com.wolfram.cloud.CloudStates;
+import com.wolfram.cloud.NotebookViewPage;
+
+
+/**
+ * Tests the notebook step of the workflow (see {@link AbstractWolframCloudTest}): naming a new notebook.
+ */
+public class ITNotebookViewPage extends AbstractWolframCloudTest {
+	/**
+	 * Ensure that if a new notebook is created, its default file extension is ".nb".
+	 */
+	@Test(groups=TEST_GROUP_5)
+	@RequiresState(CloudStates.NEW_NOTEBOOK)
+	public void testNotebookViewPage() {
+		// Created over HTTP ahead of time, rather than through the home page
+		String notebookHash = getState(CloudStates.NEW_NOTEBOOK);
+		driver.get(NotebookViewPage.generateFullUrl(notebookHash));
+        NotebookViewPage noteBookView = new NotebookViewPage(driver).readNotebookDefaultName();
+        assertEquals(driver.getTitle(), NotebookViewPage.PAGE_TITLE);
+
+        // Verify that the default notebook ends with ".nb"
+        assertTrue(noteBookView.verifyNewNotebookDefaultName());
+	}
+}
@@ -0,0 +1,61 @@
+package com.wolfram.test.cloud;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import com.wolfram.cloud.DevPlatformHomePage;
+import com.wolfram.cloud.SignInPage;
+
+
+/**
+ * Tests the sign-in step of the workflow (see {@link AbstractWolframCloudTest}), with both
+ * invalid and valid credentials. Each test goes straight to the sign-in page (see
+ * {@link #navigateTo(Class)}), so none of them need the landing page test to have run first.
+ */
+public class ITSignInPage extends AbstractWolframCloudTest {
+	/**
+	 * Ensure that attempting to sign-in with an incorrect email address
+	 * does not allow the user access to the home page.
+	 */
+	@Test(groups=TEST_GROUP_2)
+	public void testSignInPageInvalidEmail() {
+        SignInPage signIn = navigateTo(SignInPage.class);
+        signIn = signIn.failSignInAs(INVALID_TEST_EMAIL, TEST_ACCOUNT_PASSWORD);
+        assertEquals(driver.getTitle(), SignInPage.PAGE_TITLE, "Failed login attempt should redirect back to Sign In Page.");
+	}
+
+	/**
+	 * Ensure that attempting to sign-in with an incorrect password
+	 * does not allow the user access to the home page.
+	 */
+	@Test(groups=TEST_GROUP_2)
+	public void testSignInPageInvalidPassword() {
+        SignInPage signIn = navigateTo(SignInPage.class);
+		signIn = signIn.failSignInAs(TEST_ACCOUNT_EMAIL, INVALID_TEST_PASSWORD);
+        assertEquals(driver.getTitle(), SignInPage.PAGE_TITLE, "Failed login attempt should redirect back to Sign In Page.");
+	}
+
+	/**
+	 * Ensure that attempting to sign-in with an incorrect email address
+	 * and an incorrect password does not allow the user access to the home page.
+	 */
+	@Test(groups=TEST_GROUP_2)
+	public void testSignInPageInvalidEmailAndPassword() {
+        SignInPage signIn = navigateTo(SignInPage.class);
+        signIn = signIn.failSignInAs(INVALID_TEST_EMAIL, INVALID_TEST_PASSWORD);
+        assertEquals(driver.getTitle(), SignInPage.PAGE_TITLE, "Failed login attempt should redirect back to Sign In Page.");
+	}
+
+	/**
+	 * Ensure that signing-in with valid credentials allows
+	 * the user access to the home page. Runs once the failures have been checked,
+	 * as signing in leaves this browser signed in.
+	 */
+	@Test(groups=TEST_GROUP_3, dependsOnGroups=TEST_GROUP_2)
+	public void testSignInPage() {
+        SignInPage signIn = navigateTo(SignInPage.class);
+		signIn.signInAs(TEST_ACCOUNT_EMAIL, TEST_ACCOUNT_PASSWORD);
+        assertEquals(driver.getTitle(), DevPlatformHomePage.PAGE_TITLE, "Valid login should redirect back to Wolfram Development Platform Home Page.");
+	}
+}
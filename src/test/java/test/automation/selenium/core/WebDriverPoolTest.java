@@ -0,0 +1,259 @@
+package test.automation.selenium.core;
+
+import static org.testng.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the checkout, release, discard, and shutdown accounting of {@link WebDriverPool}, with a pool of
+ * two drivers that times out at once when exhausted. The drivers are stand-ins that only count how often
+ * they are quit, launched by a {@link FakeProvider}.
+ */
+public class WebDriverPoolTest {
+	/** The provider whose pool is tested */
+	private FakeProvider provider;
+
+	/** The pool tested */
+	private WebDriverPool pool;
+
+	/** Another thread, checking drivers out of the same pool */
+	private ExecutorService otherThread;
+
+	/**
+	 * Sizes the pools, and keeps the {@link SessionScheduler} out of the way.
+	 */
+	@BeforeClass
+	public void setUpSettings() {
+		System.setProperty("webdriver.pool.htmlunit.size", "2");
+		System.setProperty("webdriver.pool.timeout.seconds", "0");
+		System.setProperty("webdriver.scheduler.enabled", "false");
+	}
+
+	/**
+	 * Clears the settings of {@link #setUpSettings()}.
+	 */
+	@AfterClass
+	public void clearSettings() {
+		System.clearProperty("webdriver.pool.htmlunit.size");
+		System.clearProperty("webdriver.pool.timeout.seconds");
+		System.clearProperty("webdriver.scheduler.enabled");
+	}
+
+	/**
+	 * Starts every test with an empty pool.
+	 */
+	@BeforeMethod
+	public void setUp() {
+		this.provider = new FakeProvider();
+		this.pool = this.provider.getPool();
+		this.otherThread = Executors.newSingleThreadExecutor();
+	}
+
+	/**
+	 * Quits whatever the test left in the pool.
+	 */
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() {
+		this.pool.shutdown();
+		this.otherThread.shutdownNow();
+	}
+
+	/**
+	 * A thread keeps the driver it holds, while other threads get drivers of their own.
+	 */
+	@Test
+	public void testCheckoutIsPerThread() throws Exception {
+		WebDriver driver = this.pool.checkout();
+		assertSame(this.pool.checkout(), driver);
+		assertNotSame(checkoutOnOtherThread(), driver);
+		assertEquals(this.provider.launches.get(), 2);
+	}
+
+	/**
+	 * Once every driver is checked out, the next checkout times out rather than launching another.
+	 */
+	@Test
+	public void testCheckoutTimesOutWhenExhausted() throws Exception {
+		this.pool.checkout();
+		checkoutOnOtherThread();
+
+		ExecutorService thirdThread = Executors.newSingleThreadExecutor();
+		try {
+			thirdThread.submit(checkout()).get();
+			fail("The checkout should have timed out");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException, "Expected a timeout, but got " + e.getCause());
+		} finally {
+			thirdThread.shutdownNow();
+		}
+		assertEquals(this.provider.launches.get(), 2);
+	}
+
+	/**
+	 * A released driver is handed to the next thread, rather than launching another.
+	 */
+	@Test
+	public void testReleasedDriverIsReused() throws Exception {
+		WebDriver driver = this.pool.checkout();
+		this.pool.release(driver);
+		assertSame(checkoutOnOtherThread(), driver);
+		assertEquals(this.provider.launches.get(), 1);
+		assertEquals(this.provider.quits.get(), 0);
+	}
+
+	/**
+	 * A discarded driver is quit, and frees its slot for a new one.
+	 */
+	@Test
+	public void testDiscardFreesSlot() throws Exception {
+		WebDriver driver = this.pool.checkout();
+		checkoutOnOtherThread();
+		this.pool.discard(driver);
+		assertEquals(this.provider.quits.get(), 1);
+
+		WebDriver replacement = this.pool.checkout();
+		assertNotSame(replacement, driver);
+		assertEquals(this.provider.launches.get(), 3);
+	}
+
+	/**
+	 * A thread whose driver was discarded by another thread is not handed that driver again.
+	 */
+	@Test
+	public void testDriverDiscardedByAnotherThreadIsNotReturned() throws Exception {
+		final WebDriver driver = this.pool.checkout();
+		this.otherThread.submit(new Runnable() {
+			@Override
+			public void run() {
+				pool.discard(driver);
+			}
+		}).get();
+
+		assertNotSame(this.pool.checkout(), driver);
+		assertEquals(this.provider.launches.get(), 2);
+	}
+
+	/**
+	 * A launch that fails gives its slot back.
+	 */
+	@Test
+	public void testFailedLaunchFreesSlot() throws Exception {
+		this.provider.failures.set(2);
+		for (int i = 0; i < 2; i++) {
+			try {
+				this.pool.checkout();
+				fail("The launch should have failed");
+			} catch (WebDriverException e) {
+				// Expected
+			}
+		}
+
+		this.pool.checkout();
+		checkoutOnOtherThread();
+		assertEquals(this.provider.launches.get(), 2);
+	}
+
+	/**
+	 * A shutdown quits both idle and checked out drivers, and the pool can be used again afterwards.
+	 */
+	@Test
+	public void testShutdownQuitsEveryDriver() throws Exception {
+		WebDriver idle = this.pool.checkout();
+		this.pool.release(idle);
+		WebDriver leased = checkoutOnOtherThread();
+		assertSame(leased, idle);
+		this.pool.checkout();
+
+		this.pool.shutdown();
+		assertEquals(this.provider.quits.get(), 2);
+
+		this.pool.checkout();
+		checkoutOnOtherThread();
+		assertEquals(this.provider.launches.get(), 4);
+	}
+
+	/**
+	 * Checks a driver out on {@link #otherThread}, which keeps it.
+	 */
+	private WebDriver checkoutOnOtherThread() throws Exception {
+		return this.otherThread.submit(checkout()).get();
+	}
+
+	/**
+	 * Returns a task checking out a driver.
+	 */
+	private Callable<WebDriver> checkout() {
+		return new Callable<WebDriver>() {
+			@Override
+			public WebDriver call() {
+				return pool.checkout();
+			}
+		};
+	}
+
+	/**
+	 * Launches stand-in drivers, counting how many are launched and quit.
+	 */
+	private static final class FakeProvider extends AbstractWebDriverProvider {
+		/** The number of drivers launched */
+		private final AtomicInteger launches = new AtomicInteger();
+
+		/** The number of drivers quit */
+		private final AtomicInteger quits = new AtomicInteger();
+
+		/** The number of launches still to fail */
+		private final AtomicInteger failures = new AtomicInteger();
+
+		/**
+		 * Creates a provider of stand-in HtmlUnit drivers.
+		 */
+		private FakeProvider() {
+			super(BrowserType.HTMLUNIT);
+		}
+
+		/* (non-Javadoc)
+		 * @see test.automation.selenium.core.AbstractWebDriverProvider#createDriver()
+		 */
+		@Override
+		protected WebDriver createDriver() {
+			if (this.failures.getAndDecrement() > 0) {
+				throw new WebDriverException("Launch failed");
+			}
+			this.launches.incrementAndGet();
+			return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WebDriver.class }, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					switch (method.getName()) {
+						case "quit":
+							quits.incrementAndGet();
+							return null;
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "Stand-in driver";
+						default:
+							return null;
+					}
+				}
+			});
+		}
+	}
+}
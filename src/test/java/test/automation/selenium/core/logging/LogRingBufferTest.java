@@ -0,0 +1,126 @@
+package test.automation.selenium.core.logging;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link LogRingBuffer}: its capacity, its order as positions wrap around the slots, the counting of
+ * dropped events, and that concurrent logging threads neither lose nor repeat an event that was accepted.
+ */
+public class LogRingBufferTest {
+	/**
+	 * The capacity is rounded up to a power of two, beyond which events are dropped and counted.
+	 */
+	@Test
+	public void testFullBufferDrops() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<Integer>(3);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i), "Event " + i + " should fit");
+		}
+		assertFalse(buffer.offer(4));
+		assertFalse(buffer.offer(5));
+		assertEquals(buffer.getDroppedCount(), 2);
+		assertEquals(buffer.getClaimedCount(), 4);
+
+		// Taking an event makes room for exactly one more
+		assertEquals(buffer.poll(), Integer.valueOf(0));
+		assertTrue(buffer.offer(6));
+		assertFalse(buffer.offer(7));
+		assertEquals(buffer.getDroppedCount(), 3);
+	}
+
+	/**
+	 * Events come out in order as positions wrap around the slots many times over.
+	 */
+	@Test
+	public void testWraparound() {
+		LogRingBuffer<Integer> buffer = new LogRingBuffer<Integer>(4);
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 100; round++) {
+			// Alternate between filling the buffer and leaving it partly empty, so that head and tail wrap at different slots
+			int batch = (round % 2 == 0) ? 4 : 3;
+			for (int i = 0; i < batch; i++) {
+				assertTrue(buffer.offer(next++));
+			}
+			for (int i = 0; i < batch; i++) {
+				assertEquals(buffer.poll(), Integer.valueOf(expected++));
+			}
+			assertNull(buffer.poll());
+		}
+		assertEquals(buffer.getClaimedCount(), next);
+		assertEquals(buffer.getTakenCount(), expected);
+		assertEquals(buffer.getDroppedCount(), 0);
+	}
+
+	/**
+	 * An empty buffer has nothing to take.
+	 */
+	@Test
+	public void testEmpty() {
+		LogRingBuffer<String> buffer = new LogRingBuffer<String>(8);
+		assertNull(buffer.poll());
+		assertEquals(buffer.getTakenCount(), 0);
+	}
+
+	/**
+	 * Every event from several logging threads is either taken once, in each thread's order, or counted as dropped.
+	 */
+	@Test
+	public void testConcurrentOffers() throws Exception {
+		final int threads = 4;
+		final int eventsPerThread = 50000;
+		final LogRingBuffer<long[]> buffer = new LogRingBuffer<long[]>(64);
+		final CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> loggers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final long thread = t;
+			Thread logger = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (long i = 0; i < eventsPerThread; i++) {
+						buffer.offer(new long[] { thread, i });
+					}
+				}
+			});
+			logger.start();
+			loggers.add(logger);
+		}
+
+		long[] lastTaken = new long[threads];
+		Arrays.fill(lastTaken, -1);
+		long taken = 0;
+		start.countDown();
+		while (taken + buffer.getDroppedCount() < (long) threads * eventsPerThread) {
+			long[] event = buffer.poll();
+			if (event == null) {
+				Thread.yield();
+				continue;
+			}
+			int thread = (int) event[0];
+			assertTrue(event[1] > lastTaken[thread], "Thread " + thread + "'s event " + event[1] + " was taken after " + lastTaken[thread]);
+			lastTaken[thread] = event[1];
+			taken++;
+		}
+		for (Thread logger : loggers) {
+			logger.join();
+		}
+
+		assertNull(buffer.poll());
+		assertEquals(buffer.getTakenCount(), taken);
+		assertEquals(buffer.getClaimedCount(), taken);
+		assertEquals(taken + buffer.getDroppedCount(), (long) threads * eventsPerThread);
+	}
+}
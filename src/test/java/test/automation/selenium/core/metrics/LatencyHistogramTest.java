@@ -0,0 +1,140 @@
+package test.automation.selenium.core.metrics;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the bucket boundaries and statistics of {@link LatencyHistogram}. Each value whose bucket is checked is
+ * recorded together with a much larger one, so that the median is the highest value of that value's bucket
+ * rather than being clamped to the maximum recorded.
+ */
+public class LatencyHistogramTest {
+	/** A value well above those whose buckets are checked, in microseconds */
+	private static final long LARGE_MICROS = 1000000;
+
+	/**
+	 * Values below 32 microseconds are counted exactly.
+	 */
+	@Test
+	public void testSmallValuesAreExact() {
+		for (long micros = 0; micros < 32; micros++) {
+			assertEquals(bucketTop(micros), micros);
+		}
+	}
+
+	/**
+	 * From 32 microseconds, every power of two is split into 16 buckets.
+	 */
+	@Test
+	public void testBucketBoundaries() {
+		// Buckets of 2 from 32 to 64
+		assertEquals(bucketTop(32), 33);
+		assertEquals(bucketTop(33), 33);
+		assertEquals(bucketTop(34), 35);
+		assertEquals(bucketTop(63), 63);
+
+		// Buckets of 4 from 64 to 128
+		assertEquals(bucketTop(64), 67);
+		assertEquals(bucketTop(67), 67);
+		assertEquals(bucketTop(68), 71);
+		assertEquals(bucketTop(127), 127);
+		assertEquals(bucketTop(128), 135);
+
+		// Buckets of 2^16 from 2^20 (about a second) to 2^21
+		assertEquals(bucketTop(1 << 20), (1 << 20) + (1 << 16) - 1);
+		assertEquals(bucketTop((1 << 21) - 1), (1 << 21) - 1);
+	}
+
+	/**
+	 * Every value is reported to within one sixteenth of its true value.
+	 */
+	@Test
+	public void testRelativeError() {
+		for (long micros = 1; micros < (1L << 32); micros = micros * 3 + 1) {
+			long top = bucketTop(micros);
+			assertTrue(top >= micros && top - micros <= micros / 16, micros + " was reported as " + top);
+		}
+	}
+
+	/**
+	 * Values of about 71 minutes or more all share the last bucket.
+	 */
+	@Test
+	public void testLastBucketIsShared() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record((1L << 32) * 1000);
+		histogram.record((1L << 40) * 1000);
+		assertEquals(histogram.getPercentileMicros(50), histogram.getPercentileMicros(100));
+		assertEquals(histogram.getMaxMicros(), 1L << 40);
+	}
+
+	/**
+	 * Percentiles never exceed the largest value recorded.
+	 */
+	@Test
+	public void testPercentilesAreClampedToMaximum() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(34000);
+		assertEquals(histogram.getPercentileMicros(100), 34);
+		assertEquals(histogram.getPercentileMicros(0), 34);
+	}
+
+	/**
+	 * Latencies are recorded in whole microseconds, and negative ones as 0.
+	 */
+	@Test
+	public void testNanosAreTruncatedToMicros() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(999);
+		histogram.record(-5000);
+		histogram.record(2500);
+		assertEquals(histogram.getCount(), 3);
+		assertEquals(histogram.getTotalMicros(), 2);
+		assertEquals(histogram.getMaxMicros(), 2);
+		assertEquals(histogram.getPercentileMicros(50), 0);
+	}
+
+	/**
+	 * An empty histogram reports zeros.
+	 */
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(histogram.getCount(), 0);
+		assertEquals(histogram.getMeanMicros(), 0);
+		assertEquals(histogram.getPercentileMicros(99), 0);
+	}
+
+	/**
+	 * Adding a histogram adds its counts, total, and maximum.
+	 */
+	@Test
+	public void testAdd() {
+		LatencyHistogram first = new LatencyHistogram();
+		first.record(10000);
+		first.record(20000);
+		LatencyHistogram second = new LatencyHistogram();
+		second.record(30000);
+		second.record(LARGE_MICROS * 1000);
+
+		first.add(second);
+		assertEquals(first.getCount(), 4);
+		assertEquals(first.getTotalMicros(), 10 + 20 + 30 + LARGE_MICROS);
+		assertEquals(first.getMeanMicros(), (10 + 20 + 30 + LARGE_MICROS) / 4);
+		assertEquals(first.getMaxMicros(), LARGE_MICROS);
+		assertEquals(first.getPercentileMicros(50), 20);
+		assertEquals(first.getPercentileMicros(75), 30);
+	}
+
+	/**
+	 * Returns the highest value of the bucket counting the given value, as reported by the median of
+	 * that value and a much larger one.
+	 */
+	private static long bucketTop(long micros) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(micros * 1000);
+		histogram.record(Math.max(LARGE_MICROS, micros * 2) * 1000);
+		return histogram.getPercentileMicros(50);
+	}
+}
@@ -0,0 +1,159 @@
+package test.automation.selenium.core.sharding;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlMethodSelector;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Tests {@link ShardMethodSelector} by running a small suite (see {@link ShardedSuite}) once for each shard,
+ * and checking that the shards split it between them without losing or repeating a test, and without
+ * separating a chain of dependent tests.
+ */
+public class ShardMethodSelectorTest {
+	/** The tests of the suite that depend on nothing, and that nothing depends on */
+	private static final List<String> INDEPENDENT = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+
+	/** A chain of tests depending on one another by name */
+	private static final List<String> METHOD_CHAIN = Arrays.asList("first", "second", "third");
+
+	/** A chain of tests depending on one another by group */
+	private static final List<String> GROUP_CHAIN = Arrays.asList("setUp", "afterSetUp");
+
+	/**
+	 * A single shard runs every test.
+	 */
+	@Test
+	public void testOneShardRunsEverything() {
+		assertEquals(run(0, 1), allTests());
+	}
+
+	/**
+	 * Two shards split the tests between them, keeping the chains together.
+	 */
+	@Test
+	public void testTwoShards() {
+		checkShards(2);
+	}
+
+	/**
+	 * Three shards split the tests between them, keeping the chains together.
+	 */
+	@Test
+	public void testThreeShards() {
+		checkShards(3);
+	}
+
+	/**
+	 * An index outside of the shards is refused.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidShard() {
+		withShard("3", "3");
+		try {
+			new ShardMethodSelector();
+		} finally {
+			withShard(null, null);
+		}
+	}
+
+	/**
+	 * Runs every one of the given number of shards, and checks how they split the suite.
+	 */
+	private static void checkShards(int count) {
+		List<Set<String>> shards = new ArrayList<Set<String>>();
+		Set<String> ran = new HashSet<String>();
+		for (int index = 0; index < count; index++) {
+			Set<String> shard = run(index, count);
+			for (String test : shard) {
+				assertTrue(ran.add(test), test + " ran in more than one of " + count + " shards");
+			}
+			shards.add(shard);
+		}
+		assertEquals(ran, allTests(), "The " + count + " shards together should run every test");
+
+		for (Set<String> shard : shards) {
+			assertNotEquals(shard, allTests(), "One of " + count + " shards should not be handed every test");
+			for (List<String> chain : Arrays.asList(METHOD_CHAIN, GROUP_CHAIN)) {
+				if (!Collections.disjoint(shard, chain)) {
+					assertTrue(shard.containsAll(chain), "Shard " + shard + " should run the whole of " + chain);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs one shard of the suite, and returns the names of the tests that passed.
+	 */
+	private static Set<String> run(int index, int count) {
+		XmlSuite suite = new XmlSuite();
+		suite.setName("Sharded");
+		XmlMethodSelector selector = new XmlMethodSelector();
+		selector.setName(ShardMethodSelector.class.getName());
+		selector.setPriority(1);
+		suite.setMethodSelectors(Collections.singletonList(selector));
+		XmlTest test = new XmlTest(suite);
+		test.setName("Sharded tests");
+		test.addParameter("browser", "htmlunit");
+		test.setXmlClasses(Collections.singletonList(new XmlClass(ShardedSuite.class)));
+
+		TestListenerAdapter results = new TestListenerAdapter();
+		TestNG testng = new TestNG();
+		testng.setUseDefaultListeners(false);
+		testng.setVerbose(0);
+		testng.setOutputDirectory("target/shard-test-output");
+		testng.setXmlSuites(Collections.singletonList(suite));
+		testng.addListener(results);
+
+		withShard(String.valueOf(index), String.valueOf(count));
+		try {
+			testng.run();
+		} finally {
+			withShard(null, null);
+		}
+
+		assertTrue(results.getFailedTests().isEmpty() && results.getSkippedTests().isEmpty(),
+				"Shard " + index + " of " + count + " should not fail or skip a test: " + results.getFailedTests() + results.getSkippedTests());
+		Set<String> passed = new HashSet<String>();
+		for (ITestResult result : results.getPassedTests()) {
+			passed.add(result.getMethod().getMethodName());
+		}
+		return passed;
+	}
+
+	/**
+	 * Sets (or, given nulls, clears) the settings naming the shard.
+	 */
+	private static void withShard(String index, String count) {
+		if (index == null) {
+			System.clearProperty("shard.index");
+			System.clearProperty("shard.count");
+		} else {
+			System.setProperty("shard.index", index);
+			System.setProperty("shard.count", count);
+		}
+	}
+
+	/**
+	 * Returns the names of every test of the suite.
+	 */
+	private static Set<String> allTests() {
+		Set<String> all = new HashSet<String>(INDEPENDENT);
+		all.addAll(METHOD_CHAIN);
+		all.addAll(GROUP_CHAIN);
+		return all;
+	}
+}
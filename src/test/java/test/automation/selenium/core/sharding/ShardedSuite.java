@@ -0,0 +1,27 @@
+package test.automation.selenium.core.sharding;
+
+import org.testng.annotations.Test;
+
+/**
+ * The tests that {@link ShardMethodSelectorTest} splits into shards: independent tests, a chain of tests
+ * depending on one another by name, and a chain depending on one another by group. Not run on its own.
+ */
+public class ShardedSuite {
+	@Test public void a() { }
+	@Test public void b() { }
+	@Test public void c() { }
+	@Test public void d() { }
+	@Test public void e() { }
+	@Test public void f() { }
+	@Test public void g() { }
+	@Test public void h() { }
+	@Test public void i() { }
+	@Test public void j() { }
+
+	@Test public void first() { }
+	@Test(dependsOnMethods = "first") public void second() { }
+	@Test(dependsOnMethods = "second") public void third() { }
+
+	@Test(groups = "setUp") public void setUp() { }
+	@Test(dependsOnGroups = "setUp") public void afterSetUp() { }
+}